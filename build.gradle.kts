@@ -185,6 +185,24 @@ java {
   }
 }
 
+/**
+ * JMH benchmarks (src/jmh/java). They are kept out of the application JAR and are only run on
+ * request by the "jmh" task.
+ */
+sourceSets {
+  create("jmh") {
+    compileClasspath += sourceSets.main.get().output
+    runtimeClasspath += sourceSets.main.get().output
+  }
+}
+configurations["jmhImplementation"].extendsFrom(configurations.implementation.get())
+configurations["jmhRuntimeOnly"].extendsFrom(configurations.runtimeOnly.get())
+
+dependencies {
+  "jmhImplementation"("org.openjdk.jmh:jmh-core:1.33")
+  "jmhAnnotationProcessor"("org.openjdk.jmh:jmh-generator-annprocess:1.33")
+}
+
 task<Jar>("sourcesJar") {
   group = "build"
   description = "Creates a JAR archive with project sources."
@@ -575,6 +593,23 @@ tasks.register("genBuildInfo") {
   }
 }
 
+/**
+ * Task: jmh
+ *
+ * Runs the JMH benchmarks. Arguments for the JMH runner can be passed with -Pjmh, i.e.
+ * "./gradlew jmh -Pjmh='PropagatorBenchmark -f 1 -rf json'" to run a subset and store the
+ * results, so that they can be compared with those of an earlier release.
+ */
+tasks.register<JavaExec>("jmh") {
+  group = "verification"
+  description = "Runs the JMH benchmarks."
+  classpath = sourceSets["jmh"].runtimeClasspath
+  mainClass.set("org.openjdk.jmh.Main")
+  val jmhArgs = findProperty("jmh") as String?
+  if (jmhArgs != null) args = jmhArgs.trim().split(Regex("\\s+"))
+  systemProperty("java.awt.headless", "true")
+}
+
 /**
  * Task: genFiles
  *
@@ -633,6 +668,10 @@ tasks {
     options.compilerArgs = compilerOptions
     dependsOn("genFiles")
   }
+  named<JavaCompile>("compileJmhJava") {
+    options.encoding = "UTF-8"
+    options.compilerArgs = compilerOptions
+  }
 
   test {
     useJUnitPlatform()
@@ -0,0 +1,279 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim;
+
+import com.cburch.logisim.circuit.Circuit;
+import com.cburch.logisim.circuit.CircuitMutation;
+import com.cburch.logisim.circuit.Wire;
+import com.cburch.logisim.comp.Component;
+import com.cburch.logisim.comp.ComponentFactory;
+import com.cburch.logisim.data.AttributeSet;
+import com.cburch.logisim.data.BitWidth;
+import com.cburch.logisim.data.Location;
+import com.cburch.logisim.file.Loader;
+import com.cburch.logisim.file.LogisimFile;
+import com.cburch.logisim.instance.Instance;
+import com.cburch.logisim.instance.StdAttr;
+import com.cburch.logisim.proj.Project;
+import com.cburch.logisim.std.arith.Adder;
+import com.cburch.logisim.std.gates.GateAttributes;
+import com.cburch.logisim.std.memory.Counter;
+import com.cburch.logisim.std.memory.Mem;
+import com.cburch.logisim.std.memory.RamAppearance;
+import com.cburch.logisim.std.wiring.Clock;
+import com.cburch.logisim.std.wiring.Constant;
+import com.cburch.logisim.std.wiring.Pin;
+import com.cburch.logisim.std.wiring.Tunnel;
+import com.cburch.logisim.tools.AddTool;
+import java.util.function.Consumer;
+
+/**
+ * Builds circuits for the benchmarks. Components are spread over a coarse grid so that none of
+ * their ports touch, and nets are formed by tunnels placed on the ports, which spares us from
+ * routing wires.
+ */
+public final class SyntheticCircuits {
+  private static final int GRID = 400;
+
+  private final Loader loader = new Loader(null);
+  private final LogisimFile file = LogisimFile.createNew(loader, null);
+  private final ComponentFactory andGate = builtin("Gates", "AND Gate");
+  private final ComponentFactory orGate = builtin("Gates", "OR Gate");
+  private final ComponentFactory xorGate = builtin("Gates", "XOR Gate");
+  private final ComponentFactory notGate = builtin("Gates", "NOT Gate");
+  private Project project;
+
+  public SyntheticCircuits() {
+    Main.headless = true;
+    for (final var lib : new String[] {"Wiring", "Gates", "Arithmetic", "Memory"}) {
+      file.addLibrary(loader.getBuiltin().getLibrary(lib));
+    }
+  }
+
+  public LogisimFile getFile() {
+    return file;
+  }
+
+  public Loader getLoader() {
+    return loader;
+  }
+
+  /** Returns the project of the file, creating it once all circuits have been added. */
+  public Project getProject() {
+    if (project == null) project = new Project(file);
+    return project;
+  }
+
+  private ComponentFactory builtin(String lib, String name) {
+    return ((AddTool) loader.getBuiltin().getLibrary(lib).getTool(name)).getFactory();
+  }
+
+  /** Collects the components of one circuit and adds them in a single mutation. */
+  private static class Builder {
+    final Circuit circuit;
+    final CircuitMutation mutation;
+    int slot = 0;
+
+    Builder(Circuit circuit) {
+      this.circuit = circuit;
+      this.mutation = new CircuitMutation(circuit);
+    }
+
+    Component add(ComponentFactory factory, Consumer<AttributeSet> setup) {
+      final var attrs = factory.createAttributeSet();
+      if (setup != null) setup.accept(attrs);
+      final var loc = Location.create(GRID * (1 + slot % 64), GRID * (1 + slot / 64));
+      slot++;
+      final var comp = factory.createComponent(loc, attrs);
+      mutation.add(comp);
+      return comp;
+    }
+
+    /** Connects the given port of the component to the net of that name. */
+    void connect(Component comp, int port, String net) {
+      final var end = comp.getEnd(port);
+      final var attrs = Tunnel.FACTORY.createAttributeSet();
+      attrs.setValue(StdAttr.LABEL, net);
+      attrs.setValue(StdAttr.WIDTH, end.getWidth());
+      mutation.add(Tunnel.FACTORY.createComponent(end.getLocation(), attrs));
+    }
+
+    Component pin(String name, int width, boolean output) {
+      final var ret = add(Pin.FACTORY, attrs -> {
+        attrs.setValue(StdAttr.WIDTH, BitWidth.create(width));
+        attrs.setValue(StdAttr.LABEL, name);
+        attrs.setValue(Pin.ATTR_TYPE, output);
+      });
+      connect(ret, 0, name);
+      return ret;
+    }
+
+    Component gate(ComponentFactory factory, String out, String... in) {
+      return gate(factory, 1, out, in);
+    }
+
+    Component gate(ComponentFactory factory, int width, String out, String... in) {
+      final var ret = add(factory, attrs -> {
+        attrs.setValue(StdAttr.WIDTH, BitWidth.create(width));
+        if (attrs.containsAttribute(GateAttributes.ATTR_INPUTS)) attrs.setValue(GateAttributes.ATTR_INPUTS, in.length);
+      });
+      connect(ret, 0, out);
+      for (var i = 0; i < in.length; i++) connect(ret, i + 1, in[i]);
+      return ret;
+    }
+
+    void finish() {
+      mutation.execute();
+    }
+  }
+
+  /** Returns the pin with the given label. */
+  public static Instance findPin(Circuit circuit, String label) {
+    for (final var comp : circuit.getNonWires()) {
+      if (comp.getFactory() instanceof Pin && label.equals(comp.getAttributeSet().getValue(StdAttr.LABEL))) {
+        return Instance.getInstanceFor(comp);
+      }
+    }
+    throw new IllegalArgumentException("no pin " + label);
+  }
+
+  private Circuit createCircuit(String name) {
+    final var ret = new Circuit(name, file, null);
+    file.addCircuit(ret);
+    return ret;
+  }
+
+  /**
+   * Adds a ripple carry adder made of gates, with one bit input pins a0.., b0.., cin and output
+   * pins s0.., cout.
+   */
+  public Circuit rippleAdder(String name, int bits) {
+    final var b = new Builder(createCircuit(name));
+    b.pin("cin", 1, false);
+    for (var i = 0; i < bits; i++) {
+      final var carry = i == 0 ? "cin" : "c" + i;
+      final var carryOut = i == bits - 1 ? "cout" : "c" + (i + 1);
+      b.pin("a" + i, 1, false);
+      b.pin("b" + i, 1, false);
+      b.pin("s" + i, 1, true);
+      b.gate(xorGate, "x" + i, "a" + i, "b" + i);
+      b.gate(xorGate, "s" + i, "x" + i, carry);
+      b.gate(andGate, "g" + i, "a" + i, "b" + i);
+      b.gate(andGate, "p" + i, "x" + i, carry);
+      b.gate(orGate, carryOut, "g" + i, "p" + i);
+    }
+    b.pin("cout", 1, true);
+    b.finish();
+    return b.circuit;
+  }
+
+  /**
+   * Adds a chain of stages of gates of the given width between the input pins a and b and the
+   * output pin out. Each stage computes s' = ((s xor b) and a) or not s, so a change of b passes
+   * through every gate.
+   */
+  public Circuit gateChain(String name, int width, int stages) {
+    final var b = new Builder(createCircuit(name));
+    b.pin("a", width, false);
+    b.pin("b", width, false);
+    var net = "a";
+    for (var i = 0; i < stages; i++) {
+      final var next = i == stages - 1 ? "out" : "s" + (i + 1);
+      b.gate(xorGate, width, "x" + i, net, "b");
+      b.gate(andGate, width, "y" + i, "x" + i, "a");
+      b.gate(notGate, width, "n" + i, net);
+      b.gate(orGate, width, next, "y" + i, "n" + i);
+      net = next;
+    }
+    b.pin("out", width, true);
+    b.finish();
+    return b.circuit;
+  }
+
+  /**
+   * Adds a clocked circuit in which a counter addresses a number of RAMs. Every RAM writes back its
+   * own output plus the address, so each clock cycle reads and writes all memories.
+   */
+  public Circuit ramMachine(String name, int rams) {
+    final var b = new Builder(createCircuit(name));
+    final var clock = b.add(Clock.FACTORY, null);
+    b.connect(clock, 0, "clk");
+    final var one = b.add(Constant.FACTORY, null);
+    b.connect(one, 0, "one");
+    final var counter = b.add(builtin("Memory", "Counter"), attrs -> attrs.setValue(StdAttr.WIDTH, BitWidth.create(8)));
+    b.connect(counter, Counter.OUT, "pc");
+    b.connect(counter, Counter.CK, "clk");
+    final var ramFactory = builtin("Memory", "RAM");
+    final var adderFactory = builtin("Arithmetic", "Adder");
+    for (var i = 0; i < rams; i++) {
+      final var ram = b.add(ramFactory, attrs -> {
+        attrs.setValue(Mem.ADDR_ATTR, BitWidth.create(8));
+        attrs.setValue(Mem.DATA_ATTR, BitWidth.create(8));
+      });
+      final var attrs = ram.getAttributeSet();
+      b.connect(ram, RamAppearance.getAddrIndex(0, attrs), "pc");
+      b.connect(ram, RamAppearance.getDataOutIndex(0, attrs), "q" + i);
+      final var dataIn = RamAppearance.getDataInIndex(0, attrs);
+      if (dataIn != RamAppearance.getDataOutIndex(0, attrs)) b.connect(ram, dataIn, "d" + i);
+      for (final var port : new int[] {RamAppearance.getWEIndex(0, attrs), RamAppearance.getOEIndex(0, attrs)}) {
+        if (port >= 0) b.connect(ram, port, "one");
+      }
+      if (RamAppearance.getClkIndex(0, attrs) >= 0) b.connect(ram, RamAppearance.getClkIndex(0, attrs), "clk");
+      final var adder = b.add(adderFactory, a -> a.setValue(StdAttr.WIDTH, BitWidth.create(8)));
+      b.connect(adder, Adder.IN0, "q" + i);
+      b.connect(adder, Adder.IN1, "pc");
+      b.connect(adder, Adder.OUT, "d" + i);
+    }
+    b.pin("pc", 8, true);
+    b.finish();
+    return b.circuit;
+  }
+
+  /**
+   * Adds a chain of depth circuits, each holding the previous one and an inverter between its
+   * input pin "in" and output pin "out"; the last one is returned.
+   */
+  public Circuit nested(String name, int depth) {
+    Circuit inner = null;
+    for (var level = 0; level < depth; level++) {
+      final var b = new Builder(createCircuit(name + level));
+      b.pin("in", 1, false);
+      b.pin("out", 1, true);
+      var net = "in";
+      if (inner != null) {
+        final var sub = b.add(inner.getSubcircuitFactory(), null);
+        for (var port = 0; port < sub.getEnds().size(); port++) {
+          b.connect(sub, port, sub.getEnd(port).isInput() ? "in" : "mid");
+        }
+        net = "mid";
+      }
+      b.gate(notGate, "out", net);
+      b.finish();
+      inner = b.circuit;
+    }
+    return inner;
+  }
+
+  /**
+   * Adds a circuit consisting of rows of chained wire segments, which gives the bundle map a lot of
+   * points to merge.
+   */
+  public Circuit wireGrid(String name, int rows, int segments) {
+    final var b = new Builder(createCircuit(name));
+    for (var row = 0; row < rows; row++) {
+      final var y = 10 * (2 * row + 1);
+      for (var i = 0; i < segments; i++) {
+        b.mutation.add(Wire.create(Location.create(10 * (i + 1), y), Location.create(10 * (i + 2), y)));
+      }
+    }
+    b.finish();
+    return b.circuit;
+  }
+}
@@ -0,0 +1,76 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.circuit;
+
+import com.cburch.logisim.SyntheticCircuits;
+import com.cburch.logisim.data.Location;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures rebuilding the bundle map for a circuit made of many wire segments and for one whose
+ * nets are all formed by tunnels, and deriving it from the previous map after a single wire of
+ * the grid was edited, which is what happens after most edits of a circuit.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class CircuitWiresBenchmark {
+  @Param({"32", "128"})
+  private int scale;
+
+  private Circuit wireGrid;
+  private Circuit tunnels;
+  private CircuitWires.BundleMap wireGridMap;
+  private Set<Location> editedPoints;
+
+  @Setup
+  public void setup() {
+    final var circuits = new SyntheticCircuits();
+    wireGrid = circuits.wireGrid("grid", scale, scale);
+    tunnels = circuits.rippleAdder("adder", scale);
+    wireGridMap = wireGrid();
+    final var edited = wireGrid.getWires().iterator().next();
+    editedPoints = Set.of(edited.getEnd0(), edited.getEnd1());
+  }
+
+  @Benchmark
+  public CircuitWires.BundleMap wireGrid() {
+    final var ret = new CircuitWires.BundleMap();
+    wireGrid.wires.computeBundleMap(ret);
+    return ret;
+  }
+
+  @Benchmark
+  public CircuitWires.BundleMap wireGridEdit() {
+    return wireGrid.wires.updateBundleMap(wireGridMap, editedPoints);
+  }
+
+  @Benchmark
+  public CircuitWires.BundleMap tunnels() {
+    final var ret = new CircuitWires.BundleMap();
+    tunnels.wires.computeBundleMap(ret);
+    return ret;
+  }
+}
@@ -0,0 +1,71 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.circuit;
+
+import com.cburch.logisim.SyntheticCircuits;
+import com.cburch.logisim.data.Value;
+import com.cburch.logisim.instance.Instance;
+import com.cburch.logisim.std.wiring.Pin;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures {@link Propagator#propagate} on a long chain of multi bit gates, where every gate
+ * evaluation creates a new {@link Value}. The widths cover the interned values and the cached
+ * wider ones; run with "-prof gc" to see the allocations per propagation (gc.alloc.rate.norm).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class GateChainBenchmark {
+  private static final int STAGES = 64;
+
+  @Param({"4", "8", "16", "32"})
+  private int width;
+
+  private CircuitState state;
+  private Instance input;
+  private Value[] inputValues;
+  private int step;
+
+  @Setup
+  public void setup() {
+    final var circuits = new SyntheticCircuits();
+    final var chain = circuits.gateChain("chain", width, STAGES);
+    state = new CircuitState(circuits.getProject(), chain);
+    Pin.FACTORY.setValue(state.getInstanceState(SyntheticCircuits.findPin(chain, "a")), Value.createKnown(width, 0x5a5a5a5aL));
+    input = SyntheticCircuits.findPin(chain, "b");
+    inputValues = new Value[16];
+    for (var i = 0; i < inputValues.length; i++) {
+      inputValues[i] = Value.createKnown(width, 0x9e3779b9L * (i + 1));
+    }
+    state.getPropagator().propagate();
+  }
+
+  @Benchmark
+  public boolean propagate() {
+    step = (step + 1) % inputValues.length;
+    Pin.FACTORY.setValue(state.getInstanceState(input), inputValues[step]);
+    return state.getPropagator().propagate();
+  }
+}
@@ -0,0 +1,96 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.circuit;
+
+import com.cburch.logisim.SyntheticCircuits;
+import com.cburch.logisim.data.Value;
+import com.cburch.logisim.instance.Instance;
+import com.cburch.logisim.std.wiring.Pin;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures {@link Propagator#propagate} on a gate level ripple carry adder, on a clocked circuit
+ * full of RAMs and on a deep chain of nested subcircuits. The scale is the number of adder bits,
+ * four times the number of RAMs and the nesting depth.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class PropagatorBenchmark {
+  @Param({"16", "64"})
+  private int scale;
+
+  private CircuitState adderState;
+  private Instance carryIn;
+  private CircuitState ramState;
+  private CircuitState nestedState;
+  private Instance nestedIn;
+  private boolean toggle;
+
+  @Setup
+  public void setup() {
+    final var circuits = new SyntheticCircuits();
+    final var adder = circuits.rippleAdder("adder", scale);
+    final var ram = circuits.ramMachine("cpu", scale / 4);
+    final var nested = circuits.nested("level", scale);
+    final var proj = circuits.getProject();
+
+    adderState = new CircuitState(proj, adder);
+    for (var i = 0; i < scale; i++) {
+      // with a = 11..1 and b = 00..0 a change of the carry input ripples through all stages
+      Pin.FACTORY.setValue(adderState.getInstanceState(SyntheticCircuits.findPin(adder, "a" + i)), Value.TRUE);
+      Pin.FACTORY.setValue(adderState.getInstanceState(SyntheticCircuits.findPin(adder, "b" + i)), Value.FALSE);
+    }
+    carryIn = SyntheticCircuits.findPin(adder, "cin");
+    adderState.getPropagator().propagate();
+
+    ramState = new CircuitState(proj, ram);
+    ramState.getPropagator().propagate();
+
+    nestedState = new CircuitState(proj, nested);
+    nestedIn = SyntheticCircuits.findPin(nested, "in");
+    nestedState.getPropagator().propagate();
+  }
+
+  @Benchmark
+  public boolean rippleAdder() {
+    toggle = !toggle;
+    Pin.FACTORY.setValue(adderState.getInstanceState(carryIn), toggle ? Value.TRUE : Value.FALSE);
+    return adderState.getPropagator().propagate();
+  }
+
+  @Benchmark
+  public boolean ramMachine() {
+    final var prop = ramState.getPropagator();
+    prop.toggleClocks();
+    return prop.propagate();
+  }
+
+  @Benchmark
+  public boolean nestedSubcircuits() {
+    toggle = !toggle;
+    Pin.FACTORY.setValue(nestedState.getInstanceState(nestedIn), toggle ? Value.TRUE : Value.FALSE);
+    return nestedState.getPropagator().propagate();
+  }
+}
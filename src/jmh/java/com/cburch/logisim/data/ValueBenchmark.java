@@ -0,0 +1,94 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.data;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/** Measures the {@link Value} operations the components use on every propagation. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class ValueBenchmark {
+  private static final int COUNT = 256;
+
+  @Param({"1", "8", "32", "64"})
+  private int width;
+
+  private final Value[] left = new Value[COUNT];
+  private final Value[] right = new Value[COUNT];
+  private final long[] raw = new long[COUNT];
+  private Value[] bits;
+
+  @Setup
+  public void setup() {
+    final var random = new Random(42);
+    for (var i = 0; i < COUNT; i++) {
+      raw[i] = random.nextLong();
+      left[i] = Value.createKnown(width, raw[i]);
+      right[i] = Value.createKnown(width, random.nextLong());
+    }
+    // a few partially unknown values, as seen on buses that are not fully driven
+    for (var i = 0; i < COUNT; i += 16) {
+      right[i] = right[i].set(0, Value.UNKNOWN);
+    }
+    bits = left[0].getAll();
+  }
+
+  @Benchmark
+  public void createKnown(Blackhole bh) {
+    for (var i = 0; i < COUNT; i++) bh.consume(Value.createKnown(width, raw[i]));
+  }
+
+  @Benchmark
+  public Value createFromBits() {
+    return Value.create(bits);
+  }
+
+  @Benchmark
+  public void logic(Blackhole bh) {
+    for (var i = 0; i < COUNT; i++) {
+      bh.consume(left[i].and(right[i]));
+      bh.consume(left[i].or(right[i]));
+      bh.consume(left[i].xor(right[i]));
+      bh.consume(left[i].not());
+    }
+  }
+
+  @Benchmark
+  public void combine(Blackhole bh) {
+    for (var i = 0; i < COUNT; i++) bh.consume(left[i].combine(right[i]));
+  }
+
+  @Benchmark
+  public void equality(Blackhole bh) {
+    for (var i = 0; i < COUNT; i++) bh.consume(left[i].equals(right[i]));
+  }
+
+  @Benchmark
+  public void bitAccess(Blackhole bh) {
+    for (var i = 0; i < COUNT; i++) bh.consume(left[i].get(i % width));
+  }
+}
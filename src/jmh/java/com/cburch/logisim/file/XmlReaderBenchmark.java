@@ -0,0 +1,61 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.file;
+
+import com.cburch.logisim.SyntheticCircuits;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures loading a project file. The file is generated once, with a gate level adder, a RAM
+ * heavy circuit and a chain of nested subcircuits, and then parsed from memory.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class XmlReaderBenchmark {
+  @Param({"64", "512"})
+  private int scale;
+
+  private byte[] contents;
+  private Loader loader;
+
+  @Setup
+  public void setup() {
+    final var circuits = new SyntheticCircuits();
+    circuits.rippleAdder("adder", scale);
+    circuits.ramMachine("cpu", scale / 4);
+    circuits.nested("level", scale / 4);
+    loader = circuits.getLoader();
+    final var out = new ByteArrayOutputStream();
+    circuits.getFile().write(out, loader);
+    contents = out.toByteArray();
+  }
+
+  @Benchmark
+  public LogisimFile load() throws Exception {
+    return LogisimFile.loadSub(new ByteArrayInputStream(contents), loader);
+  }
+}
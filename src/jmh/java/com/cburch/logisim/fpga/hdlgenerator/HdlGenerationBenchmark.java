@@ -0,0 +1,92 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.fpga.hdlgenerator;
+
+import com.cburch.logisim.SyntheticCircuits;
+import com.cburch.logisim.circuit.Circuit;
+import com.cburch.logisim.fpga.data.BoardInformation;
+import com.cburch.logisim.fpga.data.MappableResourcesContainer;
+import com.cburch.logisim.fpga.designrulecheck.Netlist;
+import com.cburch.logisim.fpga.file.BoardReaderClass;
+import com.cburch.logisim.prefs.AppPreferences;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures the design rule check and the generation of the HDL of a gate level adder and of the
+ * top level shell around it, in memory, as the FPGA commander does before writing the files.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class HdlGenerationBenchmark {
+  private static final String BOARD = "BASYS3";
+
+  @Param({HdlGeneratorFactory.VHDL, HdlGeneratorFactory.VERILOG})
+  private String language;
+
+  @Param({"64"})
+  private int scale;
+
+  private String savedLanguage;
+  private Circuit circuit;
+  private BoardInformation board;
+
+  @Setup
+  public void setup() {
+    savedLanguage = AppPreferences.HdlType.get();
+    AppPreferences.HdlType.set(language);
+    final var circuits = new SyntheticCircuits();
+    circuit = circuits.rippleAdder("adder", scale);
+    circuits.getProject();
+    circuit.annotate(false, false);
+    board = new BoardReaderClass(AppPreferences.Boards.getBoardFilePath(BOARD)).getBoardInformation();
+  }
+
+  @TearDown
+  public void tearDown() {
+    AppPreferences.HdlType.set(savedLanguage);
+  }
+
+  @Benchmark
+  public void generate(Blackhole bh) {
+    final var netlist = circuit.getNetList();
+    netlist.clear();
+    if (netlist.designRuleCheckResult(true, new ArrayList<>()) != Netlist.DRC_PASSED) {
+      throw new IllegalStateException("design rule check failed");
+    }
+    final var attrs = circuit.getStaticAttributes();
+    final var worker = circuit.getSubcircuitFactory().getHDLGenerator(attrs);
+    final var name = circuit.getSubcircuitFactory().getHDLName(attrs);
+    bh.consume(worker.getEntity(netlist, attrs, name));
+    bh.consume(worker.getArchitecture(netlist, attrs, name));
+
+    final var top = new ToplevelHdlGeneratorFactory(
+        board.fpga.getClockFrequency(), 0, circuit, new MappableResourcesContainer(board, circuit));
+    bh.consume(top.getEntity(netlist, null, HdlGeneratorFactory.FPGA_TOP_LEVEL_NAME));
+    bh.consume(top.getArchitecture(netlist, null, HdlGeneratorFactory.FPGA_TOP_LEVEL_NAME));
+  }
+}
@@ -29,6 +29,7 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
@@ -132,6 +133,71 @@ public class Analyze {
       }
     }
 
+    propagateExpressions(expressionMap, circuit);
+
+    model.setVariables(inputVars, outputVars);
+    for (final var pin : outputPins) {
+      final var label = pinNames.get(pin);
+      final var width = pin.getAttributeValue(StdAttr.WIDTH).getWidth();
+      for (var b = 0; b < width; b++) {
+        final var loc = new LocationBit(pin.getLocation(), b);
+        final var name = (width > 1 ? label + "[" + b + "]" : label);
+        model.getOutputExpressions().setExpression(name, expressionMap.get(loc));
+      }
+    }
+  }
+
+  /**
+   * Computes the expression of every bit of the given output pins in terms of the variables named
+   * by {@link #inputVariableName}, or raises AnalyzeException if difficulties arise, including
+   * gate inputs that are connected but not driven. An output bit that nothing drives gets a null
+   * expression.
+   */
+  static Expression[][] computeOutputExpressions(Circuit circuit, List<Instance> inputPins, List<Instance> outputPins) throws AnalyzeException {
+    final var expressionMap = new ExpressionMap(circuit);
+    for (var i = 0; i < inputPins.size(); i++) {
+      final var pin = inputPins.get(i);
+      expressionMap.currentCause = Instance.getComponentFor(pin);
+      final var width = pin.getAttributeValue(StdAttr.WIDTH).getWidth();
+      for (var b = 0; b < width; b++) {
+        final var e = Expressions.variable(inputVariableName(i, b));
+        expressionMap.put(new LocationBit(pin.getLocation(), b), e);
+      }
+    }
+
+    propagateExpressions(expressionMap, circuit);
+
+    // The expressions leave out gate inputs that nothing drives, whereas the simulation only
+    // ignores inputs that are not connected and sees unknown values on the others.
+    for (final var comp : circuit.getNonWires()) {
+      if (comp.getFeature(ExpressionComputer.class) == null) continue;
+      for (final var end : comp.getEnds()) {
+        if (end.isOutput() || !circuit.isConnected(end.getLocation(), comp)) continue;
+        for (var b = 0; b < end.getWidth().getWidth(); b++) {
+          if (expressionMap.get(new LocationBit(end.getLocation(), b)) == null) {
+            throw new AnalyzeException.CannotHandle("undriven input");
+          }
+        }
+      }
+    }
+
+    final var ret = new Expression[outputPins.size()][];
+    for (var i = 0; i < ret.length; i++) {
+      final var pin = outputPins.get(i);
+      final var width = pin.getAttributeValue(StdAttr.WIDTH).getWidth();
+      ret[i] = new Expression[width];
+      for (var b = 0; b < width; b++) {
+        ret[i][b] = expressionMap.get(new LocationBit(pin.getLocation(), b));
+      }
+    }
+    return ret;
+  }
+
+  static String inputVariableName(int pin, int bit) {
+    return pin + ":" + bit;
+  }
+
+  private static void propagateExpressions(ExpressionMap expressionMap, Circuit circuit) throws AnalyzeException {
     propagateComponents(expressionMap, circuit.getNonWires());
 
     final var maxIterations = 100;
@@ -149,17 +215,6 @@ public class Analyze {
       final var expr = checkForCircularExpressions(expressionMap);
       if (expr != null) throw new AnalyzeException.Circular();
     }
-
-    model.setVariables(inputVars, outputVars);
-    for (final var pin : outputPins) {
-      final var label = pinNames.get(pin);
-      final var width = pin.getAttributeValue(StdAttr.WIDTH).getWidth();
-      for (var b = 0; b < width; b++) {
-        final var loc = new LocationBit(pin.getLocation(), b);
-        final var name = (width > 1 ? label + "[" + b + "]" : label);
-        model.getOutputExpressions().setExpression(name, expressionMap.get(loc));
-      }
-    }
   }
 
   //
@@ -0,0 +1,221 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.circuit;
+
+import com.cburch.logisim.analyze.model.Expression;
+import com.cburch.logisim.file.Options;
+import com.cburch.logisim.instance.Instance;
+import com.cburch.logisim.instance.StdAttr;
+import com.cburch.logisim.proj.Project;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+
+/**
+ * Bit-sliced evaluator for purely combinational circuits. The circuit is reduced to one boolean
+ * expression per output bit (the same reduction the analyzer uses), and those expressions are
+ * compiled into a flat program working on 64 bit words. Every bit of a word belongs to a
+ * different input combination, so one pass through the program evaluates {@link #BATCH_SIZE}
+ * test vectors at once.
+ *
+ * <p>Only circuits built from components that can be expressed this way, with fully defined input
+ * values and the "ignore" handling of undefined gate inputs, give the same results as the
+ * propagator; {@link #create} returns null for everything else so that callers fall back to
+ * simulating one input combination at a time.
+ */
+public final class BatchEvaluator {
+  public static final int BATCH_SIZE = 64;
+
+  private static final int OP_VAR = 0;
+  private static final int OP_CONST = 1;
+  private static final int OP_NOT = 2;
+  private static final int OP_AND = 3;
+  private static final int OP_OR = 4;
+  private static final int OP_XOR = 5;
+  private static final int OP_XNOR = 6;
+
+  private final int[] inputWidths;
+  private final int[] outputWidths;
+  // the program: slot i is computed by ops[i] from the slots opA[i] and opB[i]; for an input
+  // variable these are the pin and bit index instead
+  private final int[] ops;
+  private final int[] opA;
+  private final int[] opB;
+  private final long[] slots;
+  // slot holding each output bit, -1 if the bit is not driven
+  private final int[][] outputSlots;
+
+  private BatchEvaluator(int[] inputWidths, Expression[][] outputs) {
+    this.inputWidths = inputWidths;
+    this.outputWidths = new int[outputs.length];
+    final var inputIds = new HashMap<String, int[]>();
+    for (var i = 0; i < inputWidths.length; i++) {
+      for (var b = 0; b < inputWidths[i]; b++) {
+        inputIds.put(Analyze.inputVariableName(i, b), new int[] {i, b});
+      }
+    }
+
+    final var compiler = new Compiler(inputIds);
+    outputSlots = new int[outputs.length][];
+    for (var i = 0; i < outputs.length; i++) {
+      outputWidths[i] = outputs[i].length;
+      outputSlots[i] = new int[outputs[i].length];
+      for (var b = 0; b < outputs[i].length; b++) {
+        outputSlots[i][b] = outputs[i][b] == null ? -1 : compiler.compile(outputs[i][b]);
+      }
+    }
+    ops = compiler.ops.stream().mapToInt(Integer::intValue).toArray();
+    opA = compiler.opA.stream().mapToInt(Integer::intValue).toArray();
+    opB = compiler.opB.stream().mapToInt(Integer::intValue).toArray();
+    slots = new long[ops.length];
+  }
+
+  /**
+   * Creates an evaluator for the given pins of the circuit.
+   *
+   * @return null if the circuit cannot be evaluated bit-sliced, that is if the analyzer cannot
+   *     reduce it to expressions
+   */
+  public static BatchEvaluator create(Project proj, Circuit circuit, List<Instance> inputPins, List<Instance> outputPins) {
+    final var opts = proj.getOptions().getAttributeSet();
+    if (!opts.getValue(Options.ATTR_GATE_UNDEFINED).equals(Options.GATE_UNDEFINED_IGNORE)) {
+      return null;
+    }
+    try {
+      final var outputs = Analyze.computeOutputExpressions(circuit, inputPins, outputPins);
+      final var inputWidths = new int[inputPins.size()];
+      for (var i = 0; i < inputWidths.length; i++) {
+        inputWidths[i] = inputPins.get(i).getAttributeValue(StdAttr.WIDTH).getWidth();
+      }
+      return new BatchEvaluator(inputWidths, outputs);
+    } catch (AnalyzeException e) {
+      return null;
+    }
+  }
+
+  /** Returns the input buffers to hand to {@link #evaluate}: one word per pin and bit. */
+  public long[][] createInputs() {
+    final var ret = new long[inputWidths.length][];
+    for (var i = 0; i < ret.length; i++) ret[i] = new long[inputWidths[i]];
+    return ret;
+  }
+
+  /** Returns the output buffers to hand to {@link #evaluate}: one word per pin and bit. */
+  public long[][] createOutputs() {
+    final var ret = new long[outputWidths.length][];
+    for (var i = 0; i < ret.length; i++) ret[i] = new long[outputWidths[i]];
+    return ret;
+  }
+
+  /**
+   * Evaluates up to {@link #BATCH_SIZE} input combinations. Bit r of inputs[pin][bit] holds the
+   * value of that input bit in combination r; the outputs are returned the same way.
+   */
+  public void evaluate(long[][] inputs, long[][] outputs) {
+    for (var i = 0; i < ops.length; i++) {
+      slots[i] =
+          switch (ops[i]) {
+            case OP_VAR -> inputs[opA[i]][opB[i]];
+            case OP_CONST -> opA[i] != 0 ? -1L : 0L;
+            case OP_NOT -> ~slots[opA[i]];
+            case OP_AND -> slots[opA[i]] & slots[opB[i]];
+            case OP_OR -> slots[opA[i]] | slots[opB[i]];
+            case OP_XOR -> slots[opA[i]] ^ slots[opB[i]];
+            default -> ~(slots[opA[i]] ^ slots[opB[i]]);
+          };
+    }
+    for (var i = 0; i < outputs.length; i++) {
+      for (var b = 0; b < outputs[i].length; b++) {
+        final var slot = outputSlots[i][b];
+        outputs[i][b] = slot < 0 ? 0L : slots[slot];
+      }
+    }
+  }
+
+  /** Returns false if nothing drives the given output bit; the circuit then yields unknown. */
+  public boolean isDefined(int pin, int bit) {
+    return outputSlots[pin][bit] >= 0;
+  }
+
+  /**
+   * Turns expressions into a program. Subexpressions shared between several outputs (or used more
+   * than once in the same one) are compiled once.
+   */
+  private static class Compiler implements Expression.Visitor<Integer> {
+    final ArrayList<Integer> ops = new ArrayList<>();
+    final ArrayList<Integer> opA = new ArrayList<>();
+    final ArrayList<Integer> opB = new ArrayList<>();
+    private final HashMap<String, int[]> inputIds;
+    private final IdentityHashMap<Expression, Integer> compiled = new IdentityHashMap<>();
+
+    Compiler(HashMap<String, int[]> inputIds) {
+      this.inputIds = inputIds;
+    }
+
+    int compile(Expression expr) {
+      var ret = compiled.get(expr);
+      if (ret == null) {
+        ret = expr.visit(this);
+        compiled.put(expr, ret);
+      }
+      return ret;
+    }
+
+    private int emit(int op, int a, int b) {
+      ops.add(op);
+      opA.add(a);
+      opB.add(b);
+      return ops.size() - 1;
+    }
+
+    @Override
+    public Integer visitVariable(String name) {
+      final var id = inputIds.get(name);
+      if (id == null) throw new IllegalArgumentException("unknown variable " + name);
+      return emit(OP_VAR, id[0], id[1]);
+    }
+
+    @Override
+    public Integer visitConstant(int value) {
+      return emit(OP_CONST, value & 1, 0);
+    }
+
+    @Override
+    public Integer visitNot(Expression a) {
+      return emit(OP_NOT, compile(a), 0);
+    }
+
+    @Override
+    public Integer visitAnd(Expression a, Expression b) {
+      return emit(OP_AND, compile(a), compile(b));
+    }
+
+    @Override
+    public Integer visitOr(Expression a, Expression b) {
+      return emit(OP_OR, compile(a), compile(b));
+    }
+
+    @Override
+    public Integer visitXor(Expression a, Expression b) {
+      return emit(OP_XOR, compile(a), compile(b));
+    }
+
+    @Override
+    public Integer visitXnor(Expression a, Expression b) {
+      return emit(OP_XNOR, compile(a), compile(b));
+    }
+
+    @Override
+    public Integer visitEq(Expression a, Expression b) {
+      return emit(OP_XNOR, compile(a), compile(b));
+    }
+  }
+}
@@ -466,7 +466,11 @@ public class Circuit {
    * Code taken from Cornell's version of Logisim: http://www.cs.cornell.edu/courses/cs3410/2015sp/
    */
   public void doTestVector(Project project, Instance[] pin, Value[] val) throws TestException {
-    final var state = project.getCircuitState();
+    doTestVector(project.getCircuitState(), pin, val);
+  }
+
+  /** Tests one vector in the given state, which is reset first. */
+  public void doTestVector(CircuitState state, Instance[] pin, Value[] val) throws TestException {
     state.reset();
 
     for (var i = 0; i < pin.length; ++i) {
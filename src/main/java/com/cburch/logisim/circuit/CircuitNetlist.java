@@ -0,0 +1,272 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.circuit;
+
+import com.cburch.logisim.comp.Component;
+import com.cburch.logisim.data.Location;
+import com.cburch.logisim.data.Value;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Set;
+
+/**
+ * Compiled form of a {@link CircuitWires.BundleMap}. Every wire thread (a single bit that is shared
+ * by a group of connected points) gets a dense net id and every valid bundle a dense bundle id, so
+ * that wire propagation can work on plain arrays instead of walking the thread and bundle sets and
+ * hash maps of the bundle map. For every point of a bundle the components that have to be woken up
+ * when its value changes are precomputed as well.
+ *
+ * <p>A netlist is immutable and belongs to exactly one bundle map; any edit of the circuit replaces
+ * the bundle map and with it the netlist. Bundles are shared between a bundle map and the ones
+ * derived from it, so the ids are kept here rather than in the bundles. The per-state thread values
+ * live in {@link Values}.
+ */
+class CircuitNetlist {
+
+  /** Thread values of one {@link CircuitState}, indexed by net id, plus scratch space. */
+  static class Values {
+    final Value[] nets;
+    private final int[] netMarks;
+    private final int[] bundleMarks;
+    private final int[] dirtyNets;
+    private final int[] dirtyBundles;
+    // reusable arrays, indexed by bundle width, to assemble bundle values from
+    private final Value[][] scratch = new Value[Value.MAX_WIDTH + 1][];
+    private int epoch = 0;
+
+    private Values(int netCount, int bundleCount) {
+      nets = new Value[netCount];
+      netMarks = new int[netCount];
+      bundleMarks = new int[bundleCount];
+      dirtyNets = new int[netCount];
+      dirtyBundles = new int[bundleCount];
+    }
+
+    Values copy() {
+      final var ret = new Values(nets.length, bundleMarks.length);
+      System.arraycopy(nets, 0, ret.nets, 0, nets.length);
+      return ret;
+    }
+
+    private void nextEpoch() {
+      epoch++;
+      if (epoch == 0) {
+        Arrays.fill(netMarks, 0);
+        Arrays.fill(bundleMarks, 0);
+        epoch = 1;
+      }
+    }
+  }
+
+  final CircuitWires.BundleMap bundleMap;
+  private final WireThread[] nets;
+  // sources of each net: the points whose component output drives it, and the bit taken there
+  private final Location[][] netSources;
+  private final int[][] netSourceBits;
+  private final Value[] netPulls;
+  private final int[][] netBundles;
+  // bundle id of every wired point, -1 for the points of invalid bundles
+  private final HashMap<Location, Integer> pointIds = new HashMap<>();
+  // per bundle: its nets in bit order, its points and the non-wire components at each point
+  private final int[][] bundleNets;
+  private final Location[][] bundlePoints;
+  private final Component[][][] bundleFanOut;
+
+  private CircuitNetlist(CircuitWires.BundleMap bundleMap, CircuitPoints points) {
+    this.bundleMap = bundleMap;
+    final var bundles = new ArrayList<WireBundle>();
+    final var bundleIds = new IdentityHashMap<WireBundle, Integer>();
+    final var netIds = new IdentityHashMap<WireThread, Integer>();
+    final var netList = new ArrayList<WireThread>();
+    for (final var bundle : bundleMap.getBundles()) {
+      if (!bundle.isValid() || bundle.threads == null) {
+        for (final var p : bundle.points) pointIds.put(p, -1);
+        continue;
+      }
+      final var id = bundles.size();
+      bundleIds.put(bundle, id);
+      bundles.add(bundle);
+      for (final var p : bundle.points) pointIds.put(p, id);
+      for (final var thread : bundle.threads) {
+        if (!netIds.containsKey(thread)) {
+          netIds.put(thread, netList.size());
+          netList.add(thread);
+        }
+      }
+    }
+
+    nets = netList.toArray(new WireThread[0]);
+    netSources = new Location[nets.length][];
+    netSourceBits = new int[nets.length][];
+    netPulls = new Value[nets.length];
+    netBundles = new int[nets.length][];
+    for (var net = 0; net < nets.length; net++) {
+      final var sources = new ArrayList<Location>();
+      final var bits = new ArrayList<Integer>();
+      final var netBundleIds = new ArrayList<Integer>();
+      var pull = Value.UNKNOWN;
+      for (final var tb : nets[net].getBundles()) {
+        for (final var p : tb.b.points) {
+          sources.add(p);
+          bits.add(tb.loc);
+        }
+        final var pullHere = tb.b.getPullValue();
+        if (pullHere != Value.UNKNOWN) pull = pull.combine(pullHere);
+        final var bundleId = bundleIds.get(tb.b);
+        if (bundleId != null && !netBundleIds.contains(bundleId)) netBundleIds.add(bundleId);
+      }
+      netSources[net] = sources.toArray(new Location[0]);
+      netSourceBits[net] = bits.stream().mapToInt(Integer::intValue).toArray();
+      netPulls[net] = pull;
+      netBundles[net] = netBundleIds.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    bundleNets = new int[bundles.size()][];
+    bundlePoints = new Location[bundles.size()][];
+    bundleFanOut = new Component[bundles.size()][][];
+    for (var id = 0; id < bundles.size(); id++) {
+      final var bundle = bundles.get(id);
+      final var threads = bundle.threads;
+      bundleNets[id] = new int[threads.length];
+      for (var i = 0; i < threads.length; i++) {
+        bundleNets[id][i] = netIds.get(threads[i]);
+      }
+      bundlePoints[id] = bundle.points.toArray(new Location[0]);
+      bundleFanOut[id] = new Component[bundlePoints[id].length][];
+      for (var i = 0; i < bundlePoints[id].length; i++) {
+        final var fanOut = new ArrayList<Component>();
+        for (final var comp : points.getComponents(bundlePoints[id][i])) {
+          if (!(comp instanceof Wire) && !(comp instanceof Splitter)) fanOut.add(comp);
+        }
+        bundleFanOut[id][i] = fanOut.toArray(new Component[0]);
+      }
+    }
+  }
+
+  /**
+   * Compiles the given bundle map.
+   *
+   * @return null if the bundle map changed while it was being compiled
+   */
+  static CircuitNetlist compile(CircuitWires.BundleMap bundleMap, CircuitPoints points) {
+    try {
+      return new CircuitNetlist(bundleMap, points);
+    } catch (ConcurrentModificationException e) {
+      // the circuit was edited concurrently; the bundle map is stale anyway
+      return null;
+    }
+  }
+
+  /** Creates the thread values for a state, taking over the ones already known by the map path. */
+  Values createValues(CircuitWires.State state) {
+    final var ret = new Values(nets.length, bundleNets.length);
+    for (var net = 0; net < nets.length; net++) {
+      ret.nets[net] = state.thrValues.get(nets[net]);
+    }
+    return ret;
+  }
+
+  /** Hands the thread values back to the map based path. */
+  void exportValues(Values values, CircuitWires.State state) {
+    for (var net = 0; net < nets.length; net++) {
+      if (values.nets[net] == null) state.thrValues.remove(nets[net]);
+      else state.thrValues.put(nets[net], values.nets[net]);
+    }
+  }
+
+  private Value getNetValue(CircuitState state, int net) {
+    var ret = Value.UNKNOWN;
+    final var sources = netSources[net];
+    final var bits = netSourceBits[net];
+    for (var i = 0; i < sources.length; i++) {
+      final var val = state.getComponentOutputAt(sources[i]);
+      if (val != null && val != Value.NIL) {
+        ret = ret.combine(val.get(bits[i]));
+      }
+    }
+    final var pull = netPulls[net];
+    if (pull != Value.UNKNOWN) {
+      ret = CircuitWires.pullValue(ret, pull);
+    }
+    return ret;
+  }
+
+  private Value getBundleValue(Values values, int bundle) {
+    final var bnets = bundleNets[bundle];
+    if (bnets.length == 1) return values.nets[bnets[0]];
+    var tvs = values.scratch[bnets.length];
+    if (tvs == null) {
+      tvs = new Value[bnets.length];
+      values.scratch[bnets.length] = tvs;
+    }
+    for (var i = 0; i < bnets.length; i++) {
+      final var tv = values.nets[bnets[i]];
+      if (tv == null) return null;
+      tvs[i] = tv;
+    }
+    return Value.create(tvs);
+  }
+
+  /** Array based counterpart of {@link CircuitWires#propagate}. */
+  void propagate(CircuitState circState, Values values, Set<Location> points) {
+    values.nextEpoch();
+    final var epoch = values.epoch;
+    var dirtyNetCount = 0;
+
+    // determine affected nets, and set values for unwired points
+    for (final var point : points) {
+      final var bundleId = pointIds.get(point);
+      if (bundleId == null) { // point is not wired
+        circState.setValueByWire(point, circState.getComponentOutputAt(point));
+      } else if (bundleId < 0) {
+        // immediately propagate NILs across invalid bundles
+        for (final var loc : bundleMap.getBundleAt(point).points) {
+          circState.setValueByWire(loc, Value.NIL);
+        }
+      } else {
+        for (final var net : bundleNets[bundleId]) {
+          if (values.netMarks[net] != epoch) {
+            values.netMarks[net] = epoch;
+            values.dirtyNets[dirtyNetCount++] = net;
+          }
+        }
+      }
+    }
+    if (dirtyNetCount == 0) return;
+
+    // determine values of affected nets
+    var dirtyBundleCount = 0;
+    for (var i = 0; i < dirtyNetCount; i++) {
+      final var net = values.dirtyNets[i];
+      values.nets[net] = getNetValue(circState, net);
+      for (final var bundle : netBundles[net]) {
+        if (values.bundleMarks[bundle] != epoch) {
+          values.bundleMarks[bundle] = epoch;
+          values.dirtyBundles[dirtyBundleCount++] = bundle;
+        }
+      }
+    }
+
+    // now propagate values through circuit
+    for (var i = 0; i < dirtyBundleCount; i++) {
+      final var bundle = values.dirtyBundles[i];
+      final var bv = getBundleValue(values, bundle);
+      if (bv == null) continue;
+      final var bpoints = bundlePoints[bundle];
+      final var fanOut = bundleFanOut[bundle];
+      for (var j = 0; j < bpoints.length; j++) {
+        circState.setValueByWire(bpoints[j], bv, fanOut[j]);
+      }
+    }
+  }
+}
@@ -29,7 +29,7 @@ import java.util.Collection;
 import java.util.ConcurrentModificationException;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Map;
+import java.util.List;
 import java.util.Set;
 import java.util.concurrent.CopyOnWriteArraySet;
 
@@ -139,10 +139,12 @@ public class CircuitState implements InstanceData {
 
   private CircuitWires.State wireData = null;
   private final HashMap<Component, Object> componentData = new HashMap<>();
-  private final Map<Location, Value> values = new HashMap<>();
+  // shared with clones until either side changes them; cause lists are changed in place, so each
+  // side copies those it looks up
+  final SharedMap<Location, Value> values = new SharedMap<>();
   private CopyOnWriteArraySet<Component> dirtyComponents = new CopyOnWriteArraySet<>();
   private final CopyOnWriteArraySet<Location> dirtyPoints = new CopyOnWriteArraySet<>();
-  final HashMap<Location, SetData> causes = new HashMap<>();
+  final SharedMap<Location, SetData> causes = new SharedMap<>(head -> head.cloneFor(this));
 
   private static int lastId = 0;
   private final int id = lastId++;
@@ -194,15 +196,11 @@ public class CircuitState implements InstanceData {
         this.componentData.put(key, newValue);
       }
     }
-    for (final var key : src.causes.keySet()) {
-      final var oldValue = src.causes.get(key);
-      final var newValue = oldValue.cloneFor(this);
-      this.causes.put(key, newValue);
-    }
+    this.causes.shareFrom(src.causes);
     if (src.wireData != null) {
       this.wireData = (CircuitWires.State) src.wireData.clone();
     }
-    this.values.putAll(src.values);
+    this.values.shareFrom(src.values);
     this.dirtyComponents.addAll(src.dirtyComponents);
     this.dirtyPoints.addAll(src.dirtyPoints);
   }
@@ -294,7 +292,7 @@ public class CircuitState implements InstanceData {
   //
   // private methods
   //
-  private void markAllComponentsDirty() {
+  void markAllComponentsDirty() {
     dirtyComponents.addAll(circuit.getNonWires());
   }
 
@@ -336,8 +334,10 @@ public class CircuitState implements InstanceData {
         }
       }
       dirtyComponents.clear();
+      final var history = base == null ? null : base.history;
       for (final var compObj : toProcess) {
         if (compObj instanceof Component comp) {
+          if (history != null) history.dataChanging(this, comp, componentData.get(comp));
           comp.propagate(this);
           if (comp.getFactory() instanceof Pin && parentState != null) {
             // should be propagated in superstate
@@ -353,7 +353,39 @@ public class CircuitState implements InstanceData {
     }
   }
 
+  /** Collects this state and all of its substates, parents before children. */
+  void collectStates(List<CircuitState> dest) {
+    dest.add(this);
+    final var subs = new CircuitState[subStates.size()];
+    for (final var substate : subStates.toArray(subs)) {
+      if (substate != null) substate.collectStates(dest);
+    }
+  }
+
+  /** Adds this state and its substates to dest, but only those that have points to propagate. */
+  void collectDirtyStates(List<CircuitState> dest) {
+    if (!dirtyPoints.isEmpty() || circuit.wires.isMapVoided()) dest.add(this);
+    final var subs = new CircuitState[subStates.size()];
+    for (final var substate : subStates.toArray(subs)) {
+      if (substate != null) substate.collectDirtyStates(dest);
+    }
+  }
+
   void processDirtyPoints() {
+    processOwnDirtyPoints();
+
+    final var subs = new CircuitState[subStates.size()];
+    for (final var substate : subStates.toArray(subs)) {
+      /* TODO: Analyze why this bug happens, e.g. a substate that is null! */
+      if (substate != null) substate.processDirtyPoints();
+    }
+  }
+
+  /**
+   * Propagates the dirty points of this state, but not those of its substates, through the wires.
+   * This only touches data of this state, so distinct states may be processed concurrently.
+   */
+  void processOwnDirtyPoints() {
     final var dirty = new HashSet<Location>(dirtyPoints);
     dirtyPoints.clear();
     if (circuit.wires.isMapVoided()) {
@@ -374,12 +406,6 @@ public class CircuitState implements InstanceData {
     if (!dirty.isEmpty()) {
       circuit.wires.propagate(this, dirty);
     }
-
-    final var subs = new CircuitState[subStates.size()];
-    for (final var substate : subStates.toArray(subs)) {
-      /* TODO: Analyze why this bug happens, e.g. a substate that is null! */
-      if (substate != null) substate.processDirtyPoints();
-    }
   }
 
   void reset() {
@@ -441,26 +467,62 @@ public class CircuitState implements InstanceData {
     componentData.put(comp, data);
   }
 
+  /**
+   * Records the data of the component in the history of the simulation, if it keeps one, before
+   * something other than the component itself changes it, such as a transaction on a SoC bus.
+   */
+  public void dataChanging(Component comp) {
+    final var history = base == null ? null : base.history;
+    if (history != null) history.dataChanging(this, comp, componentData.get(comp));
+  }
+
+  // puts back data recorded by the history, without disposing of what it replaces
+  void restoreData(Component comp, Object data) {
+    componentData.put(comp, data);
+  }
+
+  /**
+   * Forgets what is derived from the values and the values driven onto them, so that propagating
+   * rebuilds it. Used after both have been read from a checkpoint or set back to an earlier tick.
+   */
+  void rewire() {
+    wireData = null;
+    dirtyPoints.clear();
+    markAllComponentsDirty();
+  }
+
   public void setValue(Location pt, Value val, Component cause, int delay) {
     if (base != null) base.setValue(this, pt, val, cause, delay);
   }
 
   void setValueByWire(Location p, Value v) {
-    // for CircuitWires - to set value at point
+    setValueByWire(p, v, null);
+  }
+
+  void setValueByWire(Location p, Value v, Component[] fanOut) {
+    // for CircuitWires - to set value at point; fanOut, if known, holds the
+    // components other than wires and splitters attached at p
     boolean changed;
+    Value old;
     if (v == Value.NIL) {
-      final var old = values.remove(p);
+      old = values.remove(p);
       changed = (old != null && old != Value.NIL);
     } else {
-      final var old = values.put(p, v);
+      old = values.put(p, v);
       changed = !v.equals(old);
     }
     if (changed) {
+      if (base != null && base.history != null) base.history.valueChanged(this, p, old);
       var found = false;
-      for (final var comp : circuit.getComponents(p)) {
-        if (!(comp instanceof Wire) && !(comp instanceof Splitter)) {
-          found = true;
-          markComponentAsDirty(comp);
+      if (fanOut != null) {
+        for (final var comp : fanOut) markComponentAsDirty(comp);
+        found = fanOut.length > 0;
+      } else {
+        for (final var comp : circuit.getComponents(p)) {
+          if (!(comp instanceof Wire) && !(comp instanceof Splitter)) {
+            found = true;
+            markComponentAsDirty(comp);
+          }
         }
       }
       // NOTE: this will cause a double-propagation on components
@@ -475,12 +537,19 @@ public class CircuitState implements InstanceData {
   }
 
   boolean toggleClocks(int ticks) {
+    final var history = base == null ? null : base.history;
     var ret = false;
-    if (temporaryClock != null)
+    if (temporaryClock != null) {
+      if (history != null) {
+        history.dataChanging(this, temporaryClock, componentData.get(temporaryClock));
+      }
       ret |= temporaryClockValidateOrTick(ticks);
+    }
 
-    for (final var clock : circuit.getClocks())
+    for (final var clock : circuit.getClocks()) {
+      if (history != null) history.dataChanging(this, clock, componentData.get(clock));
       ret |= Clock.tick(this, ticks, clock);
+    }
 
     final var subs = new CircuitState[subStates.size()];
     for (final var substate : subStates.toArray(subs))
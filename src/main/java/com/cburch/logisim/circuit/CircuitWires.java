@@ -20,6 +20,7 @@ import com.cburch.logisim.data.Location;
 import com.cburch.logisim.data.Value;
 import com.cburch.logisim.instance.Instance;
 import com.cburch.logisim.instance.StdAttr;
+import com.cburch.logisim.prefs.AppPreferences;
 import com.cburch.logisim.std.wiring.PullResistor;
 import com.cburch.logisim.std.wiring.Tunnel;
 import com.cburch.logisim.util.CollectionUtil;
@@ -27,6 +28,7 @@ import com.cburch.logisim.util.GraphicsUtil;
 import com.cburch.logisim.util.IteratorUtil;
 import java.awt.Color;
 import java.awt.Graphics2D;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -48,6 +50,8 @@ class CircuitWires {
     // NOTE: It would make things more efficient if we also had
     // a set of just the first bundle in each tree.
     HashSet<WidthIncompatibilityData> incompatibilityData = null;
+    private CircuitNetlist netlist = null;
+    private boolean netlistFailed = false;
 
     void addWidthIncompatibilityData(WidthIncompatibilityData e) {
       if (incompatibilityData == null) {
@@ -71,6 +75,18 @@ class CircuitWires {
       return pointBundles.get(p);
     }
 
+    synchronized CircuitNetlist getNetlist(CircuitPoints points) {
+      if (netlist == null && !netlistFailed) {
+        try {
+          netlist = CircuitNetlist.compile(this, points);
+        } catch (RuntimeException e) {
+          logger.error("Cannot compile the netlist of the circuit", e);
+        }
+        netlistFailed = netlist == null;
+      }
+      return netlist;
+    }
+
     Set<Location> getBundlePoints() {
       return pointBundles.keySet();
     }
@@ -107,6 +123,8 @@ class CircuitWires {
   static class State {
     final BundleMap bundleMap;
     final HashMap<WireThread, Value> thrValues = new HashMap<>();
+    // thread values while the compiled netlist is in use; they supersede thrValues then
+    CircuitNetlist.Values netValues = null;
 
     State(BundleMap bundleMap) {
       this.bundleMap = bundleMap;
@@ -116,6 +134,7 @@ class CircuitWires {
     public Object clone() {
       final var ret = new State(this.bundleMap);
       ret.thrValues.putAll(this.thrValues);
+      if (this.netValues != null) ret.netValues = this.netValues.copy();
       return ret;
     }
   }
@@ -139,13 +158,17 @@ class CircuitWires {
     @Override
     public void attributeValueChanged(AttributeEvent e) {
       final var attr = e.getAttribute();
-      if (attr == StdAttr.LABEL || attr == PullResistor.ATTR_PULL_TYPE) {
+      // a relabeled tunnel may join or split nets anywhere in the circuit, and a splitter may
+      // change its bit mapping without moving its ends, so these rebuild the whole map
+      if (attr == StdAttr.LABEL
+          || attr == PullResistor.ATTR_PULL_TYPE
+          || e.getSource() instanceof SplitterAttributes) {
         voidBundleMap();
       }
     }
   }
 
-  private static Value pullValue(Value base, Value pullTo) {
+  static Value pullValue(Value base, Value pullTo) {
     if (base.isFullyDefined()) {
       return base;
     } else if (base.getWidth() == 1) {
@@ -181,21 +204,24 @@ class CircuitWires {
   // derived data
   private Bounds bounds = Bounds.EMPTY_BOUNDS;
 
-  private BundleMap masterBundleMap = null;
+  private volatile BundleMap masterBundleMap = null;
+  // the last map computed, from which the next one is derived as long as only the points in
+  // dirtyPoints were touched by the edits since
+  private BundleMap previousBundleMap = null;
+  private final HashSet<Location> dirtyPoints = new HashSet<>();
 
   CircuitWires() {}
 
   //
   // action methods
   //
-  // NOTE: this could be made much more efficient in most cases to
-  // avoid voiding the bundle map.
   /*synchronized*/ boolean add(Component comp) {
     var added = true;
     if (comp instanceof Wire wire) {
       added = addWire(wire);
     } else if (comp instanceof Splitter splitter) {
       splitters.add(splitter);
+      splitter.getAttributeSet().addAttributeListener(tunnelListener);
     } else {
       final var factory = comp.getFactory();
       if (factory instanceof Tunnel) {
@@ -208,14 +234,14 @@ class CircuitWires {
     }
     if (added) {
       points.add(comp);
-      voidBundleMap();
+      voidBundleMap(comp);
     }
     return added;
   }
 
   /*synchronized*/ void add(Component comp, EndData end) {
     points.add(comp, end);
-    voidBundleMap();
+    voidBundleMap(end.getLocation());
   }
 
   private boolean addWire(Wire w) {
@@ -228,12 +254,89 @@ class CircuitWires {
     return true;
   }
 
-  // To be called by getBundleMap only
-  private void computeBundleMap(BundleMap ret) {
+  // To be called by getBundleMap only (and the benchmarks)
+  void computeBundleMap(BundleMap ret) {
+    computeBundles(ret, wires, splitters, tunnels, pulls);
+    computeWidthIncompatibilityData(ret);
+  }
+
+  /**
+   * Derives a new bundle map from the previous one, recomputing only the bundles an edit may have
+   * changed. Starting from the touched points, the affected region is grown along the wires, the
+   * splitters and the tunnels sharing a label, and over all points of the old bundles it reaches,
+   * until it is closed. Bundles outside of it keep their points, width and threads and are shared
+   * with the old map, which stays untouched for the simulation still using it.
+   *
+   * <p>To be called by getBundleMap only (and the benchmarks).
+   *
+   * @return null if the region is so large that a full rebuild is cheaper
+   */
+  BundleMap updateBundleMap(BundleMap old, Set<Location> dirty) {
+    final var limit = Math.max(64, old.pointBundles.size() / 2);
+    final var region = new HashSet<Location>();
+    final var todo = new ArrayDeque<Location>(dirty);
+    final var regionWires = new HashSet<Wire>();
+    final var regionSplitters = new HashSet<Splitter>();
+    final var regionTunnels = new HashSet<Component>();
+    final var regionPulls = new HashSet<Component>();
+    HashMap<String, ArrayList<Component>> tunnelSets = null;
+    while (!todo.isEmpty()) {
+      final var loc = todo.removeFirst();
+      if (!region.add(loc)) continue;
+      if (region.size() > limit) return null;
+      final var oldBundle = old.getBundleAt(loc);
+      if (oldBundle != null) todo.addAll(oldBundle.points);
+      for (final var comp : points.getComponents(loc)) {
+        if (comp instanceof Wire wire) {
+          if (wires.contains(wire) && regionWires.add(wire)) {
+            todo.add(wire.e0);
+            todo.add(wire.e1);
+          }
+        } else if (comp instanceof Splitter spl) {
+          if (splitters.contains(spl) && regionSplitters.add(spl)) {
+            for (final var end : spl.getEnds()) todo.add(end.getLocation());
+          }
+        } else if (tunnels.contains(comp)) {
+          if (regionTunnels.add(comp)) {
+            if (tunnelSets == null) tunnelSets = getTunnelSets();
+            final var label = comp.getAttributeSet().getValue(StdAttr.LABEL).trim();
+            final var tunnelSet = tunnelSets.get(label);
+            if (tunnelSet != null) {
+              for (final var other : tunnelSet) todo.add(other.getLocation());
+            }
+          }
+        } else if (pulls.contains(comp)) {
+          regionPulls.add(comp);
+        }
+      }
+    }
+
+    final var part = new BundleMap();
+    computeBundles(part, regionWires, regionSplitters, regionTunnels, regionPulls);
+
+    final var ret = new BundleMap();
+    for (final var entry : old.pointBundles.entrySet()) {
+      if (!region.contains(entry.getKey())) ret.setBundleAt(entry.getKey(), entry.getValue());
+    }
+    for (final var bundle : old.getBundles()) {
+      if (!region.contains(bundle.points.iterator().next())) ret.bundles.add(bundle);
+    }
+    ret.pointBundles.putAll(part.pointBundles);
+    ret.bundles.addAll(part.getBundles());
+    computeWidthIncompatibilityData(ret);
+    return ret;
+  }
+
+  private void computeBundles(
+      BundleMap ret,
+      Collection<Wire> wires,
+      Collection<Splitter> splitters,
+      Collection<Component> tunnels,
+      Collection<Component> pulls) {
     // create bundles corresponding to wires and tunnels
-    connectWires(ret);
-    connectTunnels(ret);
-    connectPullResistors(ret);
+    connectWires(ret, wires);
+    connectTunnels(ret, tunnels);
+    connectPullResistors(ret, pulls);
 
     // merge any WireBundle objects united by previous steps
     for (final var it = ret.getBundles().iterator(); it.hasNext(); ) {
@@ -325,8 +428,10 @@ class CircuitWires {
       }
     }
 
-    // All threads are sewn together! Compute the exception set before
-    // leaving
+  }
+
+  // All threads are sewn together! Compute the exception set before leaving
+  private void computeWidthIncompatibilityData(BundleMap ret) {
     final var exceptions = points.getWidthIncompatibilityData();
     if (CollectionUtil.isNotEmpty(exceptions)) {
       for (final var wid : exceptions) {
@@ -339,7 +444,7 @@ class CircuitWires {
     }
   }
 
-  private void connectPullResistors(BundleMap ret) {
+  private void connectPullResistors(BundleMap ret, Collection<Component> pulls) {
     for (final var comp : pulls) {
       final var loc = comp.getEnd(0).getLocation();
       var b = ret.getBundleAt(loc);
@@ -353,7 +458,7 @@ class CircuitWires {
     }
   }
 
-  private void connectTunnels(BundleMap ret) {
+  private void connectTunnels(BundleMap ret, Collection<Component> tunnels) {
     // determine the sets of tunnels
     final var tunnelSets = new HashMap<String, ArrayList<Location>>();
     for (final var comp : tunnels) {
@@ -394,7 +499,7 @@ class CircuitWires {
     }
   }
 
-  private void connectWires(BundleMap ret) {
+  private void connectWires(BundleMap ret, Collection<Wire> wires) {
     // make a WireBundle object for each tree of connected wires
     for (final var wire : wires) {
       final var bundleA = ret.getBundleAt(wire.e0);
@@ -414,6 +519,15 @@ class CircuitWires {
     }
   }
 
+  private HashMap<String, ArrayList<Component>> getTunnelSets() {
+    final var ret = new HashMap<String, ArrayList<Component>>();
+    for (final var comp : tunnels) {
+      final var label = comp.getAttributeSet().getValue(StdAttr.LABEL).trim();
+      if (!label.equals("")) ret.computeIfAbsent(label, k -> new ArrayList<>(3)).add(comp);
+    }
+    return ret;
+  }
+
   void draw(ComponentDrawContext context, Collection<Component> hidden) {
     final var showState = context.getShowState();
     final var state = context.getCircuitState();
@@ -557,20 +671,45 @@ class CircuitWires {
   // wires.
   // Computing a new bundle map requires both locking splitters and touching
   // the components and wires, so to avoid deadlock, only the AWT should
-  // create the new bundle map.
+  // create the new bundle map. Once computed a map is never modified, so
+  // the simulation thread may use it directly.
 
-  /*synchronized*/ private BundleMap getBundleMap() {
+  /*synchronized*/ BundleMap getBundleMap() {
+    final var cached = masterBundleMap;
+    if (cached != null) return cached;
     if (SwingUtilities.isEventDispatchThread()) {
       // AWT event thread.
-      if (masterBundleMap != null) return masterBundleMap;
-      final var ret = new BundleMap();
-      try {
-        computeBundleMap(ret);
-        masterBundleMap = ret;
-      } catch (Exception t) {
-        ret.invalidate();
-        logger.error(t.getLocalizedMessage());
+      final BundleMap old;
+      final HashSet<Location> dirty;
+      synchronized (dirtyPoints) {
+        old = previousBundleMap;
+        dirty = new HashSet<>(dirtyPoints);
+        dirtyPoints.clear();
+      }
+      BundleMap ret = null;
+      if (old != null && old.isValid()) {
+        try {
+          ret = updateBundleMap(old, dirty);
+        } catch (Exception t) {
+          // fall back on a full rebuild below
+          logger.error("Cannot update the bundle map", t);
+          ret = null;
+        }
+      }
+      if (ret == null) {
+        ret = new BundleMap();
+        try {
+          computeBundleMap(ret);
+        } catch (Exception t) {
+          ret.invalidate();
+          logger.error(t.getLocalizedMessage());
+          return ret;
+        }
+      }
+      synchronized (dirtyPoints) {
+        previousBundleMap = ret;
       }
+      masterBundleMap = ret;
       return ret;
     } else {
       // Simulation thread.
@@ -674,10 +813,29 @@ class CircuitWires {
   //
   void propagate(CircuitState circState, Set<Location> points) {
     final var map = getBundleMap();
+    var state = circState.getWireData();
+
+    // The compiled netlist is only worth building once the bundle map survived
+    // a first propagation; while the circuit is being edited every change
+    // creates a new map, and the map based code below is used.
+    if (state != null && state.bundleMap == map) {
+      if (AppPreferences.SIM_COMPILED_NETLIST.getBoolean() && map.isValid()) {
+        final var netlist = map.getNetlist(this.points);
+        if (netlist != null) {
+          if (state.netValues == null) state.netValues = netlist.createValues(state);
+          netlist.propagate(circState, state.netValues, points);
+          return;
+        }
+      }
+      if (state.netValues != null) {
+        map.getNetlist(this.points).exportValues(state.netValues, state);
+        state.netValues = null;
+      }
+    }
+
     final var dirtyThreads = new CopyOnWriteArraySet<WireThread>(); // affected threads
 
     // get state, or create a new one if current state is outdated
-    var state = circState.getWireData();
     if (state == null || state.bundleMap != map) {
       // if it is outdated, we need to compute for all threads
       state = new State(map);
@@ -786,6 +944,7 @@ class CircuitWires {
       removeWire(wire);
     } else if (comp instanceof Splitter) {
       splitters.remove(comp);
+      comp.getAttributeSet().removeAttributeListener(tunnelListener);
     } else {
       final var factory = comp.getFactory();
       if (factory instanceof Tunnel) {
@@ -797,12 +956,12 @@ class CircuitWires {
       }
     }
     points.remove(comp);
-    voidBundleMap();
+    voidBundleMap(comp);
   }
 
   /*synchronized*/ void remove(Component comp, EndData end) {
     points.remove(comp, end);
-    voidBundleMap();
+    voidBundleMap(end.getLocation());
   }
 
   private void removeWire(Wire w) {
@@ -820,7 +979,7 @@ class CircuitWires {
   /*synchronized*/ void replace(Component comp, EndData oldEnd, EndData newEnd) {
     points.remove(comp, oldEnd);
     points.add(comp, newEnd);
-    voidBundleMap();
+    voidBundleMap(oldEnd.getLocation(), newEnd.getLocation());
   }
 
   //
@@ -830,6 +989,31 @@ class CircuitWires {
     // This should really only be called by AWT thread, but main() also
     // calls it during startup. It should not be called by the simulation
     // thread.
+    synchronized (dirtyPoints) {
+      previousBundleMap = null;
+      dirtyPoints.clear();
+    }
+    masterBundleMap = null;
+  }
+
+  // voids the bundle map after an edit that only touched the given component
+  private void voidBundleMap(Component comp) {
+    synchronized (dirtyPoints) {
+      if (comp instanceof Wire wire) {
+        dirtyPoints.add(wire.e0);
+        dirtyPoints.add(wire.e1);
+      } else {
+        for (final var end : comp.getEnds()) dirtyPoints.add(end.getLocation());
+      }
+    }
+    masterBundleMap = null;
+  }
+
+  // voids the bundle map after an edit that only touched the given points
+  private void voidBundleMap(Location... locs) {
+    synchronized (dirtyPoints) {
+      dirtyPoints.addAll(Arrays.asList(locs));
+    }
     masterBundleMap = null;
   }
 }
@@ -0,0 +1,181 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.circuit;
+
+import com.cburch.logisim.comp.Component;
+import com.cburch.logisim.comp.ComponentState;
+import com.cburch.logisim.data.Location;
+import com.cburch.logisim.data.Value;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+
+/**
+ * The recent past of a simulation, kept so that it can be stepped back tick by tick. Each tick
+ * records what changed during it: the old values of the points that were set, the values the
+ * components drove onto them, and copies of the data of the components taken before they ran or
+ * before a transaction on a SoC bus changed them. A tick thus costs memory in proportion to what
+ * happened in it, not to the size of the circuit, and the oldest ticks are dropped once the
+ * history outgrows its limit. A copy of data may share most of it with the data, as the memories
+ * do with their pages; what the data copies later because of this is charged to the tick too.
+ *
+ * <p>The data is copied by {@link ComponentState#clone()}, so stepping back is only exact for
+ * data whose clone copies everything the component changes in place later on. This holds for
+ * the built-in memories, registers, clocks and SoC components; the data of other components is
+ * put back as far as their clone reaches. Changes made outside of the propagator and the SoC
+ * busses, such as poking a component, are not recorded.
+ */
+final class PropagationHistory {
+  // rough sizes in bytes of a recorded value and of a copy of component data, for the limit;
+  // the bytes the data copies as it stops sharing them with the copy come on top
+  private static final int VALUE_COST = 32;
+  private static final int DATA_COST = 128;
+
+  // the causes of a point as they were before the tick changed them, null if there were none
+  private record Causes(Propagator.SetData head) {}
+
+  private static final class Tick {
+    final int tickCount; // of the propagator when the tick started
+    final boolean started; // false for what happened before the first tick recorded
+    // triples of state, point or component, and old value or copy of the data
+    Object[] entries = new Object[48];
+    int size = 0;
+    long cost = 0;
+    // data already copied during this tick, as copying it again would only waste memory, with the
+    // bytes it had copied by then (see ComponentState.getCopiedBytes())
+    final IdentityHashMap<Object, Long> copied = new IdentityHashMap<>();
+    // points whose causes were already copied during this tick, by state
+    final IdentityHashMap<CircuitState, HashSet<Location>> causesCopied = new IdentityHashMap<>();
+
+    Tick(int tickCount, boolean started) {
+      this.tickCount = tickCount;
+      this.started = started;
+    }
+
+    void add(CircuitState state, Object key, Object old, int cost) {
+      if (size + 3 > entries.length) entries = Arrays.copyOf(entries, 2 * entries.length);
+      entries[size++] = state;
+      entries[size++] = key;
+      entries[size++] = old;
+      this.cost += cost;
+    }
+
+    void undo() {
+      for (var i = size - 3; i >= 0; i -= 3) {
+        final var state = (CircuitState) entries[i];
+        if (entries[i + 2] instanceof Causes old) {
+          final var loc = (Location) entries[i + 1];
+          if (old.head() == null) state.causes.remove(loc);
+          else state.causes.put(loc, old.head());
+        } else if (entries[i + 1] instanceof Location loc) {
+          if (entries[i + 2] == null) state.values.remove(loc);
+          else state.values.put(loc, (Value) entries[i + 2]);
+        } else {
+          state.restoreData((Component) entries[i + 1], entries[i + 2]);
+        }
+      }
+    }
+  }
+
+  private final long limit;
+  private final ArrayDeque<Tick> ticks = new ArrayDeque<>();
+  private Tick current;
+  private int started = 0; // ticks that can be undone
+  private long cost = 0;
+
+  PropagationHistory(long limit, int tickCount) {
+    this.limit = limit;
+    current = new Tick(tickCount, false);
+    ticks.add(current);
+  }
+
+  /** Returns how many ticks can be stepped back. */
+  synchronized int size() {
+    return started;
+  }
+
+  /** Starts recording a new tick, dropping the oldest ones if the history is too large. */
+  synchronized void beginTick(int tickCount) {
+    for (final var e : current.copied.entrySet()) {
+      if (!(e.getKey() instanceof ComponentState data)) continue;
+      final long copied = data.getCopiedBytes() - e.getValue();
+      current.cost += copied;
+      cost += copied;
+    }
+    current.copied.clear();
+    current.causesCopied.clear();
+    current = new Tick(tickCount, true);
+    ticks.add(current);
+    started++;
+    while (cost > limit && ticks.size() > 1) drop(ticks.removeFirst());
+  }
+
+  // may be called from several threads when substates are propagated in parallel
+  synchronized void valueChanged(CircuitState state, Location loc, Value old) {
+    current.add(state, loc, old, VALUE_COST);
+    cost += VALUE_COST;
+  }
+
+  /** Records the causes of the point before the first change to them in this tick. */
+  synchronized void causesChanging(CircuitState state, Location loc, Propagator.SetData head) {
+    if (!current.causesCopied.computeIfAbsent(state, k -> new HashSet<>()).add(loc)) return;
+    Propagator.SetData copy = null;
+    Propagator.SetData last = null;
+    for (var n = head; n != null; n = n.next) {
+      final var data = new Propagator.SetData(0, 0, state, loc, n.cause, n.val);
+      if (last == null) copy = data;
+      else last.next = data;
+      last = data;
+    }
+    current.add(state, loc, new Causes(copy), VALUE_COST);
+    cost += VALUE_COST;
+  }
+
+  synchronized void dataChanging(CircuitState state, Component comp, Object data) {
+    if (data instanceof CircuitState) return;
+    if (data != null && current.copied.containsKey(data)) return;
+    final var s = data instanceof ComponentState c ? c : null;
+    if (data != null) current.copied.put(data, s == null ? 0L : s.getCopiedBytes());
+    final var copy = s == null ? data : s.clone();
+    current.add(state, comp, copy, DATA_COST);
+    cost += DATA_COST;
+  }
+
+  /**
+   * Undoes up to the given number of ticks, and everything that happened since the last of them
+   * started. Only the values, their causes and the data are put back; the caller has to settle
+   * the states again. Returns the tick count of the propagator before the earliest tick undone, or -1 if
+   * there was none.
+   */
+  synchronized int undo(int count) {
+    var ret = -1;
+    for (var n = 0; n < count && started > 0; ) {
+      final var tick = ticks.removeLast();
+      tick.undo();
+      drop(tick);
+      if (tick.started) {
+        ret = tick.tickCount;
+        n++;
+      }
+    }
+    // the settling that follows goes with the tick before
+    if (ret >= 0) {
+      current = new Tick(ret, false);
+      ticks.add(current);
+    }
+    return ret;
+  }
+
+  private void drop(Tick tick) {
+    cost -= tick.cost;
+    if (tick.started) started--;
+  }
+}
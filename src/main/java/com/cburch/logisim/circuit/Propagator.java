@@ -16,35 +16,15 @@ import com.cburch.logisim.data.AttributeListener;
 import com.cburch.logisim.data.Location;
 import com.cburch.logisim.data.Value;
 import com.cburch.logisim.file.Options;
+import com.cburch.logisim.prefs.AppPreferences;
 import java.lang.ref.WeakReference;
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.PriorityQueue;
+import java.util.ArrayList;
 import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 public class Propagator {
-  private static class ComponentPoint {
-    final Component cause;
-    final Location loc;
-
-    public ComponentPoint(Component cause, Location loc) {
-      this.cause = cause;
-      this.loc = loc;
-    }
-
-    @Override
-    public boolean equals(Object other) {
-      return (other instanceof ComponentPoint o)
-             ? this.cause.equals(o.cause) && this.loc.equals(o.loc)
-             : false;
-    }
-
-    @Override
-    public int hashCode() {
-      return 31 * cause.hashCode() + loc.hashCode();
-    }
-  }
-
   private static class Listener implements AttributeListener {
     final WeakReference<Propagator> prop;
 
@@ -64,20 +44,58 @@ public class Propagator {
         e.getSource().removeAttributeListener(this);
       } else if (e.getAttribute().equals(Options.ATTR_SIM_RAND)) {
         p.updateRandomness();
+      } else if (e.getAttribute().equals(Options.ATTR_SIM_THREADS)) {
+        p.updateThreads();
+      }
+    }
+  }
+
+  /**
+   * Resolves the wires of a range of circuit states. The states of a tree never share any point
+   * values, so they can be handled on separate threads; everything that leaves a state, such as
+   * pins forwarding values to the parent circuit, is dealt with afterwards by the sequential
+   * processing of the dirty components.
+   */
+  private static class DirtyPointsTask extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+    private final CircuitState[] states;
+    private final int from;
+    private final int to;
+
+    DirtyPointsTask(CircuitState[] states, int from, int to) {
+      this.states = states;
+      this.from = from;
+      this.to = to;
+    }
+
+    @Override
+    protected void compute() {
+      if (to - from <= STATES_PER_TASK) {
+        for (var i = from; i < to; i++) states[i].processOwnDirtyPoints();
+      } else {
+        final var mid = (from + to) >>> 1;
+        invokeAll(new DirtyPointsTask(states, from, mid), new DirtyPointsTask(states, mid, to));
       }
     }
   }
 
   static class SetData implements Comparable<SetData> {
-    final int time;
-    final int serialNumber;
-    final CircuitState state; // state of circuit containing component
-    final Component cause; // component emitting the value
-    final Location loc; // the location at which value is emitted
+    // These are only reassigned while the instance sits in the free pool of its propagator.
+    int time;
+    int serialNumber;
+    CircuitState state; // state of circuit containing component
+    Component cause; // component emitting the value
+    Location loc; // the location at which value is emitted
     Value val; // value being emitted
     SetData next = null;
+    SetData queueNext = null; // next event in the same timing wheel slot, or in the free pool
 
-    private SetData(
+    SetData(
+        int time, int serialNumber, CircuitState state, Location loc, Component cause, Value val) {
+      init(time, serialNumber, state, loc, cause, val);
+    }
+
+    private void init(
         int time, int serialNumber, CircuitState state, Location loc, Component cause, Value val) {
       this.time = time;
       this.serialNumber = serialNumber;
@@ -87,13 +105,18 @@ public class Propagator {
       this.val = val;
     }
 
+    /**
+     * Copies this list of causes for another state. Events in a list of causes are never queued
+     * again, so their time and serial number are copied as they are, and neither propagator is
+     * touched: lists are copied lazily, possibly while wires are resolved on other threads.
+     */
     public SetData cloneFor(CircuitState newState) {
-      final var newProp = newState.getPropagator();
-      final var dtime = newProp.clock - state.getPropagator().clock;
-      final var ret =
-          new SetData(time + dtime, newProp.setDataSerialNumber, newState, loc, cause, val);
-      newProp.setDataSerialNumber++;
-      if (this.next != null) ret.next = this.next.cloneFor(newState);
+      final var ret = new SetData(time, serialNumber, newState, loc, cause, val);
+      var last = ret;
+      for (var n = next; n != null; n = n.next) {
+        last.next = new SetData(n.time, n.serialNumber, newState, n.loc, n.cause, n.val);
+        last = last.next;
+      }
       return ret;
     }
 
@@ -136,12 +159,40 @@ public class Propagator {
    */
   private volatile int simRandomShift;
 
-  private final PriorityQueue<SetData> toProcess = new PriorityQueue<>();
+  /**
+   * Number of threads used to resolve the wires of the circuit states; with 1 everything stays on
+   * the simulation thread.
+   */
+  private volatile int simThreads;
+
+  // Number of circuit states handled by one task; below twice that the states are handled on the
+  // simulation thread, as the tasks would cost more than they save.
+  private static final int STATES_PER_TASK = 8;
+  // Shared by all propagators, one per number of threads asked for. Idle workers of a pool
+  // time out, so the pools that are no longer used cost nothing.
+  private static final ConcurrentHashMap<Integer, ForkJoinPool> threadPools =
+      new ConcurrentHashMap<>();
+  private final ArrayList<CircuitState> allStates = new ArrayList<>();
+
+  /**
+   * Upper bound of the number of processed events that are kept for reuse. Only events that did not
+   * end up in a cause list of a {@link CircuitState} are returned to the pool.
+   */
+  private static final int MAX_POOLED_EVENTS = 4096;
+
+  private PropagatorQueue toProcess = createQueue();
+  private SetData freeEvents = null;
+  private final PropagatorTickSet visited = new PropagatorTickSet(); // points handled this tick
+  private int freeEventCount = 0;
   private int clock = 0;
+  private long eventCount = 0;
   private boolean isOscillating = false;
   private boolean oscAdding = false;
   private PropagationPoints oscPoints = new PropagationPoints();
   private int halfClockCycles = 0;
+  // recent ticks, for stepping back; only changed on the simulation thread
+  PropagationHistory history = null;
+  private long historyLimit = 0;
   private final Random noiseSource = new Random();
   private int noiseCount = 0;
 
@@ -155,11 +206,20 @@ public class Propagator {
     final var l = new Listener(this);
     root.getProject().getOptions().getAttributeSet().addAttributeListener(l);
     updateRandomness();
+    updateThreads();
+  }
+
+  private static PropagatorQueue createQueue() {
+    return AppPreferences.SIM_EVENT_QUEUE.get().equals(AppPreferences.SIM_QUEUE_HEAP)
+        ? new PropagatorHeapQueue()
+        : new PropagatorTimingWheel();
   }
 
   private SetData addCause(CircuitState state, SetData head, SetData data) {
     if (data.val == null) { // actually, it should be removed
-      return removeCause(state, head, data.loc, data.cause);
+      head = removeCause(state, head, data.loc, data.cause);
+      recycle(data);
+      return head;
     }
 
     final var causes = state.causes;
@@ -170,6 +230,7 @@ public class Propagator {
       if (n.cause == data.cause) {
         n.val = data.val;
         replaced = true;
+        recycle(data);
         break;
       }
     }
@@ -194,7 +255,8 @@ public class Propagator {
   void checkComponentEnds(CircuitState state, Component comp) {
     for (final var end : comp.getEnds()) {
       final var loc = end.getLocation();
-      final var oldHead = state.causes.get(loc);
+      final var oldHead = state.causes.getForUpdate(loc);
+      if (history != null) history.causesChanging(state, loc, oldHead);
       final var oldVal = computeValue(oldHead);
       final var newHead = removeCause(state, oldHead, loc, comp);
       final var newVal = computeValue(newHead);
@@ -207,6 +269,17 @@ public class Propagator {
     }
   }
 
+  private SetData createEvent(
+      int time, int serialNumber, CircuitState state, Location loc, Component cause, Value val) {
+    final var ret = freeEvents;
+    if (ret == null) return new SetData(time, serialNumber, state, loc, cause, val);
+    freeEvents = ret.queueNext;
+    freeEventCount--;
+    ret.queueNext = null;
+    ret.init(time, serialNumber, state, loc, cause, val);
+    return ret;
+  }
+
   public void drawOscillatingPoints(ComponentDrawContext context) {
     if (isOscillating) oscPoints.draw(context);
   }
@@ -218,10 +291,61 @@ public class Propagator {
     return root;
   }
 
+  /** Returns the number of events taken from the queue since the propagator was created. */
+  public long getEventCount() {
+    return eventCount;
+  }
+
   public int getTickCount() {
     return halfClockCycles;
   }
 
+  void setTickCount(int value) {
+    halfClockCycles = value;
+  }
+
+  /**
+   * Sets how many bytes the ticks recorded for stepping back may take at most. Zero stops the
+   * recording and forgets what was recorded.
+   */
+  public void setHistoryLimit(long maxBytes) {
+    historyLimit = Math.max(0, maxBytes);
+    history = historyLimit == 0 ? null : new PropagationHistory(historyLimit, halfClockCycles);
+  }
+
+  public long getHistoryLimit() {
+    return historyLimit;
+  }
+
+  /** Returns how many ticks can currently be stepped back. */
+  public int getHistoryLength() {
+    final var h = history;
+    return h == null ? 0 : h.size();
+  }
+
+  /**
+   * Sets the simulation back by up to the given number of ticks, to how it was settled just
+   * before the earliest of them. Returns the number of ticks actually stepped back.
+   */
+  public int stepBack(int ticks) {
+    final var h = history;
+    if (h == null || ticks <= 0) return 0;
+    final var before = h.size();
+    final var tickCount = h.undo(ticks);
+    if (tickCount < 0) return 0;
+    halfClockCycles = tickCount;
+    toProcess.clear();
+    visited.clear();
+    isOscillating = false;
+    allStates.clear();
+    root.collectStates(allStates);
+    for (final var state : allStates) state.rewire();
+    allStates.clear();
+    // settling again is recorded too, so that stepping further back also undoes it
+    propagate();
+    return before - h.size();
+  }
+
   public boolean isOscillating() {
     return isOscillating;
   }
@@ -259,7 +383,12 @@ public class Propagator {
    */
 
   void locationTouched(CircuitState state, Location loc) {
-    if (oscAdding) oscPoints.add(state, loc);
+    if (oscAdding) {
+      // may be called from several threads when substates are propagated in parallel
+      synchronized (oscPoints) {
+        oscPoints.add(state, loc);
+      }
+    }
   }
 
   public boolean propagate() {
@@ -268,7 +397,7 @@ public class Propagator {
 
   public boolean propagate(Simulator.Listener propListener, Simulator.Event propEvent) {
     oscPoints.clear();
-    root.processDirtyPoints();
+    processDirtyPoints();
     root.processDirtyComponents();
 
     final var oscThreshold = simLimit;
@@ -296,6 +425,16 @@ public class Propagator {
     return iters > 0;
   }
 
+  /** Returns an event that is no longer referenced from any queue or cause list to the pool. */
+  private void recycle(SetData data) {
+    if (freeEventCount >= MAX_POOLED_EVENTS) return;
+    data.init(0, 0, null, null, null, null);
+    data.next = null;
+    data.queueNext = freeEvents;
+    freeEvents = data;
+    freeEventCount++;
+  }
+
   private SetData removeCause(CircuitState state, SetData head, Location loc, Component cause) {
     final var causes = state.causes;
     if (head == null) {
@@ -320,9 +459,12 @@ public class Propagator {
 
   void reset() {
     halfClockCycles = 0;
-    toProcess.clear();
+    // the scheduler preference takes effect on the next reset of the simulation
+    toProcess = createQueue();
+    visited.clear();
     root.reset();
     isOscillating = false;
+    if (history != null) history = new PropagationHistory(historyLimit, 0);
   }
 
   //
@@ -347,7 +489,7 @@ public class Propagator {
         }
       }
     }
-    toProcess.add(new SetData(clock + delay, setDataSerialNumber, state, pt, cause, val));
+    toProcess.add(createEvent(clock + delay, setDataSerialNumber, state, pt, cause, val));
     /*
      * DEBUGGING - comment out Simulator.log(clock + ": set " + pt + " in "
      * + state + " to " + val + " by " + cause + " after " + delay); //
@@ -358,7 +500,7 @@ public class Propagator {
 
   boolean step(PropagationPoints changedPoints) {
     oscPoints.clear();
-    root.processDirtyPoints();
+    processDirtyPoints();
     root.processDirtyComponents();
 
     if (toProcess.isEmpty()) return false;
@@ -379,21 +521,18 @@ public class Propagator {
     clock = toProcess.peek().time;
 
     // propagate all values for this clock tick
-    final var visited = new HashMap<CircuitState, HashSet<ComponentPoint>>();
+    visited.nextTick();
     while (true) {
       final var data = toProcess.peek();
       if (data == null || data.time != clock) break;
-      toProcess.remove();
+      toProcess.poll();
+      eventCount++;
       final var state = data.state;
 
       // if it's already handled for this clock tick, continue
-      var handled = visited.get(state);
-      if (handled != null) {
-        if (!handled.add(new ComponentPoint(data.cause, data.loc))) continue;
-      } else {
-        handled = new HashSet<>();
-        visited.put(state, handled);
-        handled.add(new ComponentPoint(data.cause, data.loc));
+      if (!visited.add(state, data.cause, data.loc)) {
+        recycle(data);
+        continue;
       }
 
       /*
@@ -402,25 +541,47 @@ public class Propagator {
        * data.cause); //
        */
 
-      if (changedPoints != null) changedPoints.add(state, data.loc);
+      final var loc = data.loc;
+      if (changedPoints != null) changedPoints.add(state, loc);
 
-      // change the information about value
-      final var oldHead = state.causes.get(data.loc);
+      // change the information about value (data may be recycled by addCause)
+      final var oldHead = state.causes.getForUpdate(loc);
+      if (history != null) history.causesChanging(state, loc, oldHead);
       final var oldVal = computeValue(oldHead);
       final var newHead = addCause(state, oldHead, data);
       final var newVal = computeValue(newHead);
 
       // if the value at point has changed, propagate it
       if (!newVal.equals(oldVal)) {
-        state.markPointAsDirty(data.loc);
+        state.markPointAsDirty(loc);
       }
     }
 
-    root.processDirtyPoints();
+    processDirtyPoints();
     root.processDirtyComponents();
   }
 
+  private void processDirtyPoints() {
+    final var threads = simThreads;
+    if (threads <= 1 || root.getSubStates().isEmpty()) {
+      root.processDirtyPoints();
+      return;
+    }
+    allStates.clear();
+    root.collectDirtyStates(allStates);
+    final var states = allStates.toArray(new CircuitState[0]);
+    allStates.clear();
+    if (states.length >= 2 * STATES_PER_TASK) {
+      threadPools
+          .computeIfAbsent(threads, ForkJoinPool::new)
+          .invoke(new DirtyPointsTask(states, 0, states.length));
+    } else {
+      for (final var state : states) state.processOwnDirtyPoints();
+    }
+  }
+
   public boolean toggleClocks() {
+    if (history != null) history.beginTick(halfClockCycles);
     halfClockCycles++;
     return root.toggleClocks(halfClockCycles);
   }
@@ -430,6 +591,11 @@ public class Propagator {
     return "Prop" + id;
   }
 
+  private void updateThreads() {
+    final var opts = root.getProject().getOptions();
+    simThreads = opts.getAttributeSet().getValue(Options.ATTR_SIM_THREADS);
+  }
+
   private void updateRandomness() {
     final var opts = root.getProject().getOptions();
     final var rand = opts.getAttributeSet().getValue(Options.ATTR_SIM_RAND);
@@ -0,0 +1,48 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.circuit;
+
+import com.cburch.logisim.circuit.Propagator.SetData;
+import java.util.PriorityQueue;
+
+/** The original binary heap scheduler, kept so that it can be compared with the timing wheel. */
+class PropagatorHeapQueue implements PropagatorQueue {
+  private final PriorityQueue<SetData> queue = new PriorityQueue<>();
+
+  @Override
+  public void add(SetData data) {
+    queue.add(data);
+  }
+
+  @Override
+  public void clear() {
+    queue.clear();
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return queue.isEmpty();
+  }
+
+  @Override
+  public SetData peek() {
+    return queue.peek();
+  }
+
+  @Override
+  public SetData poll() {
+    return queue.poll();
+  }
+
+  @Override
+  public int size() {
+    return queue.size();
+  }
+}
@@ -0,0 +1,33 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.circuit;
+
+import com.cburch.logisim.circuit.Propagator.SetData;
+
+/**
+ * Pending signal changes of a {@link Propagator}. Implementations must hand out events ordered by
+ * their time and, for equal times, by their serial number so that the simulation stays
+ * deterministic whatever scheduler is used.
+ */
+interface PropagatorQueue {
+  void add(SetData data);
+
+  void clear();
+
+  boolean isEmpty();
+
+  /** Returns the earliest pending event without removing it, or null if there is none. */
+  SetData peek();
+
+  /** Removes and returns the earliest pending event, or null if there is none. */
+  SetData poll();
+
+  int size();
+}
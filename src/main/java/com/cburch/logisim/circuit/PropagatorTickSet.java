@@ -0,0 +1,105 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.circuit;
+
+import com.cburch.logisim.comp.Component;
+import com.cburch.logisim.data.Location;
+
+/**
+ * Set of (state, component, location) triples that were already handled during the current clock
+ * tick of a {@link Propagator}. The entries live in parallel open addressing arrays, and the slots
+ * taken are listed so that starting a new tick empties just those, which costs no more than
+ * adding the entries did, and keeps no circuit state, component or location of an earlier tick
+ * reachable. The arrays only grow when a single tick handles more points than ever before.
+ */
+class PropagatorTickSet {
+  private static final int INITIAL_CAPACITY = 256;
+
+  // a slot is free if its state is null
+  private CircuitState[] states = new CircuitState[INITIAL_CAPACITY];
+  private Component[] causes = new Component[INITIAL_CAPACITY];
+  private Location[] locs = new Location[INITIAL_CAPACITY];
+  // the slots taken during this tick
+  private int[] used = new int[INITIAL_CAPACITY / 2];
+  private int count = 0;
+
+  /**
+   * Adds the triple to the set of the current tick.
+   *
+   * @return false if the triple was already handled during this tick
+   */
+  boolean add(CircuitState state, Component cause, Location loc) {
+    if (2 * (count + 1) > states.length) grow();
+    final var slot = insert(state, cause, loc);
+    if (slot < 0) return false;
+    used[count++] = slot;
+    return true;
+  }
+
+  /** Drops all references so that removed circuits and components can be collected. */
+  void clear() {
+    nextTick();
+  }
+
+  private void grow() {
+    final var oldStates = states;
+    final var oldCauses = causes;
+    final var oldLocs = locs;
+    final var oldUsed = used;
+    final var capacity = 2 * oldStates.length;
+    states = new CircuitState[capacity];
+    causes = new Component[capacity];
+    locs = new Location[capacity];
+    used = new int[capacity / 2];
+    for (var i = 0; i < count; i++) {
+      final var slot = oldUsed[i];
+      used[i] = insert(oldStates[slot], oldCauses[slot], oldLocs[slot]);
+    }
+  }
+
+  private static int hash(CircuitState state, Component cause, Location loc) {
+    final var h = (state.hashCode() * 31 + cause.hashCode()) * 31 + loc.hashCode();
+    return h ^ (h >>> 16);
+  }
+
+  // returns the slot taken, or -1 if the triple is there already
+  private int insert(CircuitState state, Component cause, Location loc) {
+    final var mask = states.length - 1;
+    var i = hash(state, cause, loc) & mask;
+    while (states[i] != null) {
+      if (states[i] == state && causes[i].equals(cause) && locs[i].equals(loc)) return -1;
+      i = (i + 1) & mask;
+    }
+    states[i] = state;
+    causes[i] = cause;
+    locs[i] = loc;
+    return i;
+  }
+
+  /** Forgets all entries; called at the start of every clock tick. */
+  void nextTick() {
+    for (var i = 0; i < count; i++) {
+      final var slot = used[i];
+      states[slot] = null;
+      causes[slot] = null;
+      locs[slot] = null;
+    }
+    count = 0;
+  }
+
+  // number of slots that still hold references, for the tests
+  int referenced() {
+    var ret = 0;
+    for (var i = 0; i < states.length; i++) {
+      if (states[i] != null || causes[i] != null || locs[i] != null) ret++;
+    }
+    return ret;
+  }
+}
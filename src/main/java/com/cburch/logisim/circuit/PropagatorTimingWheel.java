@@ -0,0 +1,141 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.circuit;
+
+import com.cburch.logisim.circuit.Propagator.SetData;
+import java.util.Arrays;
+import java.util.PriorityQueue;
+
+/**
+ * Bucketed timing wheel scheduler. Nearly all events are scheduled a few clock units ahead of the
+ * current time, so each one is appended in O(1) to the FIFO bucket of its time slot, and the
+ * serial order within a slot is simply the insertion order. Events that lie beyond the window of
+ * the wheel are parked in a heap and moved into their bucket as soon as the window reaches them.
+ *
+ * <p>The window only advances when an event is removed, so the propagator must never schedule an
+ * event earlier than the last one it took out of the queue. Should that happen nevertheless, the
+ * wheel falls back to rebuilding its window.
+ */
+class PropagatorTimingWheel implements PropagatorQueue {
+  private static final int WHEEL_BITS = 10;
+  private static final int WHEEL_SIZE = 1 << WHEEL_BITS;
+  private static final int WHEEL_MASK = WHEEL_SIZE - 1;
+
+  private final SetData[] heads = new SetData[WHEEL_SIZE];
+  private final SetData[] tails = new SetData[WHEEL_SIZE];
+  private final PriorityQueue<SetData> overflow = new PriorityQueue<>();
+  private int base = 0; // time of the first slot of the window
+  private int cursor = 0; // all slots before base + cursor are empty
+  private int wheelCount = 0;
+
+  @Override
+  public void add(SetData data) {
+    if (wheelCount == 0 && overflow.isEmpty()) {
+      base = data.time;
+      cursor = 0;
+    }
+    // Yes, this subtraction may overflow; see SetData.compareTo
+    var offset = data.time - base;
+    if (offset < 0) {
+      rebase(data.time);
+      offset = 0;
+    }
+    if (offset < WHEEL_SIZE) {
+      append(data);
+      if (offset < cursor) cursor = offset;
+    } else {
+      overflow.add(data);
+    }
+  }
+
+  private void append(SetData data) {
+    final var slot = data.time & WHEEL_MASK;
+    data.queueNext = null;
+    if (heads[slot] == null) heads[slot] = data;
+    else tails[slot].queueNext = data;
+    tails[slot] = data;
+    wheelCount++;
+  }
+
+  @Override
+  public void clear() {
+    Arrays.fill(heads, null);
+    Arrays.fill(tails, null);
+    overflow.clear();
+    wheelCount = 0;
+    cursor = 0;
+  }
+
+  private int firstSlot() {
+    while (heads[(base + cursor) & WHEEL_MASK] == null) cursor++;
+    return (base + cursor) & WHEEL_MASK;
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return wheelCount == 0 && overflow.isEmpty();
+  }
+
+  /** Moves all parked events that entered the window into their slots. */
+  private void migrate() {
+    while (!overflow.isEmpty() && overflow.peek().time - base < WHEEL_SIZE) {
+      append(overflow.poll());
+    }
+  }
+
+  @Override
+  public SetData peek() {
+    if (wheelCount == 0) return overflow.peek();
+    return heads[firstSlot()];
+  }
+
+  @Override
+  public SetData poll() {
+    final SetData ret;
+    if (wheelCount == 0) {
+      ret = overflow.poll();
+      if (ret == null) return null;
+    } else {
+      final var slot = firstSlot();
+      ret = heads[slot];
+      heads[slot] = ret.queueNext;
+      if (heads[slot] == null) tails[slot] = null;
+      ret.queueNext = null;
+      wheelCount--;
+    }
+    base = ret.time;
+    cursor = 0;
+    migrate();
+    return ret;
+  }
+
+  /** Parks everything in the heap and restarts the window at the given time. */
+  private void rebase(int time) {
+    for (var slot = 0; slot < WHEEL_SIZE; slot++) {
+      for (var data = heads[slot]; data != null; ) {
+        final var next = data.queueNext;
+        data.queueNext = null;
+        overflow.add(data);
+        data = next;
+      }
+    }
+    Arrays.fill(heads, null);
+    Arrays.fill(tails, null);
+    wheelCount = 0;
+    base = time;
+    cursor = 0;
+    migrate();
+  }
+
+  @Override
+  public int size() {
+    return wheelCount + overflow.size();
+  }
+}
@@ -0,0 +1,159 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.circuit;
+
+import java.util.HashMap;
+import java.util.function.BiConsumer;
+import java.util.function.UnaryOperator;
+
+/**
+ * A map whose contents can be shared with a copy cheaply. Sharing freezes the entries changed
+ * since the last time into a layer that no map changes anymore, and each map keeps the entries it
+ * puts or removes afterwards in a layer of its own on top of it. Lookups go down the layers. A
+ * new layer is merged with those below it while they are not more than twice as large, so there
+ * are only logarithmically many layers, and an entry is copied only as often: sharing costs in
+ * proportion to what changed, not to the size of the map.
+ *
+ * <p>Values that are changed in place are given a copier: a map then copies an entry of the shared
+ * layers when it is looked up by {@link #getForUpdate}, and keeps that copy as its own. Plain
+ * lookups change nothing. Null values are not supported.
+ */
+final class SharedMap<K, V> {
+  // marks an entry removed from the layers below
+  private static final Object REMOVED = new Object();
+
+  private static final class Layer {
+    final HashMap<Object, Object> entries;
+    final Layer below;
+    final int depth;
+
+    Layer(HashMap<Object, Object> entries, Layer below) {
+      this.entries = entries;
+      this.below = below;
+      this.depth = below == null ? 1 : below.depth + 1;
+    }
+  }
+
+  private final UnaryOperator<V> copier;
+  private HashMap<Object, Object> own = new HashMap<>();
+  private Layer shared = null;
+
+  SharedMap() {
+    this(null);
+  }
+
+  SharedMap(UnaryOperator<V> copier) {
+    this.copier = copier;
+  }
+
+  void clear() {
+    own = new HashMap<>();
+    shared = null;
+  }
+
+  boolean containsKey(K key) {
+    return peek(key) != null;
+  }
+
+  /** Looks a key up without changing anything, so the value found must not be changed. */
+  V get(K key) {
+    return peek(key);
+  }
+
+  /** Looks a key up to change its value in place, copying a shared value first. */
+  @SuppressWarnings("unchecked")
+  V getForUpdate(K key) {
+    final var ret = own.get(key);
+    if (ret != null || shared == null) return ret == REMOVED ? null : (V) ret;
+    final var found = find(key);
+    if (found == null || copier == null) return found;
+    final var copy = copier.apply(found);
+    own.put(key, copy);
+    return copy;
+  }
+
+  V put(K key, V value) {
+    final var old = peek(key);
+    own.put(key, value);
+    return old;
+  }
+
+  V remove(K key) {
+    final var old = peek(key);
+    if (old == null) return null;
+    if (shared == null) own.remove(key);
+    else own.put(key, REMOVED);
+    return old;
+  }
+
+  @SuppressWarnings("unchecked")
+  void forEach(BiConsumer<K, V> action) {
+    final var merged = new HashMap<Object, Object>();
+    if (shared != null) merge(shared, merged);
+    for (final var e : own.entrySet()) {
+      if (e.getValue() == REMOVED) merged.remove(e.getKey());
+      else merged.put(e.getKey(), e.getValue());
+    }
+    for (final var e : merged.entrySet()) action.accept((K) e.getKey(), (V) e.getValue());
+  }
+
+  // number of shared layers below the own entries, for the tests
+  int depth() {
+    return shared == null ? 0 : shared.depth;
+  }
+
+  /** Replaces the contents of this map by those of src, which from then on share them. */
+  void shareFrom(SharedMap<K, V> src) {
+    src.freeze();
+    own = new HashMap<>();
+    shared = src.shared;
+  }
+
+  private void freeze() {
+    if (own.isEmpty()) return;
+    var top = own;
+    var below = shared;
+    while (below != null && below.entries.size() <= 2 * top.size()) {
+      final var merged = new HashMap<>(below.entries);
+      merged.putAll(top);
+      top = merged;
+      below = below.below;
+    }
+    // nothing is left to hide at the bottom
+    if (below == null) top.values().removeIf(v -> v == REMOVED);
+    shared = new Layer(top, below);
+    own = new HashMap<>();
+  }
+
+  private static void merge(Layer layer, HashMap<Object, Object> dest) {
+    if (layer.below != null) merge(layer.below, dest);
+    for (final var e : layer.entries.entrySet()) {
+      if (e.getValue() == REMOVED) dest.remove(e.getKey());
+      else dest.put(e.getKey(), e.getValue());
+    }
+  }
+
+  // looks a key up without copying what is found in the shared layers
+  @SuppressWarnings("unchecked")
+  private V peek(K key) {
+    final var ret = own.get(key);
+    if (ret != null) return ret == REMOVED ? null : (V) ret;
+    return find(key);
+  }
+
+  @SuppressWarnings("unchecked")
+  private V find(K key) {
+    for (var layer = shared; layer != null; layer = layer.below) {
+      final var ret = layer.entries.get(key);
+      if (ret != null) return ret == REMOVED ? null : (V) ret;
+    }
+    return null;
+  }
+}
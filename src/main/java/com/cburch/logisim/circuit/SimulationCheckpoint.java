@@ -0,0 +1,471 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.circuit;
+
+import com.cburch.logisim.comp.Component;
+import com.cburch.logisim.data.Location;
+import com.cburch.logisim.data.Value;
+import com.cburch.logisim.std.memory.MemContents;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * Saves the state of a running simulation to a file, and restores it. The file holds, for the
+ * root state and all of its substates, the values at the points, the values the components drive
+ * onto them, the data of the components and the number of clock ticks.
+ *
+ * <p>Only component data implementing {@link Data} is written, each in a format of its own that
+ * is named in the file along with its length. Data of other components is not kept: restoring
+ * leaves it as the components set it up, and records whose component or format is missing are
+ * skipped.
+ *
+ * <p>Both have to run while the propagator is idle, for instance on the simulation thread. The
+ * events still pending are not written, so a simulation that has not settled is not saved.
+ */
+public final class SimulationCheckpoint {
+  private static final int MAGIC = 0x4c434b50; // "LCKP"
+  private static final int VERSION = 2;
+  private static final int BUFFER_SIZE = 64 * 1024;
+  private static final int CHUNK = 4096; // words of memory contents written at once
+
+  private static final byte R_DATA = 1;
+  private static final byte R_STATE = 2;
+
+  /**
+   * Component data that can be written to a checkpoint. The format name is stored with the data
+   * and has to change whenever the format does, so that old checkpoints are skipped rather than
+   * misread.
+   */
+  public interface Data {
+    String getCheckpointFormat();
+
+    void writeCheckpoint(SimulationCheckpoint out) throws IOException;
+
+    /** Reads what {@link #writeCheckpoint} wrote into this object. */
+    void readCheckpoint(SimulationCheckpoint in) throws IOException;
+  }
+
+  private final FileChannel channel;
+  private final ByteBuffer buf = ByteBuffer.allocate(BUFFER_SIZE);
+
+  private SimulationCheckpoint(FileChannel channel) {
+    this.channel = channel;
+  }
+
+  /**
+   * Writes the state of the simulation of root, which has to be a root state, to file. Fails if
+   * the simulation has not settled.
+   */
+  public static void save(CircuitState root, File file) throws IOException {
+    final var prop = root.getPropagator();
+    if (prop.isOscillating()) throw new IOException("the circuit is oscillating");
+    if (prop.isPending()) throw new IOException("the simulation has not settled");
+    try (final var channel =
+        FileChannel.open(
+            file.toPath(),
+            StandardOpenOption.CREATE,
+            StandardOpenOption.WRITE,
+            StandardOpenOption.TRUNCATE_EXISTING)) {
+      final var out = new SimulationCheckpoint(channel);
+      out.putInt(MAGIC);
+      out.putInt(VERSION);
+      out.putInt(prop.getTickCount());
+      out.writeState(root);
+      out.drain();
+    }
+  }
+
+  /**
+   * Restores the simulation of root, which has to be a root state of the same circuit, to the
+   * state written to file.
+   */
+  public static void restore(CircuitState root, File file) throws IOException {
+    try (final var channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+      final var in = new SimulationCheckpoint(channel);
+      in.buf.limit(0);
+      if (in.getInt() != MAGIC || in.getInt() != VERSION)
+        throw new IOException(file + ": not a simulation checkpoint");
+      final var ticks = in.getInt();
+      final var prop = root.getPropagator();
+      final var states = new ArrayList<CircuitState>();
+      root.collectStates(states);
+      // let every component create its data, which is then overwritten
+      for (final var state : states) state.markAllComponentsDirty();
+      prop.propagate();
+      in.readState(root, true);
+      prop.setTickCount(ticks);
+      // the ticks recorded for stepping back do not lead to the restored state
+      prop.setHistoryLimit(prop.getHistoryLimit());
+      states.clear();
+      root.collectStates(states);
+      for (final var state : states) state.rewire();
+      prop.propagate();
+    }
+  }
+
+  //
+  // writing
+  //
+  private void writeState(CircuitState state) throws IOException {
+    putString(state.getCircuit().getName());
+    final var values = new ArrayList<Location>();
+    final var points = new ArrayList<Value>();
+    state.values.forEach(
+        (loc, val) -> {
+          values.add(loc);
+          points.add(val);
+        });
+    putInt(values.size());
+    for (var i = 0; i < values.size(); i++) {
+      putInt(values.get(i).getX());
+      putInt(values.get(i).getY());
+      putValue(points.get(i));
+    }
+    // what the components drive; some, like a RAM read on the clock edge, do not drive it again
+    final var causes = new ArrayList<Propagator.SetData>();
+    state.causes.forEach((loc, head) -> causes.add(head));
+    putInt(causes.size());
+    for (final var head : causes) {
+      putInt(head.loc.getX());
+      putInt(head.loc.getY());
+      for (var n = head; n != null; n = n.next) {
+        putKey(n.cause);
+        putValue(n.val);
+      }
+      putString(null);
+    }
+    for (final var comp : state.getCircuit().getNonWires()) {
+      final var data = state.getData(comp);
+      if (data instanceof CircuitState sub) {
+        putKey(comp);
+        putByte(R_STATE);
+        writeState(sub);
+      } else if (data instanceof Data d) {
+        putKey(comp);
+        putByte(R_DATA);
+        putString(d.getCheckpointFormat());
+        // the length is filled in once the data is written
+        final var start = position();
+        putLong(0);
+        d.writeCheckpoint(this);
+        setLong(start, position() - start - 8);
+      }
+    }
+    putString(null);
+  }
+
+  private void putKey(Component comp) throws IOException {
+    putString(comp.getFactory().getName());
+    putInt(comp.getLocation().getX());
+    putInt(comp.getLocation().getY());
+  }
+
+  /** Writes the contents of a memory, of which only the used pages take room. */
+  public void putMemory(MemContents m) throws IOException {
+    putInt(m.getLogLength());
+    putInt(m.getValueWidth());
+    final var words = new long[CHUNK];
+    final var end = m.getLastOffset() + 1;
+    for (var addr = m.nextUsedAddress(0); addr >= 0 && addr < end; ) {
+      final var n = (int) Math.min(CHUNK, end - addr);
+      m.read(addr, words, 0, n);
+      var used = n;
+      while (used > 0 && words[used - 1] == 0) used--;
+      if (used > 0) {
+        putLong(addr);
+        putInt(used);
+        for (var i = 0; i < used; i++) putWord(words[i], m.getValueWidth());
+      }
+      addr = m.nextUsedAddress(addr + n);
+    }
+    putLong(-1);
+  }
+
+  private void putWord(long word, int width) throws IOException {
+    if (width <= 8) putByte((byte) word);
+    else if (width <= 16) putShort((short) word);
+    else if (width <= 32) putInt((int) word);
+    else putLong(word);
+  }
+
+  /** Writes a value, which may be null. */
+  public void putValue(Value v) throws IOException {
+    if (v == null) {
+      putByte((byte) -1);
+      return;
+    }
+    final var error = v.getErrorBits();
+    final var unknown = v.getUnknownBits();
+    final var value = v.getValueBits();
+    putByte((byte) v.getWidth());
+    putByte((byte) ((error != 0 ? 1 : 0) | (unknown != 0 ? 2 : 0) | (value != 0 ? 4 : 0)));
+    if (error != 0) putLong(error);
+    if (unknown != 0) putLong(unknown);
+    if (value != 0) putLong(value);
+  }
+
+  /** Writes a string, which may be null. */
+  public void putString(String s) throws IOException {
+    if (s == null) {
+      putInt(-1);
+      return;
+    }
+    final var bytes = s.getBytes(StandardCharsets.UTF_8);
+    putInt(bytes.length);
+    for (var offs = 0; offs < bytes.length; ) {
+      reserve(1);
+      final var n = Math.min(bytes.length - offs, buf.remaining());
+      buf.put(bytes, offs, n);
+      offs += n;
+    }
+  }
+
+  public void putBoolean(boolean b) throws IOException {
+    putByte((byte) (b ? 1 : 0));
+  }
+
+  public void putByte(byte b) throws IOException {
+    reserve(1);
+    buf.put(b);
+  }
+
+  public void putShort(short s) throws IOException {
+    reserve(2);
+    buf.putShort(s);
+  }
+
+  public void putInt(int i) throws IOException {
+    reserve(4);
+    buf.putInt(i);
+  }
+
+  public void putLong(long l) throws IOException {
+    reserve(8);
+    buf.putLong(l);
+  }
+
+  // overwrites a long written before at the given position in the file
+  private void setLong(long pos, long l) throws IOException {
+    final var flushed = channel.position();
+    if (pos >= flushed) {
+      buf.putLong((int) (pos - flushed), l);
+      return;
+    }
+    final var bytes = ByteBuffer.allocate(8).putLong(l).flip();
+    while (bytes.hasRemaining()) channel.write(bytes, pos + bytes.position());
+  }
+
+  private long position() throws IOException {
+    return channel.position() + buf.position();
+  }
+
+  private void reserve(int n) throws IOException {
+    if (buf.remaining() < n) drain();
+  }
+
+  private void drain() throws IOException {
+    buf.flip();
+    while (buf.hasRemaining()) channel.write(buf);
+    buf.clear();
+  }
+
+  //
+  // reading; a null state means that what is read is skipped
+  //
+  private void readState(CircuitState state, boolean root) throws IOException {
+    final var name = getString();
+    if (root && !state.getCircuit().getName().equals(name))
+      throw new IOException("checkpoint of circuit " + name);
+    final var comps = new HashMap<String, Component>();
+    if (state != null) {
+      state.values.clear();
+      state.causes.clear();
+      for (final var comp : state.getCircuit().getNonWires()) comps.put(keyOf(comp), comp);
+    }
+    final var n = getInt();
+    for (var i = 0; i < n; i++) {
+      final var loc = Location.create(getInt(), getInt());
+      final var val = getValue();
+      if (state != null && val != null) state.values.put(loc, val);
+    }
+    final var points = getInt();
+    for (var i = 0; i < points; i++) {
+      final var loc = Location.create(getInt(), getInt());
+      Propagator.SetData head = null;
+      for (var factory = getString(); factory != null; factory = getString()) {
+        final var cause = comps.get(getKey(factory));
+        final var val = getValue();
+        if (cause == null || val == null) continue;
+        final var data = new Propagator.SetData(0, 0, state, loc, cause, val);
+        data.next = head;
+        head = data;
+      }
+      if (head != null) state.causes.put(loc, head);
+    }
+    for (var factory = getString(); factory != null; factory = getString()) {
+      final var comp = comps.get(getKey(factory));
+      final var data = comp == null ? null : state.getData(comp);
+      switch (getByte()) {
+        case R_STATE -> readState(data instanceof CircuitState sub ? sub : null, false);
+        case R_DATA -> readData(data);
+        default -> throw new IOException("corrupt simulation checkpoint");
+      }
+    }
+  }
+
+  // reads a record of data into the given data if it has the format written, or skips it
+  private void readData(Object data) throws IOException {
+    final var format = getString();
+    final var length = getLong();
+    if (length < 0) throw new IOException("corrupt simulation checkpoint");
+    final var end = readPosition() + length;
+    if (data instanceof Data d && d.getCheckpointFormat().equals(format)) {
+      d.readCheckpoint(this);
+      if (readPosition() != end) throw new IOException("corrupt simulation checkpoint");
+    } else {
+      skip(length);
+    }
+  }
+
+  // reads the rest of a key written by putKey after its factory name
+  private String getKey(String factory) throws IOException {
+    return factory + " " + getInt() + " " + getInt();
+  }
+
+  private static String keyOf(Component comp) {
+    final var loc = comp.getLocation();
+    return comp.getFactory().getName() + " " + loc.getX() + " " + loc.getY();
+  }
+
+  /**
+   * Reads memory contents written by {@link #putMemory} into the given memory, changing its
+   * dimensions to those written.
+   */
+  public void getMemory(MemContents ret) throws IOException {
+    final var addrBits = getInt();
+    final var width = getInt();
+    ret.setDimensions(addrBits, width);
+    // the pages written, so that the others can be cleared afterwards
+    var starts = new long[16];
+    var lengths = new int[16];
+    var count = 0;
+    final var words = new long[CHUNK];
+    for (var start = getLong(); start >= 0; start = getLong()) {
+      final var n = getInt();
+      if (n > CHUNK) throw new IOException("corrupt simulation checkpoint");
+      for (var i = 0; i < n; i++) words[i] = getWord(width);
+      ret.write(start, words, 0, n);
+      if (count == starts.length) {
+        starts = Arrays.copyOf(starts, 2 * count);
+        lengths = Arrays.copyOf(lengths, 2 * count);
+      }
+      starts[count] = start;
+      lengths[count++] = n;
+    }
+    // clear what was not written, between and after the runs written
+    Arrays.fill(words, 0);
+    var addr = 0L;
+    for (var i = 0; i <= count; i++) {
+      final var end = i < count ? starts[i] : ret.getLastOffset() + 1;
+      for (var a = ret.nextUsedAddress(addr); a >= 0 && a < end; a = ret.nextUsedAddress(a)) {
+        final var n = (int) Math.min(CHUNK, end - a);
+        ret.write(a, words, 0, n);
+        a += n;
+      }
+      if (i < count) addr = starts[i] + lengths[i];
+    }
+  }
+
+  private long getWord(int width) throws IOException {
+    if (width <= 8) return getByte() & 0xffL;
+    if (width <= 16) return getShort() & 0xffffL;
+    if (width <= 32) return getInt() & 0xffffffffL;
+    return getLong();
+  }
+
+  public Value getValue() throws IOException {
+    final var width = getByte();
+    if (width < 0) return null;
+    final var flags = getByte();
+    final var error = (flags & 1) != 0 ? getLong() : 0;
+    final var unknown = (flags & 2) != 0 ? getLong() : 0;
+    final var value = (flags & 4) != 0 ? getLong() : 0;
+    return Value.create(width, error, unknown, value);
+  }
+
+  public String getString() throws IOException {
+    final var n = getInt();
+    if (n < 0) return null;
+    final var bytes = new byte[n];
+    for (var offs = 0; offs < n; ) {
+      need(1);
+      final var k = Math.min(n - offs, buf.remaining());
+      buf.get(bytes, offs, k);
+      offs += k;
+    }
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  public boolean getBoolean() throws IOException {
+    return getByte() != 0;
+  }
+
+  public byte getByte() throws IOException {
+    need(1);
+    return buf.get();
+  }
+
+  public short getShort() throws IOException {
+    need(2);
+    return buf.getShort();
+  }
+
+  public int getInt() throws IOException {
+    need(4);
+    return buf.getInt();
+  }
+
+  public long getLong() throws IOException {
+    need(8);
+    return buf.getLong();
+  }
+
+  private long readPosition() throws IOException {
+    return channel.position() - buf.remaining();
+  }
+
+  private void skip(long n) throws IOException {
+    if (n <= buf.remaining()) {
+      buf.position(buf.position() + (int) n);
+      return;
+    }
+    final var pos = readPosition() + n;
+    if (pos > channel.size()) throw new EOFException("truncated simulation checkpoint");
+    channel.position(pos);
+    buf.limit(0);
+  }
+
+  private void need(int n) throws IOException {
+    if (buf.remaining() >= n) return;
+    buf.compact();
+    while (buf.position() < n) {
+      if (channel.read(buf) < 0) throw new EOFException("truncated simulation checkpoint");
+    }
+    buf.flip();
+  }
+}
@@ -17,7 +17,12 @@ import com.cburch.logisim.gui.log.ComponentSelector;
 import com.cburch.logisim.prefs.AppPreferences;
 import com.cburch.logisim.util.CollectionUtil;
 import com.cburch.logisim.util.UniquelyNamedThread;
+import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
 import javax.swing.SwingUtilities;
 
 public class Simulator {
@@ -59,6 +64,14 @@ public class Simulator {
       return false;
     }
 
+    /**
+     * Returns whether the listener samples the circuit after every tick, as the log does, so that
+     * the simulator must not merge several auto-ticks into one propagation.
+     */
+    default boolean wantEveryTick() {
+      return false;
+    }
+
     default void propagationInProgress(Event e) {
       // do nothing
     }
@@ -68,6 +81,15 @@ public class Simulator {
     }
 
     void simulatorStateChanged(Event e);
+
+    /**
+     * Called about twice a second while the simulator is auto-ticking, once it has measured the
+     * tick frequency it achieves. The achieved and the requested frequency are those reported by
+     * {@link Simulator#getAchievedTickFrequency} and {@link Simulator#getTickFrequency}.
+     */
+    default void tickFrequencyMeasured(Event e) {
+      // do nothing
+    }
   }
 
   // This thread keeps track of the current stepPoints (when running in step
@@ -100,23 +122,47 @@ public class Simulator {
   //               only happens when autoTicking is off), the thread wakes up
   //               and invokes step(). If if autoTicking is on and signals are
   //               stable, then toggleClocks() is also called before step().
+  //
+  // Requests from other threads are posted as commands on a lock-free queue
+  // and the thread is unparked; the counters and flags they change are only
+  // touched by the thread itself. The settings below are volatile so that the
+  // GUI can read them at any time.
+  //
+  // Auto-ticks are paced on a fixed grid of deadlines rather than relative to
+  // the previous tick. Once the tick period drops below what a timed park can
+  // deliver, the thread wakes up late and does all ticks that are due in one
+  // batch, reporting the batch as a single propagation. Batching is skipped
+  // while a listener wants progress events or samples every tick, as the
+  // chronogram, the log file and the VCD writer have to see every tick.
   private static class SimThread extends UniquelyNamedThread {
+    // the longest a batch of auto-ticks may run before commands are looked at again
+    private static final long MAX_BATCH_NANOS = 20_000_000L;
+    // how far the pacer may fall behind before the missed ticks are dropped
+    private static final long MAX_LAG_NANOS = 100_000_000L;
+    // how often the achieved tick frequency is measured
+    private static final long MEASURE_NANOS = 500_000_000L;
 
     private final Simulator sim;
-    private long lastTick = System.nanoTime();
-
-    // NOTE: These variables must only be accessed with lock held.
-    private Propagator propagator = null;
-    private boolean autoPropagating = true;
-    private boolean autoTicking = false;
-    private double autoTickFreq = 1.0; // Hz
-    private long autoTickNanos = Math.round(1e9 / autoTickFreq);
+    private final ConcurrentLinkedQueue<Runnable> commands = new ConcurrentLinkedQueue<>();
+
+    private volatile Propagator propagator = null;
+    private volatile boolean autoPropagating = true;
+    private volatile boolean autoTicking = false;
+    private volatile double autoTickFreq = 1.0; // Hz
+    private volatile long autoTickNanos = Math.round(1e9 / autoTickFreq);
+    private volatile double achievedTickFreq = 0.0; // Hz
+    private volatile boolean oops = false;
+    private volatile long historyLimit = 0; // bytes of tick history, 0 if not recording
+
+    // NOTE: These variables must only be accessed by the simulation thread.
     private int manualTicksRequested = 0;
     private int manualStepsRequested = 0;
     private boolean nudgeRequested = false;
     private boolean resetRequested = false;
     private boolean complete = false;
-    private boolean oops = false;
+    private long nextTick = System.nanoTime();
+    private long measureStart = nextTick;
+    private long measureTicks = 0;
 
     // This last one should be made thread-safe, but it isn't for now.
     private final PropagationPoints stepPoints = new PropagationPoints();
@@ -126,26 +172,35 @@ public class Simulator {
       sim = s;
     }
 
-    synchronized Propagator getPropagator() {
+    private void post(Runnable command) {
+      commands.add(command);
+      LockSupport.unpark(this);
+    }
+
+    Propagator getPropagator() {
       return propagator;
     }
 
-    synchronized boolean isExceptionEncountered() {
+    boolean isExceptionEncountered() {
       return oops;
     }
 
-    synchronized boolean isAutoTicking() {
+    boolean isAutoTicking() {
       return autoTicking;
     }
 
-    synchronized boolean isAutoPropagating() {
+    boolean isAutoPropagating() {
       return autoPropagating;
     }
 
-    synchronized double getTickFrequency() {
+    double getTickFrequency() {
       return autoTickFreq;
     }
 
+    double getAchievedTickFrequency() {
+      return achievedTickFreq;
+    }
+
     synchronized void drawStepPoints(ComponentDrawContext context) {
       if (!autoPropagating) stepPoints.draw(context);
     }
@@ -163,74 +218,128 @@ public class Simulator {
       return autoPropagating ? "" : stepPoints.getSingleStepMessage();
     }
 
-    synchronized boolean setPropagator(Propagator value) {
+    boolean setPropagator(Propagator value) {
       if (propagator == value)
         return false;
       propagator = value;
-      manualTicksRequested = 0;
-      manualStepsRequested = 0;
-      notifyAll();
+      post(() -> {
+        manualTicksRequested = 0;
+        manualStepsRequested = 0;
+        if (value != null && value.getHistoryLimit() != historyLimit)
+          value.setHistoryLimit(historyLimit);
+      });
       return true;
     }
 
-    synchronized boolean setAutoPropagation(boolean value) {
+    boolean setAutoPropagation(boolean value) {
       if (autoPropagating == value)
         return false;
       autoPropagating = value;
-      if (autoPropagating)
-        manualStepsRequested = 0; // manual steps not allowed in autoPropagating mode
-      else
-        nudgeRequested = false; // nudges not allowed in single-step mode
-      notifyAll();
+      post(() -> {
+        if (value)
+          manualStepsRequested = 0; // manual steps not allowed in autoPropagating mode
+        else
+          nudgeRequested = false; // nudges not allowed in single-step mode
+      });
       return true;
     }
 
-    synchronized boolean setAutoTicking(boolean value) {
+    boolean setAutoTicking(boolean value) {
       if (autoTicking == value)
         return false;
       autoTicking = value;
-      notifyAll();
+      post(this::resetPacer);
       return true;
     }
 
-    synchronized boolean setTickFrequency(double freq) {
+    boolean setTickFrequency(double freq) {
       if (autoTickFreq == freq)
         return false;
       autoTickFreq = freq;
       autoTickNanos = freq <= 0 ? 0 : Math.round(1e9 / autoTickFreq);
-      notifyAll();
+      post(this::resetPacer);
       return true;
     }
 
-    synchronized void requestStep() {
-      manualStepsRequested++;
+    void requestStep() {
       autoPropagating = false;
-      notifyAll();
+      post(() -> manualStepsRequested++);
     }
 
-    synchronized void requestTick(int count) {
-      manualTicksRequested += count;
-      notifyAll();
+    void requestTick(int count) {
+      post(() -> manualTicksRequested += count);
     }
 
-    synchronized void requestReset() {
-      resetRequested = true;
-      manualTicksRequested = 0;
-      manualStepsRequested = 0;
-      notifyAll();
+    void requestReset() {
+      post(() -> {
+        resetRequested = true;
+        manualTicksRequested = 0;
+        manualStepsRequested = 0;
+      });
     }
 
-    synchronized boolean requestNudge() {
+    boolean requestNudge() {
       if (!autoPropagating)
         return false;
-      nudgeRequested = true;
-      notifyAll();
+      post(() -> nudgeRequested = true);
       return true;
     }
 
-    synchronized void requestShutDown() {
-      complete = true;
-      notifyAll();
+    long getHistoryLimit() {
+      return historyLimit;
+    }
+
+    boolean setHistoryLimit(long maxBytes) {
+      if (historyLimit == maxBytes)
+        return false;
+      historyLimit = maxBytes;
+      post(() -> {
+        final var prop = propagator;
+        if (prop != null) prop.setHistoryLimit(maxBytes);
+      });
+      return true;
+    }
+
+    void requestStepBack(int count) {
+      post(() -> {
+        final var prop = propagator;
+        if (prop == null || prop.stepBack(count) == 0) return;
+        stepPoints.clear();
+        manualStepsRequested = 0;
+        // reported as a nudge, so that everything is repainted
+        nudgeRequested = autoPropagating;
+      });
+    }
+
+    void requestShutDown() {
+      post(() -> complete = true);
+    }
+
+    void requestCheckpoint(File file, boolean restore, Consumer<IOException> done) {
+      post(() -> {
+        IOException error = null;
+        final var prop = propagator;
+        try {
+          if (prop != null && restore) {
+            stepPoints.clear();
+            SimulationCheckpoint.restore(prop.getRootState(), file);
+            // reported as a nudge, so that everything is repainted
+            nudgeRequested = autoPropagating;
+          } else if (prop != null) {
+            SimulationCheckpoint.save(prop.getRootState(), file);
+          }
+        } catch (IOException e) {
+          error = e;
+        }
+        done.accept(error);
+      });
+    }
+
+    private void resetPacer() {
+      nextTick = System.nanoTime();
+      measureStart = nextTick;
+      measureTicks = 0;
+      achievedTickFreq = 0.0;
     }
 
     private boolean loop() {
@@ -242,66 +351,67 @@ public class Simulator {
       boolean doTickIfStable = false;
       boolean doStep = false;
       boolean doProp = false;
+      long autoTicks = 0;
       long now = 0;
 
-      synchronized (this) {
-        boolean ready = false;
-        do {
-          if (complete) return false;
+      boolean ready = false;
+      do {
+        for (var command = commands.poll(); command != null; command = commands.poll()) {
+          command.run();
+        }
+        if (complete) return false;
 
-          prop = propagator;
-          now = System.nanoTime();
+        prop = propagator;
+        now = System.nanoTime();
 
-          if (resetRequested) {
-            resetRequested = false;
-            doReset = true;
-            doProp = autoPropagating;
-            ready = true;
-          }
-          if (nudgeRequested) {
-            nudgeRequested = false;
-            doNudge = true;
-            ready = true;
-          }
-          if (manualStepsRequested > 0) {
-            manualStepsRequested--;
-            doTickIfStable = autoTicking;
-            doStep = true;
-            ready = true;
-          }
+        if (resetRequested) {
+          resetRequested = false;
+          doReset = true;
+          doProp = autoPropagating;
+          ready = true;
+        }
+        if (nudgeRequested) {
+          nudgeRequested = false;
+          doNudge = true;
+          ready = true;
+        }
+        if (manualStepsRequested > 0) {
+          manualStepsRequested--;
+          doTickIfStable = autoTicking;
+          doStep = true;
+          ready = true;
+        }
 
-          if (manualTicksRequested > 0) {
-            // variable is decremented below
+        if (manualTicksRequested > 0) {
+          // variable is decremented below
+          doTick = true;
+          doProp = autoPropagating;
+          doStep = !autoPropagating;
+          ready = true;
+        }
+
+        long delta = 0;
+        final var period = autoTickNanos;
+        if (autoTicking && autoPropagating && period > 0) {
+          // see if it is time to do one or more auto-ticks
+          delta = nextTick - now;
+          if (delta <= 0) {
+            autoTicks = sim.canBatchTicks() ? 1 - delta / period : 1;
             doTick = true;
-            doProp = autoPropagating;
-            doStep = !autoPropagating;
+            doProp = true;
             ready = true;
           }
+        }
 
-          long delta = 0;
-          if (autoTicking && autoPropagating && autoTickNanos > 0) {
-            // see if it is time to do an auto-tick
-            long deadline = lastTick + autoTickNanos;
-            delta = deadline - now;
-            if (delta <= 0) {
-              doTick = true;
-              doProp = true;
-              ready = true;
-            }
-          }
-
-          if (!ready) {
-            try {
-              if (delta > 0) wait(delta / 1000000, (int) (delta % 1000000));
-              else wait();
-            } catch (InterruptedException ignored) {
-              // yes, we swallow the interrupt
-            }
-          }
-        } while (!ready);
+        if (!ready) {
+          if (delta > 0) LockSupport.parkNanos(this, delta);
+          else LockSupport.park(this);
+          // yes, we swallow the interrupt
+          Thread.interrupted();
+        }
+      } while (!ready);
 
-        oops = false;
-      }
+      oops = false;
       // DEBUGGING
       // System.out.printf("%d nudge %s tick %s prop %s step %s\n", cnt++, doNudge, doTick, doProp,
       // doStep);
@@ -309,6 +419,7 @@ public class Simulator {
       var oops = false;
       var osc = false;
       var ticked = false;
+      var ticks = 0L;
       var stepped = false;
       var propagated = false;
       var hasClocks = true;
@@ -324,8 +435,8 @@ public class Simulator {
         }
 
       if (doTick || (doTickIfStable && prop != null && !prop.isPending())) {
-        lastTick = now;
         ticked = true;
+        ticks = 1;
         if (prop != null) hasClocks = prop.toggleClocks();
       }
 
@@ -335,8 +446,18 @@ public class Simulator {
           final var p = sim.getPropagationListener();
           final var evt = p == null ? null : new Event(sim, false, false, false);
           stepPoints.clear();
-          if (prop != null)
+          if (prop != null) {
             propagated |= prop.propagate(p, evt);
+            // the remaining ticks of a batch
+            while (ticks < autoTicks
+                && hasClocks
+                && !prop.isOscillating()
+                && System.nanoTime() - now < MAX_BATCH_NANOS) {
+              hasClocks = prop.toggleClocks();
+              prop.propagate();
+              ticks++;
+            }
+          }
         } catch (Exception err) {
           oops = true;
           err.printStackTrace();
@@ -356,16 +477,28 @@ public class Simulator {
       osc = prop != null && prop.isOscillating();
 
       var clockDied = false;
-      synchronized (this) {
-        this.oops = oops;
-        if (osc) {
-          autoPropagating = false;
-          nudgeRequested = false;
-        }
-        if (ticked && manualTicksRequested > 0) manualTicksRequested--;
-        if (autoTicking && !hasClocks) {
-          autoTicking = false;
-          clockDied = true;
+      this.oops = oops;
+      if (osc) {
+        autoPropagating = false;
+        nudgeRequested = false;
+      }
+      if (ticked && manualTicksRequested > 0) manualTicksRequested--;
+      if (autoTicking && !hasClocks) {
+        autoTicking = false;
+        clockDied = true;
+      }
+
+      var measured = false;
+      if (autoTicks > 0) {
+        nextTick += ticks * autoTickNanos;
+        final var end = System.nanoTime();
+        if (end - nextTick > MAX_LAG_NANOS) nextTick = end;
+        measureTicks += ticks;
+        if (end - measureStart >= MEASURE_NANOS) {
+          achievedTickFreq = measureTicks * 1e9 / (end - measureStart);
+          measureStart = end;
+          measureTicks = 0;
+          measured = true;
         }
       }
 
@@ -374,6 +507,7 @@ public class Simulator {
       // some components.
       if (ticked || stepped || propagated || doNudge)
         sim.firePropagationCompleted(ticked, stepped && !propagated, propagated); // FIXME: ack, wrong thread!
+      if (measured) sim.fireTickFrequencyMeasured(); // FIXME: ack, wrong thread!
       if (clockDied) sim.fireSimulatorStateChanged(); // FIXME: ack, wrong thread!
       return true;
     }
@@ -385,14 +519,12 @@ public class Simulator {
           if (!loop()) return;
         } catch (Throwable e) {
           e.printStackTrace();
-          synchronized (this) {
-            oops = true;
-            autoPropagating = false;
-            autoTicking = false;
-            manualTicksRequested = 0;
-            manualStepsRequested = 0;
-            nudgeRequested = false;
-          }
+          oops = true;
+          autoPropagating = false;
+          autoTicking = false;
+          manualTicksRequested = 0;
+          manualStepsRequested = 0;
+          nudgeRequested = false;
           SwingUtilities.invokeLater(
               () ->
                   OptionPane.showMessageDialog(
@@ -492,6 +624,21 @@ public class Simulator {
     return propagationListener;
   }
 
+  // called from simThread, but probably should not be
+  private boolean canBatchTicks() {
+    for (final var listener : copyListeners()) {
+      if (listener.wantProgressEvents() || listener.wantEveryTick()) return false;
+    }
+    return true;
+  }
+
+  // called from simThread, but probably should not be
+  private void fireTickFrequencyMeasured() {
+    final var event = new Event(this, false, false, false);
+    for (final var listener : copyListeners())
+      listener.tickFrequencyMeasured(event);
+  }
+
   // called only from gui thread, but need copy here anyway because listeners
   // can add/remove from listeners list?
   private void fireSimulatorStateChanged() {
@@ -504,6 +651,11 @@ public class Simulator {
     return simThread.getTickFrequency();
   }
 
+  /** Returns the tick frequency actually achieved while auto-ticking, or 0 if not measured yet. */
+  public double getAchievedTickFrequency() {
+    return simThread.getAchievedTickFrequency();
+  }
+
   public boolean isExceptionEncountered() {
     return simThread.isExceptionEncountered();
   }
@@ -570,6 +722,38 @@ public class Simulator {
     simThread.requestShutDown();
   }
 
+  /**
+   * Saves the state of the simulation to a checkpoint file, between two propagations. Once done,
+   * done is called on the simulation thread with the error, or null.
+   */
+  public void saveCheckpoint(File file, Consumer<IOException> done) {
+    simThread.requestCheckpoint(file, false, done);
+  }
+
+  /** Restores the state of the simulation from a checkpoint file, like {@link #saveCheckpoint}. */
+  public void restoreCheckpoint(File file, Consumer<IOException> done) {
+    simThread.requestCheckpoint(file, true, done);
+  }
+
+  /** Returns how many bytes the ticks recorded for stepping back may take, 0 if not recording. */
+  public long getHistoryLimit() {
+    return simThread.getHistoryLimit();
+  }
+
+  /**
+   * Records the recent ticks of the simulation, so that it can step back, in at most the given
+   * number of bytes. Zero stops recording.
+   */
+  public void setHistoryLimit(long maxBytes) {
+    if (simThread.setHistoryLimit(Math.max(0, maxBytes)))
+      fireSimulatorStateChanged();
+  }
+
+  /** Sets the simulation back by up to count recorded ticks. */
+  public void stepBack(int count) {
+    simThread.requestStepBack(count);
+  }
+
   private boolean ensureClocks() {
     final var cs = getCircuitState();
     if (cs == null || cs.hasKnownClocks()) return true;
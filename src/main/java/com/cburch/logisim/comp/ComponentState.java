@@ -11,4 +11,14 @@ package com.cburch.logisim.comp;
 
 public interface ComponentState {
   Object clone();
+
+  /**
+   * Returns how many bytes this data has copied so far because it shared them with its clones,
+   * such as the pages of a memory copied before they are written. The history of the simulation
+   * charges these copies to the ticks that made them. Data that does not share anything with its
+   * clones returns 0.
+   */
+  default long getCopiedBytes() {
+    return 0;
+  }
 }
@@ -10,13 +10,19 @@
 package com.cburch.logisim.data;
 
 import com.cburch.logisim.prefs.AppPreferences;
-import com.cburch.logisim.util.Cache;
 import java.awt.Color;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
 import java.util.Arrays;
 
 public class Value {
 
-  private static Value create(int width, long error, long unknown, long value) {
+  /**
+   * Returns the value of the given width whose bits are errors, unknown or ones as given by the
+   * three masks, as returned by {@link #getErrorBits}, {@link #getUnknownBits} and {@link
+   * #getValueBits}. Error bits take precedence over unknown ones, which take precedence over ones.
+   */
+  public static Value create(int width, long error, long unknown, long value) {
     if (width == 0) {
       return Value.NIL;
     } else if (width == 1) {
@@ -24,6 +30,20 @@ public class Value {
       else if ((unknown & 1) != 0) return Value.UNKNOWN;
       else if ((value & 1) != 0) return Value.TRUE;
       else return Value.FALSE;
+    } else if (width <= MAX_INTERNED_WIDTH) {
+      final var mask = ~(-1L << width);
+      error = error & mask;
+      unknown = unknown & mask & ~error;
+      value = value & mask & ~unknown & ~error;
+
+      // two bits per bit position: 00 false, 01 true, 10 unknown, 11 error
+      final var index = (int) (((error | unknown) << width) | error | value);
+      final var table = internedValues[width];
+      final var interned = table[index];
+      if (interned != null) return interned;
+      final var ret = new Value(width, error, unknown, value);
+      final var raced = (Value) INTERNED.compareAndExchange(table, index, null, ret);
+      return raced == null ? ret : raced;
     } else {
       final var mask = (width == 64 ? -1L : ~(-1L << width));
       error = error & mask;
@@ -34,16 +54,15 @@ public class Value {
       hashCode = 31 * hashCode + (int) (error ^ (error >>> 32));
       hashCode = 31 * hashCode + (int) (unknown ^ (unknown >>> 32));
       hashCode = 31 * hashCode + (int) (value ^ (value >>> 32));
-      Object cached = cache.get(hashCode);
-      if (cached != null) {
-        Value val = (Value) cached;
-        if (val.value == value
-            && val.width == width
-            && val.error == error
-            && val.unknown == unknown) return val;
-      }
+      final var slot = (hashCode * 0x9E3779B9) >>> (32 - CACHE_BITS);
+      final var cached = cache[slot];
+      if (cached != null
+          && cached.value == value
+          && cached.width == width
+          && cached.error == error
+          && cached.unknown == unknown) return cached;
       final var ret = new Value(width, error, unknown, value);
-      cache.put(hashCode, ret);
+      cache[slot] = ret;
       return ret;
     }
   }
@@ -201,7 +220,27 @@ public class Value {
   public static Color widthErrorCaptionBgcolor = new Color(AppPreferences.WIDTH_ERROR_BACKGROUND_COLOR.get());
   public static Color clockFrequencyColor = new Color(AppPreferences.CLOCK_FREQUENCY_COLOR.get());
 
-  private static final Cache cache = new Cache();
+  /**
+   * Values of up to this many bits are interned: there is exactly one instance of each of them,
+   * so they can be compared by reference. Together with the four one bit constants this covers the
+   * values on most wires.
+   */
+  public static final int MAX_INTERNED_WIDTH = 8;
+
+  // interned values by width, indexed as computed in create; the slots are filled on first use
+  private static final Value[][] internedValues = new Value[MAX_INTERNED_WIDTH + 1][];
+  private static final VarHandle INTERNED = MethodHandles.arrayElementVarHandle(Value[].class);
+
+  static {
+    for (var width = 2; width <= MAX_INTERNED_WIDTH; width++) {
+      internedValues[width] = new Value[1 << (2 * width)];
+    }
+  }
+
+  // Wider values go through a direct mapped cache. Values are immutable, so racing threads at worst
+  // replace each other's entries, and wide values may have several instances.
+  private static final int CACHE_BITS = 14;
+  private static final Value[] cache = new Value[1 << CACHE_BITS];
 
   private final int width;
 
@@ -292,12 +331,14 @@ public class Value {
 
   @Override
   public boolean equals(Object otherObj) {
-    return (otherObj instanceof Value other)
-           ? this.width == other.width
-              && this.error == other.error
-              && this.unknown == other.unknown
-              && this.value == other.value
-           : false;
+    if (this == otherObj) return true;
+    if (!(otherObj instanceof Value other)) return false;
+    // interned values are only equal to themselves
+    if (this.width <= MAX_INTERNED_WIDTH && other.width <= MAX_INTERNED_WIDTH) return false;
+    return this.width == other.width
+        && this.error == other.error
+        && this.unknown == other.unknown
+        && this.value == other.value;
   }
 
   public Value extendWidth(int newWidth, Value others) {
@@ -353,6 +394,21 @@ public class Value {
     return width;
   }
 
+  /** Returns the mask of the bits that are errors. */
+  public long getErrorBits() {
+    return error;
+  }
+
+  /** Returns the mask of the bits that are unknown, and not errors. */
+  public long getUnknownBits() {
+    return unknown;
+  }
+
+  /** Returns the mask of the bits that are known to be one. */
+  public long getValueBits() {
+    return value;
+  }
+
   @Override
   public int hashCode() {
     var ret = width;
@@ -24,7 +24,6 @@ import java.awt.Rectangle;
 import java.awt.RenderingHints;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
-import java.awt.image.BufferedImage;
 import java.util.ArrayList;
 import javax.swing.DefaultListSelectionModel;
 import javax.swing.JPanel;
@@ -42,6 +41,10 @@ public class RightPanel extends JPanel {
   private static final int EXTRA_SPACE = 40;
   private static final int CURSOR_GAP = 20;
   private static final int TIMELINE_SPACING = 80;
+  private static final int MIN_ZOOM = -40;
+  private static final int MAX_ZOOM = 40;
+  // beyond this, float coordinates in the renderer no longer resolve single pixels
+  private static final int MAX_WIDTH = 1 << 24;
   private final ChronoPanel chronoPanel;
   final DefaultListSelectionModel selectionModel;
   private Model model;
@@ -140,7 +143,6 @@ public class RightPanel extends JPanel {
     timeStartDraw = t0;
     timeNextDraw = t1;
     updateSize(true);
-    flushWaveforms();
     header.repaint();
     repaint();
   }
@@ -208,6 +210,7 @@ public class RightPanel extends JPanel {
   }
 
   public void setSignalCursorX(int posX) {
+    final var oldX = getSignalCursorX();
     final var f = model.getTimeScale() / tickWidth;
     curX = Math.max(0, posX);
     final var t0 = model.getStartTime();
@@ -217,7 +220,13 @@ public class RightPanel extends JPanel {
       curT = Long.MAX_VALUE;
     }
     header.repaint();
-    repaint();
+    // only the columns of the old and the new cursor need to be drawn again
+    repaintCursor(oldX);
+    repaintCursor(getSignalCursorX());
+  }
+
+  private void repaintCursor(int x) {
+    repaint(x - 2, 0, 5, getHeight());
   }
 
   public int getSignalCursorX() {
@@ -232,16 +241,8 @@ public class RightPanel extends JPanel {
   }
 
   public void changeSpotlight(Signal oldSignal, Signal newSignal) {
-    if (oldSignal != null) {
-      final var waveform = rows.get(oldSignal.idx);
-      waveform.flush();
-      repaint(waveform.getBounds());
-    }
-    if (newSignal != null) {
-      final var waveform = rows.get(newSignal.idx);
-      waveform.flush();
-      repaint(waveform.getBounds());
-    }
+    if (oldSignal != null) repaint(rows.get(oldSignal.idx).getBounds());
+    if (newSignal != null) repaint(rows.get(newSignal.idx).getBounds());
   }
 
   public void updateSelected(int firstIdx, int lastIdx) {
@@ -250,24 +251,22 @@ public class RightPanel extends JPanel {
       final var selected = selectionModel.isSelectedIndex(i);
       if (selected != waveform.selected) {
         waveform.selected = selected;
-        waveform.flush();
         repaint(waveform.getBounds());
       }
     }
   }
 
-  private void flushWaveforms() {
-    for (final var w : rows) w.flush();
-  }
-
   @Override
   public void paintComponent(Graphics graphics) {
     final var gfx = (Graphics2D) graphics;
     /* Anti-aliasing changes from https://github.com/hausen/logisim-evolution */
     gfx.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
     gfx.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+    // only the damaged part of the viewport is drawn
+    var clip = gfx.getClipBounds();
+    if (clip == null) clip = new Rectangle(0, 0, getWidth(), getHeight());
     gfx.setColor(Color.WHITE);
-    gfx.fillRect(0, 0, getWidth(), getHeight()); // entire viewport, not just (width, height)
+    gfx.fillRect(clip.x, clip.y, clip.width, clip.height); // may be beyond (width, height)
     gfx.setColor(Color.BLACK);
     if (rows.isEmpty()) {
       final var f = gfx.getFont();
@@ -282,13 +281,16 @@ public class RightPanel extends JPanel {
       gfx.setFont(f);
       return;
     }
-    if (width > 32000) {
+    if (width > MAX_WIDTH) {
       gfx.setColor(Color.BLACK);
       gfx.setFont(MSG_FONT);
       gfx.drawString("Oops! Chronogram is too large to display.", 15, 15);
       gfx.drawString("Try zooming out, or reset the simulation.", 15, 29);
     } else {
-      for (final var w : rows) w.paintWaveform(gfx);
+      final var first = Math.max(0, clip.y / WAVE_HEIGHT);
+      final var last = Math.min(rows.size() - 1, (clip.y + clip.height - 1) / WAVE_HEIGHT);
+      for (var i = first; i <= last; i++)
+        rows.get(i).paintWaveform(gfx, clip.x, clip.x + clip.width);
       paintCursor(gfx);
     }
   }
@@ -403,7 +405,6 @@ public class RightPanel extends JPanel {
     private static final int MID = WAVE_HEIGHT / 2;
 
     final Signal signal;
-    private BufferedImage buf;
     boolean selected;
 
     public Waveform(Signal s) {
@@ -415,11 +416,19 @@ public class RightPanel extends JPanel {
       return new Rectangle(0, y, width, WAVE_HEIGHT);
     }
 
-    private void drawSignal(Graphics2D g, boolean bold, Color[] colors) {
+    // Draws the runs that are visible between pixel columns xL and xR. Where several
+    // transitions fall within one pixel column, a single bar is drawn for all of them, and the
+    // runs in between are skipped with a binary search, so a zoomed out view takes one
+    // primitive per column rather than one per transition.
+    private void drawSignal(Graphics2D g, boolean bold, Color[] colors, int xL, int xR) {
       g.setStroke(new BasicStroke(bold ? 2 : 1));
 
+      final var z = tickWidth / model.getTimeScale();
       final var t0 = model.getStartTime();
-      Signal.Iterator cur = signal.new Iterator(t0);
+      // start one run early, so the transition into the first visible run is drawn as usual
+      var t = signal.getRunStart(t0 + (long) (xL / z));
+      if (t > t0) t = signal.getRunStart(t - 1);
+      final var cur = signal.new Iterator(Math.max(t, t0));
 
       final var fm = g.getFontMetrics();
 
@@ -427,14 +436,14 @@ public class RightPanel extends JPanel {
       final var min = signal.getFormattedMinValue();
       final var labelWidth = Math.max(fm.stringWidth(max), fm.stringWidth(min));
 
-      final var z = tickWidth / model.getTimeScale();
       var prevHi = false;
       var prevLo = false;
       Color prevFill = null;
       while (cur.value != null) {
-        final var v = cur.getFormattedValue();
         final var x0 = (int) (z * (cur.time - t0));
+        if (x0 > xR) break;
         final var x1 = (int) (z * (cur.time + cur.duration - t0));
+        final var v = cur.getFormattedValue();
 
         var hi = true;
         var lo = true;
@@ -463,6 +472,16 @@ public class RightPanel extends JPanel {
         //     \_____\_____/_____X_____/    \_____/
         //    |     |     |     |     |    |     |
 
+        if (x1 == x0) {
+          // run within a single column, draw a bar and continue with the next column
+          g.setColor(lineColor);
+          g.drawLine(x0, HIGH, x0, LOW);
+          prevFill = null;
+          final var next = t0 + (long) Math.ceil((x0 + 1) / z);
+          if (!cur.advance(Math.max(next - cur.time, 1))) break;
+          continue;
+        }
+
         if (prevFill != null) {
           // draw left transition
           final var xt = x0 + Math.min(slope, (x1 - x0) / 2);
@@ -569,50 +588,35 @@ public class RightPanel extends JPanel {
       }
     }
 
-    private void createOffscreen() {
-      buf = (BufferedImage) createImage(width, WAVE_HEIGHT);
-      final var g = buf.createGraphics();
+    public void paintWaveform(Graphics2D gfx, int xL, int xR) {
+      final var g = (Graphics2D) gfx.create();
+      g.translate(0, WAVE_HEIGHT * signal.idx);
       g.setRenderingHint(RenderingHints.KEY_STROKE_CONTROL, RenderingHints.VALUE_STROKE_DEFAULT);
-      g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
-      g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
       final var isBold = (model.getSpotlight() == signal);
       final var colors = chronoPanel.rowColors(signal.info, selected);
+      final var x = Math.max(0, xL);
+      final var w = Math.min(width, xR) - x;
       g.setColor(Color.WHITE);
-      g.fillRect(0, 0, width, ChronoPanel.GAP - 1);
-      g.fillRect(0, LOW, width, ChronoPanel.GAP - 1);
+      g.fillRect(x, 0, w, ChronoPanel.GAP - 1);
+      g.fillRect(x, LOW, w, ChronoPanel.GAP - 1);
       g.setColor(colors[0]);
-      g.fillRect(0, HIGH, width, LOW - HIGH);
+      g.fillRect(x, HIGH, w, LOW - HIGH);
       g.setColor(Color.BLACK);
-      drawSignal(g, isBold, colors);
+      drawSignal(g, isBold, colors, xL, xR);
       g.dispose();
     }
-
-    public void paintWaveform(Graphics2D g) {
-      if (buf == null) {
-        // todo: reallocating image each time seems silly
-        createOffscreen();
-      }
-      final var y = WAVE_HEIGHT * signal.idx;
-      g.drawImage(buf, null, 0, y);
-    }
-
-    public void flush() {
-      buf = null;
-    }
   }
 
   public void zoom(int sens, int posX) {
-    if (zoom + sens < 1 || zoom + sens > 40) return;
+    if (zoom + sens < MIN_ZOOM || zoom + sens > MAX_ZOOM) return;
 
-    // fixme: Offscreen image can be max 32k pixels wide. We should not be
-    // making such huge offscreen images anyway.
     final var timeScale = model.getTimeScale();
     final var t0 = model.getStartTime();
     final var t1 = model.getEndTime();
     final var numTicks = (t1 - t0 + timeScale - 1) / timeScale;
     final var newTickWidth = 20 * Math.pow(1.15, zoom + sens - 20);
-    final var newWidth = (int) (newTickWidth * numTicks + EXTRA_SPACE + 0.5);
-    if (newWidth > 32000) return;
+    final var newWidth = newTickWidth * numTicks + EXTRA_SPACE + 0.5;
+    if (newWidth > MAX_WIDTH) return;
     final var f = timeScale / tickWidth;
     final var mouseT = t0 + posX * f;
     final var sb = chronoPanel.getHorizontalScrollBar();
@@ -638,7 +642,6 @@ public class RightPanel extends JPanel {
         });
 
     // repaint
-    flushWaveforms();
     header.repaint();
     repaint();
   }
@@ -713,11 +716,16 @@ public class RightPanel extends JPanel {
       final var h = ChronoPanel.HEADER_HEIGHT - ChronoPanel.GAP;
       g.setColor(Color.BLACK);
       g.drawLine(0, height - 2, width, height - 2);
-      for (var i = 0; true; i++) {
+      // only the ticks within the damaged part, and labels reaching into it
+      final var clip = g.getClipBounds();
+      final var xL = clip == null ? 0 : clip.x - TIMELINE_SPACING;
+      final var xR = clip == null ? width : Math.min(width, clip.x + clip.width + 1);
+      final var first = Math.max(0, (long) ((xL / pixelPerTime + time0 - timeL) / divMinor));
+      for (var i = first; true; i++) {
         final var t = timeL + divMinor * i;
         if (t < time0) continue;
         final var x = (int) ((t - time0) * pixelPerTime);
-        if (x >= width) break;
+        if (x >= xR) break;
         if (i % numMinor == 0) {
           if (x + EXTRA_SPACE <= width) {
             g.drawString(Model.formatDuration(t), x, h / 2);
@@ -17,6 +17,7 @@ import java.io.InputStreamReader;
 import java.io.RandomAccessFile;
 import java.io.Reader;
 import java.io.StringReader;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 
 /**
@@ -68,6 +69,8 @@ abstract class BufferedLineReader {
 
   abstract int underlyingReadBytes(byte[] bbuf, int off, int len) throws IOException;
 
+  abstract int underlyingReadBytes(ByteBuffer bbuf) throws IOException;
+
   public abstract void close() throws IOException;
 
   public int readBytes(byte[] bbuf, int off, int len) throws IOException {
@@ -86,6 +89,20 @@ abstract class BufferedLineReader {
     return total;
   }
 
+  /**
+   * Reads raw bytes into the remaining space of the buffer, straight from the file channel when
+   * reading a file. Returns the number of bytes read, or -1 at the end of the stream.
+   */
+  public int readBytes(ByteBuffer bbuf) throws IOException {
+    if (buf == null) throw new IOException("stream closed");
+    if (!bbuf.hasRemaining()) return 0;
+    if (skipNextNewline || bufPos < bufCount)
+      throw new IOException("raw byte read after unicode I/O");
+    final var n = underlyingReadBytes(bbuf);
+    if (n > 0) bPos += n;
+    return n;
+  }
+
   public String readLine() throws IOException {
     if (buf == null) throw new IOException("stream closed");
 
@@ -214,6 +231,15 @@ abstract class BufferedLineReader {
     int underlyingReadBytes(byte[] bbuf, int off, int len) {
       return bin.read(bbuf, off, len);
     }
+
+    @Override
+    int underlyingReadBytes(ByteBuffer bbuf) {
+      final var tmp = new byte[Math.min(bbuf.remaining(), bin.available())];
+      if (tmp.length == 0) return -1;
+      final var n = bin.read(tmp, 0, tmp.length);
+      if (n > 0) bbuf.put(tmp, 0, n);
+      return n;
+    }
   }
 
   private static class Adapter extends InputStream {
@@ -279,5 +305,10 @@ abstract class BufferedLineReader {
     int underlyingReadBytes(byte[] bbuf, int off, int len) throws IOException {
       return bin.read(bbuf, off, len);
     }
+
+    @Override
+    int underlyingReadBytes(ByteBuffer bbuf) throws IOException {
+      return bin.getChannel().read(bbuf);
+    }
   }
 }
@@ -40,11 +40,16 @@ import java.beans.PropertyChangeListener;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
 import java.io.StringWriter;
 import java.io.Writer;
+import java.lang.reflect.InvocationTargetException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
 import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 import java.util.HashMap;
@@ -60,6 +65,8 @@ import javax.swing.JRadioButton;
 import javax.swing.JScrollPane;
 import javax.swing.JTabbedPane;
 import javax.swing.JTextArea;
+import javax.swing.ProgressMonitor;
+import javax.swing.SwingUtilities;
 import javax.swing.filechooser.FileFilter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -214,6 +221,8 @@ public class HexFile {
   //  |  ...                                  |  |  ...              |
   //  +---------------------------------------+  +-------------------+
   static final int MAX_PREVIEW_SIZE = 10 * 1024; // 10KB max size for displaying files
+  static final int PROGRESS_THRESHOLD = 4 * 1024 * 1024; // 4MB min size for reporting progress
+  private static final int CHUNK_SIZE = 64 * 1024; // bytes read or written at once by the fast paths
   private static final Logger logger = LoggerFactory.getLogger(HexFile.class);
   private static final String autoFormat = "Any data file (auto-detects format)";
   private static final String[] formatDescriptions = {
@@ -232,6 +241,45 @@ public class HexFile {
 
   private HexFile() {}
 
+  /**
+   * Receives the progress of loading or saving an image of at least {@link #PROGRESS_THRESHOLD}
+   * bytes, in bytes for loading and in words for saving. Returning false cancels the operation,
+   * which then fails with an {@link InterruptedIOException}.
+   */
+  public interface Progress {
+    boolean update(long done, long total);
+  }
+
+  private static class ProgressReporter {
+    final Progress progress;
+    long nextReport;
+
+    ProgressReporter(Progress progress) {
+      this.progress = progress;
+    }
+
+    void report(long done, long total, boolean large) throws InterruptedIOException {
+      if (progress == null || !large || done < nextReport) return;
+      nextReport = done + total / 100;
+      if (!progress.update(done, total)) throw new InterruptedIOException("cancelled");
+    }
+  }
+
+  private static ProgressMonitor createMonitor(Component parent, String message, File f) {
+    final var monitor = new ProgressMonitor(parent, message, f.getName(), 0, 1000);
+    monitor.setMillisToDecideToPopup(200);
+    return monitor;
+  }
+
+  // updates the monitor from a worker thread
+  private static Progress progressOf(ProgressMonitor monitor) {
+    return (done, total) -> {
+      final var permille = (int) (done * 1000 / Math.max(total, 1));
+      SwingUtilities.invokeLater(() -> monitor.setProgress(permille));
+      return !monitor.isCanceled();
+    };
+  }
+
   public static void open(
       MemContents dst,
       Frame parent, // for window positioning
@@ -245,33 +293,73 @@ public class HexFile {
     final var choice = chooser.showOpenDialog(parent);
     if (choice == JFileChooser.APPROVE_OPTION) {
       final var f = chooser.getSelectedFile();
-      try {
-        open(dst, f);
-        mem.setCurrentImage(instance, f);
-      } catch (IOException e) {
-        OptionPane.showMessageDialog(parent, e.getMessage(), S.get("ramLoadErrorTitle"), OptionPane.ERROR_MESSAGE);
+      if (f.length() < PROGRESS_THRESHOLD) {
+        try {
+          open(dst, f);
+          mem.setCurrentImage(instance, f);
+        } catch (IOException e) {
+          OptionPane.showMessageDialog(parent, e.getMessage(), S.get("ramLoadErrorTitle"), OptionPane.ERROR_MESSAGE);
+        }
+        return;
       }
+      // large images are decoded on a worker thread, and installed on the event thread
+      final var monitor = createMonitor(parent, S.get("ramLoadProgress"), f);
+      final var loader = new Thread(() -> {
+        try {
+          final var loaded = load(f, null, dst.getLogLength(), dst.getValueWidth(), progressOf(monitor));
+          SwingUtilities.invokeLater(() -> {
+            monitor.close();
+            if (loaded == null) return;
+            dst.copyFrom(0, loaded, 0, (int) (loaded.getLastOffset() + 1));
+            mem.setCurrentImage(instance, f);
+          });
+        } catch (InterruptedIOException e) {
+          SwingUtilities.invokeLater(monitor::close);
+        } catch (IOException e) {
+          SwingUtilities.invokeLater(() -> {
+            monitor.close();
+            OptionPane.showMessageDialog(parent, e.getMessage(), S.get("ramLoadErrorTitle"), OptionPane.ERROR_MESSAGE);
+          });
+        }
+      }, "HexFile loader");
+      loader.setDaemon(true);
+      loader.start();
     }
   }
 
   public static boolean open(MemContents dst, File src) throws IOException {
-    return open(dst, src, null);
+    return open(dst, src, (Progress) null);
+  }
+
+  /** Loads the image into the memory, reporting the progress of large images. */
+  public static boolean open(MemContents dst, File src, Progress progress) throws IOException {
+    final var loaded = load(src, null, dst.getLogLength(), dst.getValueWidth(), progress);
+    if (loaded == null) return false;
+    dst.copyFrom(0, loaded, 0, (int) (loaded.getLastOffset() + 1));
+    return true;
   }
 
   private static boolean open(MemContents dst, File src, String desc) throws IOException {
+    final var loaded = load(src, desc, dst.getLogLength(), dst.getValueWidth(), null);
+    if (loaded == null) return false;
+    dst.copyFrom(0, loaded, 0, (int) (loaded.getLastOffset() + 1));
+    return true;
+  }
+
+  // decodes the image into new contents, or returns null when the user cancelled
+  private static MemContents load(File src, String desc, int addrBits, int width, Progress progress) throws IOException {
+    if (desc != null && desc.startsWith("Binary") && width % 8 == 0
+        && src.length() <= (1L << addrBits) * (width / 8)) {
+      // whole bytes per word, so the file can be read as is instead of decoded
+      return MemContents.readImage(src, addrBits, width, desc.endsWith("big-endian"));
+    }
     final var in = BufferedLineReader.forFile(src);
     try {
-      final var r = new HexReader(in, dst.getLogLength(), dst.getValueWidth());
-      MemContents loaded;
-      if (desc == null) {
-        loaded = r.detectFormatAndDecode();
-      } else {
-        r.parseFormat(desc);
-        loaded = r.decodeOrWarn();
-      }
-      if (loaded == null) return false;
-      dst.copyFrom(0, loaded, 0, (int) (loaded.getLastOffset() + 1));
-      return true;
+      final var r = new HexReader(in, addrBits, width);
+      r.progress = new ProgressReporter(progress);
+      if (desc == null) return r.detectFormatAndDecode();
+      r.parseFormat(desc);
+      return r.decodeOrWarn();
     } finally {
       try {
         in.close();
@@ -329,16 +417,46 @@ public class HexFile {
                 OptionPane.YES_NO_OPTION);
         if (confirm != OptionPane.YES_OPTION) return;
       }
-      try {
-        save(f, src, chooser.getFileFilter().getDescription());
-        if (mem != null) mem.setCurrentImage(instance, f);
-      } catch (IOException e) {
-        OptionPane.showMessageDialog(parent, e.getMessage(), S.get("ramSaveErrorTitle"), OptionPane.ERROR_MESSAGE);
+      final var desc = chooser.getFileFilter().getDescription();
+      if ((src.getLastOffset() + 1) * src.getValueWidth() / 8 < PROGRESS_THRESHOLD) {
+        try {
+          save(f, src, desc);
+          if (mem != null) mem.setCurrentImage(instance, f);
+        } catch (IOException e) {
+          OptionPane.showMessageDialog(parent, e.getMessage(), S.get("ramSaveErrorTitle"), OptionPane.ERROR_MESSAGE);
+        }
+        return;
       }
+      // large images are written on a worker thread, from a copy-on-write snapshot of the memory
+      final var snapshot = src.clone();
+      final var monitor = createMonitor(parent, com.cburch.logisim.gui.Strings.S.get("ramSaveProgress"), f);
+      final var saver = new Thread(() -> {
+        try {
+          save(f, snapshot, desc, progressOf(monitor));
+          SwingUtilities.invokeLater(() -> {
+            monitor.close();
+            if (mem != null) mem.setCurrentImage(instance, f);
+          });
+        } catch (InterruptedIOException e) {
+          SwingUtilities.invokeLater(monitor::close);
+        } catch (IOException e) {
+          SwingUtilities.invokeLater(() -> {
+            monitor.close();
+            OptionPane.showMessageDialog(parent, e.getMessage(), S.get("ramSaveErrorTitle"), OptionPane.ERROR_MESSAGE);
+          });
+        }
+      }, "HexFile saver");
+      saver.setDaemon(true);
+      saver.start();
     }
   }
 
   private static void save(File f, MemContents src, String desc) throws IOException {
+    save(f, src, desc, null);
+  }
+
+  /** Saves the memory in the described format, reporting the progress of large images. */
+  public static void save(File f, MemContents src, String desc, Progress progress) throws IOException {
     OutputStream out;
     try {
       out = new FileOutputStream(f);
@@ -346,7 +464,9 @@ public class HexFile {
       throw new IOException(S.get("hexFileOpenError", e.getMessage()));
     }
     out.write(headerForFormat(desc).getBytes(StandardCharsets.UTF_8));
-    new HexWriter(out, src, desc).save();
+    final var w = new HexWriter(out, src, desc);
+    w.progress = new ProgressReporter(progress);
+    w.save();
   }
 
   public static String saveToString(MemContents src) {
@@ -1106,6 +1226,15 @@ public class HexFile {
     private boolean skipDoubleSpaces;
     private long rleCount;
     private long rleValue;
+    // decoded words waiting to be stored, all on the same page of dst
+    private final long[] pending = new long[4096];
+    private long pendingAddr;
+    private int pendingLen;
+    // raw bytes of the image, for the streaming decoders
+    private ByteBuffer chunk;
+    private boolean atHeader;
+    private boolean left;
+    ProgressReporter progress = new ProgressReporter(null);
 
     protected HexReader(BufferedLineReader in, int addrBits, int width) {
       this.in = in;
@@ -1122,6 +1251,15 @@ public class HexFile {
       else throw new NumberFormatException("Invalid hex digit: " + (char) c);
     }
 
+    private static final byte[] HEX_DIGITS = new byte[256];
+
+    static {
+      Arrays.fill(HEX_DIGITS, (byte) -1);
+      for (var c = '0'; c <= '9'; c++) HEX_DIGITS[c] = (byte) (c - '0');
+      for (var c = 'a'; c <= 'f'; c++) HEX_DIGITS[c] = (byte) (0xa + (c - 'a'));
+      for (var c = 'A'; c <= 'F'; c++) HEX_DIGITS[c] = (byte) (0xA + (c - 'A'));
+    }
+
     static long hex2ulong(String s) {
       long val = 0;
       var n = s.length();
@@ -1145,6 +1283,16 @@ public class HexFile {
         System.out.println("Warnings:\n" + warnings.toString());
         return null;
       }
+      if (!SwingUtilities.isEventDispatchThread()) {
+        // large images are decoded on a worker thread, but the dialog belongs to the event thread
+        final var ret = new MemContents[1];
+        try {
+          SwingUtilities.invokeAndWait(() -> ret[0] = warnAndAsk(errmsg));
+        } catch (InterruptedException | InvocationTargetException e) {
+          return null;
+        }
+        return ret[0];
+      }
       final var d = new HexFormatDialog(errmsg, this);
       d.setVisible(true);
       if (!d.ok()) return null;
@@ -1178,6 +1326,7 @@ public class HexFile {
       else if (tagged("style", "plain")) decodeHexPlain();
       else if (tagged("style", "addressed")) decodeHexAddressed();
       else decodeHexAuto();
+      flush();
       return dst;
     }
 
@@ -1220,6 +1369,49 @@ public class HexFile {
       memEnd = dst.getLastOffset();
       memWidth = dst.getWidth();
       bigEndian = bigEndian();
+      pendingLen = 0;
+      if (chunk == null) chunk = ByteBuffer.allocateDirect(CHUNK_SIZE);
+      chunk.clear().limit(0);
+    }
+
+    private void report(long done) throws InterruptedIOException {
+      final var total = in.byteLength();
+      progress.report(done, total, total >= PROGRESS_THRESHOLD);
+    }
+
+    // appends the next bytes of the image to the unread ones in the chunk, returns false at its end
+    private boolean fill() throws IOException {
+      chunk.compact();
+      final var n = in.readBytes(chunk);
+      chunk.flip();
+      report(in.bytePosition());
+      return n > 0;
+    }
+
+    // starts scanning a text image
+    private void startText() {
+      curLineNo = 1;
+      atHeader = true;
+    }
+
+    // the next byte of a text image, or -1 at its end; comments and the header line if any read as
+    // the end of their line
+    private int nextChar() throws IOException {
+      if (!chunk.hasRemaining() && !fill()) return -1;
+      final var c = chunk.get() & 0xff;
+      if (c == '#' || (c == 'v' && atHeader)) {
+        if (c == 'v') atHeader = false;
+        int d;
+        do {
+          if (!chunk.hasRemaining() && !fill()) return -1;
+          d = chunk.get() & 0xff;
+        } while (d != '\n');
+        curLineNo++;
+        return '\n';
+      }
+      if (c == '\n') curLineNo++;
+      else if (c > ' ') atHeader = false;
+      return c;
     }
 
     private void findNonemptyLine(boolean skipHeader) throws IOException {
@@ -1228,6 +1420,7 @@ public class HexFile {
       curWordIdx = 0;
       for (String line = in.readLine(); line != null; line = in.readLine()) {
         curLineNo++;
+        report(in.charPosition());
         int index = line.indexOf("#");
         if (index >= 0) line = line.substring(0, index);
         if (skipHeader) {
@@ -1348,15 +1541,30 @@ public class HexFile {
     }
 
     long get(long addr) {
-      return addr > memEnd ? 0L : (dst.get(memAddr) & 0xffffffffL);
+      return addr > memEnd ? 0L : (peek(memAddr) & 0xffffffffL);
+    }
+
+    private long peek(long addr) {
+      final var i = addr - pendingAddr;
+      return pendingLen > 0 && i >= 0 && i < pendingLen ? pending[(int) i] : dst.get(addr);
     }
 
     void set(long addr, long val) {
       decodedWordCount++;
       if (addr > memMaxAddr) memMaxAddr = addr;
-      if (addr <= memEnd) dst.set(addr, val);
+      if (addr > memEnd) return;
       // else
       //   System.out.printf("warn: overflow addr = %x\n", addr);
+      // consecutive words are stored a page at a time
+      if (pendingLen > 0 && (addr != pendingAddr + pendingLen || (addr % pending.length) == 0)) flush();
+      if (pendingLen == 0) pendingAddr = addr;
+      pending[pendingLen++] = memWidth == 64 ? val : val & ((1L << memWidth) - 1);
+    }
+
+    private void flush() {
+      if (pendingLen == 0) return;
+      dst.set(pendingAddr, pendingLen == pending.length ? pending : Arrays.copyOf(pending, pendingLen));
+      pendingLen = 0;
     }
 
     boolean deliver() {
@@ -1374,7 +1582,7 @@ public class HexFile {
         }
         // there may be a few (nbits) bits of a partial word leftover
         if (nbits > 0) {
-          set(memAddr, dst.get(memAddr) | (val << (memWidth - nbits)));
+          set(memAddr, peek(memAddr) | (val << (memWidth - nbits)));
           memAddrFrac = nbits;
           decodedWordCount--;
         } else {
@@ -1430,56 +1638,72 @@ public class HexFile {
       else decodeHexPlainBytes();
     }
 
+    // The plain styles are decoded straight from the bytes of the image, without splitting it
+    // into lines and words first.
+
     void decodeHexPlainBytes() throws IOException {
       bLen = 0;
-      findNonemptyLine(true);
-      boolean left = true;
-      String word;
-      while ((word = nextWord()) != null) {
-        int i = 0;
-        int n = word.length();
-        if (n >= 2 && (word.startsWith("0x") || word.startsWith("0X"))) i += 2;
-        for (; i < n; i++) {
-          int d;
-          try {
-            d = hex2int(word.charAt(i));
-          } catch (NumberFormatException e) {
-            warn("Character '%s' is not a hex digit.", OutputStreamEscaper.escape(word.charAt(i)));
-            continue;
-          }
-          if (left) {
-            bytes[bLen++] = (byte) (d << 4);
-          } else {
-            bytes[bLen - 1] |= (byte) d;
-          }
-          left = !left;
-          if (left && bLen >= 4096 && !deliver()) return;
+      startText();
+      left = true;
+      var wordLen = 0;
+      var heldZero = false; // a leading '0' that may start a "0x" prefix
+      for (var c = nextChar(); ; c = nextChar()) {
+        if (c <= ' ') {
+          if (heldZero && !putNibble(0)) return;
+          if (c < 0) break;
+          heldZero = false;
+          wordLen = 0;
+          continue;
         }
+        if (wordLen++ == 0 && c == '0') {
+          heldZero = true;
+          continue;
+        }
+        if (heldZero) {
+          heldZero = false;
+          if (c == 'x' || c == 'X') continue;
+          if (!putNibble(0)) return;
+        }
+        final var d = HEX_DIGITS[c];
+        if (d < 0) {
+          warn("Character '%s' is not a hex digit.", OutputStreamEscaper.escape((char) c));
+          continue;
+        }
+        if (!putNibble(d)) return;
       }
       if (!left) warn("Odd number of hex digits found in file.");
       if (bLen > 0) deliver();
     }
 
+    // returns false when decoding should stop
+    private boolean putNibble(int d) {
+      if (left) bytes[bLen++] = (byte) (d << 4);
+      else bytes[bLen - 1] |= (byte) d;
+      left = !left;
+      return !left || bLen < bytes.length || deliver();
+    }
+
     void decodeHexPlainWords() throws IOException {
       long offs = 0;
-      findNonemptyLine(true);
-      String word;
-      while ((word = nextWord()) != null) {
-        int i = 0;
-        int n = word.length();
-        if (n >= 2 && (word.startsWith("0x") || word.startsWith("0X"))) i += 2;
-        long v = 0;
-        for (; i < n; i++) {
-          long d;
-          try {
-            d = hex2int(word.charAt(i));
-          } catch (NumberFormatException e) {
-            warn("Character '%s' is not a hex digit.", OutputStreamEscaper.escape(word.charAt(i)));
-            continue;
-          }
-          v = (v << 4) | d;
+      startText();
+      var wordLen = 0;
+      var v = 0L;
+      for (var c = nextChar(); ; c = nextChar()) {
+        if (c <= ' ') {
+          if (wordLen > 0) set(offs++, v);
+          if (c < 0) break;
+          wordLen = 0;
+          v = 0;
+          continue;
+        }
+        // a "0x" prefix leaves v at zero
+        if (wordLen++ == 1 && v == 0 && (c == 'x' || c == 'X')) continue;
+        final var d = HEX_DIGITS[c];
+        if (d < 0) {
+          warn("Character '%s' is not a hex digit.", OutputStreamEscaper.escape((char) c));
+          continue;
         }
-        set(offs++, v);
+        v = (v << 4) | d;
       }
     }
 
@@ -1523,9 +1747,9 @@ public class HexFile {
           for (; j < m; j++) {
             int d;
             try {
-              d = hex2int(word.charAt(i));
+              d = hex2int(word.charAt(j));
             } catch (NumberFormatException e) {
-              warn("Character '%s' is not a hex digit.", OutputStreamEscaper.escape(word.charAt(i)));
+              warn("Character '%s' is not a hex digit.", OutputStreamEscaper.escape(word.charAt(j)));
               continue;
             }
             if (left) bytes[bLen++] = (byte) (d << 4);
@@ -1579,15 +1803,62 @@ public class HexFile {
     }
 
     void decodeBinary() throws IOException {
+      if (memWidth % 8 == 0) {
+        decodeBinaryWords();
+        return;
+      }
       bLen = 0;
       int n = in.readBytes(bytes, 0, 4096);
       while (n > 0) {
         bLen += n;
         if (!deliver()) return;
+        report(in.bytePosition());
         n = in.readBytes(bytes, bLen, 4096 - bLen);
       }
     }
 
+    // with whole bytes per word the words are read straight from the chunk, in the byte order of
+    // the image, which is what deliver() would assemble bit by bit
+    private void decodeBinaryWords() throws IOException {
+      final var bytesPerWord = memWidth / 8;
+      chunk.order(bigEndian ? ByteOrder.BIG_ENDIAN : ByteOrder.LITTLE_ENDIAN);
+      for (var more = fill(); ; more = fill()) {
+        while (chunk.remaining() >= bytesPerWord) {
+          final var val = switch (bytesPerWord) {
+            case 1 -> chunk.get() & 0xffL;
+            case 2 -> chunk.getShort() & 0xffffL;
+            case 4 -> chunk.getInt() & 0xffffffffL;
+            case 8 -> chunk.getLong();
+            default -> partialWord(bytesPerWord);
+          };
+          set(memAddr++, val);
+        }
+        if (memAddr > memEnd + 100) {
+          warn("Halting decoding early, since plenty of words have been decoded.");
+          return;
+        }
+        if (!more) break;
+      }
+      // there may be a few bytes of a partial word leftover
+      final var nbits = 8 * chunk.remaining();
+      if (nbits > 0) {
+        final var val = partialWord(chunk.remaining());
+        set(memAddr, bigEndian ? val << (memWidth - nbits) : val);
+        memAddrFrac = nbits;
+        decodedWordCount--;
+      }
+    }
+
+    private long partialWord(int n) {
+      var val = 0L;
+      for (var i = 0; i < n; i++) {
+        final var b = chunk.get() & 0xffL;
+        if (bigEndian) val = (val << 8) | b;
+        else val |= b << (8 * i);
+      }
+      return val;
+    }
+
     void decodeEscapedAscii() throws IOException {
       final var buf = new byte[4096];
       bLen = 0;
@@ -1645,6 +1916,7 @@ public class HexFile {
         }
         // deliver the bytes, move remaining to front of array
         if (!deliver()) return;
+        report(in.bytePosition());
         // get more data, but not too much that bytes[] might overflow
         n = in.readBytes(buf, 0, 4096 - bLen);
       }
@@ -1673,6 +1945,7 @@ public class HexFile {
     final boolean bigEndian;
     PrintWriter cOut;
     OutputStream bOut;
+    ProgressReporter progress = new ProgressReporter(null);
 
     HexWriter(OutputStream out, MemContents src, String desc) {
       super(desc);
@@ -1687,6 +1960,19 @@ public class HexFile {
       return addr > memEnd ? 0L : (src.get(addr) & 0xffffffffL);
     }
 
+    private void report(long addr) throws InterruptedIOException {
+      progress.report(addr, memEnd + 1, (memEnd + 1) * memWidth / 8 >= PROGRESS_THRESHOLD);
+    }
+
+    private static final char[] HEX_CHARS = "0123456789abcdef".toCharArray();
+
+    // appends v in hex, zero padded to at least the given number of digits, like "%0Nx"
+    private static StringBuilder appendHex(StringBuilder sb, long v, int minDigits) {
+      final var n = Math.max(minDigits, (64 - Long.numberOfLeadingZeros(v) + 3) / 4);
+      for (var i = n - 1; i >= 0; i--) sb.append(HEX_CHARS[(int) (v >>> (4 * i)) & 0xf]);
+      return sb;
+    }
+
     void buffer() {
       bLen = 0;
       if (bigEndian) {
@@ -1792,6 +2078,10 @@ public class HexFile {
     }
 
     void saveBinary() throws IOException {
+      if (memWidth % 8 == 0) {
+        saveBinaryWords();
+        return;
+      }
       buffer();
       while (bLen > 0) {
         bOut.write(bytes, 0, bLen);
@@ -1799,6 +2089,37 @@ public class HexFile {
       }
     }
 
+    // with whole bytes per word the words are put straight into a chunk, in the byte order of the
+    // image, and the chunks are written to the file channel
+    private void saveBinaryWords() throws IOException {
+      final var bytesPerWord = memWidth / 8;
+      final var out = bOut instanceof FileOutputStream file ? file.getChannel() : Channels.newChannel(bOut);
+      final var chunk = ByteBuffer.allocateDirect(CHUNK_SIZE).order(bigEndian ? ByteOrder.BIG_ENDIAN : ByteOrder.LITTLE_ENDIAN);
+      for (var addr = 0L; addr <= memEnd; addr++) {
+        if (chunk.remaining() < bytesPerWord) {
+          chunk.flip();
+          while (chunk.hasRemaining()) out.write(chunk);
+          chunk.clear();
+          report(addr);
+        }
+        final var val = src.get(addr);
+        switch (bytesPerWord) {
+          case 1 -> chunk.put((byte) val);
+          case 2 -> chunk.putShort((short) val);
+          case 4 -> chunk.putInt((int) val);
+          case 8 -> chunk.putLong(val);
+          default -> {
+            for (var i = 0; i < bytesPerWord; i++) {
+              final var shift = 8 * (bigEndian ? bytesPerWord - 1 - i : i);
+              chunk.put((byte) (val >>> shift));
+            }
+          }
+        }
+      }
+      chunk.flip();
+      while (chunk.hasRemaining()) out.write(chunk);
+    }
+
     void saveEscapedAscii() throws IOException {
       buffer();
       OutputStreamEscaper escaper = new OutputStreamEscaper(new OutputStreamWriter(bOut));
@@ -1813,37 +2134,41 @@ public class HexFile {
       escaper.close();
     }
 
-    void saveHexPlain() {
+    void saveHexPlain() throws IOException {
       if (tagged("size", "words")) saveHexWords(false);
       else saveHexBytes(false);
     }
 
-    String addrfmt(long maxAddr) {
-      int w = String.format("%x", maxAddr).length();
-      return "%0" + w + "x: ";
+    int addrDigits(long maxAddr) {
+      return Long.toHexString(maxAddr).length();
     }
 
-    void saveHexBytes(boolean addressed) {
+    // the lines are formatted into a reused buffer rather than with printf, which matters for
+    // images of many megabytes
+
+    void saveHexBytes(boolean addressed) throws IOException {
       cOut = new PrintWriter(new OutputStreamWriter(bOut));
-      String afmt = addrfmt(memEnd);
+      final var aw = addrDigits(memEnd);
+      final var line = new StringBuilder(80);
       int col = 0;
       buffer();
       long offs = 0;
       while (bLen > 0) {
         for (int i = 0; i < bLen; i++) {
-          if (col == 0 && addressed) cOut.printf(afmt, offs);
+          if (col == 0 && addressed) appendHex(line, offs, aw).append(": ");
           offs++;
-          byte b = bytes[i];
-          cOut.printf("%02x", b); // no spaces
+          appendHex(line, bytes[i] & 0xff, 2); // no spaces
           col += 2;
           if (col >= 64) {
-            cOut.printf("\n");
+            cOut.append(line).append('\n');
+            line.setLength(0);
             col = 0;
           }
         }
+        report(memAddr);
         buffer();
       }
-      if (col != 0) cOut.printf("\n");
+      if (col != 0) cOut.append(line).append('\n');
     }
 
     // 00000000000000000000000000000000000000000000000000000000000000000000000000000000
@@ -1856,28 +2181,30 @@ public class HexFile {
     // 0000000 0000001 0000002 0000003 0000004 0000005 0000006 0000007
     // 00000000 00000001 00000002 00000003 00000004 00000005 00000006 00000007
 
-    void saveHexWords(boolean addressed) {
+    void saveHexWords(boolean addressed) throws IOException {
       cOut = new PrintWriter(new OutputStreamWriter(bOut));
-      String afmt = addrfmt(memEnd);
+      final var aw = addrDigits(memEnd);
+      final var line = new StringBuilder(160);
       int col = 0;
       int w = ((memWidth + 3) / 4);
       int ncol = (w == 1 ? 32 : w <= 4 ? 16 : 8);
-      String fmt = "%0" + w + "x";
-      for (int offs = 0; offs <= memEnd; offs++) {
-        if (col == 0 && addressed) cOut.printf(afmt, offs); // with trailing space
-        else if (col != 0) cOut.print(" "); // leading space
-        cOut.printf(fmt, src.get(offs));
+      for (long offs = 0; offs <= memEnd; offs++) {
+        if (col == 0 && addressed) appendHex(line, offs, aw).append(": "); // with trailing space
+        else if (col != 0) line.append(' '); // leading space
+        appendHex(line, src.get(offs), w);
         col++;
         if (col >= ncol) {
-          cOut.print("\n");
+          cOut.append(line).append('\n');
+          line.setLength(0);
           col = 0;
+          report(offs);
         }
       }
 
-      if (col != 0) cOut.printf("\n");
+      if (col != 0) cOut.append(line).append('\n');
     }
 
-    void saveHexAddressed() {
+    void saveHexAddressed() throws IOException {
       if (tagged("size", "words")) saveHexWords(true);
       else saveHexBytes(true);
     }
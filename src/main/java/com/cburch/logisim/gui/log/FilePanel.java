@@ -26,6 +26,7 @@ import javax.swing.JFileChooser;
 import javax.swing.JLabel;
 import javax.swing.JPanel;
 import javax.swing.JTextField;
+import javax.swing.filechooser.FileNameExtensionFilter;
 
 class FilePanel extends LogPanel {
   private static final long serialVersionUID = 1L;
@@ -36,13 +37,20 @@ class FilePanel extends LogPanel {
   private final JTextField fileField = new JTextField();
   private final JButton selectButton = new JButton();
   private final JCheckBox headerCheckBox = new JCheckBox();
+  // indexed by the Model.FILE_* formats
+  private final String[] formatNames = {"fileFormatText", "fileFormatVcd", "fileFormatVcdGzip"};
+  private final OptionsPanel.JLabeledComboBox<String> formatBox =
+      new OptionsPanel.JLabeledComboBox<>("fileFormatLabel", formatNames);
   private final JFileChooser chooser = JFileChoosers.create();
+  private final FileNameExtensionFilter waveformFilter =
+      new FileNameExtensionFilter(S.get("fileWaveformFilter"), "vcd", "gz");
 
   public FilePanel(LogFrame frame) {
     super(frame);
 
     chooser.addChoosableFileFilter(chooser.getAcceptAllFileFilter());
     chooser.addChoosableFileFilter(TestVector.FILE_FILTER);
+    chooser.addChoosableFileFilter(waveformFilter);
     chooser.setFileFilter(TestVector.FILE_FILTER);
 
     final var filePanel = new JPanel(new GridBagLayout());
@@ -89,6 +97,8 @@ class FilePanel extends LogPanel {
     gb.setConstraints(glue, gc);
     add(glue);
     gc.weighty = 0.0;
+    gb.setConstraints(formatBox.getPanel(), gc);
+    add(formatBox.getPanel());
     gb.setConstraints(headerCheckBox, gc);
     add(headerCheckBox);
     glue = new JPanel();
@@ -100,6 +110,7 @@ class FilePanel extends LogPanel {
     enableButton.addActionListener(listener);
     selectButton.addActionListener(listener);
     headerCheckBox.addActionListener(listener);
+    formatBox.addActionListener(listener);
     modelChanged(null, getModel());
     localeChanged();
   }
@@ -120,6 +131,7 @@ class FilePanel extends LogPanel {
     fileLabel.setText(S.get("fileLabel") + " ");
     selectButton.setText(S.get("fileSelectButton"));
     headerCheckBox.setText(S.get("fileHeaderCheck"));
+    formatBox.localeChanged();
   }
 
   @Override
@@ -175,9 +187,14 @@ class FilePanel extends LogPanel {
             return;
           }
         }
+        final var name = file.getName().toLowerCase();
+        if (name.endsWith(".vcd")) getModel().setFileFormat(Model.FILE_VCD);
+        else if (name.endsWith(".vcd.gz")) getModel().setFileFormat(Model.FILE_VCD_GZIP);
         getModel().setFile(file);
       } else if (src == headerCheckBox) {
         getModel().setFileHeader(headerCheckBox.isSelected());
+      } else if (src == formatBox) {
+        getModel().setFileFormat(formatBox.getSelectedIndex());
       }
     }
 
@@ -201,6 +218,9 @@ class FilePanel extends LogPanel {
       enableButton.setEnabled(file != null);
 
       headerCheckBox.setSelected(model.getFileHeader());
+      headerCheckBox.setEnabled(model.getFileFormat() == Model.FILE_TEXT);
+      if (formatBox.getSelectedIndex() != model.getFileFormat())
+        formatBox.setSelectedIndex(model.getFileFormat());
     }
   }
 }
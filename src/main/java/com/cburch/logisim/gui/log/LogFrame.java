@@ -91,6 +91,12 @@ public class LogFrame extends LFrame.SubWindowWithSimulation {
       return curModel.isFine();
     }
 
+    @Override
+    public boolean wantEveryTick() {
+      // real time mode samples by the wall clock, the others record every tick
+      return !curModel.isRealMode();
+    }
+
     @Override
     public void propagationInProgress(Simulator.Event e) {
       curModel.propagationCompleted(false, true, false); // treat as a single-step
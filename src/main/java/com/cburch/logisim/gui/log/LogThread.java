@@ -10,6 +10,7 @@
 package com.cburch.logisim.gui.log;
 
 import com.cburch.logisim.util.UniquelyNamedThread;
+import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.PrintWriter;
@@ -26,6 +27,10 @@ class LogThread extends UniquelyNamedThread implements Model.Listener {
   private final Object lock = new Object();
   private boolean canceled = false;
   private PrintWriter writer = null;
+  private WaveformWriter waveform = null;
+  private File openFile; // file and format being written to
+  private int openFormat;
+  private long waveformBase = 0; // waveform time of model time 0, moved on by each reset
   private boolean modeDirty = true;
   private boolean headerDirty = true;
   private long lastWrite = 0;
@@ -38,8 +43,20 @@ class LogThread extends UniquelyNamedThread implements Model.Listener {
     model.addModelListener(this);
   }
 
+  private String modeComment() {
+    var mode = model.isStepMode() ? "step"
+        : model.isRealMode() ? "real-time"
+        : "clocked";
+    var gran = model.isFine() ? "fine" : "coarse";
+    return "mode: " + mode + " granularity: " + gran;
+  }
+
   // precondition: lock held and writing()==true
   private void writeSignals() {
+    if (model.getFileFormat() != Model.FILE_TEXT) {
+      writeWaveform();
+      return;
+    }
     if (writer == null) {
       try {
         writer = new PrintWriter(new FileWriter(model.getFile(), true));
@@ -47,13 +64,11 @@ class LogThread extends UniquelyNamedThread implements Model.Listener {
         model.setFile(null);
         return;
       }
+      openFile = model.getFile();
+      openFormat = model.getFileFormat();
     }
     if (modeDirty) {
-      var mode = model.isStepMode() ? "step"
-          : model.isRealMode() ? "real-time"
-          : "clocked";
-      var gran = model.isFine() ? "fine" : "coarse";
-      writer.println("# mode: " + mode + " granularity: " + gran);
+      writer.println("# " + modeComment());
       modeDirty = false;
     }
     if (headerDirty) {
@@ -94,13 +109,85 @@ class LogThread extends UniquelyNamedThread implements Model.Listener {
     lastWrite = System.currentTimeMillis();
   }
 
+  // Writes only the changes of the signals declared when the file was opened. The header cannot
+  // be extended afterwards, so signals added later are not recorded, and the file stays open
+  // until it is disabled, since reopening it would start a new one.
+  // precondition: lock held and writing()==true
+  private void writeWaveform() {
+    if (waveform == null) {
+      try {
+        final var compressed = model.getFileFormat() == Model.FILE_VCD_GZIP;
+        waveform = new WaveformWriter(model.getFile(), compressed);
+        waveform.writeHeader(model.getCircuit().getName(), modeComment(), model.getSignals());
+      } catch (IOException e) {
+        closeWaveform();
+        model.setFile(null);
+        return;
+      }
+      openFile = model.getFile();
+      openFormat = model.getFileFormat();
+      waveformBase = 0;
+      timeNextWrite = model.getStartTime();
+      cursors.clear();
+    }
+    final var timeStop = model.getEndTime();
+    final var n = model.getSignalCount();
+    final var cur = new Signal.Iterator[n];
+    final var ids = new int[n];
+    for (var i = 0; i < n; i++) {
+      final var s = model.getSignal(i);
+      ids[i] = waveform.indexOf(s);
+      if (ids[i] < 0) continue;
+      cur[i] = cursors.get(s);
+      if (cur[i] == null) {
+        cur[i] = s.new Iterator(timeNextWrite);
+        cursors.put(s, cur[i]);
+      }
+    }
+    try {
+      while (timeNextWrite < timeStop) {
+        var duration = timeStop - timeNextWrite;
+        waveform.setTime(waveformBase + timeNextWrite);
+        for (var i = 0; i < n; i++) {
+          if (cur[i] == null || cur[i].value == null) continue;
+          waveform.change(ids[i], cur[i].value);
+          if (cur[i].duration < duration) duration = cur[i].duration;
+        }
+        for (final var c : cur) {
+          if (c != null) c.advance(duration);
+        }
+        timeNextWrite += duration;
+      }
+    } catch (IOException e) {
+      closeWaveform();
+      model.setFile(null);
+      return;
+    }
+    lastWrite = System.currentTimeMillis();
+  }
+
+  private void closeWaveform() {
+    if (waveform != null) {
+      try {
+        waveform.close();
+      } catch (IOException ignored) {
+      }
+      waveform = null;
+    }
+  }
+
+  private void closeWriters() {
+    if (writer != null) {
+      writer.close();
+      writer = null;
+    }
+    closeWaveform();
+  }
+
   public void cancel() {
     synchronized (lock) {
       canceled = true;
-      if (writer != null) {
-        writer.close();
-        writer = null;
-      }
+      closeWriters();
     }
   }
 
@@ -108,6 +195,8 @@ class LogThread extends UniquelyNamedThread implements Model.Listener {
   public void signalsReset(Model.Event event) {
     synchronized (lock) {
       if (writing()) {
+        // the waveform goes on after what was written so far
+        waveformBase += timeNextWrite;
         timeNextWrite = 0;
         cursors.clear();
         writeSignals();
@@ -126,12 +215,15 @@ class LogThread extends UniquelyNamedThread implements Model.Listener {
   public void filePropertyChanged(Model.Event event) {
     synchronized (lock) {
       if (writing()) {
-        if (writer == null) writeSignals();
-      } else {
-        if (writer != null) {
-          writer.close();
-          writer = null;
+        if ((writer != null || waveform != null)
+            && (!model.getFile().equals(openFile) || model.getFileFormat() != openFormat)) {
+          closeWriters();
+          cursors.clear();
+          timeNextWrite = 0;
         }
+        if (writer == null && waveform == null) writeSignals();
+      } else {
+        closeWriters();
       }
     }
   }
@@ -152,6 +244,13 @@ class LogThread extends UniquelyNamedThread implements Model.Listener {
             writer.flush();
           }
         }
+        if (waveform != null) {
+          try {
+            waveform.flush();
+          } catch (IOException e) {
+            closeWaveform();
+          }
+        }
       }
       try {
         Thread.sleep(FLUSH_FREQUENCY);
@@ -159,10 +258,7 @@ class LogThread extends UniquelyNamedThread implements Model.Listener {
       }
     }
     synchronized (lock) {
-      if (writer != null) {
-        writer.close();
-        writer = null;
-      }
+      closeWriters();
     }
   }
 
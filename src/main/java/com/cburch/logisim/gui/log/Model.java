@@ -41,6 +41,14 @@ public class Model implements CircuitListener, SignalInfo.Listener {
   public static final int COARSE = 1;
   public static final int FINE = 2;
 
+  // Signals store their runs in primitive columns, some 16 bytes each, so a long history is
+  // cheap: this is about 1.6 MB for a signal that changes on every tick.
+  public static final int DEFAULT_HISTORY_LIMIT = 100_000;
+
+  public static final int FILE_TEXT = 0;
+  public static final int FILE_VCD = 1;
+  public static final int FILE_VCD_GZIP = 2;
+
   // FIXME: it looks we can get rid of Even class as it's a) dummy b) unused which forcess callers to pass `null`
   public static class Event {
     // no-op implementation
@@ -83,13 +91,14 @@ public class Model implements CircuitListener, SignalInfo.Listener {
   private boolean fileEnabled = false;
   private File file = null;
   private boolean fileHeader = true;
+  private int fileFormat = FILE_TEXT;
   private boolean selected = false;
   private LogThread logger = null;
   private int mode = STEP;
   private int granularity = COARSE;
   private long timeScale = 5000;
   private long gateDelay = 200;
-  private int historyLimit = 400;
+  private int historyLimit = DEFAULT_HISTORY_LIMIT;
   private long elapsedSinceTrigger;
   private long lastRealtimeUpdate;
 
@@ -509,6 +518,10 @@ public class Model implements CircuitListener, SignalInfo.Listener {
     return fileHeader;
   }
 
+  public int getFileFormat() {
+    return fileFormat;
+  }
+
   public int getSignalCount() {
     return signals.size();
   }
@@ -708,6 +721,7 @@ public class Model implements CircuitListener, SignalInfo.Listener {
     }
     elapsedSinceTrigger += duration;
     timeEnd = duration;
+    fireSignalsReset(null);
   }
 
   public void setFile(File value) {
@@ -729,6 +743,12 @@ public class Model implements CircuitListener, SignalInfo.Listener {
     fireFilePropertyChanged(null);
   }
 
+  public void setFileFormat(int value) {
+    if (fileFormat == value) return;
+    fileFormat = value;
+    fireFilePropertyChanged(null);
+  }
+
   public void setSelected(boolean value) {
     if (selected == value) return;
     selected = value;
@@ -195,7 +195,7 @@ class OptionsPanel extends LogPanel implements ActionListener, ChangeListener, M
     optionsPanel.add(clockOptionsPanel, "clockTime");
 
     // right side has history options
-    limit.setModel(new SpinnerNumberModel(400, 10, Integer.MAX_VALUE, 100));
+    limit.setModel(new SpinnerNumberModel(Model.DEFAULT_HISTORY_LIMIT, 10, Integer.MAX_VALUE, 100));
     limit.setEditor(new JSpinner.NumberEditor(limit, "####"));
     limit.setMaximumSize(limit.getPreferredSize());
     unlimited.setAlignmentX(0.0f);
@@ -16,55 +16,149 @@ import java.awt.datatransfer.Transferable;
 import java.awt.datatransfer.UnsupportedFlavorException;
 import java.util.ArrayList;
 
+/**
+ * The recorded history of one signal, as a sequence of runs during which its value did not
+ * change. The runs are stored column wise in primitive arrays: the start time of each run, which
+ * is a prefix sum of their durations so that the run at a given time is found by binary search,
+ * and the value, unknown and error bits of its value. The unknown and error columns are only
+ * allocated once such a bit is recorded. When the history is limited, the arrays are used as a
+ * ring buffer that drops the oldest runs.
+ */
 public class Signal {
 
-  private static final int CHUNK = 512;
+  private static final int INITIAL_CAPACITY = 16;
 
   // Signal position in list, name, etc.
   public int idx;
   public final SignalInfo info;
 
   // Signal data
-  private long timeStart;
-  private Value[][] val; // values, in blocks no larger than CHUNK
+  private long timeStart; // start of the oldest run
+  private long timeEnd; // end of the most recent run
+  private long[] starts; // start time of each run
+  private long[] values; // value bits of each run
+  private long[] unknowns; // unknown bits of each run, or null while there are none
+  private long[] errors; // error bits of each run, or null while there are none
   private Value last;
-  private long[][] dur; // duration of each value
+  private int first; // index of the oldest run in the arrays
   private int curSize;
   private int maxSize; // limit, or zero for unlimited
-  private short firstIndex; // for wrapping, only when limited
 
   public Signal(int idx, SignalInfo info, Value initialValue, long duration, long timeStart, int maxSize) {
     this.idx = idx;
     this.info = info;
     this.timeStart = timeStart;
+    this.timeEnd = timeStart;
     this.maxSize = maxSize;
-    this.val = new Value[1][maxSize == 0 || maxSize > CHUNK ? CHUNK : maxSize];
-    this.dur = new long[1][maxSize == 0 || maxSize > CHUNK ? CHUNK : maxSize];
-    this.curSize = 0;
-    this.firstIndex = 0;
+    allocate(maxSize == 0 || maxSize > INITIAL_CAPACITY ? INITIAL_CAPACITY : maxSize);
     extend(initialValue, duration);
   }
 
+  private void allocate(int capacity) {
+    starts = new long[capacity];
+    values = new long[capacity];
+    unknowns = null;
+    errors = null;
+  }
+
+  // array index of the p-th oldest run
+  private int index(int p) {
+    final var i = first + p;
+    return i < starts.length ? i : i - starts.length;
+  }
+
+  private long startOf(int p) {
+    return starts[index(p)];
+  }
+
+  private long endOf(int p) {
+    return p == curSize - 1 ? timeEnd : starts[index(p + 1)];
+  }
+
+  private Value valueOf(int p) { // always current width, even when width changes
+    final var i = index(p);
+    return Value.create(
+        info.getWidth(),
+        errors == null ? 0 : errors[i],
+        unknowns == null ? 0 : unknowns[i],
+        values[i]);
+  }
+
+  private void store(int i, long start, Value v) {
+    starts[i] = start;
+    values[i] = v.getValueBits();
+    if (unknowns != null || v.getUnknownBits() != 0) {
+      if (unknowns == null) unknowns = new long[starts.length];
+      unknowns[i] = v.getUnknownBits();
+    }
+    if (errors != null || v.getErrorBits() != 0) {
+      if (errors == null) errors = new long[starts.length];
+      errors[i] = v.getErrorBits();
+    }
+  }
+
+  // moves the runs to arrays of the given capacity, oldest first, dropping the oldest ones that
+  // do not fit
+  private void reallocate(int capacity) {
+    final var keep = Math.min(curSize, capacity);
+    final var skip = curSize - keep;
+    final var s = new long[capacity];
+    final var v = new long[capacity];
+    final var u = unknowns == null ? null : new long[capacity];
+    final var e = errors == null ? null : new long[capacity];
+    for (var p = 0; p < keep; p++) {
+      final var i = index(skip + p);
+      s[p] = starts[i];
+      v[p] = values[i];
+      if (u != null) u[p] = unknowns[i];
+      if (e != null) e[p] = errors[i];
+    }
+    if (keep > 0) timeStart = s[0];
+    starts = s;
+    values = v;
+    unknowns = u;
+    errors = e;
+    first = 0;
+    curSize = keep;
+  }
+
+  // the position of the run at time t, or -1 if t is before the oldest one
+  private int find(long t, int from) {
+    var lo = from;
+    var hi = curSize - 1;
+    if (t < startOf(lo)) return lo - 1;
+    while (lo < hi) {
+      final var mid = (lo + hi + 1) >>> 1;
+      if (startOf(mid) <= t) lo = mid;
+      else hi = mid - 1;
+    }
+    return lo;
+  }
+
   public long omittedDataTime() {
     return curSize == maxSize ? timeStart : 0;
   }
 
   public long getEndTime() {
-    var t = timeStart;
-    for (var p = 0; p < curSize; p++) {
-      var i = (firstIndex + p) % curSize;
-      t += dur[i / CHUNK][i % CHUNK];
-    }
-    return t;
+    return timeEnd;
+  }
+
+  /** Returns the number of runs of unchanged values in the history. */
+  public int getRunCount() {
+    return curSize;
+  }
+
+  /** Returns the start time of the run at time t, or of the oldest run if t is before it. */
+  public long getRunStart(long t) {
+    final var p = find(t, 0);
+    return p < 0 ? timeStart : startOf(p);
   }
 
   public void extend(long duration) {
     if (last == null) {
       timeStart += duration;
-    } else {
-      final var i = (firstIndex + curSize - 1) % curSize;
-      dur[i / CHUNK][i % CHUNK] += duration;
     }
+    timeEnd += duration;
   }
 
   public void extend(Value v, long duration) {
@@ -73,70 +167,46 @@ public class Signal {
           "*** notice: value width mismatch for %s: width=%d bits, newVal=%s (%d bits)\n",
           info, info.getWidth(), v, v.getWidth());
     if (last != null && last.equals(v)) {
-      final var i = (firstIndex + curSize - 1) % curSize;
-      dur[i / CHUNK][i % CHUNK] += duration;
+      timeEnd += duration;
       return;
     }
     last = v;
-    final var c = val.length;
-    final var cap = CHUNK * (c - 1) + val[c - 1].length;
-    if (curSize < cap) {
-      // fits in an existing chunk
-      val[curSize / CHUNK][curSize % CHUNK] = v;
-      dur[curSize / CHUNK][curSize % CHUNK] = duration;
+    if (curSize < starts.length) {
+      // fits in the arrays
+      store(index(curSize), timeEnd, v);
       curSize++;
     } else if (curSize < maxSize || maxSize <= 0) {
-      // allocate another chunk
-      final var val2 = new Value[c + 1][];
-      final var dur2 = new long[c + 1][];
-      System.arraycopy(val, 0, val2, 0, c);
-      System.arraycopy(dur, 0, dur2, 0, c);
-      val2[c + 1] = new Value[maxSize == 0 || (maxSize - cap) > CHUNK ? CHUNK : (maxSize - cap)];
-      dur2[c + 1] = new long[maxSize == 0 || (maxSize - cap) > CHUNK ? CHUNK : (maxSize - cap)];
-      val = val2;
-      dur = dur2;
-      val[curSize / CHUNK][curSize % CHUNK] = v;
-      dur[curSize / CHUNK][curSize % CHUNK] = duration;
+      // grow the arrays
+      reallocate(maxSize == 0 ? 2 * curSize : (int) Math.min(maxSize, 2L * curSize));
+      store(curSize, timeEnd, v);
       curSize++;
     } else {
-      // limited size is filled, wrap around, and adjust start offset
-      timeStart += dur[firstIndex / CHUNK][firstIndex % CHUNK];
-      val[firstIndex / CHUNK][firstIndex % CHUNK] = v;
-      dur[firstIndex / CHUNK][firstIndex % CHUNK] = duration;
-      firstIndex++;
-      if (firstIndex >= maxSize) firstIndex = 0;
+      // limited size is filled, overwrite the oldest run, and adjust start time
+      timeStart = curSize > 1 ? startOf(1) : timeEnd;
+      store(first, timeEnd, v);
+      first = index(1);
     }
+    timeEnd += duration;
   }
 
   public void replaceRecent(Value v, long duration) {
     if (last == null || curSize == 0)
       throw new IllegalStateException("signal should have at least " + duration + " ns of data");
-    final var i = (firstIndex + curSize - 1) % curSize;
-    if (dur[i / CHUNK][i % CHUNK] == duration) {
-      val[i / CHUNK][i % CHUNK] = v;
+    final var p = curSize - 1;
+    final var d = timeEnd - startOf(p);
+    if (d == duration) {
+      store(index(p), startOf(p), v);
       last = v;
-      final var j = (i + curSize - 1) % curSize;
-      if (curSize > 1 && val[j / CHUNK][j % CHUNK].equals(v)) {
-        dur[j / CHUNK][j % CHUNK] += duration;
+      if (curSize > 1 && valueOf(p - 1).equals(v.extendWidth(info.getWidth(), Value.FALSE))) {
+        // merge with the previous run, which then lasts until the end
         curSize--;
-        // special case: last chunk is now entirely empty, must be removed
-        if (i % CHUNK == 0) {
-          int c = val.length - 1;
-          final var valueNew = new Value[c][];
-          final var durNew = new long[c][];
-          System.arraycopy(val, 0, valueNew, 0, c);
-          System.arraycopy(dur, 0, durNew, 0, c);
-          val = valueNew;
-          dur = durNew;
-        }
       }
-    } else if (dur[i / CHUNK][i % CHUNK] > duration) {
-      dur[i / CHUNK][i % CHUNK] -= duration;
+    } else if (d > duration) {
+      timeEnd -= duration;
       extend(v, duration);
-    } else if (curSize == 1 && dur[i / CHUNK][i % CHUNK] + timeStart >= duration) {
-      timeStart -= (duration - dur[i / CHUNK][i % CHUNK]);
-      val[i / CHUNK][i % CHUNK] = v;
-      dur[i / CHUNK][i % CHUNK] = duration;
+    } else if (curSize == 1 && d + timeStart >= duration) {
+      timeStart -= (duration - d);
+      store(index(p), timeStart, v);
       last = v;
     } else {
       throw new IllegalStateException(
@@ -144,96 +214,28 @@ public class Signal {
               + duration
               + " ns in duration,"
               + " but only "
-              + dur[i / CHUNK][i % CHUNK]
+              + d
               + " in last signal");
     }
   }
 
-  private void retainOnly(int offset, int amt, int cap) {
-    // shift all values [from offset to offset+amt] left into new arrays
-    // of size appropriate for eventual capacity cap
-    final var c = (amt + CHUNK - 1) / CHUNK;
-    final var last = cap == 0 ? CHUNK : Math.min(CHUNK, cap - (c - 1) * CHUNK);
-    final var v = new Value[c][];
-    final var d = new long[c][];
-    for (var i = 0; i < c; i++) {
-      v[i] = new Value[i < c - 1 ? CHUNK : last];
-      d[i] = new long[i < c - 1 ? CHUNK : last];
-    }
-    for (var p = 0; p < amt; p++) {
-      int i = (firstIndex + offset + p) % curSize;
-      v[p / CHUNK][p % CHUNK] = val[i / CHUNK][i % CHUNK];
-      d[p / CHUNK][p % CHUNK] = dur[i / CHUNK][i % CHUNK];
-    }
-    val = v;
-    dur = d;
-    firstIndex = 0;
-    curSize = amt;
-  }
-
   public void resize(int newMaxSize) {
     if (newMaxSize == maxSize) return;
-    if (newMaxSize == 0 || newMaxSize > maxSize) {
-      // growing
-      if (firstIndex != 0) retainOnly(0, curSize, newMaxSize); // keeps all data, but shifts it left
-    } else {
-      // shrinking: newMaxSize < maxSize
-      if (curSize <= newMaxSize) {
-        // Mostly empty, keep all data, but maybe truncate last chunk if needed
-        // to get capacity below new max size.
-        // Note: firstIndex must be 0, since otherwize curSize==maxSize,
-        // and that would mean curSize > newMaxSize.
-        // There are two cases:
-        //  very unfull:
-        //    cap -----------------------------------------------|
-        //    curSize --------------------------|
-        //    [ 0+ full large-chunks ] [ partly full large-chunk ] [ not yet allocated... ]
-        //  nearly full:
-        //    cap ---------------------------------------------|
-        //    curSize -------------------------|
-        //    [ 0+ full large-chunks ] [ partly full end-chunk ]
-        // In the very unfull case, we may be able to do nothing at all
-        // (if cap <= newMaxSize), or we may have to shrink that last allocated
-        // chunk (if cap > newMaxSize).
-        // In the nearly full case, cap > newMaxSize and we need to shrink the
-        // last allocated chunk.
-        final var c = val.length;
-        final var cap = CHUNK * (c - 1) + val[c - 1].length;
-        if (cap > newMaxSize) {
-          // Note: # of existing chunks (c) must be equal to # of new chunks
-          final var last = Math.min(CHUNK, newMaxSize - (c - 1) * CHUNK);
-          final var v = new Value[last];
-          final var d = new long[last];
-          System.arraycopy(val[c - 1], 0, v, 0, last);
-          System.arraycopy(dur[c - 1], 0, d, 0, last);
-          val[c - 1] = v;
-          dur[c - 1] = d;
-        }
-      } else { // curSize > newMaxSize
-        // too much data, keep only most recent data and shift it left
-        final var discard = (maxSize - newMaxSize);
-        for (var p = 0; p < discard; p++) {
-          final var i = (firstIndex + p) % curSize;
-          timeStart += dur[i / CHUNK][i % CHUNK];
-        }
-        retainOnly(discard, newMaxSize, newMaxSize);
-      }
+    // growing needs nothing, the arrays grow as runs are added
+    if (newMaxSize != 0 && (maxSize == 0 || newMaxSize < maxSize) && starts.length > newMaxSize) {
+      // shrinking: keep only the most recent data
+      reallocate(newMaxSize);
     }
     maxSize = newMaxSize;
   }
 
   public void reset(Value v, long duration) {
-    if (val.length > 1) {
-      final var val2 = new Value[1][];
-      final var dur2 = new long[1][];
-      val2[0] = val[0];
-      dur2[0] = dur[0];
-      val = val2;
-      dur = dur2;
-    }
+    allocate(maxSize == 0 || maxSize > INITIAL_CAPACITY ? INITIAL_CAPACITY : maxSize);
     last = null;
+    first = 0;
     curSize = 0;
-    firstIndex = 0;
+    timeStart = 0;
+    timeEnd = 0;
     extend(v, duration);
   }
 
@@ -247,10 +249,8 @@ public class Signal {
     public Iterator() {
       position = 0;
       time = timeStart;
-      final var i = firstIndex;
-      final var width = info.getWidth();
-      value = val[i / CHUNK][i % CHUNK].extendWidth(width, Value.FALSE);
-      duration = dur[i / CHUNK][i % CHUNK];
+      value = valueOf(0);
+      duration = endOf(0) - time;
     }
 
     public Iterator(long t) {
@@ -270,10 +270,8 @@ public class Signal {
       }
       position++;
       time += duration;
-      final var i = (firstIndex + position) % curSize;
-      final var width = info.getWidth();
-      value = val[i / CHUNK][i % CHUNK].extendWidth(width, Value.FALSE);
-      duration = dur[i / CHUNK][i % CHUNK];
+      value = valueOf(position);
+      duration = endOf(position) - time;
       return true;
     }
 
@@ -281,8 +279,19 @@ public class Signal {
       if (value == null) return false;
       if (timeFwd <= 0) return true;
       final var t = time + timeFwd;
-      while (t >= time + duration) {
-        if (!advance()) return false;
+      if (t >= time + duration) {
+        // jump straight to the run at t
+        if (t >= timeEnd) {
+          position = curSize - 1;
+          time = startOf(position);
+          value = null;
+          duration = 0;
+          return false;
+        }
+        position = find(t, position + 1);
+        time = startOf(position);
+        value = valueOf(position);
+        duration = endOf(position) - time;
       }
       // postcondition: t < time + duration
       //                t - time < duration
@@ -292,18 +301,9 @@ public class Signal {
     }
   }
 
-  // todo: easily optimized
   public Value getValue(long t) { // always current width, even when width changes
-    if (t < timeStart) return null;
-    final var width = info.getWidth();
-    var tt = timeStart;
-    for (int p = 0; p < curSize; p++) {
-      final var i = (firstIndex + p) % curSize;
-      final var d = dur[i / CHUNK][i % CHUNK];
-      if (t < tt + d) return val[i / CHUNK][i % CHUNK].extendWidth(width, Value.FALSE);
-      tt += d;
-    }
-    return null;
+    if (t < timeStart || t >= timeEnd || curSize == 0) return null;
+    return valueOf(find(t, 0));
   }
 
   public String getFormattedValue(long t) {
@@ -0,0 +1,203 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.gui.log;
+
+import com.cburch.logisim.data.Value;
+import com.cburch.logisim.generated.BuildInfo;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes signal histories as a Value Change Dump (IEEE 1364), optionally gzip compressed, which
+ * most waveform viewers open directly. Only the changes of each signal are written, encoded
+ * straight into a byte buffer that is drained to the file channel when full. Times are in ns.
+ */
+final class WaveformWriter implements Closeable {
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  private final WritableByteChannel out;
+  private final GZIPOutputStream compressor; // or null when not compressed
+  private final ByteBuffer buf = ByteBuffer.allocate(BUFFER_SIZE);
+  private final HashMap<Signal, Integer> index = new HashMap<>();
+  private int[] widths;
+  private byte[][] codes;
+  private long[] lastValue;
+  private long[] lastUnknown;
+  private long[] lastError;
+  private boolean[] written;
+  private long time = -1; // time of the changes being written
+  private boolean timeWritten;
+  private boolean dirty; // written since the last flush
+
+  WaveformWriter(File file, boolean compressed) throws IOException {
+    final var channel =
+        FileChannel.open(
+            file.toPath(),
+            StandardOpenOption.CREATE,
+            StandardOpenOption.WRITE,
+            StandardOpenOption.TRUNCATE_EXISTING);
+    // a sync flush makes everything written so far readable while the simulation goes on
+    compressor =
+        compressed
+            ? new GZIPOutputStream(Channels.newOutputStream(channel), BUFFER_SIZE, true)
+            : null;
+    out = compressed ? Channels.newChannel(compressor) : channel;
+  }
+
+  /** Declares the signals, which are the only ones whose changes can be written afterwards. */
+  void writeHeader(String scope, String comment, List<Signal> signals) throws IOException {
+    final var n = signals.size();
+    widths = new int[n];
+    codes = new byte[n][];
+    lastValue = new long[n];
+    lastUnknown = new long[n];
+    lastError = new long[n];
+    written = new boolean[n];
+    put("$date\n\t" + new Date() + "\n$end\n");
+    put("$version\n\t" + BuildInfo.displayName + "\n$end\n");
+    if (comment != null) put("$comment\n\t" + comment + "\n$end\n");
+    put("$timescale 1ns $end\n");
+    put("$scope module " + identifier(scope) + " $end\n");
+    for (var i = 0; i < n; i++) {
+      final var s = signals.get(i);
+      index.put(s, i);
+      widths[i] = Math.max(1, s.getWidth());
+      codes[i] = code(i);
+      put("$var wire " + widths[i] + " ");
+      put(codes[i]);
+      put(" " + identifier(s.getName()));
+      if (widths[i] > 1) put(" [" + (widths[i] - 1) + ":0]");
+      put(" $end\n");
+    }
+    put("$upscope $end\n$enddefinitions $end\n");
+  }
+
+  /** Returns the number of a signal declared in the header, or -1 if it was not. */
+  int indexOf(Signal s) {
+    final var i = index.get(s);
+    return i == null ? -1 : i;
+  }
+
+  /** Sets the time of the changes written next, which must not be before the previous one. */
+  void setTime(long t) {
+    if (t != time) {
+      time = t;
+      timeWritten = false;
+    }
+  }
+
+  /** Writes the value of a declared signal at the current time, if it changed. */
+  void change(int i, Value v) throws IOException {
+    if (v == null) return;
+    final var value = v.getValueBits();
+    final var unknown = v.getUnknownBits();
+    final var error = v.getErrorBits();
+    if (written[i] && value == lastValue[i] && unknown == lastUnknown[i] && error == lastError[i])
+      return;
+    written[i] = true;
+    lastValue[i] = value;
+    lastUnknown[i] = unknown;
+    lastError[i] = error;
+    if (!timeWritten) {
+      put("#" + time + "\n");
+      timeWritten = true;
+    }
+    final var width = widths[i];
+    final var code = codes[i];
+    reserve(width + code.length + 3);
+    if (width == 1) {
+      buf.put(bit(v, 0));
+    } else {
+      buf.put((byte) 'b');
+      // leading zeros are implied, as long as they are not followed by x or z
+      var b = width - 1;
+      while (b > 0 && bit(v, b) == '0' && bit(v, b - 1) != 'x' && bit(v, b - 1) != 'z') b--;
+      for (; b >= 0; b--) buf.put(bit(v, b));
+      buf.put((byte) ' ');
+    }
+    buf.put(code);
+    buf.put((byte) '\n');
+  }
+
+  // an error bit becomes x, a floating one z
+  private static byte bit(Value v, int b) {
+    if (b >= v.getWidth()) return '0';
+    final var mask = 1L << b;
+    if ((v.getErrorBits() & mask) != 0) return 'x';
+    if ((v.getUnknownBits() & mask) != 0) return 'z';
+    return (v.getValueBits() & mask) != 0 ? (byte) '1' : (byte) '0';
+  }
+
+  // short identifier codes, in base 94 over the printable characters
+  private static byte[] code(int i) {
+    final var ret = new StringBuilder();
+    do {
+      ret.append((char) ('!' + i % 94));
+      i = i / 94 - 1;
+    } while (i >= 0);
+    return ret.toString().getBytes(StandardCharsets.US_ASCII);
+  }
+
+  private static String identifier(String name) {
+    return name == null || name.isEmpty() ? "_" : name.replaceAll("\\s", "_");
+  }
+
+  private void put(String s) throws IOException {
+    put(s.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private void put(byte[] b) throws IOException {
+    var offs = 0;
+    while (offs < b.length) {
+      reserve(1);
+      final var n = Math.min(b.length - offs, buf.remaining());
+      buf.put(b, offs, n);
+      offs += n;
+    }
+  }
+
+  // makes room for n bytes, n being at most the size of the buffer
+  private void reserve(int n) throws IOException {
+    if (buf.remaining() < n) drain();
+  }
+
+  private void drain() throws IOException {
+    buf.flip();
+    while (buf.hasRemaining()) out.write(buf);
+    buf.clear();
+    dirty = true;
+  }
+
+  void flush() throws IOException {
+    if (buf.position() > 0) drain();
+    if (dirty && compressor != null) compressor.flush();
+    dirty = false;
+  }
+
+  @Override
+  public void close() throws IOException {
+    try {
+      drain();
+    } finally {
+      out.close();
+    }
+  }
+}
@@ -14,16 +14,15 @@ import static com.cburch.logisim.gui.Strings.S;
 import com.cburch.logisim.circuit.Simulator;
 
 class TickCounter implements Simulator.Listener {
-  private static final int QUEUE_LENGTH = 1000;
+  // the simulator measures twice a second, so this covers the last ten seconds
+  private static final int QUEUE_LENGTH = 20;
 
-  private final long[] queueTimes;
   private final double[] queueRates;
   private int queueStart;
   private int queueSize;
   private double tickFrequency;
 
   public TickCounter() {
-    queueTimes = new long[QUEUE_LENGTH];
     queueRates = new double[QUEUE_LENGTH];
     queueSize = 0;
   }
@@ -34,43 +33,28 @@ class TickCounter implements Simulator.Listener {
 
   public String getTickRate() {
     int size = queueSize;
-    if (size <= 1) {
+    if (size == 0) {
       return "";
     } else {
-      int maxSize = queueTimes.length;
+      int maxSize = queueRates.length;
       int start = queueStart;
       int end = start + size - 1;
       if (end >= maxSize) {
         end -= maxSize;
       }
       double rate = queueRates[end];
-      if (rate <= 0 || rate == Double.MAX_VALUE) {
+      if (rate <= 0) {
         return "";
       } else {
-        // Figure out the minimum over the previous 100 readings, and
-        // base our rounding off of that. This is meant to provide some
-        // stability in the rounding - we don't want the result to
-        // oscillate rapidly between 990 Hz and 1 KHz - it's better for
-        // it to oscillate between 990 Hz and 1005 Hz.
-        int baseLen = size;
-        if (baseLen > 100) baseLen = 100;
-        int baseStart = end - baseLen + 1;
+        // Figure out the minimum over the previous readings, and base our
+        // rounding off of that. This is meant to provide some stability in
+        // the rounding - we don't want the result to oscillate rapidly
+        // between 990 Hz and 1 KHz - it's better for it to oscillate between
+        // 990 Hz and 1005 Hz.
         double min = rate;
-        if (baseStart < 0) {
-          baseStart += maxSize;
-          for (int i = baseStart + maxSize; i < maxSize; i++) {
-            double x = queueRates[i];
-            if (x < min) min = x;
-          }
-          for (int i = 0; i < end; i++) {
-            double x = queueRates[i];
-            if (x < min) min = x;
-          }
-        } else {
-          for (int i = baseStart; i < end; i++) {
-            double x = queueRates[i];
-            if (x < min) min = x;
-          }
+        for (int i = 0; i < size; i++) {
+          double x = queueRates[(start + i) % maxSize];
+          if (x < min) min = x;
         }
         if (min < 0.9 * rate) min = rate;
 
@@ -137,48 +121,24 @@ class TickCounter implements Simulator.Listener {
   }
 
   @Override
-  public void propagationCompleted(Simulator.Event e) {
-    if (e.didTick()) {
-      Simulator sim = e.getSource();
-      if (!sim.isAutoTicking()) {
-        queueSize = 0;
-      } else {
-        double freq = sim.getTickFrequency();
-        if (freq != tickFrequency) {
-          queueSize = 0;
-          tickFrequency = freq;
-        }
-
-        int curSize = queueSize;
-        int maxSize = queueTimes.length;
-        int start = queueStart;
-        int end;
-        if (curSize < maxSize) { // new sample is added into queue
-          end = start + curSize;
-          if (end >= maxSize) {
-            end -= maxSize;
-          }
-          curSize++;
-          queueSize = curSize;
-        } else { // new sample replaces oldest value in queue
-          end = queueStart;
-          if (end + 1 >= maxSize) {
-            queueStart = 0;
-          } else {
-            queueStart = end + 1;
-          }
-        }
-        long startTime = queueTimes[start];
-        long endTime = System.currentTimeMillis();
-        double rate;
-        if (startTime == endTime || curSize <= 1) {
-          rate = Double.MAX_VALUE;
-        } else {
-          rate = 1000.0 * (curSize - 1) / (endTime - startTime);
-        }
-        queueTimes[end] = endTime;
-        queueRates[end] = rate;
-      }
+  public void tickFrequencyMeasured(Simulator.Event e) {
+    Simulator sim = e.getSource();
+    if (!sim.isAutoTicking()) {
+      queueSize = 0;
+      return;
+    }
+    double freq = sim.getTickFrequency();
+    if (freq != tickFrequency) {
+      queueSize = 0;
+      tickFrequency = freq;
+    }
+    int maxSize = queueRates.length;
+    if (queueSize < maxSize) { // new sample is added into queue
+      queueRates[(queueStart + queueSize) % maxSize] = sim.getAchievedTickFrequency();
+      queueSize++;
+    } else { // new sample replaces oldest value in queue
+      queueRates[queueStart] = sim.getAchievedTickFrequency();
+      queueStart = (queueStart + 1) % maxSize;
     }
   }
 }
@@ -15,18 +15,28 @@ import com.cburch.logisim.circuit.CircuitEvent;
 import com.cburch.logisim.circuit.CircuitListener;
 import com.cburch.logisim.circuit.CircuitState;
 import com.cburch.logisim.circuit.Simulator;
+import com.cburch.logisim.gui.generic.OptionPane;
+import com.cburch.logisim.proj.Project;
+import com.cburch.logisim.util.JFileChoosers;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.awt.event.KeyEvent;
+import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
 import javax.swing.ButtonGroup;
+import javax.swing.JCheckBoxMenuItem;
+import javax.swing.JFileChooser;
 import javax.swing.JMenu;
 import javax.swing.JMenuItem;
 import javax.swing.JRadioButtonMenuItem;
 import javax.swing.KeyStroke;
+import javax.swing.SwingUtilities;
 import javax.swing.event.ChangeEvent;
 import javax.swing.event.ChangeListener;
+import javax.swing.filechooser.FileNameExtensionFilter;
 
 @SuppressWarnings("serial")
 public class MenuSimulate extends Menu {
@@ -35,10 +45,14 @@ public class MenuSimulate extends Menu {
     2048000.0, 1024000.0, 512000.0, 256000.0, 128000.0, 64000.0, 32000.0, 16000.0, 8000.0, 4000.0,
     2000.0, 1000.0, 512.0, 256.0, 128.0, 64.0, 32.0, 16.0, 8.0, 4.0, 2.0, 1.0, 0.5, 0.25
   };
+  // memory given to the tick history once recording is switched on
+  private static final long HISTORY_BYTES = 64L << 20;
   private final LogisimMenuBar menubar;
   private final MyListener myListener = new MyListener();
   private final MenuItemCheckImpl runToggle;
   private final JMenuItem reset = new JMenuItem();
+  private final JMenuItem saveCheckpoint = new JMenuItem();
+  private final JMenuItem restoreCheckpoint = new JMenuItem();
   private final MenuItemImpl step;
   private final MenuItemImpl vhdlSimFiles;
   private final MenuItemCheckImpl simulateVhdlEnable;
@@ -46,6 +60,8 @@ public class MenuSimulate extends Menu {
   private final MenuItemImpl tickHalf;
   private final MenuItemImpl tickFull;
   private final JMenu tickFreq = new JMenu();
+  private final JCheckBoxMenuItem recordHistory = new JCheckBoxMenuItem();
+  private final JMenuItem stepBack = new JMenuItem();
   private final TickFrequencyChoice[] tickFreqs = new TickFrequencyChoice[SUPPORTED_TICK_FREQUENCIES.length];
   private final JMenu downStateMenu = new JMenu();
   private final ArrayList<CircuitStateMenuItem> downStateItems = new ArrayList<>();
@@ -95,6 +111,8 @@ public class MenuSimulate extends Menu {
     add(runToggle);
     add(step);
     add(reset);
+    add(saveCheckpoint);
+    add(restoreCheckpoint);
     add(simulateVhdlEnable);
     add(vhdlSimFiles);
     addSeparator();
@@ -105,6 +123,8 @@ public class MenuSimulate extends Menu {
     add(tickFull);
     add(ticksEnabled);
     add(tickFreq);
+    add(recordHistory);
+    add(stepBack);
     addSeparator();
     add(log);
     add(test);
@@ -114,6 +134,8 @@ public class MenuSimulate extends Menu {
     setEnabled(false);
     runToggle.setEnabled(false);
     reset.setEnabled(false);
+    saveCheckpoint.setEnabled(false);
+    restoreCheckpoint.setEnabled(false);
     step.setEnabled(false);
     simulateVhdlEnable.setEnabled(false);
     vhdlSimFiles.setEnabled(false);
@@ -123,6 +145,8 @@ public class MenuSimulate extends Menu {
     tickFull.setEnabled(false);
     ticksEnabled.setEnabled(false);
     tickFreq.setEnabled(false);
+    recordHistory.setEnabled(false);
+    stepBack.setEnabled(false);
 
     runToggle.addChangeListener(myListener);
     menubar.addActionListener(LogisimMenuBar.SIMULATE_RUN_TOGGLE, myListener);
@@ -134,6 +158,10 @@ public class MenuSimulate extends Menu {
     menubar.addActionListener(LogisimMenuBar.TICK_FULL, myListener);
     // runToggle.addActionListener(myListener);
     reset.addActionListener(myListener);
+    saveCheckpoint.addActionListener(myListener);
+    restoreCheckpoint.addActionListener(myListener);
+    recordHistory.addActionListener(myListener);
+    stepBack.addActionListener(myListener);
     // step.addActionListener(myListener);
     // tickHalf.addActionListener(myListener);
     // tickFull.addActionListener(myListener);
@@ -174,6 +202,8 @@ public class MenuSimulate extends Menu {
     setEnabled(present);
     runToggle.setEnabled(present);
     reset.setEnabled(present);
+    saveCheckpoint.setEnabled(present);
+    restoreCheckpoint.setEnabled(present);
     step.setEnabled(present);
     simulateVhdlEnable.setEnabled(present);
     vhdlSimFiles.setEnabled(present);
@@ -183,6 +213,8 @@ public class MenuSimulate extends Menu {
     tickFull.setEnabled(present);
     ticksEnabled.setEnabled(present);
     tickFreq.setEnabled(present);
+    recordHistory.setEnabled(present);
+    stepBack.setEnabled(present && currentSim != null && currentSim.getHistoryLimit() > 0);
     menubar.fireEnableChanged();
   }
 
@@ -190,6 +222,8 @@ public class MenuSimulate extends Menu {
     this.setText(S.get("simulateMenu"));
     runToggle.setText(S.get("simulateRunItem"));
     reset.setText(S.get("simulateResetItem"));
+    saveCheckpoint.setText(S.get("simulateSaveCheckpointItem"));
+    restoreCheckpoint.setText(S.get("simulateRestoreCheckpointItem"));
     step.setText(S.get("simulateStepItem"));
     simulateVhdlEnable.setText(S.get("simulateVhdlEnableItem"));
     vhdlSimFiles.setText(S.get("simulateGenVhdlFilesItem"));
@@ -197,6 +231,8 @@ public class MenuSimulate extends Menu {
     tickFull.setText(S.get("simulateTickFullItem"));
     ticksEnabled.setText(S.get("simulateTickItem"));
     tickFreq.setText(S.get("simulateTickFreqMenu"));
+    recordHistory.setText(S.get("simulateRecordHistoryItem"));
+    stepBack.setText(S.get("simulateStepBackItem"));
 
     for (final var freq : tickFreqs) {
       freq.localeChanged();
@@ -368,6 +404,8 @@ public class MenuSimulate extends Menu {
         }
         sim.reset();
         proj.repaintCanvas();
+      } else if (src == saveCheckpoint || src == restoreCheckpoint) {
+        doCheckpoint(proj, sim, src == restoreCheckpoint);
       } else if (src == step || src == LogisimMenuBar.SIMULATE_STEP) {
         sim.setAutoPropagation(false);
         sim.step();
@@ -377,6 +415,10 @@ public class MenuSimulate extends Menu {
         sim.tick(2);
       } else if (src == ticksEnabled || src == LogisimMenuBar.TICK_ENABLE) {
         sim.setAutoTicking(!sim.isAutoTicking());
+      } else if (src == recordHistory) {
+        sim.setHistoryLimit(sim.getHistoryLimit() > 0 ? 0 : HISTORY_BYTES);
+      } else if (src == stepBack) {
+        sim.stepBack(1);
       } else if (src == assemblyWindow) {
         if (assWin == null || !assWin.isVisible()) {
           assWin = new AssemblyWindow(proj);
@@ -387,6 +429,31 @@ public class MenuSimulate extends Menu {
       }
     }
 
+    private void doCheckpoint(Project proj, Simulator sim, boolean restore) {
+      final var chooser = JFileChoosers.create();
+      chooser.setFileFilter(new FileNameExtensionFilter(S.get("simulateCheckpointFilter"), "lsc"));
+      final var result =
+          restore
+              ? chooser.showOpenDialog(proj.getFrame())
+              : chooser.showSaveDialog(proj.getFrame());
+      if (result != JFileChooser.APPROVE_OPTION) return;
+      var file = chooser.getSelectedFile();
+      if (!restore && !file.getName().contains(".")) file = new File(file.getPath() + ".lsc");
+      final Consumer<IOException> done =
+          error -> {
+            if (error == null) return;
+            SwingUtilities.invokeLater(
+                () ->
+                    OptionPane.showMessageDialog(
+                        proj.getFrame(),
+                        S.get("simulateCheckpointError", error.getMessage()),
+                        S.get("simulateMenu"),
+                        OptionPane.ERROR_MESSAGE));
+          };
+      if (restore) sim.restoreCheckpoint(file, done);
+      else sim.saveCheckpoint(file, done);
+    }
+
     @Override
     public void simulatorReset(Simulator.Event e) {
       updateSimulator(e);
@@ -405,6 +472,7 @@ public class MenuSimulate extends Menu {
       computeEnabled();
       runToggle.setSelected(sim.isAutoPropagating());
       ticksEnabled.setSelected(sim.isAutoTicking());
+      recordHistory.setSelected(sim.getHistoryLimit() > 0);
       final var freq = sim.getTickFrequency();
       for (final var item : tickFreqs) {
         item.setSelected(freq == item.freq);
@@ -36,8 +36,19 @@ class SimulateOptions extends OptionsPanel {
             200, 500, 1000, 2000, 5000, 10000, 20000, 50000,
           });
 
+  private final JLabel simThreadsLabel = new JLabel();
+
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  private final JComboBox simThreads =
+      new JComboBox(
+          new Integer[] {
+            1, 2, 4, 8, 16, 32,
+          });
+
   private final JCheckBox simRandomness = new JCheckBox();
   private final JCheckBox memUnknown = new JCheckBox();
+  private final JCheckBox heapQueue = new JCheckBox();
+  private final JCheckBox compiledNetlist = new JCheckBox();
   private final JLabel gateUndefinedLabel = new JLabel();
 
   @SuppressWarnings({"rawtypes", "unchecked"})
@@ -56,6 +67,11 @@ class SimulateOptions extends OptionsPanel {
     simLimitPanel.add(simLimit);
     simLimit.addActionListener(myListener);
 
+    final var simThreadsPanel = new JPanel();
+    simThreadsPanel.add(simThreadsLabel);
+    simThreadsPanel.add(simThreads);
+    simThreads.addActionListener(myListener);
+
     final var gateUndefinedPanel = new JPanel();
     gateUndefinedPanel.add(gateUndefinedLabel);
     gateUndefinedPanel.add(gateUndefined);
@@ -66,15 +82,26 @@ class SimulateOptions extends OptionsPanel {
     memUnknown.addActionListener(myListener);
     memUnknown.setSelected(AppPreferences.Memory_Startup_Unknown.get());
 
+    heapQueue.addActionListener(myListener);
+    heapQueue.setSelected(
+        AppPreferences.SIM_EVENT_QUEUE.get().equals(AppPreferences.SIM_QUEUE_HEAP));
+
+    compiledNetlist.addActionListener(myListener);
+    compiledNetlist.setSelected(AppPreferences.SIM_COMPILED_NETLIST.get());
+
     setLayout(new TableLayout(1));
     add(memUnknown);
     add(simLimitPanel);
+    add(simThreadsPanel);
     add(gateUndefinedPanel);
     add(simRandomness);
+    add(heapQueue);
+    add(compiledNetlist);
 
     window.getOptions().getAttributeSet().addAttributeListener(myListener);
     final var attrs = getOptions().getAttributeSet();
     myListener.loadSimLimit(attrs.getValue(Options.ATTR_SIM_LIMIT));
+    myListener.loadSimThreads(attrs.getValue(Options.ATTR_SIM_THREADS));
     myListener.loadGateUndefined(attrs.getValue(Options.ATTR_GATE_UNDEFINED));
     myListener.loadSimRandomness(attrs.getValue(Options.ATTR_SIM_RAND));
   }
@@ -92,9 +119,12 @@ class SimulateOptions extends OptionsPanel {
   @Override
   public void localeChanged() {
     simLimitLabel.setText(S.get("simulateLimit"));
+    simThreadsLabel.setText(S.get("simulateThreads"));
     gateUndefinedLabel.setText(S.get("gateUndefined"));
     simRandomness.setText(S.get("simulateRandomness"));
     memUnknown.setText(S.get("MemoriesStartupUnknown"));
+    heapQueue.setText(S.get("simulateHeapQueue"));
+    compiledNetlist.setText(S.get("simulateCompiledNetlist"));
   }
 
   private class MyListener implements ActionListener, AttributeListener {
@@ -107,6 +137,12 @@ class SimulateOptions extends OptionsPanel {
           final var attrs = getOptions().getAttributeSet();
           getProject().doAction(OptionsActions.setAttribute(attrs, Options.ATTR_SIM_LIMIT, opt));
         }
+      } else if (source == simThreads) {
+        final var opt = (Integer) simThreads.getSelectedItem();
+        if (opt != null) {
+          final var attrs = getOptions().getAttributeSet();
+          getProject().doAction(OptionsActions.setAttribute(attrs, Options.ATTR_SIM_THREADS, opt));
+        }
       } else if (source == simRandomness) {
         final var attrs = getOptions().getAttributeSet();
         Object val = simRandomness.isSelected() ? Options.SIM_RAND_DFLT : Integer.valueOf(0);
@@ -121,6 +157,13 @@ class SimulateOptions extends OptionsPanel {
         AppPreferences.Memory_Startup_Unknown.set(memUnknown.isSelected());
         final var sim = getProject().getSimulator();
         if (sim != null) sim.reset();
+      } else if (source == heapQueue) {
+        AppPreferences.SIM_EVENT_QUEUE.set(
+            heapQueue.isSelected() ? AppPreferences.SIM_QUEUE_HEAP : AppPreferences.SIM_QUEUE_WHEEL);
+        final var sim = getProject().getSimulator();
+        if (sim != null) sim.reset();
+      } else if (source == compiledNetlist) {
+        AppPreferences.SIM_COMPILED_NETLIST.set(compiledNetlist.isSelected());
       }
     }
 
@@ -130,6 +173,8 @@ class SimulateOptions extends OptionsPanel {
       final var val = e.getValue();
       if (attr == Options.ATTR_SIM_LIMIT) {
         loadSimLimit((Integer) val);
+      } else if (attr == Options.ATTR_SIM_THREADS) {
+        loadSimThreads((Integer) val);
       } else if (attr == Options.ATTR_SIM_RAND) {
         loadSimRandomness((Integer) val);
       } else if (attr == Options.ATTR_GATE_UNDEFINED) {
@@ -153,6 +198,17 @@ class SimulateOptions extends OptionsPanel {
       }
     }
 
+    @SuppressWarnings("rawtypes")
+    private void loadSimThreads(Integer val) {
+      final var model = simThreads.getModel();
+      for (var i = 0; i < model.getSize(); i++) {
+        final var opt = (Integer) model.getElementAt(i);
+        if (opt.equals(val)) {
+          simThreads.setSelectedItem(opt);
+        }
+      }
+    }
+
     private void loadSimRandomness(Integer val) {
       simRandomness.setSelected(val > 0);
     }
@@ -0,0 +1,213 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.gui.start;
+
+import com.cburch.logisim.Main;
+import com.cburch.logisim.circuit.Analyze;
+import com.cburch.logisim.circuit.Circuit;
+import com.cburch.logisim.circuit.CircuitState;
+import com.cburch.logisim.data.Value;
+import com.cburch.logisim.file.LoadFailedException;
+import com.cburch.logisim.file.Loader;
+import com.cburch.logisim.instance.Instance;
+import com.cburch.logisim.instance.StdAttr;
+import com.cburch.logisim.proj.Project;
+import com.cburch.logisim.std.wiring.Pin;
+import java.io.File;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * Programmatic access to the simulator without any user interface. A circuit is loaded, its pins
+ * are addressed by the labels the analyzer assigns to them (see {@link Analyze#getPinLabels}), and
+ * the simulation is advanced tick by tick, where a tick is one toggle of all clocks as in the
+ * "--tty" mode. Nothing is printed; callers decide what to do with the outputs.
+ *
+ * <pre>
+ * final var sim = HeadlessSimulator.load(new File("cpu.circ"), null);
+ * sim.setInput("reset", 1);
+ * sim.run(2);
+ * sim.setInput("reset", 0);
+ * sim.runUntil(s -&gt; s.getOutput("halt") == Value.TRUE, 1_000_000);
+ * </pre>
+ */
+public class HeadlessSimulator {
+  private final Project project;
+  private final Circuit circuit;
+  private CircuitState circuitState;
+  private final Map<String, Instance> inputs = new LinkedHashMap<>();
+  private final Map<String, Instance> outputs = new LinkedHashMap<>();
+  private long tickCount = 0;
+  private long historyLimit = 0;
+
+  public HeadlessSimulator(Project project, Circuit circuit) {
+    this.project = project;
+    this.circuit = circuit;
+    for (final var entry : Analyze.getPinLabels(circuit).entrySet()) {
+      if (Pin.FACTORY.isInputPin(entry.getKey())) inputs.put(entry.getValue(), entry.getKey());
+      else outputs.put(entry.getValue(), entry.getKey());
+    }
+    reset();
+  }
+
+  /**
+   * Loads a circuit file. As this is meant for batch use, loading switches the application into
+   * headless mode so that problems are logged instead of shown in dialogs.
+   *
+   * @param circuitName the circuit to simulate, or null for the main circuit of the file
+   * @throws IllegalArgumentException if the file has no circuit of that name
+   */
+  public static HeadlessSimulator load(File file, String circuitName) throws LoadFailedException {
+    Main.headless = true;
+    final var logisimFile = new Loader(null).openLogisimFile(file);
+    final var circuit = (circuitName == null || circuitName.isEmpty())
+        ? logisimFile.getMainCircuit()
+        : logisimFile.getCircuit(circuitName);
+    if (circuit == null) throw new IllegalArgumentException("no circuit named " + circuitName);
+    return new HeadlessSimulator(new Project(logisimFile), circuit);
+  }
+
+  public Circuit getCircuit() {
+    return circuit;
+  }
+
+  public CircuitState getCircuitState() {
+    return circuitState;
+  }
+
+  /** Returns the number of events the propagator processed so far. */
+  public long getEventCount() {
+    return circuitState.getPropagator().getEventCount();
+  }
+
+  public Set<String> getInputNames() {
+    return Collections.unmodifiableSet(inputs.keySet());
+  }
+
+  public Set<String> getOutputNames() {
+    return Collections.unmodifiableSet(outputs.keySet());
+  }
+
+  public Project getProject() {
+    return project;
+  }
+
+  public long getTickCount() {
+    return tickCount;
+  }
+
+  private Instance getPin(Map<String, Instance> pins, String name) {
+    final var ret = pins.get(name);
+    if (ret == null) throw new IllegalArgumentException("no pin named " + name);
+    return ret;
+  }
+
+  /** Returns the value currently shown by the named output pin. Input pins may be read as well. */
+  public Value getOutput(String name) {
+    var pin = outputs.get(name);
+    if (pin == null) pin = getPin(inputs, name);
+    return Pin.FACTORY.getValue(circuitState.getInstanceState(pin));
+  }
+
+  public boolean isOscillating() {
+    return circuitState.getPropagator().isOscillating();
+  }
+
+  /**
+   * Propagates pending changes, such as new input values, without advancing the clocks.
+   *
+   * @return false if the circuit oscillates
+   */
+  public boolean propagate() {
+    final var prop = circuitState.getPropagator();
+    prop.propagate();
+    return !prop.isOscillating();
+  }
+
+  /** Starts over with a fresh circuit state, as if the circuit had just been loaded. */
+  public void reset() {
+    circuitState = new CircuitState(project, circuit);
+    tickCount = 0;
+    if (historyLimit > 0) circuitState.getPropagator().setHistoryLimit(historyLimit);
+    // the initial propagation creates the states of the subcircuits
+    propagate();
+  }
+
+  /**
+   * Records the ticks run from now on in at most the given number of bytes, so that {@link
+   * #stepBack} can return to them. Zero stops recording.
+   */
+  public void setHistoryLimit(long maxBytes) {
+    historyLimit = Math.max(0, maxBytes);
+    circuitState.getPropagator().setHistoryLimit(historyLimit);
+  }
+
+  /**
+   * Sets the circuit back by up to the given number of recorded ticks. Inputs keep the values
+   * they were last set to.
+   *
+   * @return the number of ticks actually stepped back
+   */
+  public int stepBack(int ticks) {
+    final var ret = circuitState.getPropagator().stepBack(ticks);
+    tickCount -= ret;
+    return ret;
+  }
+
+  /**
+   * Runs the given number of ticks.
+   *
+   * @return the number of ticks actually run, less than requested if the circuit oscillates
+   */
+  public long run(long ticks) {
+    return runUntil(null, ticks);
+  }
+
+  /**
+   * Runs ticks until the condition holds, the circuit oscillates, or maxTicks ticks have passed.
+   * The condition is checked before every tick, so nothing is run if it already holds.
+   *
+   * @return the number of ticks run
+   */
+  public long runUntil(Predicate<HeadlessSimulator> condition, long maxTicks) {
+    final var prop = circuitState.getPropagator();
+    if (!propagate()) return 0;
+    var ran = 0L;
+    while (ran < maxTicks) {
+      if (condition != null && condition.test(this)) break;
+      prop.toggleClocks();
+      prop.propagate();
+      ran++;
+      tickCount++;
+      if (prop.isOscillating()) break;
+    }
+    return ran;
+  }
+
+  /** Sets the named input pin; the change takes effect on the next propagation. */
+  public void setInput(String name, Value value) {
+    final var pin = getPin(inputs, name);
+    final var width = pin.getAttributeValue(StdAttr.WIDTH).getWidth();
+    if (value.getWidth() != width) {
+      throw new IllegalArgumentException("pin " + name + " has width " + width);
+    }
+    Pin.FACTORY.setValue(circuitState.getInstanceState(pin), value);
+    // setValue only records the value; the pin must be marked to drive it onto its net
+    circuitState.markComponentAsDirty(pin.getComponent());
+  }
+
+  public void setInput(String name, long value) {
+    final var pin = getPin(inputs, name);
+    setInput(name, Value.createKnown(pin.getAttributeValue(StdAttr.WIDTH), value));
+  }
+}
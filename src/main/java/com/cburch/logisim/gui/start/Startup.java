@@ -93,10 +93,12 @@ public class Startup implements AWTEventListener {
   private boolean templPlain = false;
   private String testVector = null;
   private String circuitToTest = null;
+  private int testVectorThreads = 1;
   private boolean exitAfterStartup = false;
   private boolean showSplash;
   private File loadFile;
   private int ttyFormat = 0;
+  private long benchTicks = 0;
   // from other sources
   private boolean initialized = false;
   private SplashScreen monitor = null;
@@ -162,8 +164,10 @@ public class Startup implements AWTEventListener {
   private static final String ARG_VERSION_LONG = "version";
   private static final String ARG_TEST_VECTOR_SHORT = "w";
   private static final String ARG_TEST_VECTOR_LONG = "test-vector";
+  private static final String ARG_TEST_VECTOR_THREADS_LONG = "test-vector-threads";
   private static final String ARG_NO_SPLASH_LONG = "no-splash";
   private static final String ARG_MAIN_CIRCUIT = "toplevel-circuit";
+  private static final String ARG_BENCH_LONG = "bench";
 
   /**
    * Parses provided string expecting it represent boolean option. Accepted values
@@ -321,7 +325,9 @@ public class Startup implements AWTEventListener {
     addOption(opts, "argTemplateOption", ARG_TEMPLATE_LONG, ARG_TEMPLATE_SHORT, 1);
     addOption(opts, "argNoSplashOption", ARG_NO_SPLASH_LONG);
     addOption(opts, "argMainCircuitOption", ARG_MAIN_CIRCUIT, 1);
+    addOption(opts, "argBenchOption", ARG_BENCH_LONG, 1);
     addOption(opts, "argTestVectorOption", ARG_TEST_VECTOR_LONG, ARG_TEST_VECTOR_SHORT, 2);
+    addOption(opts, "argTestVectorThreadsOption", ARG_TEST_VECTOR_THREADS_LONG, 1);
     addOption(opts, "argTestCircuitOption", ARG_TEST_CIRCUIT_LONG, ARG_TEST_CIRCUIT_SHORT, 1);     // FIXME add "Option" suffix to key name
     addOption(opts, "argTestCircGenOption", ARG_TEST_CIRC_GEN_LONG, ARG_TEST_CIRC_GEN_SHORT, 2);   // FIXME add "Option" suffix to key name
 
@@ -342,7 +348,8 @@ public class Startup implements AWTEventListener {
     // see whether we'll be using any graphics
     var isTty = false;
     var shallClearPreferences = false;
-    if (cmd.hasOption(ARG_TTY_SHORT) || cmd.hasOption(ARG_TEST_FGPA_SHORT) || cmd.hasOption(ARG_TEST_FGPA_LONG)) {
+    if (cmd.hasOption(ARG_TTY_SHORT) || cmd.hasOption(ARG_TEST_FGPA_SHORT) || cmd.hasOption(ARG_TEST_FGPA_LONG)
+        || cmd.hasOption(ARG_BENCH_LONG)) {
       isTty = true;
       Main.headless = true;
     } else {
@@ -386,10 +393,12 @@ public class Startup implements AWTEventListener {
         case ARG_TEMPLATE_LONG -> handleArgTemplate(startup, opt);
         case ARG_NO_SPLASH_LONG -> handleArgNoSplash(startup, opt);
         case ARG_TEST_VECTOR_LONG -> handleArgTestVector(startup, opt);
+        case ARG_TEST_VECTOR_THREADS_LONG -> handleArgTestVectorThreads(startup, opt);
         case ARG_TEST_FGPA_LONG -> handleArgTestFpga(startup, opt);
         case ARG_TEST_CIRCUIT_LONG -> handleArgTestCircuit(startup, opt);
         case ARG_TEST_CIRC_GEN_LONG -> handleArgTestCircGen(startup, opt);
         case ARG_MAIN_CIRCUIT -> handleArgMainCircuit(startup, opt);
+        case ARG_BENCH_LONG -> handleArgBench(startup, opt);
         default -> RC.OK; // should not really happen IRL.
       };
       lastHandlerRc = optHandlerRc;
@@ -614,11 +623,37 @@ public class Startup implements AWTEventListener {
     return RC.OK;
   }
 
+  private static RC handleArgTestVectorThreads(Startup startup, Option opt) {
+    try {
+      startup.testVectorThreads = Integer.parseInt(opt.getValue());
+    } catch (NumberFormatException ex) {
+      startup.testVectorThreads = 0;
+    }
+    if (startup.testVectorThreads <= 0) {
+      logger.error(S.get("testVectorThreadsError"));
+      return RC.QUIT;
+    }
+    return RC.OK;
+  }
+
   private static RC handleArgMainCircuit(Startup startup, Option opt) {
     startup.circuitToTest = opt.getValues()[0];
     return RC.OK;
   }
 
+  private static RC handleArgBench(Startup startup, Option opt) {
+    try {
+      startup.benchTicks = Long.parseUnsignedLong(opt.getValue());
+    } catch (NumberFormatException ex) {
+      startup.benchTicks = 0;
+    }
+    if (startup.benchTicks == 0) {
+      logger.error(S.get("benchTicksError"));
+      return RC.QUIT;
+    }
+    return RC.OK;
+  }
+
 
   /**
    * Handles 4th argument of `--test-fpga` argument which can be either string literal
@@ -780,6 +815,10 @@ public class Startup implements AWTEventListener {
     return ttyFormat;
   }
 
+  long getBenchTicks() {
+    return benchTicks;
+  }
+
   boolean isFpgaDownload() {
     return doFpgaDownload;
   }
@@ -911,7 +950,7 @@ public class Startup implements AWTEventListener {
         try {
           if (testVector != null) {
             proj = ProjectActions.doOpenNoWindow(monitor, fileToOpen);
-            proj.doTestVector(testVector, circuitToTest);
+            proj.doTestVector(testVector, circuitToTest, testVectorThreads);
           } else if (testCircPathInput != null && testCircPathOutput != null) {
             /* This part of the function will create a new circuit file (
              * XML) which will be open and saved again using the  */
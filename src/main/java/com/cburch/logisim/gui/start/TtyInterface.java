@@ -28,12 +28,14 @@ import com.cburch.logisim.instance.StdAttr;
 import com.cburch.logisim.proj.Project;
 import com.cburch.logisim.std.io.Keyboard;
 import com.cburch.logisim.std.io.Tty;
+import com.cburch.logisim.std.memory.MemContents;
 import com.cburch.logisim.std.memory.Ram;
 import com.cburch.logisim.std.wiring.Pin;
 import com.cburch.logisim.util.UniquelyNamedThread;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.lang.management.ManagementFactory;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.LinkedList;
@@ -211,19 +213,32 @@ public class TtyInterface {
 
   private static boolean loadRam(CircuitState circState, File loadFile) throws IOException {
     if (loadFile == null) return false;
+    return loadRam(circState, loadFile, new HashMap<>());
+  }
 
+  // The image is only parsed once for each size of RAM. The other RAMs of that size get a copy,
+  // which shares its pages until they are written to.
+  private static boolean loadRam(
+      CircuitState circState, File loadFile, Map<Long, MemContents> loaded) throws IOException {
     var found = false;
     for (final var comp : circState.getCircuit().getNonWires()) {
       if (comp.getFactory() instanceof Ram ramFactory) {
         final var ramState = circState.getInstanceState(comp);
         final var m = ramFactory.getContents(ramState);
-        HexFile.open(m, loadFile);
+        final var size = ((long) m.getLogLength() << 32) | m.getWidth();
+        final var image = loaded.get(size);
+        if (image != null) {
+          m.copyFrom(0, image, 0, (int) (image.getLastOffset() + 1));
+        } else {
+          HexFile.open(m, loadFile);
+          loaded.put(size, m);
+        }
         found = true;
       }
     }
 
     for (final var sub : circState.getSubStates()) {
-      found |= loadRam(sub, loadFile);
+      found |= loadRam(sub, loadFile, loaded);
     }
     return found;
   }
@@ -248,7 +263,55 @@ public class TtyInterface {
     return found;
   }
 
+  /**
+   * Runs every file given on the command line for the requested number of ticks and reports the
+   * simulation speed. The allocation rate is only measured for the simulation thread and only on
+   * JVMs that support it; it is shown as -1 otherwise.
+   */
+  private static int runBenchmark(Startup args) {
+    final var threadBean = ManagementFactory.getThreadMXBean();
+    final var allocBean = threadBean instanceof com.sun.management.ThreadMXBean bean && bean.isThreadAllocatedMemorySupported() ? bean : null;
+    final var threadId = Thread.currentThread().getId();
+    var retCode = 0;
+    for (final var file : args.getFilesToOpen()) {
+      HeadlessSimulator sim;
+      try {
+        sim = HeadlessSimulator.load(file, args.getCircuitToTest());
+      } catch (LoadFailedException | IllegalArgumentException e) {
+        logger.error("{}", S.get("ttyLoadError", file.getName()));
+        retCode = -1;
+        continue;
+      }
+      final var startEvents = sim.getEventCount();
+      final var startBytes = allocBean == null ? 0 : allocBean.getThreadAllocatedBytes(threadId);
+      final var start = System.nanoTime();
+      final var ticks = sim.run(args.getBenchTicks());
+      final var elapsed = Math.max(1L, System.nanoTime() - start);
+      final var events = sim.getEventCount() - startEvents;
+      final var bytes = allocBean == null ? -1L : allocBean.getThreadAllocatedBytes(threadId) - startBytes;
+      final var seconds = elapsed / 1e9;
+      System.out.println(
+          S.get(
+              "benchResultMsg",
+              file.getName(),
+              String.format("%.1f", ticks / seconds),
+              String.format("%.1f", events / seconds),
+              bytes < 0 ? "-1" : String.format("%.2f", bytes / seconds / (1024 * 1024)),
+              Long.toString(ticks),
+              Long.toString(elapsed / 1_000_000)));
+      if (sim.isOscillating()) {
+        logger.error("{}", S.get("ttyHaltReasonOscillation"));
+        retCode = 1;
+      }
+    }
+    return retCode;
+  }
+
   public static void run(Startup args) {
+    if (args.getBenchTicks() > 0) {
+      System.exit(runBenchmark(args));
+      return;
+    }
     final var fileToOpen = args.getFilesToOpen().get(0);
     final var loader = new Loader(null);
     LogisimFile file;
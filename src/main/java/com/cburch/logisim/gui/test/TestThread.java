@@ -11,6 +11,7 @@ package com.cburch.logisim.gui.test;
 
 import static com.cburch.logisim.gui.Strings.S;
 
+import com.cburch.logisim.circuit.BatchEvaluator;
 import com.cburch.logisim.circuit.Circuit;
 import com.cburch.logisim.circuit.CircuitEvent;
 import com.cburch.logisim.circuit.CircuitListener;
@@ -19,19 +20,31 @@ import com.cburch.logisim.comp.Component;
 import com.cburch.logisim.data.FailException;
 import com.cburch.logisim.data.TestException;
 import com.cburch.logisim.data.TestVector;
+import com.cburch.logisim.data.Value;
 import com.cburch.logisim.instance.Instance;
 import com.cburch.logisim.instance.InstanceState;
 import com.cburch.logisim.instance.StdAttr;
 import com.cburch.logisim.proj.Project;
 import com.cburch.logisim.std.wiring.Pin;
 import com.cburch.logisim.util.UniquelyNamedThread;
+import java.util.ArrayList;
+import java.util.Arrays;
 
 public class TestThread extends UniquelyNamedThread implements CircuitListener {
 
   private final Project project;
   private final Circuit circuit;
   private final TestVector vector;
+  // state the vectors are simulated in, null for the current state of the project
+  private final CircuitState state;
   private Instance[] pin;
+  // bit-sliced evaluation of combinational circuits, null if the circuit has to be simulated
+  private BatchEvaluator evaluator;
+  private int[] inputColumns;
+  private int[] outputColumns;
+  private long[][] batchInputs;
+  private long[][] batchOutputs;
+  private final TestException[] batchResults = new TestException[BatchEvaluator.BATCH_SIZE];
   private Model model;
   private boolean canceled = false;
   private boolean paused = false;
@@ -43,24 +56,29 @@ public class TestThread extends UniquelyNamedThread implements CircuitListener {
     this.project = model.getProject();
     this.circuit = model.getCircuit();
     this.vector = model.getVector();
+    this.state = null;
 
     matchPins();
+    createEvaluator();
 
     model.getCircuit().addCircuitListener(this);
   }
 
   // used only for automated testing via command line arguments
-  private TestThread(Project proj, Circuit circuit, TestVector vec) throws TestException {
+  private TestThread(Project proj, Circuit circuit, TestVector vec, CircuitState state)
+      throws TestException {
     super("TestThread-Project");
     this.project = proj;
     this.circuit = circuit;
     this.vector = vec;
+    this.state = state;
 
     matchPins();
+    createEvaluator();
   }
 
   // used only for automated testing via command line arguments
-  public static int doTestVector(Project proj, Circuit circuit, String vectorname) {
+  public static int doTestVector(Project proj, Circuit circuit, String vectorname, int threads) {
     System.out.println(S.get("testLoadingVector", vectorname));
     TestVector vec;
     try {
@@ -70,31 +88,79 @@ public class TestThread extends UniquelyNamedThread implements CircuitListener {
       return -1;
     }
 
-    TestThread tester;
+    // Each vector is tested from a reset state, so they do not depend on each other. With more
+    // than one thread, each thread tests a run of whole batches in a copy of the circuit state;
+    // the copies share what they have not changed, so none may run on the project's state itself.
+    final var n = vec.data.size();
+    final var batches = (n + BatchEvaluator.BATCH_SIZE - 1) / BatchEvaluator.BATCH_SIZE;
+    final var testers = new TestThread[Math.max(1, Math.min(threads, batches))];
     try {
-      tester = new TestThread(proj, circuit, vec);
+      if (testers.length == 1) {
+        testers[0] = new TestThread(proj, circuit, vec, proj.getCircuitState());
+      } else {
+        final var state = proj.getCircuitState();
+        for (int t = 0; t < testers.length; t++) {
+          testers[t] = new TestThread(proj, circuit, vec, state.cloneState());
+        }
+      }
     } catch (TestException e) {
       System.err.println(S.get("testSetupFailed", e.getMessage()));
       return -1;
     }
 
-    System.out.println(S.get("testRunning", Integer.toString(vec.data.size())));
+    System.out.println(S.get("testRunning", Integer.toString(n)));
+
+    final var results = new TestException[n];
+    if (testers.length == 1) {
+      testers[0].testRange(0, n, results, true);
+    } else {
+      final var workers = new Thread[testers.length];
+      final var errors = new Throwable[testers.length];
+      for (int t = 0; t < testers.length; t++) {
+        final var index = t;
+        final var first = (int) ((long) batches * t / testers.length) * BatchEvaluator.BATCH_SIZE;
+        final var end =
+            (int) Math.min(n, (long) batches * (t + 1) / testers.length * BatchEvaluator.BATCH_SIZE);
+        workers[t] =
+            new UniquelyNamedThread(
+                () -> {
+                  try {
+                    testers[index].testRange(first, end, results, false);
+                  } catch (Throwable e) {
+                    errors[index] = e;
+                  }
+                },
+                "TestThread-Worker");
+        workers[t].start();
+      }
+      for (int t = 0; t < workers.length; t++) {
+        try {
+          workers[t].join();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          return -1;
+        }
+        if (errors[t] != null) {
+          System.err.println(S.get("testWorkerFailed", errors[t].toString()));
+          return -1;
+        }
+      }
+    }
 
     int numPass = 0;
     int numFail = 0;
-    for (int i = 0; i < vec.data.size(); i++) {
-      try {
-        System.out.print((i + 1) + " \r");
-        tester.test(i);
+    for (int i = 0; i < n; i++) {
+      final var result = results[i];
+      if (result == null) {
         numPass++;
-      } catch (FailException e) {
+      } else if (result instanceof FailException e) {
         System.out.println();
         System.err.println(S.get("testFailed", Integer.toString(i + 1)));
         for (FailException e1 : e.getAll()) System.out.println("  " + e1.getMessage());
         numFail++;
-      } catch (TestException e) {
+      } else {
         System.out.println();
-        System.err.println(S.get("testFailed", (i + 1) + " " + e.getMessage()));
+        System.err.println(S.get("testFailed", (i + 1) + " " + result.getMessage()));
         numFail++;
       }
     }
@@ -103,6 +169,16 @@ public class TestThread extends UniquelyNamedThread implements CircuitListener {
     return 0;
   }
 
+  /** Tests the vectors from first to end, leaving the outcome of each in results. */
+  private void testRange(int first, int end, TestException[] results, boolean progress) {
+    for (int i = first; i < end; i += BatchEvaluator.BATCH_SIZE) {
+      final var count = Math.min(BatchEvaluator.BATCH_SIZE, end - i);
+      if (progress) System.out.print(i + count + " \r");
+      testBatch(i, count);
+      System.arraycopy(batchResults, 0, results, i, count);
+    }
+  }
+
   public void cancel() {
     canceled = true;
   }
@@ -143,10 +219,41 @@ public class TestThread extends UniquelyNamedThread implements CircuitListener {
     }
   }
 
+  /**
+   * Sets up bit-sliced evaluation if the circuit allows it. Every input pin of the circuit must be
+   * part of the vector, since the evaluator does not know the values of the others.
+   */
+  private void createEvaluator() {
+    final var inputPins = new ArrayList<Instance>();
+    final var outputPins = new ArrayList<Instance>();
+    final var inputCols = new ArrayList<Integer>();
+    final var outputCols = new ArrayList<Integer>();
+    for (int i = 0; i < pin.length; i++) {
+      if (Pin.FACTORY.isInputPin(pin[i])) {
+        inputPins.add(pin[i]);
+        inputCols.add(i);
+      } else {
+        outputPins.add(pin[i]);
+        outputCols.add(i);
+      }
+    }
+    for (Component comp : circuit.getNonWires()) {
+      if (comp.getFactory() instanceof Pin
+          && Pin.FACTORY.isInputPin(Instance.getInstanceFor(comp))
+          && !inputPins.contains(Instance.getInstanceFor(comp))) return;
+    }
+    evaluator = BatchEvaluator.create(project, circuit, inputPins, outputPins);
+    if (evaluator == null) return;
+    inputColumns = inputCols.stream().mapToInt(Integer::intValue).toArray();
+    outputColumns = outputCols.stream().mapToInt(Integer::intValue).toArray();
+    batchInputs = evaluator.createInputs();
+    batchOutputs = evaluator.createOutputs();
+  }
+
   @Override
   public void run() {
     try {
-      for (int i = 0; i < vector.data.size() && !canceled; i++) {
+      for (int first = 0; first < vector.data.size() && !canceled; first += BatchEvaluator.BATCH_SIZE) {
         while (paused) {
           if (canceled) return;
           try {
@@ -154,11 +261,10 @@ public class TestThread extends UniquelyNamedThread implements CircuitListener {
           } catch (InterruptedException ignored) {
           }
         }
-        try {
-          test(i);
-          canceled = canceled || !model.setResult(vector, i, null);
-        } catch (TestException e) {
-          canceled = canceled || !model.setResult(vector, i, e);
+        final var count = Math.min(BatchEvaluator.BATCH_SIZE, vector.data.size() - first);
+        testBatch(first, count);
+        for (int j = 0; j < count && !canceled; j++) {
+          canceled = !model.setResult(vector, first + j, batchResults[j]);
         }
         Thread.yield();
       }
@@ -172,6 +278,73 @@ public class TestThread extends UniquelyNamedThread implements CircuitListener {
   }
 
   private void test(int idx) throws TestException {
-    circuit.doTestVector(project, pin, vector.data.get(idx));
+    if (state == null) circuit.doTestVector(project, pin, vector.data.get(idx));
+    else circuit.doTestVector(state, pin, vector.data.get(idx));
+  }
+
+  /**
+   * Tests the given range of at most {@link BatchEvaluator#BATCH_SIZE} vectors and leaves the
+   * outcome of each in batchResults, null meaning that the vector passed. Vectors with undefined
+   * input values cannot be evaluated bit-sliced and are simulated one by one.
+   */
+  private void testBatch(int first, int count) {
+    var simulate = evaluator == null ? -1L : 0L;
+    if (evaluator != null) {
+      for (final var plane : batchInputs) Arrays.fill(plane, 0L);
+      for (int j = 0; j < count; j++) {
+        final var vals = vector.data.get(first + j);
+        for (int k = 0; k < inputColumns.length; k++) {
+          final var val = vals[inputColumns[k]];
+          if (!val.isFullyDefined()) {
+            simulate |= 1L << j;
+            continue;
+          }
+          final var bits = val.toLongValue();
+          final var planes = batchInputs[k];
+          for (int b = 0; b < planes.length; b++) {
+            if (((bits >>> b) & 1) != 0) planes[b] |= 1L << j;
+          }
+        }
+      }
+      evaluator.evaluate(batchInputs, batchOutputs);
+    }
+
+    for (int j = 0; j < count; j++) {
+      batchResults[j] = null;
+      if (((simulate >>> j) & 1) != 0) {
+        try {
+          test(first + j);
+        } catch (TestException e) {
+          batchResults[j] = e;
+        }
+        continue;
+      }
+      final var vals = vector.data.get(first + j);
+      FailException err = null;
+      for (int k = 0; k < outputColumns.length; k++) {
+        final var col = outputColumns[k];
+        final var actual = batchValue(k, j);
+        if (!vals[col].compatible(actual)) {
+          final var fail = new FailException(col, pin[col].getAttributeValue(StdAttr.LABEL), vals[col], actual);
+          if (err == null) err = fail;
+          else err.add(fail);
+        }
+      }
+      batchResults[j] = err;
+    }
+  }
+
+  /** Assembles the value of an output pin for one vector of the last evaluated batch. */
+  private Value batchValue(int output, int idx) {
+    final var planes = batchOutputs[output];
+    var bits = 0L;
+    for (int b = 0; b < planes.length; b++) {
+      if (((planes[b] >>> idx) & 1) != 0) bits |= 1L << b;
+    }
+    var ret = Value.createKnown(planes.length, bits);
+    for (int b = 0; b < planes.length; b++) {
+      if (!evaluator.isDefined(output, b)) ret = ret.set(b, Value.UNKNOWN);
+    }
+    return ret;
   }
 }
@@ -629,6 +629,16 @@ public class AppPreferences {
   public static final PrefMonitor<Boolean> Memory_Startup_Unknown =
       create(new PrefMonitorBoolean("MemStartUnknown", false));
 
+  // Event scheduler used by the propagator; the heap is the original implementation
+  public static final String SIM_QUEUE_WHEEL = "wheel";
+  public static final String SIM_QUEUE_HEAP = "heap";
+  public static final PrefMonitor<String> SIM_EVENT_QUEUE =
+      create(
+          new PrefMonitorStringOpts(
+              "simEventQueue", new String[] {SIM_QUEUE_WHEEL, SIM_QUEUE_HEAP}, SIM_QUEUE_WHEEL));
+  public static final PrefMonitor<Boolean> SIM_COMPILED_NETLIST =
+      create(new PrefMonitorBoolean("simCompiledNetlist", false));
+
   // Simulation preferences
   public static final PrefMonitor<Integer> TRUE_COLOR =
       create(new PrefMonitorInt("SimTrueColor", 0x0000D200));
@@ -212,13 +212,17 @@ public class Project {
   }
 
   public int doTestVector(String vectorname, String name) {
+    return doTestVector(vectorname, name, 1);
+  }
+
+  public int doTestVector(String vectorname, String name, int threads) {
     final var circuit = (name == null ? file.getMainCircuit() : file.getCircuit(name));
     if (circuit == null) {
       System.err.println("Circuit '" + name + "' not found.");
       return -1;
     }
     setCurrentCircuit(circuit);
-    return TestThread.doTestVector(this, circuit, vectorname);
+    return TestThread.doTestVector(this, circuit, vectorname, threads);
   }
 
   private void fireEvent(int action, Object data) {
@@ -0,0 +1,67 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.soc.data;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * The slaves of a bus by address. The address space is cut into intervals at every start and end
+ * of a slave, and each interval knows the slaves that cover it, so that the slaves that may answer
+ * a transaction are found by a binary search instead of asking every slave. The index is immutable
+ * and has to be built anew when the memory map changes.
+ */
+final class SocBusSlaveIndex {
+  private static final SocBusSlaveInterface[] NONE = new SocBusSlaveInterface[0];
+
+  // starts of the intervals, as unsigned addresses in ascending order
+  private final long[] starts;
+  private final SocBusSlaveInterface[][] slaves;
+  // most transactions fall in the same interval as the one before
+  private volatile int last = 0;
+
+  SocBusSlaveIndex(List<SocBusSlaveInterface> list) {
+    final var bounds = new TreeSet<Long>();
+    bounds.add(0L);
+    for (final var slave : list) {
+      final var start = SocSupport.convUnsignedInt(slave.getStartAddress());
+      bounds.add(start);
+      bounds.add(start + SocSupport.convUnsignedInt(slave.getMemorySize()));
+    }
+    starts = new long[bounds.size()];
+    slaves = new SocBusSlaveInterface[bounds.size()][];
+    var i = 0;
+    for (final var start : bounds) starts[i++] = start;
+    final var covering = new ArrayList<SocBusSlaveInterface>();
+    for (i = 0; i < starts.length; i++) {
+      covering.clear();
+      for (final var slave : list) {
+        final var start = SocSupport.convUnsignedInt(slave.getStartAddress());
+        final var end = start + SocSupport.convUnsignedInt(slave.getMemorySize());
+        if (starts[i] >= start && starts[i] < end) covering.add(slave);
+      }
+      slaves[i] = covering.isEmpty() ? NONE : covering.toArray(NONE);
+    }
+  }
+
+  /** Returns the slaves whose address range contains the given address. */
+  SocBusSlaveInterface[] getSlaves(int address) {
+    final var addr = SocSupport.convUnsignedInt(address);
+    var index = last;
+    if (addr < starts[index] || (index + 1 < starts.length && addr >= starts[index + 1])) {
+      index = Arrays.binarySearch(starts, addr);
+      if (index < 0) index = -index - 2;
+      last = index;
+    }
+    return slaves[index];
+  }
+}
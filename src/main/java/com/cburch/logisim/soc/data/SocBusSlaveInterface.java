@@ -23,4 +23,12 @@ public interface SocBusSlaveInterface {
   void registerListener(SocBusSlaveListener l);
   void removeListener(SocBusSlaveListener l);
   InstanceComponent getComponent();
+
+  /**
+   * Returns whether the circuit can see the effect of a transaction handled by this slave, so that
+   * a processor running ahead of the clock has to wait for the circuit to catch up after it.
+   */
+  default boolean affectsCircuit() {
+    return true;
+  }
 }
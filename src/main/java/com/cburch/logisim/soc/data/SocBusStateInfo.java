@@ -36,7 +36,7 @@ import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.awt.event.WindowEvent;
 import java.util.ArrayList;
-import java.util.LinkedList;
+import java.util.Arrays;
 import java.util.List;
 import javax.swing.JButton;
 import javax.swing.JDialog;
@@ -95,14 +95,17 @@ public class SocBusStateInfo extends JDialog
     }
 
     private static final int NR_OF_TRACES_TO_KEEP = 10000;
-    private final LinkedList<SocBusTransaction> trace;
+    // ring of the last transactions, allocated once the first one is traced
+    private SocBusTransaction[] trace;
+    private int first; // index of the oldest transaction in the ring
+    private int count;
     private long startTraceIndex;
     private final SocBusStateInfo parent;
     private final Instance instance;
     private final ArrayList<SocBusStateListener> listeners;
 
     public SocBusState(SocBusStateInfo parent, Instance instance) {
-      trace = new LinkedList<>();
+      trace = null;
       startTraceIndex = 0;
       this.parent = parent;
       this.instance = instance;
@@ -113,46 +116,63 @@ public class SocBusStateInfo extends JDialog
     @Override
     public SocBusState clone() {
       try {
-        return (SocBusState) super.clone();
+        final var ret = (SocBusState) super.clone();
+        if (trace != null) ret.trace = trace.clone();
+        return ret;
       } catch (CloneNotSupportedException e) {
         return null;
       }
     }
 
+    /** Returns whether the trace is looked at in a trace window. */
+    public boolean isWatched() {
+      return !listeners.isEmpty();
+    }
+
     public void addTransaction(SocBusTransaction t) {
-      while (trace.size() >= NR_OF_TRACES_TO_KEEP) {
+      if (trace == null) trace = new SocBusTransaction[NR_OF_TRACES_TO_KEEP];
+      if (count == NR_OF_TRACES_TO_KEEP) {
+        trace[first] = t;
+        first = (first + 1) % NR_OF_TRACES_TO_KEEP;
         startTraceIndex++;
-        trace.removeFirst();
+      } else {
+        trace[(first + count) % NR_OF_TRACES_TO_KEEP] = t;
+        count++;
       }
-      trace.addLast(t);
       for (SocBusStateListener l : listeners) l.fireCanged(this);
     }
 
     public void clear() {
-      if (trace.size() == 0)
+      if (count == 0)
         return;
-      trace.clear();
+      trace = null;
+      first = 0;
+      count = 0;
       startTraceIndex = 0;
       for (SocBusStateListener l : listeners) l.fireCanged(this);
     }
 
+    private SocBusTransaction getTrace(int index) {
+      return trace[(first + index) % NR_OF_TRACES_TO_KEEP];
+    }
+
     public void paint(Graphics2D g, Bounds b) {
-      if (trace.isEmpty()) {
+      if (count == 0) {
         GraphicsUtil.drawCenteredText(g, S.get("SocBusNoTrace"), b.getCenterX(), b.getCenterY());
         return;
       }
       long nrOfTraces = b.getHeight() / TRACE_HEIGHT;
-      if (nrOfTraces > trace.size())
-        nrOfTraces = trace.size();
-      int startIndex = trace.size() - 1;
+      if (nrOfTraces > count)
+        nrOfTraces = count;
+      int startIndex = count - 1;
       for (int i = 0; i < nrOfTraces; i++) {
-        SocBusTransaction t = trace.get(startIndex - i);
+        SocBusTransaction t = getTrace(startIndex - i);
         t.paint(b.getX() + 1, b.getY() + 1 + i * TRACE_HEIGHT, g, startTraceIndex + startIndex - i);
       }
     }
 
     public int getNrOfEntires() {
-      return trace.size();
+      return count;
     }
 
     public void registerListener(SocBusStateListener l) {
@@ -164,13 +184,13 @@ public class SocBusStateInfo extends JDialog
     }
 
     public SocBusStateTrace getEntry(int index, TraceWindowTableModel model) {
-      if (index < 0 || index >= trace.size()) {
+      if (index < 0 || index >= count) {
         if (index == 0)
           return new SocBusStateTrace(null, 0, model);
         return null;
       }
-      long indx = startTraceIndex + trace.size() - index - 1;
-      return new SocBusStateTrace(trace.get(trace.size() - index - 1), indx, model);
+      long indx = startTraceIndex + count - index - 1;
+      return new SocBusStateTrace(getTrace(count - index - 1), indx, model);
     }
 
     @Override
@@ -184,6 +204,8 @@ public class SocBusStateInfo extends JDialog
   private final SocSimulationManager socManager;
   private Component myComp;
   private final ArrayList<SocBusSnifferInterface> sniffers;
+  // see every write, hidden ones included; copied on change as writes are far more frequent
+  private volatile SocBusWriteWatcher[] writeWatchers = new SocBusWriteWatcher[0];
   private final JButton okButton;
   private final JLabel title;
   private final JScrollPane scroll;
@@ -195,7 +217,7 @@ public class SocBusStateInfo extends JDialog
     socManager = man;
     myComp = comp;
     sniffers = new ArrayList<>();
-    memMap = new SocMemMapModel();
+    memMap = new SocMemMapModel(this::contentsReplaced);
     setTitle(S.get("SocMemMapWindowTitle") + getName());
     setLayout(new BorderLayout());
     title = new JLabel(S.get("SocMemoryMapTitle"), JLabel.CENTER);
@@ -240,6 +262,32 @@ public class SocBusStateInfo extends JDialog
     sniffers.remove(sniffer);
   }
 
+  /**
+   * Registers a watcher that is told of every successful write on this bus, including the hidden
+   * ones, for instance to keep decoded instructions up to date.
+   */
+  public synchronized void registerWriteWatcher(SocBusWriteWatcher watcher) {
+    final var old = writeWatchers;
+    for (final var w : old) if (w == watcher) return;
+    final var watchers = Arrays.copyOf(old, old.length + 1);
+    watchers[old.length] = watcher;
+    writeWatchers = watchers;
+  }
+
+  public synchronized void removeWriteWatcher(SocBusWriteWatcher watcher) {
+    final var watchers = new ArrayList<>(Arrays.asList(writeWatchers));
+    if (watchers.remove(watcher)) writeWatchers = watchers.toArray(new SocBusWriteWatcher[0]);
+  }
+
+  /**
+   * Tells the write watchers that what the addresses hold changed without writes on this bus:
+   * the contents of a slave were replaced, such as when the simulation steps back or a checkpoint
+   * is restored, or slaves were added, removed or moved.
+   */
+  public void contentsReplaced() {
+    for (final var watcher : writeWatchers) watcher.contentsReplaced();
+  }
+
   public List<SocBusSlaveInterface> getSlaves() {
     return memMap.getSlaves();
   }
@@ -266,37 +314,52 @@ public class SocBusStateInfo extends JDialog
     myComp = comp;
   }
 
+  /** Returns whether the transactions on this bus are traced or seen by sniffers. */
+  public boolean isObserved() {
+    if (!sniffers.isEmpty()) return true;
+    if (myComp.getAttributeSet().getValue(SocBusAttributes.SOC_TRACE_VISIBLE)) return true;
+    final var data = getRegPropagateState();
+    return data != null && data.isWatched();
+  }
+
   public void initializeTransaction(SocBusTransaction trans, String busId) {
     int nrOfReponders = 0;
-    int reponder = -1;
-    final var slaves = memMap.getSlaves();
-    if (slaves.isEmpty()) trans.setError(SocBusTransaction.NO_SLAVES_ERROR);
+    SocBusSlaveInterface reponder = null;
+    if (memMap.getSlaves().isEmpty()) trans.setError(SocBusTransaction.NO_SLAVES_ERROR);
     else if (trans.isReadTransaction()
         && trans.isWriteTransaction()
         && !trans.isAtomicTransaction()) trans.setError(SocBusTransaction.NONE_ATOMIC_READ_WRITE_ERROR);
     else {
-      for (int i = 0; i < slaves.size(); i++) {
-        if (slaves.get(i).canHandleTransaction(trans)) {
+      /* only the slaves whose address range holds the address can respond */
+      for (final var slave : memMap.getSlaveIndex().getSlaves(trans.getAddress())) {
+        if (slave.canHandleTransaction(trans)) {
           nrOfReponders++;
-          reponder = i;
+          reponder = slave;
         }
       }
       if (nrOfReponders == 0)
         trans.setError(SocBusTransaction.NO_RESPONS_ERROR);
       else if (nrOfReponders != 1)
         trans.setError(SocBusTransaction.MULTIPLE_SLAVES_ERROR);
-      else
-        slaves.get(reponder).handleTransaction(trans);
+      else {
+        reponder.handleTransaction(trans);
+        if (reponder.affectsCircuit()) trans.setAffectsCircuit();
+      }
+    }
+    if (!trans.hasError() && trans.isWriteTransaction()) {
+      for (final var watcher : writeWatchers) watcher.sniffTransaction(trans);
     }
     if (!trans.hasError() && !trans.isHidden()) {
       for (SocBusSnifferInterface sniffer : sniffers)
         sniffer.sniffTransaction(trans);
     }
     if (!trans.isHidden()) {
+      /* transactions are only traced while the trace is shown on the bus or in a trace window */
+      final var visible = myComp.getAttributeSet().getValue(SocBusAttributes.SOC_TRACE_VISIBLE);
       final var data = getRegPropagateState();
-      if (data != null) {
+      if (data != null && (visible || data.isWatched())) {
         data.addTransaction(trans);
-        if (myComp.getAttributeSet().getValue(SocBusAttributes.SOC_TRACE_VISIBLE))
+        if (visible)
           ((InstanceComponent) myComp).getInstance().fireInvalidated();
       }
     }
@@ -55,6 +55,7 @@ public class SocBusTransaction {
   private Component slave;
   private int error;
   private boolean hidden;
+  private boolean affectsCircuit;
 
   public SocBusTransaction(int type, int addr, int value, int access, Object master) {
     this.type = type;
@@ -66,6 +67,7 @@ public class SocBusTransaction {
     readData = 0;
     error = NO_ERROR;
     hidden = false;
+    affectsCircuit = false;
   }
 
   public void setAsHiddenTransaction() {
@@ -76,6 +78,14 @@ public class SocBusTransaction {
     return hidden;
   }
 
+  public void setAffectsCircuit() {
+    affectsCircuit = true;
+  }
+
+  public boolean affectsCircuit() {
+    return affectsCircuit;
+  }
+
   public int getAccessType() {
     return access;
   }
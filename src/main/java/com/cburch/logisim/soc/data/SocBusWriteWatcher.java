@@ -0,0 +1,16 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.soc.data;
+
+public interface SocBusWriteWatcher extends SocBusSnifferInterface {
+  /* what the addresses hold changed other than by writes on the bus: the contents of a slave
+   * were replaced, or the memory map changed */
+  void contentsReplaced();
+}
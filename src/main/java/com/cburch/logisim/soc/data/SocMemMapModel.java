@@ -202,9 +202,14 @@ public class SocMemMapModel extends AbstractTableModel
   private final SlaveInfoRenderer slaveRenderer;
   private final MemoryMapHeaderRenderer headRenderer;
   private InstanceComponent marked;
+  // built again on the first transaction after the memory map changed
+  private volatile SocBusSlaveIndex slaveIndex;
+  // told when slaves are added, removed or moved
+  private final Runnable mapChanged;
 
-  public SocMemMapModel() {
+  public SocMemMapModel(Runnable mapChanged) {
     super();
+    this.mapChanged = mapChanged;
     LocaleManager.addLocaleListener(this);
     slaveMap = new SlaveMap();
     slaves = new ArrayList<>();
@@ -219,6 +224,7 @@ public class SocMemMapModel extends AbstractTableModel
       slaves.add(slave);
       slave.registerListener(this);
       rebuild();
+      mapChanged.run();
     }
   }
 
@@ -227,6 +233,7 @@ public class SocMemMapModel extends AbstractTableModel
       slaves.remove(slave);
       slave.removeListener(this);
       rebuild();
+      mapChanged.run();
     }
   }
 
@@ -234,6 +241,15 @@ public class SocMemMapModel extends AbstractTableModel
     return slaves;
   }
 
+  SocBusSlaveIndex getSlaveIndex() {
+    var index = slaveIndex;
+    if (index == null) {
+      index = new SocBusSlaveIndex(slaves);
+      slaveIndex = index;
+    }
+    return index;
+  }
+
   public SlaveInfoRenderer getCellRender() {
     return slaveRenderer;
   }
@@ -281,9 +297,11 @@ public class SocMemMapModel extends AbstractTableModel
   @Override
   public void memoryMapChanged() {
     rebuild();
+    mapChanged.run();
   }
 
   private void rebuild() {
+    slaveIndex = null;
     slaveMap.clear();
     if (slaves.isEmpty())
       slaveMap.add(new SlaveInfo(0, -1));
@@ -227,6 +227,11 @@ public class SocSimulationManager implements SocBusMasterInterface {
     return state.getData(comp);
   }
 
+  /* records the data of a slave in the history of the simulation before a transaction changes it */
+  public void dataChanging(Component comp) {
+    if (state != null) state.dataChanging(comp);
+  }
+
   public InstanceState getState(Component comp) {
     if (state == null) return null;
     return state.getInstanceState(comp);
@@ -240,6 +245,12 @@ public class SocSimulationManager implements SocBusMasterInterface {
       trans.setError(SocBusTransaction.NO_SOC_BUS_CONNECTED_ERROR);
       return;
     }
+    // components are only found pending while a circuit is being built or loaded
+    if (!toBeChecked.isEmpty()) registerPendingComponents();
+    info.initializeTransaction(trans, busId);
+  }
+
+  private void registerPendingComponents() {
     final var iter = toBeChecked.iterator();
     while (iter.hasNext()) {
       final var comp = iter.next();
@@ -258,7 +269,6 @@ public class SocSimulationManager implements SocBusMasterInterface {
       }
       iter.remove();
     }
-    info.initializeTransaction(trans, busId);
   }
 
 }
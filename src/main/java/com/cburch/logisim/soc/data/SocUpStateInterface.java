@@ -11,7 +11,7 @@ package com.cburch.logisim.soc.data;
 
 import com.cburch.logisim.soc.util.AssemblerInterface;
 import java.awt.event.WindowListener;
-import java.util.LinkedList;
+import java.util.Deque;
 import javax.swing.JPanel;
 
 public interface SocUpStateInterface {
@@ -25,7 +25,7 @@ public interface SocUpStateInterface {
 
   int getProgramCounter();
 
-  LinkedList<TraceInfo> getTraces();
+  Deque<TraceInfo> getTraces();
 
   void simButtonPressed();
 
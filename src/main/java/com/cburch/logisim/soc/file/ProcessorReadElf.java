@@ -177,15 +177,20 @@ public class ProcessorReadElf {
         return false;
       }
       long startAddr = ElfHeader.getLongValue(h.getValue(ElfProgramHeader.P_PADDR));
-      for (int j = 0; j < memSize; j++) {
-        int data = (j < buffer.length) ? buffer[j] : 0;
+      for (int j = 0; j < memSize; ) {
+        /* aligned words are written whole, only the bytes around them one by one */
+        boolean whole = ((startAddr + j) & 3) == 0 && j + 4 <= memSize;
+        int data = 0;
+        for (int b = whole ? 3 : 0; b >= 0; b--) {
+          data = (data << 8) | ((j + b < buffer.length) ? buffer[j + b] & 0xFF : 0);
+        }
         int addr = ElfHeader.getIntValue(ElfHeader.returnCorrectValue(startAddr + (long) j, true));
         SocBusTransaction trans =
             new SocBusTransaction(
                 SocBusTransaction.WRITE_TRANSACTION,
                 addr,
                 data,
-                SocBusTransaction.BYTE_ACCESS,
+                whole ? SocBusTransaction.WORD_ACCESS : SocBusTransaction.BYTE_ACCESS,
                 "elf");
         cpu.insertTransaction(trans, true, cState);
         if (trans.hasError()) {
@@ -194,6 +199,7 @@ public class ProcessorReadElf {
           status = MEM_LOAD_ERROR;
           return false;
         }
+        j += whole ? 4 : 1;
       }
     }
     cpu.setEntryPointandReset(
@@ -19,7 +19,6 @@ import com.cburch.logisim.soc.data.SocBusSlaveInterface;
 import com.cburch.logisim.soc.data.SocBusSlaveListener;
 import com.cburch.logisim.soc.data.SocBusTransaction;
 import com.cburch.logisim.soc.data.SocSupport;
-import com.cburch.logisim.soc.pio.PioState.PioRegState;
 import com.cburch.logisim.util.StringUtil;
 import java.util.ArrayList;
 import java.util.LinkedList;
@@ -28,8 +27,8 @@ public class JtagUartState  implements SocBusSlaveInterface {
 
   public class JtagUartFifoState implements InstanceData, Cloneable {
 
-    private final LinkedList<Integer> WriteFifo = new LinkedList<>();
-    private final LinkedList<Integer> ReadFifo = new LinkedList<>();
+    private LinkedList<Integer> WriteFifo = new LinkedList<>();
+    private LinkedList<Integer> ReadFifo = new LinkedList<>();
     private boolean readIrqEnable = false;
     private boolean writeIrqEnable = false;
     private boolean acBit = false;
@@ -63,9 +62,13 @@ public class JtagUartState  implements SocBusSlaveInterface {
     }
 
     @Override
-    public PioRegState clone() {
+    @SuppressWarnings("unchecked")
+    public JtagUartFifoState clone() {
       try {
-        return (PioRegState) super.clone();
+        final var ret = (JtagUartFifoState) super.clone();
+        ret.WriteFifo = (LinkedList<Integer>) WriteFifo.clone();
+        ret.ReadFifo = (LinkedList<Integer>) ReadFifo.clone();
+        return ret;
       } catch (CloneNotSupportedException e) {
         return null;
       }
@@ -320,6 +323,9 @@ public class JtagUartState  implements SocBusSlaveInterface {
         (JtagUartFifoState)
             attachedBus.getSocSimulationManager().getdata(attachedBus.getComponent());
     long index = (addr - start);
+    /* reading the data register takes a character from the fifo */
+    if (trans.isWriteTransaction() || index == 0)
+      attachedBus.getSocSimulationManager().dataChanging(attachedBus.getComponent());
     if (index == 0) {
       if (trans.isReadTransaction()) {
         trans.setReadData(state.readDataRegister());
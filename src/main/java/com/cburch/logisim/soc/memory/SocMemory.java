@@ -78,6 +78,8 @@ public class SocMemory extends SocInstanceFactory {
     SocMemoryState.SocMemoryInfo data = (SocMemoryState.SocMemoryInfo) state.getData();
     if (data == null)
       state.setData(state.getAttributeValue(SocMemoryAttributes.SOCMEM_STATE).getNewState());
+    else
+      data.notifyIfReplaced();
   }
 
   @Override
@@ -9,6 +9,7 @@
 
 package com.cburch.logisim.soc.memory;
 
+import com.cburch.logisim.circuit.SimulationCheckpoint;
 import com.cburch.logisim.data.BitWidth;
 import com.cburch.logisim.instance.InstanceComponent;
 import com.cburch.logisim.instance.InstanceData;
@@ -18,135 +19,131 @@ import com.cburch.logisim.soc.data.SocBusSlaveListener;
 import com.cburch.logisim.soc.data.SocBusTransaction;
 import com.cburch.logisim.soc.data.SocSupport;
 import com.cburch.logisim.util.StringUtil;
+import java.io.IOException;
 import java.util.ArrayList;
-import java.util.LinkedList;
 import java.util.Random;
 
 public class SocMemoryState implements SocBusSlaveInterface {
 
-  public class SocMemoryInfo implements InstanceData, Cloneable {
-    private class SocMemoryInfoBlock {
-      private final LinkedList<Integer> contents = new LinkedList<>();
-      private int startAddress;
-      private final Random rand = new Random();
+  public class SocMemoryInfo implements InstanceData, Cloneable, SimulationCheckpoint.Data {
+    /* The words are kept in pages of 4 KiB, which are found through a table of tables indexed by
+     * the upper bits of the address. Only pages that were written to are allocated. */
+    private static final int PAGE_BITS = 10;
+    private static final int PAGE_SIZE = 1 << PAGE_BITS;
+    private static final int TABLE_BITS = 10;
+    private static final int TABLE_SIZE = 1 << TABLE_BITS;
+
+    private int[][][] table;
+    // pages shared with a clone, which are copied before they are written
+    private boolean[][] shared;
+    /* set when this data replaces other contents without writes on the bus: a clone is only put
+     * in place of the data when the simulation steps back */
+    private boolean replaced;
+    // bytes copied so far because they were shared with a clone
+    private long copiedBytes;
 
-      public SocMemoryInfoBlock(int address, int data) {
-        startAddress = (address >> 2) << 2;
-        contents.add(data);
-      }
-
-      public boolean canAddBefore(int address) {
-        final var previousAddress = getStartAddress() - 4;
-        return (address >= previousAddress) && (address < getStartAddress());
-      }
-
-      public boolean canAddAfter(int address) {
-        return (address >= getEndAddress()) && (address < getEndAddress() + 4);
-      }
-
-      public boolean contains(int address) {
-        return (address >= getStartAddress()) && (address < getEndAddress());
-      }
-
-      public boolean canAdd(int address) {
-        return canAddBefore(address) || canAddAfter(address);
-      }
+    public SocMemoryInfo() {
+      table = new int[TABLE_SIZE][][];
+      shared = new boolean[TABLE_SIZE][];
+    }
 
-      public boolean addInfo(int address, int data) {
-        if (canAddBefore(address)) {
-          contents.addFirst(data);
-          startAddress -= 4;
-          return true;
-        }
-        if (canAddAfter(address)) {
-          contents.add(data);
-          return true;
-        }
-        if (contains(address)) {
-          final var index = (address - startAddress) >> 2;
-          contents.set(index, data);
-          return true;
+    @Override
+    public SocMemoryInfo clone() {
+      try {
+        final var ret = (SocMemoryInfo) super.clone();
+        ret.table = table.clone();
+        ret.shared = shared.clone();
+        ret.replaced = true;
+        for (var i = 0; i < TABLE_SIZE; i++) {
+          if (table[i] == null) continue;
+          for (var j = 0; j < TABLE_SIZE; j++) shared[i][j] = table[i][j] != null;
+          ret.table[i] = table[i].clone();
+          ret.shared[i] = shared[i].clone();
+          copiedBytes += 9L * TABLE_SIZE;
         }
-        return false;
+        return ret;
+      } catch (CloneNotSupportedException e) {
+        return null;
       }
+    }
 
-      public int getValue(int address) {
-        final var index = (address - startAddress) >> 2;
-        if (index >= contents.size()) {
-          return rand.nextInt();
-        }
-        return contents.get(index);
-      }
+    @Override
+    public String getCheckpointFormat() {
+      return "socmemory";
+    }
 
-      public int getStartAddress() {
-        return startAddress;
+    /* Only the pages allocated are written, each with its index in the tables. */
+    @Override
+    public void writeCheckpoint(SimulationCheckpoint out) throws IOException {
+      for (var i = 0; i < TABLE_SIZE; i++) {
+        if (table[i] == null) continue;
+        for (var j = 0; j < TABLE_SIZE; j++) {
+          final var page = table[i][j];
+          if (page == null) continue;
+          out.putInt((i << TABLE_BITS) | j);
+          for (final var word : page) out.putInt(word);
+        }
       }
+      out.putInt(-1);
+    }
 
-      public int getEndAddress() {
-        return startAddress + contents.size() * 4;
+    @Override
+    public void readCheckpoint(SimulationCheckpoint in) throws IOException {
+      table = new int[TABLE_SIZE][][];
+      shared = new boolean[TABLE_SIZE][];
+      for (var index = in.getInt(); index >= 0; index = in.getInt()) {
+        final var page = getWritablePage(index << (2 + PAGE_BITS));
+        for (var i = 0; i < PAGE_SIZE; i++) page[i] = in.getInt();
       }
+      replaced = true;
     }
 
-    private final ArrayList<SocMemoryInfoBlock> memInfo;
-
-    public SocMemoryInfo() {
-      memInfo = new ArrayList<>();
+    /* The processors on the bus forget what they decoded from the old contents. The memory
+     * propagates after both stepping back and restoring a checkpoint, which calls this. */
+    public void notifyIfReplaced() {
+      if (!replaced) return;
+      replaced = false;
+      final var manager = attachedBus.getSocSimulationManager();
+      final var bus = manager == null ? null : manager.getSocBusState(attachedBus.getBusId());
+      if (bus != null) bus.contentsReplaced();
     }
 
     @Override
-    public SocMemoryInfo clone() {
-      try {
-        return (SocMemoryInfo) super.clone();
-      } catch (CloneNotSupportedException e) {
-        return null;
-      }
+    public long getCopiedBytes() {
+      return copiedBytes;
     }
 
     public int getWord(int address) {
-      for (final var info : memInfo)
-        if (info.contains(address)) return info.getValue(address);
-      return rand.nextInt();
+      final var pages = table[address >>> (2 + PAGE_BITS + TABLE_BITS)];
+      final var page =
+          pages == null ? null : pages[(address >>> (2 + PAGE_BITS)) & (TABLE_SIZE - 1)];
+      return page == null ? rand.nextInt() : page[(address >>> 2) & (PAGE_SIZE - 1)];
     }
 
     public void writeWord(int address, int wdata) {
-      final var adders = new ArrayList<SocMemoryInfoBlock>();
-      for (final var info : memInfo) {
-        if (info.contains(address)) {
-          info.addInfo(address, wdata);
-          return;
-        }
-        if (info.canAdd(address)) adders.add(info);
-      }
-      if (adders.isEmpty()) {
-        /* we have to create a new set */
-        memInfo.add(new SocMemoryInfoBlock(address, wdata));
-        return;
-      }
-      if (adders.size() == 1) {
-        /* easy case we can add in front or at the end of an existing one */
-        adders.get(0).addInfo(address, wdata);
-        return;
-      }
-      if (adders.size() > 2) {
-        // FIXME: hardcoded string
-        System.out.println("BUG! Memory management does not function corectly for the SocMemory component!");
-        return;
-      }
-      final var addBefore = adders.get(0).canAddBefore(address)
-                            ? adders.get(0)
-                            : adders.get(1).canAddBefore(address) ? adders.get(1) : null;
-      final var addAfter = adders.get(0).canAddAfter(address)
-                           ? adders.get(0)
-                           : adders.get(1).canAddAfter(address) ? adders.get(1) : null;
-      if (addBefore == null || addAfter == null) {
-        System.out.println("BUG! Memory management does not function corectly for the SocMemory component!");
-        return;
+      getWritablePage(address)[(address >>> 2) & (PAGE_SIZE - 1)] = wdata;
+    }
+
+    private int[] getWritablePage(int address) {
+      final var top = address >>> (2 + PAGE_BITS + TABLE_BITS);
+      final var index = (address >>> (2 + PAGE_BITS)) & (TABLE_SIZE - 1);
+      if (table[top] == null) {
+        table[top] = new int[TABLE_SIZE][];
+        shared[top] = new boolean[TABLE_SIZE];
       }
-      addAfter.addInfo(address, wdata);
-      for (var i = addBefore.getStartAddress(); i < addBefore.getEndAddress(); i += 4) {
-        addAfter.addInfo(i, addBefore.getValue(i));
+      var page = table[top][index];
+      if (page == null) {
+        /* words that were never written read as random values, like uninitialized memory */
+        page = new int[PAGE_SIZE];
+        for (var i = 0; i < PAGE_SIZE; i++) page[i] = rand.nextInt();
+        table[top][index] = page;
+      } else if (shared[top][index]) {
+        page = page.clone();
+        copiedBytes += 4L * PAGE_SIZE;
+        table[top][index] = page;
+        shared[top][index] = false;
       }
-      memInfo.remove(addBefore);
+      return page;
     }
   }
 
@@ -229,6 +226,11 @@ public class SocMemoryState implements SocBusSlaveInterface {
     return (InstanceComponent) attachedBus.getComponent();
   }
 
+  @Override
+  public boolean affectsCircuit() {
+    return false;
+  }
+
   @Override
   public void registerListener(SocBusSlaveListener l) {
     if (!listeners.contains(l)) listeners.add(l);
@@ -293,6 +295,7 @@ public class SocMemoryState implements SocBusSlaveInterface {
   }
 
   private void performWriteAction(int address, int data, int type) {
+    attachedBus.getSocSimulationManager().dataChanging(attachedBus.getComponent());
     int wData = data;
     if (type != SocBusTransaction.WORD_ACCESS) {
       var oldData = performReadAction(address, SocBusTransaction.WORD_ACCESS);
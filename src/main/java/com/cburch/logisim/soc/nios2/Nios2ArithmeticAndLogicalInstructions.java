@@ -18,7 +18,8 @@ import com.cburch.logisim.soc.util.AssemblerExecutionInterface;
 import com.cburch.logisim.soc.util.AssemblerToken;
 import java.util.ArrayList;
 
-public class Nios2ArithmeticAndLogicalInstructions implements AssemblerExecutionInterface {
+public class Nios2ArithmeticAndLogicalInstructions
+    implements AssemblerExecutionInterface, Cloneable {
 
   private static final int INSTR_AND = 0;
   private static final int INSTR_OR = 1;
@@ -458,4 +459,12 @@ public class Nios2ArithmeticAndLogicalInstructions implements AssemblerExecution
     return -1;
   }
 
+  @Override
+  public AssemblerExecutionInterface copyDecoded() {
+    try {
+      return (AssemblerExecutionInterface) clone();
+    } catch (CloneNotSupportedException e) {
+      return null;
+    }
+  }
 }
@@ -48,6 +48,8 @@ public class Nios2Attributes extends AbstractAttributeSet {
       Attributes.forHexInteger("breakVector", S.getter("nios2BreakVector"));
   public static final Attribute<Boolean> NIOS_STATE_VISIBLE =
       Attributes.forBoolean("stateVisible", S.getter("rv32StateVisible"));
+  public static final Attribute<Integer> FAST_FORWARD =
+      Attributes.forIntegerRange("fastForward", S.getter("rv32FastForward"), 1, 1000000);
 
   private Font labelFont = StdAttr.DEFAULT_LABEL_FONT;
   private Boolean labelVisible = true;
@@ -61,6 +63,7 @@ public class Nios2Attributes extends AbstractAttributeSet {
             BREAK_VECTOR,
             NR_OF_IRQS,
             NIOS_STATE_VISIBLE,
+            FAST_FORWARD,
             StdAttr.LABEL,
             StdAttr.LABEL_FONT,
             StdAttr.LABEL_VISIBILITY,
@@ -89,6 +92,7 @@ public class Nios2Attributes extends AbstractAttributeSet {
     if (attr == EXCEPTION_VECTOR) return (V) upState.getExceptionVector();
     if (attr == BREAK_VECTOR) return (V) upState.getBreakVector();
     if (attr == NR_OF_IRQS) return (V) BitWidth.create(upState.getNrOfIrqs());
+    if (attr == FAST_FORWARD) return (V) upState.getFastForward();
     if (attr == StdAttr.LABEL) return (V) upState.getLabel();
     if (attr == StdAttr.LABEL_FONT) return (V) labelFont;
     if (attr == StdAttr.LABEL_VISIBILITY) return (V) labelVisible;
@@ -131,6 +135,11 @@ public class Nios2Attributes extends AbstractAttributeSet {
         fireAttributeValueChanged(attr, value, oldValue);
       return;
     }
+    if (attr == FAST_FORWARD) {
+      if (upState.setFastForward((int) value))
+        fireAttributeValueChanged(attr, value, oldValue);
+      return;
+    }
     if (attr == SocSimulationManager.SOC_BUS_SELECT) {
       if (upState.setAttachedBus((SocBusInfo) value))
         fireAttributeValueChanged(attr, value, oldValue);
@@ -18,7 +18,7 @@ import com.cburch.logisim.soc.util.AssemblerExecutionInterface;
 import com.cburch.logisim.soc.util.AssemblerToken;
 import java.util.ArrayList;
 
-public class Nios2ComparisonInstructions implements AssemblerExecutionInterface {
+public class Nios2ComparisonInstructions implements AssemblerExecutionInterface, Cloneable {
 
   private static final int INSTR_CMPEQ = 0;
   private static final int INSTR_CMPNE = 1;
@@ -315,4 +315,12 @@ public class Nios2ComparisonInstructions implements AssemblerExecutionInterface
     return -1;
   }
 
+  @Override
+  public AssemblerExecutionInterface copyDecoded() {
+    try {
+      return (AssemblerExecutionInterface) clone();
+    } catch (CloneNotSupportedException e) {
+      return null;
+    }
+  }
 }
@@ -21,7 +21,7 @@ import com.cburch.logisim.soc.util.AssemblerExecutionInterface;
 import com.cburch.logisim.soc.util.AssemblerToken;
 import java.util.ArrayList;
 
-public class Nios2CustomInstructions implements AssemblerExecutionInterface {
+public class Nios2CustomInstructions implements AssemblerExecutionInterface, Cloneable {
 
   private static final int CUSTOM = 0x32;
 
@@ -213,4 +213,12 @@ public class Nios2CustomInstructions implements AssemblerExecutionInterface {
     return -1;
   }
 
+  @Override
+  public AssemblerExecutionInterface copyDecoded() {
+    try {
+      return (AssemblerExecutionInterface) clone();
+    } catch (CloneNotSupportedException e) {
+      return null;
+    }
+  }
 }
@@ -19,7 +19,7 @@ import com.cburch.logisim.soc.util.AssemblerExecutionInterface;
 import com.cburch.logisim.soc.util.AssemblerToken;
 import java.util.ArrayList;
 
-public class Nios2DataTransferInstructions implements AssemblerExecutionInterface {
+public class Nios2DataTransferInstructions implements AssemblerExecutionInterface, Cloneable {
 
   private static final int INSTR_LDW = 0;
   private static final int INSTR_LDH = 1;
@@ -273,4 +273,12 @@ public class Nios2DataTransferInstructions implements AssemblerExecutionInterfac
     return -1;
   }
 
+  @Override
+  public AssemblerExecutionInterface copyDecoded() {
+    try {
+      return (AssemblerExecutionInterface) clone();
+    } catch (CloneNotSupportedException e) {
+      return null;
+    }
+  }
 }
@@ -18,7 +18,7 @@ import com.cburch.logisim.soc.util.AssemblerExecutionInterface;
 import com.cburch.logisim.soc.util.AssemblerToken;
 import java.util.ArrayList;
 
-public class Nios2OtherControlInstructions implements AssemblerExecutionInterface {
+public class Nios2OtherControlInstructions implements AssemblerExecutionInterface, Cloneable {
 
   private static final int INSTR_TRAP = 0;
   private static final int INSTR_ERET = 1;
@@ -392,4 +392,13 @@ public class Nios2OtherControlInstructions implements AssemblerExecutionInterfac
     if (Opcodes.contains(instruction.toLowerCase())) return 4;
     return -1;
   }
+
+  @Override
+  public AssemblerExecutionInterface copyDecoded() {
+    try {
+      return (AssemblerExecutionInterface) clone();
+    } catch (CloneNotSupportedException e) {
+      return null;
+    }
+  }
 }
@@ -15,10 +15,12 @@ import com.cburch.logisim.circuit.CircuitState;
 import com.cburch.logisim.soc.data.SocSupport;
 import com.cburch.logisim.soc.util.AbstractExecutionUnitWithLabelSupport;
 import com.cburch.logisim.soc.util.AssemblerAsmInstruction;
+import com.cburch.logisim.soc.util.AssemblerExecutionInterface;
 import com.cburch.logisim.soc.util.AssemblerToken;
 import java.util.ArrayList;
 
-public class Nios2ProgramControlInstructions implements AbstractExecutionUnitWithLabelSupport {
+public class Nios2ProgramControlInstructions
+    implements AbstractExecutionUnitWithLabelSupport, Cloneable {
 
   private static final int INSTR_CALLR = 0;
   private static final int INSTR_RET = 1;
@@ -459,4 +461,13 @@ public class Nios2ProgramControlInstructions implements AbstractExecutionUnitWit
     }
     return s.toString();
   }
+
+  @Override
+  public AssemblerExecutionInterface copyDecoded() {
+    try {
+      return (AssemblerExecutionInterface) clone();
+    } catch (CloneNotSupportedException e) {
+      return null;
+    }
+  }
 }
@@ -18,7 +18,7 @@ import com.cburch.logisim.soc.util.AssemblerExecutionInterface;
 import com.cburch.logisim.soc.util.AssemblerToken;
 import java.util.ArrayList;
 
-public class Nios2ShiftAndRotateInstructions implements AssemblerExecutionInterface {
+public class Nios2ShiftAndRotateInstructions implements AssemblerExecutionInterface, Cloneable {
 
   private static final int INSTR_ROL = 0;
   private static final int INSTR_ROR = 1;
@@ -201,4 +201,13 @@ public class Nios2ShiftAndRotateInstructions implements AssemblerExecutionInterf
     if (Opcodes.contains(instruction.toLowerCase())) return 4;
     return -1;
   }
+
+  @Override
+  public AssemblerExecutionInterface copyDecoded() {
+    try {
+      return (AssemblerExecutionInterface) clone();
+    } catch (CloneNotSupportedException e) {
+      return null;
+    }
+  }
 }
@@ -14,6 +14,7 @@ import static com.cburch.logisim.soc.Strings.S;
 import com.cburch.contracts.BaseWindowListenerContract;
 import com.cburch.logisim.circuit.CircuitState;
 import com.cburch.logisim.circuit.ComponentDataGuiProvider;
+import com.cburch.logisim.circuit.SimulationCheckpoint;
 import com.cburch.logisim.comp.Component;
 import com.cburch.logisim.data.BitWidth;
 import com.cburch.logisim.data.Value;
@@ -36,7 +37,9 @@ import com.cburch.logisim.soc.file.ElfProgramHeader;
 import com.cburch.logisim.soc.file.ElfSectionHeader;
 import com.cburch.logisim.soc.gui.BreakpointPanel;
 import com.cburch.logisim.soc.gui.CpuDrawSupport;
+import com.cburch.logisim.soc.util.AssemblerExecutionInterface;
 import com.cburch.logisim.soc.util.AssemblerInterface;
+import com.cburch.logisim.soc.util.InstructionCache;
 import com.cburch.logisim.util.GraphicsUtil;
 import com.cburch.logisim.util.StringUtil;
 import java.awt.Color;
@@ -44,7 +47,9 @@ import java.awt.Graphics;
 import java.awt.Graphics2D;
 import java.awt.event.WindowEvent;
 import java.awt.event.WindowListener;
-import java.util.LinkedList;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.Map;
 import javax.swing.JPanel;
 import org.fife.ui.rsyntaxtextarea.AbstractTokenMakerFactory;
@@ -52,12 +57,12 @@ import org.fife.ui.rsyntaxtextarea.TokenMakerFactory;
 
 public class Nios2State implements SocUpSimulationStateListener, SocProcessorInterface {
 
-  public class ProcessorState extends JPanel implements InstanceData, Cloneable, ComponentDataGuiProvider, BaseWindowListenerContract, SocUpStateInterface {
+  public class ProcessorState extends JPanel implements InstanceData, SimulationCheckpoint.Data, Cloneable, ComponentDataGuiProvider, BaseWindowListenerContract, SocUpStateInterface {
     private static final int STATUS_RSIE = 1 << 23;
     private static final int STATUS_PIE = 1;
     private static final long serialVersionUID = 1L;
-    private final int[] registers;
-    private final Boolean[] registers_valid;
+    private int[] registers;
+    private Boolean[] registers_valid;
     private int pc;
     private int status;
     private int estatus;
@@ -65,8 +70,11 @@ public class Nios2State implements SocUpSimulationStateListener, SocProcessorInt
     private int ienable;
     private int ipending;
     private int lastRegisterWritten = -1;
-    private final LinkedList<TraceInfo> instrTrace;
+    private ArrayDeque<TraceInfo> instrTrace;
+    private final InstructionCache instructionCache = new InstructionCache();
+    private AssemblerExecutionInterface lastExe; // for custom instructions waiting on done
     private Value lastClock;
+    private boolean mustSync; // the circuit has to catch up before the next instruction
     private final SocUpSimulationState simState;
     private final Instance myInstance;
     private boolean visible;
@@ -77,7 +85,7 @@ public class Nios2State implements SocUpSimulationStateListener, SocProcessorInt
     public ProcessorState(Instance inst) {
       registers = new int[32];
       registers_valid = new Boolean[32];
-      instrTrace = new LinkedList<>();
+      instrTrace = new ArrayDeque<>(CpuDrawSupport.NR_OF_TRACES);
       lastClock = Value.createUnknown(BitWidth.ONE);
       simState = new SocUpSimulationState();
       myInstance = inst;
@@ -122,6 +130,8 @@ public class Nios2State implements SocUpSimulationStateListener, SocProcessorInt
       ienable = 0;
       ipending = 0;
       instrTrace.clear();
+      instructionCache.clear();
+      lastExe = null;
       if (visible) repaint();
       simState.reset();
     }
@@ -202,7 +212,13 @@ public class Nios2State implements SocUpSimulationStateListener, SocProcessorInt
     }
 
     public void setClock(Value clock, CircuitState cState) {
-      if (lastClock == Value.FALSE && clock == Value.TRUE) execute(cState);
+      if (lastClock == Value.FALSE && clock == Value.TRUE) {
+        /* in fast forward we run ahead until the circuit has to see what the program did */
+        mustSync = false;
+        execute(cState);
+        for (var i = 1; i < fastForward && !mustSync && simState.canExecute(); i++)
+          execute(cState);
+      }
       lastClock = clock;
     }
 
@@ -288,9 +304,11 @@ public class Nios2State implements SocUpSimulationStateListener, SocProcessorInt
       /* check the simulation state */
       if (!simState.canExecute()) return;
       /* here we handle the custom instructions */
-      if (ASSEMBLER.getExeUnit() != null && ASSEMBLER.getExeUnit() instanceof Nios2CustomInstructions) {
-        Nios2CustomInstructions cust = (Nios2CustomInstructions) ASSEMBLER.getExeUnit();
-        if (cust.isValid() && cust.waitingOnReady(this, cState)) return;
+      if (lastExe instanceof Nios2CustomInstructions cust) {
+        if (cust.isValid() && cust.waitingOnReady(this, cState)) {
+          mustSync = true;
+          return;
+        }
       }
       Map<Integer, Integer> breakPoints = bPanel.getBreakPoints();
       if (breakPoints.containsKey(pc)) {
@@ -313,27 +331,42 @@ public class Nios2State implements SocUpSimulationStateListener, SocProcessorInt
           repaint();
         }
       }
-      /* fetch an instruction */
-      SocBusTransaction trans =
-          new SocBusTransaction(SocBusTransaction.READ_TRANSACTION, pc, 0, SocBusTransaction.WORD_ACCESS, attachedBus.getComponent());
-      attachedBus
-          .getSocSimulationManager()
-          .initializeTransaction(trans, attachedBus.getBusId(), cState);
-      if (trans.hasError()) {
-        OptionPane.showMessageDialog(
-            null,
-            trans.getErrorMessage(),
-            SocSupport.getMasterName(cState, Nios2State.this.getName()) + S.get("RV32imFetchTransaction"),
-            OptionPane.ERROR_MESSAGE);
-        simState.errorInExecution();
-        return;
+      /* fetch and decode an instruction, unless it was decoded before; while the bus is traced
+       * or sniffed every instruction is fetched, so that the fetches show */
+      final var bus = attachedBus.getSocSimulationManager().getSocBusState(attachedBus.getBusId());
+      instructionCache.watch(bus);
+      var cached = bus == null || bus.isObserved() ? null : instructionCache.get(pc);
+      final int instruction;
+      if (cached != null) {
+        instruction = cached.getInstruction();
+      } else {
+        SocBusTransaction trans =
+            new SocBusTransaction(SocBusTransaction.READ_TRANSACTION, pc, 0, SocBusTransaction.WORD_ACCESS, attachedBus.getComponent());
+        attachedBus
+            .getSocSimulationManager()
+            .initializeTransaction(trans, attachedBus.getBusId(), cState);
+        if (trans.affectsCircuit()) mustSync = true;
+        if (trans.hasError()) {
+          OptionPane.showMessageDialog(
+              null,
+              trans.getErrorMessage(),
+              SocSupport.getMasterName(cState, Nios2State.this.getName()) + S.get("RV32imFetchTransaction"),
+              OptionPane.ERROR_MESSAGE);
+          simState.errorInExecution();
+          return;
+        }
+        instruction = trans.getReadData();
+        cached = instructionCache.put(pc, instruction, ASSEMBLER);
       }
-      /* decode instruction */
-      final var instruction = trans.getReadData();
-      ASSEMBLER.decode(instruction);
       /* execute instruction */
-      final var exe = ASSEMBLER.getExeUnit();
+      final var exe = cached != null ? cached.getExeUnit() : ASSEMBLER.getExeUnit();
+      lastExe = exe;
+      /* custom instructions are carried out by the circuit */
+      if (exe instanceof Nios2CustomInstructions) mustSync = true;
       lastRegisterWritten = -1;
+      // the trace is only kept while it can be seen
+      final var tracing = visible || myInstance.getAttributeValue(Nios2Attributes.NIOS_STATE_VISIBLE);
+      if (!tracing) instrTrace.clear();
       while (instrTrace.size() >= CpuDrawSupport.NR_OF_TRACES)
         instrTrace.removeLast();
       if (exe == null) {
@@ -348,7 +381,6 @@ public class Nios2State implements SocUpSimulationStateListener, SocProcessorInt
         if (visible) repaint();
         return;
       }
-      final var trace = new TraceInfo(pc, instruction, exe.getAsmInstruction(), false);
       if (!exe.execute(this, cState)) {
         final var s = new StringBuilder();
         s.append(S.get("RV32imFetchExecutionError"));
@@ -360,12 +392,17 @@ public class Nios2State implements SocUpSimulationStateListener, SocProcessorInt
             SocSupport.getMasterName(cState, Nios2State.this.getName()) + S.get("RV32imFetchTransaction"),
             OptionPane.ERROR_MESSAGE);
         simState.errorInExecution();
-        trace.setError();
-        instrTrace.addFirst(trace);
+        instrTrace.addFirst(new TraceInfo(pc, instruction, exe.getAsmInstruction(), true));
         if (visible) repaint();
         return;
       }
-      instrTrace.addFirst(trace);
+      if (tracing) {
+        // the trace of a cached instruction is shared, so that executing it allocates nothing
+        instrTrace.addFirst(
+            cached != null
+                ? cached.getTrace()
+                : new TraceInfo(pc, instruction, exe.getAsmInstruction(), false));
+      }
       /* all done increment pc */
       if (!exe.performedJump()) pc = pc + 4;
       if (visible) repaint();
@@ -374,17 +411,65 @@ public class Nios2State implements SocUpSimulationStateListener, SocProcessorInt
     @Override
     public ProcessorState clone() {
       try {
-        return (ProcessorState) super.clone();
+        /* the history of the simulation keeps clones, so what changes in place is copied */
+        final var ret = (ProcessorState) super.clone();
+        ret.registers = registers.clone();
+        ret.registers_valid = registers_valid.clone();
+        ret.instrTrace = instrTrace.clone();
+        return ret;
       } catch (CloneNotSupportedException e) {
         return null;
       }
     }
 
+    @Override
+    public String getCheckpointFormat() {
+      return "nios2";
+    }
+
+    @Override
+    public void writeCheckpoint(SimulationCheckpoint out) throws IOException {
+      out.putInt(pc);
+      out.putInt(status);
+      out.putInt(estatus);
+      out.putInt(bstatus);
+      out.putInt(ienable);
+      out.putInt(ipending);
+      out.putValue(lastClock);
+      for (var i = 0; i < 31; i++) {
+        out.putInt(registers[i]);
+        out.putBoolean(registers_valid[i]);
+      }
+    }
+
+    @Override
+    public void readCheckpoint(SimulationCheckpoint in) throws IOException {
+      pc = in.getInt();
+      status = in.getInt();
+      estatus = in.getInt();
+      bstatus = in.getInt();
+      ienable = in.getInt();
+      ipending = in.getInt();
+      lastClock = in.getValue();
+      for (var i = 0; i < 31; i++) {
+        registers[i] = in.getInt();
+        registers_valid[i] = in.getBoolean();
+      }
+      /* the trace and the decoded instructions belong to the program run before */
+      lastRegisterWritten = -1;
+      mustSync = false;
+      instrTrace.clear();
+      instructionCache.clear();
+      lastExe = null;
+      if (visible) repaint();
+    }
+
     public void insertTransaction(SocBusTransaction trans, boolean hidden, CircuitState cState) {
       if (hidden) trans.setAsHiddenTransaction();
       attachedBus
           .getSocSimulationManager()
           .initializeTransaction(trans, attachedBus.getBusId(), cState);
+      if (trans.affectsCircuit()) mustSync = true;
     }
 
     public void draw(Graphics2D g, boolean scale) {
@@ -401,6 +486,7 @@ public class Nios2State implements SocUpSimulationStateListener, SocProcessorInt
 
     @Override
     public void destroy() {
+      instructionCache.watch(null);
       SocUpMenuProvider.SOCUPMENUPROVIDER.deregisterCpuState(this, myInstance);
     }
 
@@ -447,7 +533,7 @@ public class Nios2State implements SocUpSimulationStateListener, SocProcessorInt
     }
 
     @Override
-    public LinkedList<TraceInfo> getTraces() {
+    public Deque<TraceInfo> getTraces() {
       return instrTrace;
     }
 
@@ -486,6 +572,7 @@ public class Nios2State implements SocUpSimulationStateListener, SocProcessorInt
   private int exceptionVector;
   private int breakVector;
   private int nrOfIrqs;
+  private int fastForward;
   private String label;
   private final SocBusInfo attachedBus;
 
@@ -544,6 +631,7 @@ public class Nios2State implements SocUpSimulationStateListener, SocProcessorInt
     exceptionVector = 0x14;
     breakVector = 0x30;
     nrOfIrqs = 0;
+    fastForward = 1;
     label = "";
     attachedBus = new SocBusInfo("");
   }
@@ -553,6 +641,7 @@ public class Nios2State implements SocUpSimulationStateListener, SocProcessorInt
     dest.exceptionVector = exceptionVector;
     dest.breakVector = breakVector;
     dest.nrOfIrqs = nrOfIrqs;
+    dest.fastForward = fastForward;
     dest.label = label;
     dest.attachedBus.setBusId(attachedBus.getBusId());
   }
@@ -606,6 +695,17 @@ public class Nios2State implements SocUpSimulationStateListener, SocProcessorInt
     return nrOfIrqs;
   }
 
+  public boolean setFastForward(int value) {
+    if (fastForward == value) return false;
+    fastForward = value;
+    return true;
+  }
+
+  /** Returns the number of instructions executed per clock edge at most. */
+  public Integer getFastForward() {
+    return fastForward;
+  }
+
   public boolean setLabel(String value) {
     if (label.equals(value)) return false;
     label = value;
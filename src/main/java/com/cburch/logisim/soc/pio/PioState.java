@@ -389,6 +389,8 @@ public class PioState implements SocBusSlaveInterface {
       trans.setError(SocBusTransaction.ACCESS_TYPE_NOT_SUPPORTED_ERROR);
       return;
     }
+    if (trans.isWriteTransaction())
+      attachedBus.getSocSimulationManager().dataChanging(attachedBus.getComponent());
     switch (index) {
       case DATA_REG_INDEX:
         if (trans.isWriteTransaction()) handleOutputWriteTransaction(trans);
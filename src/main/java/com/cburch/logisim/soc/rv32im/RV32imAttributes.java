@@ -46,6 +46,8 @@ public class RV32imAttributes extends AbstractAttributeSet {
       Attributes.forHexInteger("exceptionVector", S.getter("rv32ExceptionVector"));
   public static final Attribute<Boolean> RV32IM_STATE_VISIBLE =
       Attributes.forBoolean("stateVisible", S.getter("rv32StateVisible"));
+  public static final Attribute<Integer> FAST_FORWARD =
+      Attributes.forIntegerRange("fastForward", S.getter("rv32FastForward"), 1, 1000000);
 
   private Font labelFont = StdAttr.DEFAULT_LABEL_FONT;
   private Boolean labelVisible = true;
@@ -58,6 +60,7 @@ public class RV32imAttributes extends AbstractAttributeSet {
             EXCEPTION_VECTOR,
             NR_OF_IRQS,
             RV32IM_STATE_VISIBLE,
+            FAST_FORWARD,
             StdAttr.LABEL,
             StdAttr.LABEL_FONT,
             StdAttr.LABEL_VISIBILITY,
@@ -85,6 +88,7 @@ public class RV32imAttributes extends AbstractAttributeSet {
     if (attr == RESET_VECTOR) return (V) upState.getResetVector();
     if (attr == EXCEPTION_VECTOR) return (V) upState.getExceptionVector();
     if (attr == NR_OF_IRQS) return (V) BitWidth.create(upState.getNrOfIrqs());
+    if (attr == FAST_FORWARD) return (V) upState.getFastForward();
     if (attr == StdAttr.LABEL) return (V) upState.getLabel();
     if (attr == StdAttr.LABEL_FONT) return (V) labelFont;
     if (attr == StdAttr.LABEL_VISIBILITY) return (V) labelVisible;
@@ -122,6 +126,11 @@ public class RV32imAttributes extends AbstractAttributeSet {
         fireAttributeValueChanged(attr, value, oldValue);
       return;
     }
+    if (attr == FAST_FORWARD) {
+      if (upState.setFastForward((int) value))
+        fireAttributeValueChanged(attr, value, oldValue);
+      return;
+    }
     if (attr == SocSimulationManager.SOC_BUS_SELECT) {
       if (upState.setAttachedBus((SocBusInfo) value))
         fireAttributeValueChanged(attr, value, oldValue);
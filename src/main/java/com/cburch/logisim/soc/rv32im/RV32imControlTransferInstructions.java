@@ -16,11 +16,13 @@ import com.cburch.logisim.gui.generic.OptionPane;
 import com.cburch.logisim.soc.file.ElfHeader;
 import com.cburch.logisim.soc.util.AbstractExecutionUnitWithLabelSupport;
 import com.cburch.logisim.soc.util.AssemblerAsmInstruction;
+import com.cburch.logisim.soc.util.AssemblerExecutionInterface;
 import com.cburch.logisim.soc.util.AssemblerToken;
 import java.util.ArrayList;
 import java.util.Arrays;
 
-public class RV32imControlTransferInstructions implements AbstractExecutionUnitWithLabelSupport {
+public class RV32imControlTransferInstructions
+    implements AbstractExecutionUnitWithLabelSupport, Cloneable {
 
   private static final int JAL = 0x6F;
   private static final int JALR = 0x67;
@@ -478,4 +480,13 @@ public class RV32imControlTransferInstructions implements AbstractExecutionUnitW
   public long getLabelAddress(long pc) {
     return pc + immediate;
   }
+
+  @Override
+  public AssemblerExecutionInterface copyDecoded() {
+    try {
+      return (AssemblerExecutionInterface) clone();
+    } catch (CloneNotSupportedException e) {
+      return null;
+    }
+  }
 }
@@ -18,7 +18,7 @@ import com.cburch.logisim.soc.util.AssemblerExecutionInterface;
 import java.util.ArrayList;
 import java.util.Arrays;
 
-public class RV32imEnvironmentCallAndBreakpoints implements AssemblerExecutionInterface {
+public class RV32imEnvironmentCallAndBreakpoints implements AssemblerExecutionInterface, Cloneable {
 
   private static final int SYSTEM = 0x73;
 
@@ -114,4 +114,13 @@ public class RV32imEnvironmentCallAndBreakpoints implements AssemblerExecutionIn
     instr.setInstructionByteCode(instruction, 4);
     return true;
   }
+
+  @Override
+  public AssemblerExecutionInterface copyDecoded() {
+    try {
+      return (AssemblerExecutionInterface) clone();
+    } catch (CloneNotSupportedException e) {
+      return null;
+    }
+  }
 }
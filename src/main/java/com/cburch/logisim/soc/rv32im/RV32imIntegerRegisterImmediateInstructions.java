@@ -19,7 +19,7 @@ import com.cburch.logisim.soc.util.AssemblerToken;
 import java.util.ArrayList;
 import java.util.Arrays;
 
-public class RV32imIntegerRegisterImmediateInstructions implements AssemblerExecutionInterface {
+public class RV32imIntegerRegisterImmediateInstructions implements AssemblerExecutionInterface, Cloneable {
 
   private static final int OP_IMM = 0x13;
   private static final int LUI = 0x37;
@@ -462,4 +462,12 @@ public class RV32imIntegerRegisterImmediateInstructions implements AssemblerExec
     return true;
   }
 
+  @Override
+  public AssemblerExecutionInterface copyDecoded() {
+    try {
+      return (AssemblerExecutionInterface) clone();
+    } catch (CloneNotSupportedException e) {
+      return null;
+    }
+  }
 }
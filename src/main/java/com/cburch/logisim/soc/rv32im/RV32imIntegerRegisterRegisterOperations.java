@@ -19,7 +19,7 @@ import com.cburch.logisim.soc.util.AssemblerToken;
 import java.util.ArrayList;
 import java.util.Arrays;
 
-public class RV32imIntegerRegisterRegisterOperations implements AssemblerExecutionInterface {
+public class RV32imIntegerRegisterRegisterOperations implements AssemblerExecutionInterface, Cloneable {
 
   private static final int OP = 0x33;
   private static final int ADD_SUB = 0;
@@ -257,4 +257,12 @@ public class RV32imIntegerRegisterRegisterOperations implements AssemblerExecuti
     return true;
   }
 
+  @Override
+  public AssemblerExecutionInterface copyDecoded() {
+    try {
+      return (AssemblerExecutionInterface) clone();
+    } catch (CloneNotSupportedException e) {
+      return null;
+    }
+  }
 }
@@ -21,7 +21,7 @@ import com.cburch.logisim.soc.util.AssemblerToken;
 import java.util.ArrayList;
 import java.util.Arrays;
 
-public class RV32imLoadAndStoreInstructions implements AssemblerExecutionInterface {
+public class RV32imLoadAndStoreInstructions implements AssemblerExecutionInterface, Cloneable {
 
   private static final int LOAD = 0x3;
   private static final int STORE = 0x23;
@@ -301,4 +301,12 @@ public class RV32imLoadAndStoreInstructions implements AssemblerExecutionInterfa
     return true;
   }
 
+  @Override
+  public AssemblerExecutionInterface copyDecoded() {
+    try {
+      return (AssemblerExecutionInterface) clone();
+    } catch (CloneNotSupportedException e) {
+      return null;
+    }
+  }
 }
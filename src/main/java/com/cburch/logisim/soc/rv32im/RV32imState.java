@@ -14,6 +14,7 @@ import static com.cburch.logisim.soc.Strings.S;
 import com.cburch.contracts.BaseWindowListenerContract;
 import com.cburch.logisim.circuit.CircuitState;
 import com.cburch.logisim.circuit.ComponentDataGuiProvider;
+import com.cburch.logisim.circuit.SimulationCheckpoint;
 import com.cburch.logisim.comp.Component;
 import com.cburch.logisim.data.BitWidth;
 import com.cburch.logisim.data.Value;
@@ -38,6 +39,7 @@ import com.cburch.logisim.soc.file.ElfSectionHeader;
 import com.cburch.logisim.soc.gui.BreakpointPanel;
 import com.cburch.logisim.soc.gui.CpuDrawSupport;
 import com.cburch.logisim.soc.util.AssemblerInterface;
+import com.cburch.logisim.soc.util.InstructionCache;
 import com.cburch.logisim.util.GraphicsUtil;
 import com.cburch.logisim.util.StringUtil;
 import java.awt.Color;
@@ -45,7 +47,9 @@ import java.awt.Graphics;
 import java.awt.Graphics2D;
 import java.awt.event.WindowEvent;
 import java.awt.event.WindowListener;
-import java.util.LinkedList;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
 import javax.swing.JPanel;
 import org.fife.ui.rsyntaxtextarea.AbstractTokenMakerFactory;
 import org.fife.ui.rsyntaxtextarea.TokenMakerFactory;
@@ -54,17 +58,20 @@ public class RV32imState implements SocUpSimulationStateListener, SocProcessorIn
 
   public class ProcessorState extends JPanel
       implements InstanceData,
+          SimulationCheckpoint.Data,
           Cloneable,
           ComponentDataGuiProvider,
           BaseWindowListenerContract,
           SocUpStateInterface {
     private static final long serialVersionUID = 1L;
-    private final int[] registers;
-    private final Boolean[] registers_valid;
+    private int[] registers;
+    private Boolean[] registers_valid;
     private int pc;
     private int lastRegisterWritten = -1;
-    private final LinkedList<TraceInfo> instrTrace;
+    private ArrayDeque<TraceInfo> instrTrace;
+    private final InstructionCache instructionCache = new InstructionCache();
     private Value lastClock;
+    private boolean mustSync; // the circuit has to catch up before the next instruction
     private final SocUpSimulationState simState;
     private final Instance myInstance;
     private boolean visible;
@@ -75,7 +82,7 @@ public class RV32imState implements SocUpSimulationStateListener, SocProcessorIn
     public ProcessorState(Instance inst) {
       registers = new int[32];
       registers_valid = new Boolean[32];
-      instrTrace = new LinkedList<>();
+      instrTrace = new ArrayDeque<>(CpuDrawSupport.NR_OF_TRACES);
       lastClock = Value.createUnknown(BitWidth.ONE);
       simState = new SocUpSimulationState();
       myInstance = inst;
@@ -119,6 +126,7 @@ public class RV32imState implements SocUpSimulationStateListener, SocProcessorIn
       }
       lastRegisterWritten = -1;
       instrTrace.clear();
+      instructionCache.clear();
       if (visible) repaint();
       simState.reset();
     }
@@ -138,7 +146,13 @@ public class RV32imState implements SocUpSimulationStateListener, SocProcessorIn
     }
 
     public void setClock(Value clock, CircuitState cState) {
-      if (lastClock == Value.FALSE && clock == Value.TRUE) execute(cState);
+      if (lastClock == Value.FALSE && clock == Value.TRUE) {
+        /* in fast forward we run ahead until the circuit has to see what the program did */
+        mustSync = false;
+        execute(cState);
+        for (var i = 1; i < fastForward && !mustSync && simState.canExecute(); i++)
+          execute(cState);
+      }
       lastClock = clock;
     }
 
@@ -213,32 +227,41 @@ public class RV32imState implements SocUpSimulationStateListener, SocProcessorIn
         }
       }
       /* TODO: check interrupts */
-      /* fetch an instruction */
-      final var trans =
-          new SocBusTransaction(
-              SocBusTransaction.READ_TRANSACTION,
-              pc,
-              0,
-              SocBusTransaction.WORD_ACCESS,
-              attachedBus.getComponent());
-      attachedBus
-          .getSocSimulationManager()
-          .initializeTransaction(trans, attachedBus.getBusId(), cState);
-      if (trans.hasError()) {
-        OptionPane.showMessageDialog(
-            null,
-            trans.getErrorMessage(),
-            SocSupport.getMasterName(cState, RV32imState.this.getName())
-                + S.get("RV32imFetchTransaction"),
-            OptionPane.ERROR_MESSAGE);
-        simState.errorInExecution();
-        return;
+      /* fetch and decode an instruction, unless it was decoded before; while the bus is traced
+       * or sniffed every instruction is fetched, so that the fetches show */
+      final var bus = attachedBus.getSocSimulationManager().getSocBusState(attachedBus.getBusId());
+      instructionCache.watch(bus);
+      var cached = bus == null || bus.isObserved() ? null : instructionCache.get(pc);
+      final int instruction;
+      if (cached != null) {
+        instruction = cached.getInstruction();
+      } else {
+        final var trans =
+            new SocBusTransaction(
+                SocBusTransaction.READ_TRANSACTION,
+                pc,
+                0,
+                SocBusTransaction.WORD_ACCESS,
+                attachedBus.getComponent());
+        attachedBus
+            .getSocSimulationManager()
+            .initializeTransaction(trans, attachedBus.getBusId(), cState);
+        if (trans.affectsCircuit()) mustSync = true;
+        if (trans.hasError()) {
+          OptionPane.showMessageDialog(
+              null,
+              trans.getErrorMessage(),
+              SocSupport.getMasterName(cState, RV32imState.this.getName())
+                  + S.get("RV32imFetchTransaction"),
+              OptionPane.ERROR_MESSAGE);
+          simState.errorInExecution();
+          return;
+        }
+        instruction = trans.getReadData();
+        cached = instructionCache.put(pc, instruction, ASSEMBLER);
       }
-      /* decode instruction */
-      int instruction = trans.getReadData();
-      ASSEMBLER.decode(instruction);
       /* execute instruction */
-      final var exe = ASSEMBLER.getExeUnit();
+      final var exe = cached != null ? cached.getExeUnit() : ASSEMBLER.getExeUnit();
       lastRegisterWritten = -1;
       while (instrTrace.size() >= CpuDrawSupport.NR_OF_TRACES)
         instrTrace.removeLast();
@@ -255,7 +278,6 @@ public class RV32imState implements SocUpSimulationStateListener, SocProcessorIn
         if (visible) repaint();
         return;
       }
-      final var trace = new TraceInfo(pc, instruction, exe.getAsmInstruction(), false);
       if (!exe.execute(this, cState)) {
         final var s = new StringBuilder();
         s.append(S.get("RV32imFetchExecutionError"));
@@ -268,12 +290,15 @@ public class RV32imState implements SocUpSimulationStateListener, SocProcessorIn
                 + S.get("RV32imFetchTransaction"),
             OptionPane.ERROR_MESSAGE);
         simState.errorInExecution();
-        trace.setError();
-        instrTrace.addFirst(trace);
+        instrTrace.addFirst(new TraceInfo(pc, instruction, exe.getAsmInstruction(), true));
         if (visible) repaint();
         return;
       }
-      instrTrace.addFirst(trace);
+      // the trace of a cached instruction is shared, so that executing it allocates nothing
+      instrTrace.addFirst(
+          cached != null
+              ? cached.getTrace()
+              : new TraceInfo(pc, instruction, exe.getAsmInstruction(), false));
       /* all done increment pc */
       if (!exe.performedJump())
         pc = pc + 4;
@@ -283,17 +308,54 @@ public class RV32imState implements SocUpSimulationStateListener, SocProcessorIn
     @Override
     public ProcessorState clone() {
       try {
-        return (ProcessorState) super.clone();
+        /* the history of the simulation keeps clones, so what changes in place is copied */
+        final var ret = (ProcessorState) super.clone();
+        ret.registers = registers.clone();
+        ret.registers_valid = registers_valid.clone();
+        ret.instrTrace = instrTrace.clone();
+        return ret;
       } catch (CloneNotSupportedException e) {
         return null;
       }
     }
 
+    @Override
+    public String getCheckpointFormat() {
+      return "rv32im";
+    }
+
+    @Override
+    public void writeCheckpoint(SimulationCheckpoint out) throws IOException {
+      out.putInt(pc);
+      out.putValue(lastClock);
+      for (var i = 0; i < 31; i++) {
+        out.putInt(registers[i]);
+        out.putBoolean(registers_valid[i]);
+      }
+    }
+
+    @Override
+    public void readCheckpoint(SimulationCheckpoint in) throws IOException {
+      pc = in.getInt();
+      lastClock = in.getValue();
+      for (var i = 0; i < 31; i++) {
+        registers[i] = in.getInt();
+        registers_valid[i] = in.getBoolean();
+      }
+      /* the trace and the decoded instructions belong to the program run before */
+      lastRegisterWritten = -1;
+      mustSync = false;
+      instrTrace.clear();
+      instructionCache.clear();
+      if (visible) repaint();
+    }
+
     public void insertTransaction(SocBusTransaction trans, boolean hidden, CircuitState cState) {
       if (hidden) trans.setAsHiddenTransaction();
       attachedBus
           .getSocSimulationManager()
           .initializeTransaction(trans, attachedBus.getBusId(), cState);
+      if (trans.affectsCircuit()) mustSync = true;
     }
 
     public void draw(Graphics2D g, boolean scale) {
@@ -304,6 +366,7 @@ public class RV32imState implements SocUpSimulationStateListener, SocProcessorIn
 
     @Override
     public void destroy() {
+      instructionCache.watch(null);
       SocUpMenuProvider.SOCUPMENUPROVIDER.deregisterCpuState(this, myInstance);
     }
 
@@ -350,7 +413,7 @@ public class RV32imState implements SocUpSimulationStateListener, SocProcessorIn
     }
 
     @Override
-    public LinkedList<TraceInfo> getTraces() {
+    public Deque<TraceInfo> getTraces() {
       return instrTrace;
     }
 
@@ -388,6 +451,7 @@ public class RV32imState implements SocUpSimulationStateListener, SocProcessorIn
   private int resetVector;
   private int exceptionVector;
   private int nrOfIrqs;
+  private int fastForward;
   private String label;
   private final SocBusInfo attachedBus;
 
@@ -418,6 +482,7 @@ public class RV32imState implements SocUpSimulationStateListener, SocProcessorIn
     resetVector = 0;
     exceptionVector = 0x14;
     nrOfIrqs = 0;
+    fastForward = 1;
     label = "";
     attachedBus = new SocBusInfo("");
   }
@@ -426,6 +491,7 @@ public class RV32imState implements SocUpSimulationStateListener, SocProcessorIn
     dest.resetVector = resetVector;
     dest.exceptionVector = exceptionVector;
     dest.nrOfIrqs = nrOfIrqs;
+    dest.fastForward = fastForward;
     dest.label = label;
     dest.attachedBus.setBusId(attachedBus.getBusId());
   }
@@ -470,6 +536,18 @@ public class RV32imState implements SocUpSimulationStateListener, SocProcessorIn
     return nrOfIrqs;
   }
 
+  public boolean setFastForward(int value) {
+    if (fastForward == value)
+      return false;
+    fastForward = value;
+    return true;
+  }
+
+  /** Returns the number of instructions executed per clock edge at most. */
+  public Integer getFastForward() {
+    return fastForward;
+  }
+
   public boolean setLabel(String value) {
     if (label.equals(value))
       return false;
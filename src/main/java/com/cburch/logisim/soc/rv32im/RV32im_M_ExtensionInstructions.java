@@ -20,7 +20,7 @@ import java.math.BigInteger;
 import java.util.ArrayList;
 import java.util.Arrays;
 
-public class RV32im_M_ExtensionInstructions implements AssemblerExecutionInterface {
+public class RV32im_M_ExtensionInstructions implements AssemblerExecutionInterface, Cloneable {
 
   private static final int OP = 0x33;
 
@@ -213,4 +213,12 @@ public class RV32im_M_ExtensionInstructions implements AssemblerExecutionInterfa
     return true;
   }
 
+  @Override
+  public AssemblerExecutionInterface copyDecoded() {
+    try {
+      return (AssemblerExecutionInterface) clone();
+    } catch (CloneNotSupportedException e) {
+      return null;
+    }
+  }
 }
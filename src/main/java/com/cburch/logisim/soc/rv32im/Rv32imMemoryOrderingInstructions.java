@@ -18,7 +18,7 @@ import com.cburch.logisim.soc.util.AssemblerExecutionInterface;
 import java.util.ArrayList;
 import java.util.Arrays;
 
-public class Rv32imMemoryOrderingInstructions implements AssemblerExecutionInterface {
+public class Rv32imMemoryOrderingInstructions implements AssemblerExecutionInterface, Cloneable {
 
   private static final int FENCE = 0xF;
 
@@ -138,4 +138,13 @@ public class Rv32imMemoryOrderingInstructions implements AssemblerExecutionInter
     valid = false;
     return true;
   }
+
+  @Override
+  public AssemblerExecutionInterface copyDecoded() {
+    try {
+      return (AssemblerExecutionInterface) clone();
+    } catch (CloneNotSupportedException e) {
+      return null;
+    }
+  }
 }
@@ -23,4 +23,12 @@ public interface AssemblerExecutionInterface {
   String getErrorMessage();
   ArrayList<String> getInstructions();
   int getInstructionSizeInBytes(String instruction);
+
+  /**
+   * Returns a copy of this unit holding the instruction it decoded last, which can be executed
+   * again and again without decoding it anew, or null if the unit cannot be copied.
+   */
+  default AssemblerExecutionInterface copyDecoded() {
+    return null;
+  }
 }
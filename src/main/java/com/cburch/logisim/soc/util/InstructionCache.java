@@ -0,0 +1,135 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.soc.util;
+
+import com.cburch.logisim.soc.data.SocBusStateInfo;
+import com.cburch.logisim.soc.data.SocBusTransaction;
+import com.cburch.logisim.soc.data.SocBusWriteWatcher;
+import com.cburch.logisim.soc.data.TraceInfo;
+import java.util.HashMap;
+
+/**
+ * Decoded instructions of a processor, kept by the address they were fetched from so that code
+ * that runs again is neither fetched over the bus nor decoded again. The cache watches the writes
+ * on the bus of the processor and forgets every instruction that is overwritten, and forgets all
+ * of them when the contents of a memory on the bus are replaced otherwise or the memory map of the
+ * bus changes. Code run from the cache is not fetched, so the processors only use it while the
+ * bus is neither traced nor sniffed.
+ *
+ * <p>Only aligned 32-bit instructions whose execution unit can be copied are kept.
+ */
+public class InstructionCache implements SocBusWriteWatcher {
+  private static final int PAGE_BITS = 10; // instructions per page
+  private static final int PAGE_SIZE = 1 << PAGE_BITS;
+
+  public static class Entry {
+    private final int instruction;
+    private final AssemblerExecutionInterface exe;
+    private final TraceInfo trace;
+
+    private Entry(int pc, int instruction, AssemblerExecutionInterface exe) {
+      this.instruction = instruction;
+      this.exe = exe;
+      trace = new TraceInfo(pc, instruction, exe.getAsmInstruction(), false);
+    }
+
+    public int getInstruction() {
+      return instruction;
+    }
+
+    public AssemblerExecutionInterface getExeUnit() {
+      return exe;
+    }
+
+    /** Returns the trace of a successful execution, which is shared by all executions. */
+    public TraceInfo getTrace() {
+      return trace;
+    }
+  }
+
+  private final HashMap<Integer, Entry[]> pages = new HashMap<>();
+  // most instructions come from the same page as the one before
+  private int lastPageIndex = -1;
+  private Entry[] lastPage = null;
+  private SocBusStateInfo bus = null;
+
+  /** Starts watching the writes on the given bus, if not done already. Null stops watching. */
+  public synchronized void watch(SocBusStateInfo value) {
+    if (bus == value) return;
+    if (bus != null) bus.removeWriteWatcher(this);
+    bus = value;
+    if (bus != null) bus.registerWriteWatcher(this);
+    clear();
+  }
+
+  public synchronized void clear() {
+    pages.clear();
+    lastPageIndex = -1;
+    lastPage = null;
+  }
+
+  /** Returns the instruction decoded at the given address, or null if it is not known. */
+  public synchronized Entry get(int pc) {
+    if (bus == null || (pc & 3) != 0) return null;
+    final var page = getPage(pc >>> (PAGE_BITS + 2), false);
+    return page == null ? null : page[(pc >>> 2) & (PAGE_SIZE - 1)];
+  }
+
+  /**
+   * Decodes an instruction fetched from the given address and keeps it. Returns null if it is not
+   * kept, in which case the assembler is left with the instruction decoded.
+   */
+  public synchronized Entry put(int pc, int instruction, AssemblerInterface assembler) {
+    assembler.decode(instruction);
+    final var exe = assembler.getExeUnit();
+    if (bus == null || (pc & 3) != 0 || exe == null) return null;
+    final var copy = exe.copyDecoded();
+    if (copy == null) return null;
+    final var ret = new Entry(pc, instruction, copy);
+    getPage(pc >>> (PAGE_BITS + 2), true)[(pc >>> 2) & (PAGE_SIZE - 1)] = ret;
+    return ret;
+  }
+
+  @Override
+  public synchronized void sniffTransaction(SocBusTransaction trans) {
+    if (pages.isEmpty()) return;
+    final var size =
+        switch (trans.getAccessType()) {
+          case SocBusTransaction.BYTE_ACCESS -> 1;
+          case SocBusTransaction.HALF_WORD_ACCESS -> 2;
+          default -> 4;
+        };
+    invalidate(trans.getAddress());
+    invalidate(trans.getAddress() + size - 1);
+  }
+
+  @Override
+  public void contentsReplaced() {
+    clear();
+  }
+
+  private void invalidate(int address) {
+    final var page = getPage(address >>> (PAGE_BITS + 2), false);
+    if (page != null) page[(address >>> 2) & (PAGE_SIZE - 1)] = null;
+  }
+
+  private Entry[] getPage(int index, boolean create) {
+    if (index == lastPageIndex) return lastPage;
+    var page = pages.get(index);
+    if (page == null) {
+      if (!create) return null;
+      page = new Entry[PAGE_SIZE];
+      pages.put(index, page);
+    }
+    lastPageIndex = index;
+    lastPage = page;
+    return page;
+  }
+}
@@ -106,7 +106,10 @@ public class VgaState implements SocBusSlaveInterface, SocBusSnifferInterface, S
     @Override
     public VgaDisplayState clone() {
       try {
-        return (VgaDisplayState) super.clone();
+        /* the image is shared, so the clone draws it anew from the memory */
+        final var ret = (VgaDisplayState) super.clone();
+        ret.reload = true;
+        return ret;
       } catch (CloneNotSupportedException e) {
         return null;
       }
@@ -390,6 +393,7 @@ public class VgaState implements SocBusSlaveInterface, SocBusSnifferInterface, S
       if (data == VgaAttributes.MODE_640_480_MASK && soft640x480) mode = VgaAttributes.MODE_640_480;
       if (data == VgaAttributes.MODE_800_600_MASK && soft800x600) mode = VgaAttributes.MODE_800_600;
       if (data == VgaAttributes.MODE_1024_768_MASK && soft1024x768) mode = VgaAttributes.MODE_1024_768;
+      attachedBus.getSocSimulationManager().dataChanging(attachedBus.getComponent());
       VgaDisplayState disp = getRegPropagateState();
       if (disp != null && disp.setSoftMode(mode)) {
         InstanceComponent comp = (InstanceComponent) attachedBus.getComponent();
@@ -434,6 +438,12 @@ public class VgaState implements SocBusSlaveInterface, SocBusSnifferInterface, S
     return (InstanceComponent) attachedBus.getComponent();
   }
 
+  @Override
+  public boolean affectsCircuit() {
+    /* the display is drawn from memory on its own clock */
+    return false;
+  }
+
   private void fireNameChanged() {
     for (SocBusSlaveListener l : listeners)
       l.labelChanged();
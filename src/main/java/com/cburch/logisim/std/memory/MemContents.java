@@ -13,23 +13,105 @@ import com.cburch.hex.HexModel;
 import com.cburch.hex.HexModelListener;
 import com.cburch.logisim.prefs.AppPreferences;
 import com.cburch.logisim.util.EventSourceWeakSupport;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
 import java.util.Arrays;
-
+import javax.swing.SwingUtilities;
+
+/**
+ * The contents of a RAM or ROM. The words are kept in pages of 4096 words, which only exist once
+ * a non-zero word was written to them. The page table is sparse: it is a directory of leaves of
+ * 1024 pages each, and leaves are only allocated when one of their pages is. Leaves and pages are
+ * copied on write, so a clone only copies the directory and each of both copies a leaf or a page
+ * the first time it writes to it. The contents may also be backed by a memory mapped image file, which is then only
+ * read from.
+ *
+ * <p>The {@link HexModel} methods tell the listeners about each change right away, with the old
+ * values, so it can be undone. The simulation writes through {@link #write(long, long)} and {@link
+ * #write(long, long[], int, int)} instead, which only widen a dirty range. The listeners are told
+ * about it in one event, with no old values, the next time the event dispatch thread gets to it.
+ */
 public class MemContents implements Cloneable, HexModel {
   public static MemContents create(int addrBits, int width) {
     return new MemContents(addrBits, width);
   }
 
+  /**
+   * Creates contents whose words are read from the given raw binary image. Every word takes width /
+   * 8 bytes of the file, in the given byte order, and the words beyond the end of the file are
+   * zero. Images of at least {@link #MAP_THRESHOLD} bytes are not loaded: the file is mapped into
+   * memory and pages of it are only copied to the heap once they are written to. The file itself
+   * is never modified. Smaller images are copied to heap pages right away, as a mapping holds on
+   * to the file and to address space for as long as the contents live.
+   *
+   * @throws IllegalArgumentException if the width is not a multiple of 8 bits
+   */
+  public static MemContents readImage(File file, int addrBits, int width, boolean bigEndian) throws IOException {
+    if (width % 8 != 0) {
+      throw new IllegalArgumentException("image files need a word width that is a multiple of 8 bits");
+    }
+    final var ret = new MemContents(addrBits, width);
+    final var bytesPerWord = width / 8;
+    final var pageLength = addrBits < PAGE_SIZE_BITS ? 1 << addrBits : PAGE_SIZE;
+    final var pageBytes = (long) pageLength * bytesPerWord;
+    // a buffer holds at most 2GB, so read the file in chunks holding a whole number of pages
+    final var pagesPerChunk = (int) (Integer.MAX_VALUE / pageBytes);
+    try (final var channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+      final var size = Math.min(channel.size(), ret.pageCount * pageBytes);
+      final var mapped = size >= MAP_THRESHOLD;
+      final var order = bigEndian ? ByteOrder.BIG_ENDIAN : ByteOrder.LITTLE_ENDIAN;
+      for (var chunk = 0L; chunk * pagesPerChunk * pageBytes < size; chunk++) {
+        final var chunkStart = chunk * pagesPerChunk * pageBytes;
+        final var chunkSize = Math.min(size - chunkStart, pagesPerChunk * pageBytes);
+        final ByteBuffer buffer;
+        if (mapped) {
+          buffer = channel.map(FileChannel.MapMode.READ_ONLY, chunkStart, chunkSize);
+        } else {
+          buffer = ByteBuffer.allocate((int) chunkSize);
+          while (buffer.hasRemaining()) {
+            if (channel.read(buffer, chunkStart + buffer.position()) < 0) break;
+          }
+        }
+        for (var offs = 0L; offs < chunkSize; offs += pageBytes) {
+          final var slice = buffer.slice((int) offs, (int) Math.min(pageBytes, chunkSize - offs)).order(order);
+          final var index = (int) ((chunkStart + offs) / pageBytes);
+          final var page = new MemContentsSub.ImagePage(slice, bytesPerWord, pageLength, width);
+          ret.putPage(index, mapped ? page : page.copy());
+        }
+      }
+    }
+    return ret;
+  }
+
+  // images from this size on are mapped rather than read into heap pages
+  static final long MAP_THRESHOLD = 16L << 20;
+
   private static final int PAGE_SIZE_BITS = 12;
   private static final int PAGE_SIZE = 1 << PAGE_SIZE_BITS;
 
   private static final int PAGE_MASK = PAGE_SIZE - 1;
 
+  private static final int LEAF_BITS = 10;
+  private static final int LEAF_SIZE = 1 << LEAF_BITS;
+  private static final int LEAF_MASK = LEAF_SIZE - 1;
+
   private EventSourceWeakSupport<HexModelListener> listeners = null;
   private int width;
   private int addrBits;
   private long mask;
-  private Page[] pages;
+  private int pageCount;
+  private Page[][] table;
+  // leaves that may also be in the table of a clone
+  private boolean[] sharedLeaves;
+  // bytes copied so far because they were shared with a clone
+  private long copiedBytes;
+  // range written since the listeners were told, if dirtyEnd > dirtyStart
+  private volatile long dirtyStart;
+  private volatile long dirtyEnd;
 
   private MemContents(int addrBits, int width) {
     listeners = null;
@@ -46,8 +128,11 @@ public class MemContents implements Cloneable, HexModel {
   }
 
   public void clear() {
-    for (var i = 0; i < pages.length; i++) {
-      if (pages[i] != null) clearPage(i);
+    for (var i = 0; i < table.length; i++) {
+      if (table[i] == null) continue;
+      for (var j = 0; j < table[i].length; j++) {
+        if (table[i][j] != null) clearPage((i << LEAF_BITS) | j);
+      }
     }
   }
 
@@ -55,19 +140,21 @@ public class MemContents implements Cloneable, HexModel {
     if (!AppPreferences.Memory_Startup_Unknown.getBoolean())
       clear();
     else {
-      for (var i = 0; i < pages.length; i++) {
-        long[] oldValues = pages[i] != null ? pages[i].get(0, pages[i].getLength()) : null;
-        pages[i] = MemContentsSub.createPage(PAGE_SIZE, width);
+      for (var i = 0; i < pageCount; i++) {
+        final var oldPage = getPage(i);
+        long[] oldValues = oldPage != null ? oldPage.get(0, oldPage.getLength()) : null;
+        final var page = MemContentsSub.createPage(PAGE_SIZE, width);
+        putPage(i, page);
         if (oldValues != null)
-          fireBytesChanged(i << PAGE_SIZE_BITS, oldValues.length, oldValues);
+          fireBytesChanged((long) i << PAGE_SIZE_BITS, oldValues.length, oldValues);
         else
-          fireBytesChanged(i << PAGE_SIZE_BITS, pages[i].getLength(), pages[i].get(0, pages[i].getLength()));
+          fireBytesChanged((long) i << PAGE_SIZE_BITS, page.getLength(), page.get(0, page.getLength()));
       }
     }
   }
 
   private void clearPage(int index) {
-    final var page = pages[index];
+    final var page = getPage(index);
     final var oldValues = new long[page.getLength()];
     var changed = false;
     for (var j = 0; j < oldValues.length; j++) {
@@ -76,11 +163,56 @@ public class MemContents implements Cloneable, HexModel {
       if (val != 0) changed = true;
     }
     if (changed) {
-      pages[index] = null;
-      fireBytesChanged(index << PAGE_SIZE_BITS, oldValues.length, oldValues);
+      putPage(index, null);
+      fireBytesChanged((long) index << PAGE_SIZE_BITS, oldValues.length, oldValues);
     }
   }
 
+  //
+  // page table methods
+  //
+  private Page getPage(int index) {
+    if (index < 0 || index >= pageCount) return null;
+    final var leaf = table[index >>> LEAF_BITS];
+    return leaf == null ? null : leaf[index & LEAF_MASK];
+  }
+
+  private void putPage(int index, Page page) {
+    final var i = index >>> LEAF_BITS;
+    var leaf = table[i];
+    if (leaf == null) {
+      if (page == null) return;
+      leaf = new Page[Math.min(LEAF_SIZE, pageCount)];
+      table[i] = leaf;
+    } else if (sharedLeaves[i]) {
+      leaf = unshareLeaf(i);
+    }
+    leaf[index & LEAF_MASK] = page;
+  }
+
+  // copies a leaf shared with a clone, whose pages are then shared instead
+  private Page[] unshareLeaf(int i) {
+    final var leaf = table[i].clone();
+    copiedBytes += 8L * leaf.length;
+    for (final var page : leaf) {
+      if (page != null) page.shared = true;
+    }
+    table[i] = leaf;
+    sharedLeaves[i] = false;
+    return leaf;
+  }
+
+  // returns the page for writing, copying it first if it is shared with a clone or read only
+  private WritablePage writablePage(int index) {
+    if (sharedLeaves[index >>> LEAF_BITS]) unshareLeaf(index >>> LEAF_BITS);
+    final var page = getPage(index);
+    if (page instanceof WritablePage ret && !ret.shared) return ret;
+    if (page != null && page.shared) copiedBytes += (long) page.getLength() * wordBytes();
+    final var ret = page == null ? MemContentsSub.createPage(PAGE_SIZE, width) : page.copy();
+    putPage(index, ret);
+    return ret;
+  }
+
   //
   // other methods
   //
@@ -89,22 +221,49 @@ public class MemContents implements Cloneable, HexModel {
     try {
       final var ret = (MemContents) super.clone();
       ret.listeners = null;
-      ret.pages = new Page[this.pages.length];
-      for (var i = 0; i < ret.pages.length; i++) {
-        if (this.pages[i] != null) {
-          ret.pages[i] = this.pages[i].clone();
-        }
+      ret.dirtyStart = ret.dirtyEnd = 0;
+      ret.table = this.table.clone();
+      copiedBytes += 8L * table.length;
+      for (var i = 0; i < table.length; i++) {
+        if (table[i] != null) sharedLeaves[i] = true;
       }
+      ret.sharedLeaves = sharedLeaves.clone();
       return ret;
     } catch (CloneNotSupportedException ex) {
       return this;
     }
   }
 
-  private void ensurePage(int index) {
-    if (pages[index] == null) {
-      pages[index] = MemContentsSub.createPage(PAGE_SIZE, width);
+  /**
+   * Returns how many bytes this contents has copied so far because they were shared with a clone,
+   * counting the directories copied by {@link #clone()} and the leaves and pages copied before they
+   * were written.
+   */
+  public long getCopiedBytes() {
+    return copiedBytes;
+  }
+
+  // bytes a word takes in a page, as chosen by MemContentsSub.createPage
+  private int wordBytes() {
+    if (width <= 8) return 1;
+    if (width <= 16) return 2;
+    return width <= 32 ? 4 : 8;
+  }
+
+  private Page ensurePage(int index) {
+    var page = getPage(index);
+    if (page == null) {
+      page = MemContentsSub.createPage(PAGE_SIZE, width);
+      putPage(index, page);
     }
+    return page;
+  }
+
+  // loads values into a page, which must exist, and drops it if it became all zero when asked to
+  private void loadPage(int index, long start, long[] values, boolean dropIfClear) {
+    final var page = writablePage(index);
+    page.load(start, values, mask);
+    if (dropIfClear && page.isClear()) putPage(index, null);
   }
 
   @Override
@@ -118,65 +277,58 @@ public class MemContents implements Cloneable, HexModel {
     value &= mask;
 
     if (pageStart == pageEnd) {
-      ensurePage(pageStart);
+      final var page = ensurePage(pageStart);
       final var vals = new long[(int) len];
       Arrays.fill(vals, value);
-      final var page = pages[pageStart];
       if (!page.matches(vals, startOffs, mask)) {
         final var oldValues = page.get(startOffs, (int) len);
-        page.load(startOffs, vals, mask);
-        if (value == 0 && page.isClear()) pages[pageStart] = null;
+        loadPage(pageStart, startOffs, vals, value == 0);
         fireBytesChanged(start, len, oldValues);
       }
     } else {
       if (startOffs == 0) {
         pageStart--;
       } else {
-        if (value == 0 && pages[pageStart] == null) {
+        if (value == 0 && getPage(pageStart) == null) {
           // nothing to do
         } else {
-          ensurePage(pageStart);
+          final var page = ensurePage(pageStart);
           final var vals = new long[PAGE_SIZE - startOffs];
           Arrays.fill(vals, value);
-          final var page = pages[pageStart];
           if (!page.matches(vals, startOffs, mask)) {
             final var oldValues = page.get(startOffs, vals.length);
-            page.load(startOffs, vals, mask);
-            if (value == 0 && page.isClear()) pages[pageStart] = null;
-            fireBytesChanged(start, PAGE_SIZE - pageStart, oldValues);
+            loadPage(pageStart, startOffs, vals, value == 0);
+            fireBytesChanged(start, PAGE_SIZE - startOffs, oldValues);
           }
         }
       }
       if (value == 0) {
         for (var i = pageStart + 1; i < pageEnd; i++) {
-          if (pages[i] != null) clearPage(i);
+          if (getPage(i) != null) clearPage(i);
         }
       } else {
         final var vals = new long[PAGE_SIZE];
         Arrays.fill(vals, value);
         for (var i = pageStart + 1; i < pageEnd; i++) {
-          ensurePage(i);
-          final var page = pages[i];
+          final var page = ensurePage(i);
           if (!page.matches(vals, 0, mask)) {
             final var oldValues = page.get(0, PAGE_SIZE);
-            page.load(0, vals, mask);
-            fireBytesChanged(i << PAGE_SIZE_BITS, PAGE_SIZE, oldValues);
+            loadPage(i, 0, vals, false);
+            fireBytesChanged((long) i << PAGE_SIZE_BITS, PAGE_SIZE, oldValues);
           }
         }
       }
       if (endOffs >= 0) {
-        final var page = pages[pageEnd];
-        if (value == 0 && page == null) {
+        if (value == 0 && getPage(pageEnd) == null) {
           // nothing to do
         } else {
-          ensurePage(pageEnd);
+          final var page = ensurePage(pageEnd);
           final var vals = new long[endOffs + 1];
           Arrays.fill(vals, value);
           if (!page.matches(vals, 0, mask)) {
             final var oldValues = page.get(0, endOffs + 1);
-            page.load(0, vals, mask);
-            if (value == 0 && page.isClear()) pages[pageEnd] = null;
-            fireBytesChanged(pageEnd << PAGE_SIZE_BITS, endOffs + 1, oldValues);
+            loadPage(pageEnd, 0, vals, value == 0);
+            fireBytesChanged((long) pageEnd << PAGE_SIZE_BITS, endOffs + 1, oldValues);
           }
         }
       }
@@ -203,12 +355,44 @@ public class MemContents implements Cloneable, HexModel {
     if (!found) listeners = null;
   }
 
+  // widens the dirty range, and asks for it to be reported if it was empty
+  private void markDirty(long start, long end) {
+    // Most writes fall within the range already, which is seen here without taking the lock.
+    // Should the range be reported meanwhile, the listeners still see this write's value.
+    if (start >= dirtyStart && end <= dirtyEnd) return;
+    // whole pages are reported, so that neighbouring writes land in the range
+    start &= ~(long) PAGE_MASK;
+    end = Math.min((end + PAGE_MASK) & ~(long) PAGE_MASK, 1L << addrBits);
+    synchronized (this) {
+      if (dirtyEnd > dirtyStart) {
+        dirtyStart = Math.min(dirtyStart, start);
+        dirtyEnd = Math.max(dirtyEnd, end);
+      } else {
+        dirtyStart = start;
+        dirtyEnd = end;
+        SwingUtilities.invokeLater(this::flushChanges);
+      }
+    }
+  }
+
+  /** Tells the listeners about everything written through the write methods since the last time. */
+  public void flushChanges() {
+    long start;
+    long end;
+    synchronized (this) {
+      start = dirtyStart;
+      end = dirtyEnd;
+      dirtyEnd = 0;
+      dirtyStart = 0;
+    }
+    if (end > start) fireBytesChanged(start, end - start, null);
+  }
+
   @Override
   public long get(long addr) {
-    int page = (int) (addr >>> PAGE_SIZE_BITS);
-    long offs = (addr & PAGE_MASK);
-    if (page < 0 || page >= pages.length || pages[page] == null) return 0;
-    return pages[page].get(offs) & mask;
+    final var page = getPage((int) (addr >>> PAGE_SIZE_BITS));
+    if (page == null) return 0;
+    return page.get(addr & PAGE_MASK) & mask;
   }
 
   @Override
@@ -235,11 +419,14 @@ public class MemContents implements Cloneable, HexModel {
   }
 
   public boolean isClear() {
-    for (final var page : pages) {
-      if (page != null) {
-        for (var j = page.getLength() - 1; j >= 0; j--) {
-          if (page.get(j) != 0)
-            return false;
+    for (final var leaf : table) {
+      if (leaf == null) continue;
+      for (final var page : leaf) {
+        if (page != null) {
+          for (var j = page.getLength() - 1; j >= 0; j--) {
+            if (page.get(j) != 0)
+              return false;
+          }
         }
       }
     }
@@ -257,14 +444,12 @@ public class MemContents implements Cloneable, HexModel {
   public void set(long addr, long value) {
     final var page = (int) (addr >>> PAGE_SIZE_BITS);
     long offs = (addr & PAGE_MASK);
-    if (page < 0 || page >= pages.length) return;
-    long old = pages[page] == null ? 0 : pages[page].get(offs) & mask;
+    if (page < 0 || page >= pageCount) return;
+    final var cur = getPage(page);
+    long old = cur == null ? 0 : cur.get(offs) & mask;
     long val = value & mask;
     if (old != val) {
-      if (pages[page] == null) {
-        pages[page] = MemContentsSub.createPage(PAGE_SIZE, width);
-      }
-      pages[page].set(offs, val);
+      writablePage(page).set(offs, val);
       fireBytesChanged(addr, 1, new long[] {old});
     }
   }
@@ -279,12 +464,10 @@ public class MemContents implements Cloneable, HexModel {
     final var endOffs = (int) ((start + values.length - 1) & PAGE_MASK);
 
     if (pageStart == pageEnd) {
-      ensurePage(pageStart);
-      final var page = pages[pageStart];
+      final var page = ensurePage(pageStart);
       if (!page.matches(values, startOffs, mask)) {
         final var oldValues = page.get(startOffs, values.length);
-        page.load(startOffs, values, mask);
-        if (page.isClear()) pages[pageStart] = null;
+        loadPage(pageStart, startOffs, values, true);
         fireBytesChanged(start, values.length, oldValues);
       }
     } else {
@@ -293,22 +476,20 @@ public class MemContents implements Cloneable, HexModel {
         pageStart--;
         nextOffs = 0;
       } else {
-        ensurePage(pageStart);
+        final var page = ensurePage(pageStart);
         final var vals = new long[PAGE_SIZE - startOffs];
         System.arraycopy(values, 0, vals, 0, vals.length);
-        final var page = pages[pageStart];
         if (!page.matches(vals, startOffs, mask)) {
           final var oldValues = page.get(startOffs, vals.length);
-          page.load(startOffs, vals, mask);
-          if (page.isClear()) pages[pageStart] = null;
-          fireBytesChanged(start, PAGE_SIZE - pageStart, oldValues);
+          loadPage(pageStart, startOffs, vals, true);
+          fireBytesChanged(start, PAGE_SIZE - startOffs, oldValues);
         }
         nextOffs = vals.length;
       }
       var vals = new long[PAGE_SIZE];
       int offs = nextOffs;
       for (var i = pageStart + 1; i < pageEnd; i++, offs += PAGE_SIZE) {
-        var page = pages[i];
+        var page = getPage(i);
         if (page == null) {
           var allZeroes = true;
           for (var j = 0; j < PAGE_SIZE; j++) {
@@ -317,36 +498,121 @@ public class MemContents implements Cloneable, HexModel {
               break;
             }
           }
-          if (!allZeroes) {
-            page = MemContentsSub.createPage(PAGE_SIZE, width);
-            pages[i] = page;
-          }
+          if (!allZeroes) page = ensurePage(i);
         }
         if (page != null) {
           System.arraycopy(values, offs, vals, 0, PAGE_SIZE);
-          if (!page.matches(vals, startOffs, mask)) {
+          if (!page.matches(vals, 0, mask)) {
             final var oldValues = page.get(0, PAGE_SIZE);
-            page.load(0, vals, mask);
-            if (page.isClear()) pages[i] = null;
-            fireBytesChanged(i << PAGE_SIZE_BITS, PAGE_SIZE, oldValues);
+            loadPage(i, 0, vals, true);
+            fireBytesChanged((long) i << PAGE_SIZE_BITS, PAGE_SIZE, oldValues);
           }
         }
       }
       if (endOffs >= 0) {
-        ensurePage(pageEnd);
+        final var page = ensurePage(pageEnd);
         vals = new long[endOffs + 1];
         System.arraycopy(values, offs, vals, 0, endOffs + 1);
-        final var page = pages[pageEnd];
-        if (!page.matches(vals, startOffs, mask)) {
+        if (!page.matches(vals, 0, mask)) {
           final var oldValues = page.get(0, endOffs + 1);
-          page.load(0, vals, mask);
-          if (page.isClear()) pages[pageEnd] = null;
-          fireBytesChanged(pageEnd << PAGE_SIZE_BITS, endOffs + 1, oldValues);
+          loadPage(pageEnd, 0, vals, true);
+          fireBytesChanged((long) pageEnd << PAGE_SIZE_BITS, endOffs + 1, oldValues);
         }
       }
     }
   }
 
+  /**
+   * Writes a word like {@link #set(long, long)}, but without an event for each write: the listeners
+   * are only told about all words written since the last time, once the event dispatch thread gets
+   * to it. This is how the simulation writes, since nobody needs to undo that.
+   */
+  public void write(long addr, long value) {
+    if (addr < 0 || addr >>> addrBits != 0) return;
+    final var index = (int) (addr >>> PAGE_SIZE_BITS);
+    final var offs = addr & PAGE_MASK;
+    final var cur = getPage(index);
+    final var val = value & mask;
+    if ((cur == null ? 0 : cur.get(offs) & mask) == val) return;
+    writablePage(index).set(offs, val);
+    if (listeners != null) markDirty(addr, addr + 1);
+  }
+
+  /**
+   * Writes len words from buf, starting at offs, to the addresses from start on, like {@link
+   * #write(long, long)}.
+   */
+  public void write(long start, long[] buf, int offs, int len) {
+    if (start < 0) return;
+    var addr = start;
+    var i = offs;
+    final var end = offs + (int) Math.max(0, Math.min(len, (1L << addrBits) - start));
+    while (i < end) {
+      final var index = (int) (addr >>> PAGE_SIZE_BITS);
+      final var pageOffs = (int) (addr & PAGE_MASK);
+      final var n = Math.min(end - i, PAGE_SIZE - pageOffs);
+      var zeros = getPage(index) == null;
+      for (var j = i; zeros && j < i + n; j++) zeros = (buf[j] & mask) == 0;
+      if (!zeros) {
+        final var page = writablePage(index);
+        for (var j = 0; j < n; j++) page.set(pageOffs + j, buf[i + j] & mask);
+      }
+      addr += n;
+      i += n;
+    }
+    if (listeners != null && addr > start) markDirty(start, addr);
+  }
+
+  /**
+   * Returns the first address from addr on that lies in a page holding data, or -1 if there is
+   * none. All words outside of these pages are zero.
+   */
+  public long nextUsedAddress(long addr) {
+    if (addr < 0) addr = 0;
+    for (var index = (int) Math.min(addr >>> PAGE_SIZE_BITS, pageCount); index < pageCount; ) {
+      if (table[index >>> LEAF_BITS] == null) {
+        index = (index | LEAF_MASK) + 1;
+      } else if (getPage(index) == null) {
+        index++;
+      } else {
+        return Math.max(addr, (long) index << PAGE_SIZE_BITS);
+      }
+    }
+    return -1;
+  }
+
+  public void write(long start, long[] buf) {
+    write(start, buf, 0, buf.length);
+  }
+
+  /** Reads len words, from the addresses from start on, into buf from offs on. */
+  public void read(long start, long[] buf, int offs, int len) {
+    var addr = start;
+    var i = offs;
+    final var end = offs + len;
+    while (i < end) {
+      if (addr < 0 || addr >>> addrBits != 0) {
+        // beyond the address space
+        Arrays.fill(buf, i, end, 0);
+        break;
+      }
+      final var pageOffs = (int) (addr & PAGE_MASK);
+      final var n = (int) Math.min(end - i, Math.min(PAGE_SIZE - pageOffs, (1L << addrBits) - addr));
+      final var page = getPage((int) (addr >>> PAGE_SIZE_BITS));
+      if (page == null) {
+        Arrays.fill(buf, i, i + n, 0);
+      } else {
+        for (var j = 0; j < n; j++) buf[i + j] = page.get(pageOffs + j) & mask;
+      }
+      addr += n;
+      i += n;
+    }
+  }
+
+  public void read(long start, long[] buf) {
+    read(start, buf, 0, buf.length);
+  }
+
   public void copyFrom(long start, MemContents src, long offs, int count) {
     count = (int) Math.min(count, getLastOffset() - start + 1);
     if (count <= 0)
@@ -368,19 +634,22 @@ public class MemContents implements Cloneable, HexModel {
     var si = (int) (offs & PAGE_MASK);
 
     do {
-      var dstPage = pages[dp];
-      final var srcPage = src.pages[sp];
+      final var dstPage = getPage(dp);
+      final var srcPage = src.getPage(sp);
       final var n = Math.min(count, Math.min(PAGE_SIZE - si, PAGE_SIZE - di));
       if (dstPage == null && srcPage == null) {
         // both already all zeros, so do nothing
       } else if (srcPage == null) {
         // clearing locations di..di+n on this page
-        fill(dp * PAGE_SIZE + di, n, 0);
+        fill((long) dp * PAGE_SIZE + di, n, 0);
+      } else if (n == PAGE_SIZE && src.width == width) {
+        // a whole page, share it until one of both writes to it
+        srcPage.shared = true;
+        putPage(dp, srcPage);
       } else {
-        if (dstPage == null) dstPage = pages[dp] = MemContentsSub.createPage(PAGE_SIZE, width);
         // copy locations di..di+n on this page
         final var vals = srcPage.get(si, n);
-        dstPage.set(di, vals);
+        writablePage(dp).set(di, vals);
       }
       count -= n;
       di += n;
@@ -403,8 +672,8 @@ public class MemContents implements Cloneable, HexModel {
     this.width = width;
     this.mask = width == 64 ? -1L : ((1L << width) - 1);
 
-    final var oldPages = pages;
-    int pageCount;
+    final var oldTable = table;
+    final var oldPageCount = pageCount;
     int pageLength;
     if (addrBits < PAGE_SIZE_BITS) {
       pageCount = 1;
@@ -413,22 +682,23 @@ public class MemContents implements Cloneable, HexModel {
       pageCount = 1 << (addrBits - PAGE_SIZE_BITS);
       pageLength = PAGE_SIZE;
     }
-    pages = new Page[pageCount];
-    if (oldPages != null) {
-      final var n = Math.min(oldPages.length, pages.length);
+    table = new Page[(pageCount + LEAF_SIZE - 1) >>> LEAF_BITS][];
+    sharedLeaves = new boolean[table.length];
+    if (oldTable != null) {
+      final var n = Math.min(oldPageCount, pageCount);
       for (var i = 0; i < n; i++) {
-        if (oldPages[i] != null) {
-          pages[i] = MemContentsSub.createPage(pageLength, width);
-          final var m = Math.min(oldPages[i].getLength(), pageLength);
+        final var leaf = oldTable[i >>> LEAF_BITS];
+        final var oldPage = leaf == null ? null : leaf[i & LEAF_MASK];
+        if (oldPage != null) {
+          final var page = MemContentsSub.createPage(pageLength, width);
+          final var m = Math.min(oldPage.getLength(), pageLength);
           for (var j = 0; j < m; j++) {
-            pages[i].set(j, oldPages[i].get(j));
+            page.set(j, oldPage.get(j));
           }
+          putPage(i, page);
         }
       }
     }
-    if (pageCount == 0 && pages[0] == null) {
-      pages[0] = MemContentsSub.createPage(pageLength, width);
-    }
 
     fireMetainfoChanged();
   }
@@ -436,13 +706,17 @@ public class MemContents implements Cloneable, HexModel {
   public void condFillRandom() {
     if (AppPreferences.Memory_Startup_Unknown.get()) {
       final var pageLength = (addrBits < PAGE_SIZE_BITS) ? 1 << addrBits : PAGE_SIZE;
-      for (var i = 0; i < pages.length; i++)
-        if (pages[i] == null)
-          pages[i] = MemContentsSub.createPage(pageLength, width);
+      for (var i = 0; i < pageCount; i++)
+        if (getPage(i) == null)
+          putPage(i, MemContentsSub.createPage(pageLength, width));
     }
   }
 
+  /** A page that can only be read, such as a page of a memory mapped image file. */
   abstract static class Page implements Cloneable {
+    // set once the page is referenced by more than one MemContents
+    boolean shared = false;
+
     @Override
     public Page clone() {
       try {
@@ -452,6 +726,9 @@ public class MemContents implements Cloneable, HexModel {
       }
     }
 
+    /** Returns a private copy of this page that may be written to. */
+    abstract WritablePage copy();
+
     abstract long get(long addr);
 
     long[] get(long start, int len) {
@@ -461,11 +738,6 @@ public class MemContents implements Cloneable, HexModel {
       return ret;
     }
 
-    void set(long start, long[] val) {
-      for (var i = 0; i < val.length; i++)
-        set(start + i, val[i]);
-    }
-
     abstract int getLength();
 
     boolean isClear() {
@@ -476,8 +748,6 @@ public class MemContents implements Cloneable, HexModel {
       return true;
     }
 
-    abstract void load(long start, long[] values, long mask);
-
     boolean matches(long[] values, long start, long mask) {
       for (var i = 0; i < values.length; i++) {
         if (get(start + i) != (values[i] & mask))
@@ -485,8 +755,25 @@ public class MemContents implements Cloneable, HexModel {
       }
       return true;
     }
+  }
+
+  /** A page held on the heap, which may be written to as long as it is not shared. */
+  abstract static class WritablePage extends Page {
+    @Override
+    WritablePage copy() {
+      final var ret = (WritablePage) clone();
+      ret.shared = false;
+      return ret;
+    }
+
+    abstract void load(long start, long[] values, long mask);
 
     abstract void set(long addr, long value);
+
+    void set(long start, long[] val) {
+      for (var i = 0; i < val.length; i++)
+        set(start + i, val[i]);
+    }
   }
 
 }
@@ -10,9 +10,11 @@
 package com.cburch.logisim.std.memory;
 
 import com.cburch.logisim.prefs.AppPreferences;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 
 class MemContentsSub {
-  private static class BytePage extends MemContents.Page {
+  private static class BytePage extends MemContents.WritablePage {
     private byte[] data;
     private final long mask;
 
@@ -67,7 +69,7 @@ class MemContentsSub {
     }
   }
 
-  private static class IntPage extends MemContents.Page {
+  private static class IntPage extends MemContents.WritablePage {
     private int[] data;
     private final long mask;
 
@@ -120,7 +122,7 @@ class MemContentsSub {
     }
   }
 
-  private static class ShortPage extends MemContents.Page {
+  private static class ShortPage extends MemContents.WritablePage {
     private short[] data;
     private final long mask;
 
@@ -161,7 +163,7 @@ class MemContentsSub {
        * Bugfix in memory writing (by Roy77)
        * https://github.com/roy77
        */
-      for (var i = (int) start; i < n; i++) {
+      for (var i = 0; i < n; i++) {
         data[(int) start + i] = (short) (values[i] & mask);
       }
     }
@@ -177,7 +179,7 @@ class MemContentsSub {
     }
   }
 
-  private static class LongPage extends MemContents.Page {
+  private static class LongPage extends MemContents.WritablePage {
     private long[] data;
     private final long mask;
 
@@ -230,7 +232,62 @@ class MemContentsSub {
     }
   }
 
-  static MemContents.Page createPage(int size, int bits) {
+  /**
+   * A page of a raw binary image, read in place from a buffer, typically a memory mapped file. It
+   * cannot be written to: the first write replaces it by a heap page holding a copy.
+   */
+  static class ImagePage extends MemContents.Page {
+    private final ByteBuffer data;
+    private final int bytesPerWord;
+    private final int size;
+    private final int bits;
+
+    ImagePage(ByteBuffer data, int bytesPerWord, int size, int bits) {
+      this.data = data;
+      this.bytesPerWord = bytesPerWord;
+      this.size = size;
+      this.bits = bits;
+    }
+
+    @Override
+    MemContents.WritablePage copy() {
+      final var ret = createPage(size, bits);
+      ret.load(0, get(0, size), -1L);
+      return ret;
+    }
+
+    @Override
+    long get(long addr) {
+      final var pos = addr * bytesPerWord;
+      if (addr < 0 || pos + bytesPerWord > data.limit()) return 0;
+      final var idx = (int) pos;
+      switch (bytesPerWord) {
+        case 1:
+          return data.get(idx) & 0xffL;
+        case 2:
+          return data.getShort(idx) & 0xffffL;
+        case 4:
+          return data.getInt(idx) & 0xffffffffL;
+        case 8:
+          return data.getLong(idx);
+        default:
+          long ret = 0;
+          for (var i = 0; i < bytesPerWord; i++) {
+            final var b = data.get(idx + i) & 0xffL;
+            if (data.order() == ByteOrder.BIG_ENDIAN) ret = (ret << 8) | b;
+            else ret |= b << (8 * i);
+          }
+          return ret;
+      }
+    }
+
+    @Override
+    int getLength() {
+      return size;
+    }
+  }
+
+  static MemContents.WritablePage createPage(int size, int bits) {
     long mask = (bits == 64) ? 0xffffffffffffffffL : (1L << bits) - 1;
     if (bits <= 8) return new BytePage(size, mask);
     else if (bits <= 16) return new ShortPage(size, mask);
@@ -11,14 +11,17 @@ package com.cburch.logisim.std.memory;
 
 import com.cburch.hex.HexModel;
 import com.cburch.hex.HexModelListener;
+import com.cburch.logisim.circuit.SimulationCheckpoint;
 import com.cburch.logisim.data.Bounds;
 import com.cburch.logisim.instance.InstanceData;
 import com.cburch.logisim.util.GraphicsUtil;
 import com.cburch.logisim.util.StringUtil;
 import java.awt.Color;
 import java.awt.Graphics;
+import java.io.IOException;
 
-class MemState implements InstanceData, Cloneable, HexModelListener {
+class MemState
+    implements InstanceData, Cloneable, HexModelListener, SimulationCheckpoint.Data {
 
   private MemContents contents;
   private long curScroll = 0;
@@ -142,10 +145,30 @@ class MemState implements InstanceData, Cloneable, HexModelListener {
     return Bounds.EMPTY_BOUNDS;
   }
 
+  @Override
+  public long getCopiedBytes() {
+    return contents.getCopiedBytes();
+  }
+
   public MemContents getContents() {
     return contents;
   }
 
+  @Override
+  public String getCheckpointFormat() {
+    return "memory";
+  }
+
+  @Override
+  public void writeCheckpoint(SimulationCheckpoint out) throws IOException {
+    out.putMemory(contents);
+  }
+
+  @Override
+  public void readCheckpoint(SimulationCheckpoint in) throws IOException {
+    in.getMemory(contents);
+  }
+
   long getCurrent() {
     return curAddr;
   }
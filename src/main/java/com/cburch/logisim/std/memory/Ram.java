@@ -284,7 +284,7 @@ public class Ram extends Mem {
             continue;
         }
         long dataValue = state.getPortValue(RamAppearance.getDataInIndex(i, attrs)).toLongValue();
-        myState.getContents().set(addr + i, dataValue);
+        myState.getContents().write(addr + i, dataValue);
       }
     }
 
@@ -336,7 +336,7 @@ public class Ram extends Mem {
           }
         }
       }
-      myState.getContents().set(addr, newMemValue);
+      myState.getContents().write(addr, newMemValue);
     }
 
     // perform reads
@@ -9,6 +9,7 @@
 
 package com.cburch.logisim.std.memory;
 
+import com.cburch.logisim.circuit.SimulationCheckpoint;
 import com.cburch.logisim.data.AttributeEvent;
 import com.cburch.logisim.data.AttributeListener;
 import com.cburch.logisim.data.AttributeSet;
@@ -16,6 +17,7 @@ import com.cburch.logisim.data.BitWidth;
 import com.cburch.logisim.data.Value;
 import com.cburch.logisim.instance.Instance;
 import com.cburch.logisim.std.memory.Mem.MemListener;
+import java.io.IOException;
 
 public class RamState extends MemState implements AttributeListener {
 
@@ -51,6 +53,23 @@ public class RamState extends MemState implements AttributeListener {
     return ret;
   }
 
+  @Override
+  public String getCheckpointFormat() {
+    return "ram";
+  }
+
+  @Override
+  public void writeCheckpoint(SimulationCheckpoint out) throws IOException {
+    super.writeCheckpoint(out);
+    out.putValue(clockState.getLastClock());
+  }
+
+  @Override
+  public void readCheckpoint(SimulationCheckpoint in) throws IOException {
+    super.readCheckpoint(in);
+    clockState.setLastClock(in.getValue());
+  }
+
   public boolean setClock(Value newClock, Object trigger) {
     return clockState.updateClock(newClock, trigger);
   }
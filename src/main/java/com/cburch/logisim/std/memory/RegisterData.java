@@ -9,12 +9,14 @@
 
 package com.cburch.logisim.std.memory;
 
+import com.cburch.logisim.circuit.SimulationCheckpoint;
 import com.cburch.logisim.data.BitWidth;
 import com.cburch.logisim.data.Value;
 import com.cburch.logisim.instance.InstanceData;
 import com.cburch.logisim.prefs.AppPreferences;
+import java.io.IOException;
 
-class RegisterData extends ClockState implements InstanceData {
+class RegisterData extends ClockState implements InstanceData, SimulationCheckpoint.Data {
   Value value;
 
   public RegisterData(BitWidth width) {
@@ -31,4 +33,21 @@ class RegisterData extends ClockState implements InstanceData {
   public void setValue(Value value) {
     this.value = value;
   }
+
+  @Override
+  public String getCheckpointFormat() {
+    return "register";
+  }
+
+  @Override
+  public void writeCheckpoint(SimulationCheckpoint out) throws IOException {
+    out.putValue(value);
+    out.putValue(getLastClock());
+  }
+
+  @Override
+  public void readCheckpoint(SimulationCheckpoint in) throws IOException {
+    value = in.getValue();
+    setLastClock(in.getValue());
+  }
 }
@@ -13,6 +13,7 @@ import static com.cburch.logisim.std.Strings.S;
 
 import com.cburch.logisim.circuit.CircuitState;
 import com.cburch.logisim.circuit.RadixOption;
+import com.cburch.logisim.circuit.SimulationCheckpoint;
 import com.cburch.logisim.comp.Component;
 import com.cburch.logisim.data.Attribute;
 import com.cburch.logisim.data.AttributeSet;
@@ -36,6 +37,7 @@ import java.awt.Color;
 import java.awt.Graphics;
 import java.awt.event.KeyEvent;
 import java.awt.event.MouseEvent;
+import java.io.IOException;
 import javax.swing.Icon;
 
 public class Clock extends InstanceFactory {
@@ -91,7 +93,7 @@ public class Clock extends InstanceFactory {
     }
   }
 
-  private static class ClockState implements InstanceData, Cloneable {
+  private static class ClockState implements InstanceData, Cloneable, SimulationCheckpoint.Data {
     Value sending = Value.UNKNOWN;
 
     ClockState(int curTick, AttributeSet attrs) {
@@ -119,6 +121,21 @@ public class Clock extends InstanceFactory {
         return null;
       }
     }
+
+    @Override
+    public String getCheckpointFormat() {
+      return "clock";
+    }
+
+    @Override
+    public void writeCheckpoint(SimulationCheckpoint out) throws IOException {
+      out.putValue(sending);
+    }
+
+    @Override
+    public void readCheckpoint(SimulationCheckpoint in) throws IOException {
+      sending = in.getValue();
+    }
   }
 
   private static ClockState getState(InstanceState state) {
@@ -0,0 +1,257 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim;
+
+import com.cburch.logisim.circuit.Circuit;
+import com.cburch.logisim.circuit.CircuitMutation;
+import com.cburch.logisim.circuit.CircuitState;
+import com.cburch.logisim.circuit.Wire;
+import com.cburch.logisim.comp.Component;
+import com.cburch.logisim.comp.ComponentFactory;
+import com.cburch.logisim.data.AttributeSet;
+import com.cburch.logisim.data.BitWidth;
+import com.cburch.logisim.data.Location;
+import com.cburch.logisim.data.Value;
+import com.cburch.logisim.file.Loader;
+import com.cburch.logisim.file.LogisimFile;
+import com.cburch.logisim.instance.Instance;
+import com.cburch.logisim.instance.StdAttr;
+import com.cburch.logisim.proj.Project;
+import com.cburch.logisim.std.gates.GateAttributes;
+import com.cburch.logisim.std.wiring.Pin;
+import com.cburch.logisim.std.wiring.Tunnel;
+import com.cburch.logisim.tools.AddTool;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Consumer;
+
+/**
+ * Builds circuits for the simulation tests, in the way the benchmarks do: components are spread
+ * over a coarse grid so that none of their ports touch, and nets are formed by tunnels placed on
+ * the ports, or at the end of a short wire drawn from a port where the wires matter to the test.
+ * Alternatively all nets are formed by wires, see {@link Builder#wired}.
+ */
+public final class TestCircuits {
+  private static final int GRID = 400;
+
+  private final Loader loader = new Loader(null);
+  private final LogisimFile file = LogisimFile.createNew(loader, null);
+  private Project project;
+
+  public TestCircuits() {
+    Main.headless = true;
+    for (final var lib : new String[] {"Wiring", "Gates", "Plexers", "Arithmetic", "Memory"}) {
+      file.addLibrary(loader.getBuiltin().getLibrary(lib));
+    }
+  }
+
+  public LogisimFile getFile() {
+    return file;
+  }
+
+  /** Returns the project of the file, creating it once all circuits have been added. */
+  public Project getProject() {
+    if (project == null) project = new Project(file);
+    return project;
+  }
+
+  public ComponentFactory builtin(String lib, String name) {
+    return ((AddTool) loader.getBuiltin().getLibrary(lib).getTool(name)).getFactory();
+  }
+
+  public Builder build(String name) {
+    final var circuit = new Circuit(name, file, null);
+    file.addCircuit(circuit);
+    return new Builder(circuit);
+  }
+
+  /** Collects the components of one circuit and adds them in a single mutation. */
+  public static class Builder {
+    private final Circuit circuit;
+    private final CircuitMutation mutation;
+    private int slot = 0;
+    private final ArrayList<Component> placed = new ArrayList<>();
+    // ports to connect by wires on finish, by net; null while tunnels are used
+    private LinkedHashMap<String, ArrayList<Location>> taps = null;
+
+    Builder(Circuit circuit) {
+      this.circuit = circuit;
+      this.mutation = new CircuitMutation(circuit);
+    }
+
+    public Component add(ComponentFactory factory, Consumer<AttributeSet> setup) {
+      final var attrs = factory.createAttributeSet();
+      if (setup != null) setup.accept(attrs);
+      final var loc = Location.create(GRID * (1 + slot % 64), GRID * (1 + slot / 64));
+      slot++;
+      final var comp = factory.createComponent(loc, attrs);
+      mutation.add(comp);
+      placed.add(comp);
+      return comp;
+    }
+
+    /**
+     * Makes {@link #connect(Component, int, String)} form the nets by wires instead of tunnels, for
+     * the code that cannot handle tunnels, such as the analyzer. Every net gets a horizontal wire
+     * below all components, and every port a lane of its own leading down to it.
+     */
+    public Builder wired() {
+      taps = new LinkedHashMap<>();
+      return this;
+    }
+
+    /** Connects the given port of the component to the net of that name. */
+    public void connect(Component comp, int port, String net) {
+      if (taps != null) {
+        taps.computeIfAbsent(net, k -> new ArrayList<>()).add(comp.getEnd(port).getLocation());
+      } else {
+        tunnel(comp.getEnd(port).getLocation(), comp.getEnd(port).getWidth(), net);
+      }
+    }
+
+    /** Connects the port to the net through a wire going dx, dy from it. */
+    public Wire connect(Component comp, int port, int dx, int dy, String net) {
+      final var end = comp.getEnd(port);
+      final var loc = end.getLocation();
+      final var ret = Wire.create(loc, loc.translate(dx, dy));
+      mutation.add(ret);
+      tunnel(ret.getOtherEnd(loc), end.getWidth(), net);
+      return ret;
+    }
+
+    public void tunnel(Location loc, BitWidth width, String net) {
+      final var attrs = Tunnel.FACTORY.createAttributeSet();
+      attrs.setValue(StdAttr.LABEL, net);
+      attrs.setValue(StdAttr.WIDTH, width);
+      mutation.add(Tunnel.FACTORY.createComponent(loc, attrs));
+    }
+
+    public Component pin(String name, int width, boolean output) {
+      final var ret = add(Pin.FACTORY, attrs -> {
+        attrs.setValue(StdAttr.WIDTH, BitWidth.create(width));
+        attrs.setValue(StdAttr.LABEL, name);
+        attrs.setValue(Pin.ATTR_TYPE, output);
+      });
+      connect(ret, 0, name);
+      return ret;
+    }
+
+    public Component gate(ComponentFactory factory, int width, String out, String... in) {
+      final var ret = add(factory, attrs -> {
+        attrs.setValue(StdAttr.WIDTH, BitWidth.create(width));
+        if (attrs.containsAttribute(GateAttributes.ATTR_INPUTS)) {
+          attrs.setValue(GateAttributes.ATTR_INPUTS, in.length);
+        }
+      });
+      connect(ret, 0, out);
+      for (var i = 0; i < in.length; i++) connect(ret, i + 1, in[i]);
+      return ret;
+    }
+
+    /**
+     * Draws the wires of the nets. The editor merges wires that touch and splits wires at the ends
+     * of other components and wires, so the lanes are placed where they cross nothing but the
+     * middle of other wires.
+     */
+    private void route() {
+      final var ends = new HashSet<Location>();
+      final var endXs = new HashSet<Integer>();
+      for (final var comp : placed) {
+        for (final var end : comp.getEnds()) {
+          ends.add(end.getLocation());
+          endXs.add(end.getLocation().getX());
+        }
+      }
+      final var stubs = new ArrayList<Wire>();
+      var y = GRID * (2 + slot / 64);
+      for (final var net : taps.values()) {
+        final var lanes = new TreeSet<Integer>();
+        for (final var loc : net) {
+          final var lane = findLane(loc, ends, endXs, stubs);
+          final var corner = Location.create(lane, loc.getY());
+          final var stub = Wire.create(loc, corner);
+          mutation.add(stub);
+          stubs.add(stub);
+          mutation.add(Wire.create(corner, Location.create(lane, y)));
+          ends.add(corner);
+          endXs.add(lane);
+          lanes.add(lane);
+        }
+        Integer last = null;
+        for (final var x : lanes) {
+          if (last != null) mutation.add(Wire.create(Location.create(last, y), Location.create(x, y)));
+          last = x;
+        }
+        y += 10;
+      }
+    }
+
+    // finds the nearest x that no end uses and that a horizontal wire from loc reaches freely
+    private static int findLane(Location loc, Set<Location> ends, Set<Integer> endXs, List<Wire> stubs) {
+      for (var d = 10; ; d = d > 0 ? -d : 10 - d) {
+        final var x = loc.getX() + d;
+        if (endXs.contains(x)) continue;
+        final var from = Math.min(x, loc.getX());
+        final var to = Math.max(x, loc.getX());
+        var free = true;
+        for (final var end : ends) {
+          if (end.getY() == loc.getY() && end.getX() >= from && end.getX() <= to && !end.equals(loc)) {
+            free = false;
+          }
+        }
+        for (final var stub : stubs) {
+          if (stub.getEnd0().getY() == loc.getY()
+              && Math.min(stub.getEnd0().getX(), stub.getEnd1().getX()) < to
+              && Math.max(stub.getEnd0().getX(), stub.getEnd1().getX()) > from) {
+            free = false;
+          }
+        }
+        if (free) return x;
+      }
+    }
+
+    public Circuit finish() {
+      if (taps != null) route();
+      mutation.execute();
+      return circuit;
+    }
+  }
+
+  /** Returns the pin with the given label. */
+  public static Instance findPin(Circuit circuit, String label) {
+    for (final var comp : circuit.getNonWires()) {
+      if (comp.getFactory() instanceof Pin
+          && label.equals(comp.getAttributeSet().getValue(StdAttr.LABEL))) {
+        return Instance.getInstanceFor(comp);
+      }
+    }
+    throw new IllegalArgumentException("no pin " + label);
+  }
+
+  /** Drives the input pin with the given label, without propagating. */
+  public static void setPin(CircuitState state, String label, Value value) {
+    final var pin = findPin(state.getCircuit(), label);
+    Pin.FACTORY.setValue(state.getInstanceState(pin), value);
+    state.markComponentAsDirty(pin.getComponent());
+  }
+
+  public static void setPin(CircuitState state, String label, int width, long value) {
+    setPin(state, label, Value.createKnown(width, value));
+  }
+
+  /** Returns the value on the net of the pin with the given label. */
+  public static Value getPin(CircuitState state, String label) {
+    return state.getValue(findPin(state.getCircuit(), label).getLocation());
+  }
+}
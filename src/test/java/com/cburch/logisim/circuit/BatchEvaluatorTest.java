@@ -0,0 +1,152 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.circuit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import com.cburch.logisim.TestBase;
+import com.cburch.logisim.TestCircuits;
+import com.cburch.logisim.data.BitWidth;
+import com.cburch.logisim.data.Value;
+import com.cburch.logisim.instance.Instance;
+import com.cburch.logisim.instance.StdAttr;
+import com.cburch.logisim.std.gates.GateAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+/** Checks that the bit-sliced evaluation gives the values the propagator computes. */
+public class BatchEvaluatorTest extends TestBase {
+  private static final String[] INPUTS = {"a", "b"};
+  private static final String[] OUTPUTS = {"x", "y", "n", "m", "u", "k"};
+
+  /**
+   * Builds gates on the 3 bit inputs a and b. The OR gate for m has an input that is not
+   * connected, which the gate ignores, the output u is not connected at all, and k is driven for
+   * bit 0 only.
+   */
+  private static Circuit gateCircuit(TestCircuits circuits) {
+    // the analyzer does not handle tunnels
+    final var b = circuits.build("gates").wired();
+    b.pin("a", 3, false);
+    b.pin("b", 3, false);
+    b.pin("x", 3, true);
+    b.pin("y", 3, true);
+    b.pin("n", 3, true);
+    b.pin("m", 3, true);
+    b.pin("u", 2, true);
+    b.pin("k", 2, true);
+    b.gate(circuits.builtin("Gates", "AND Gate"), 3, "x", "a", "b");
+    b.gate(circuits.builtin("Gates", "XOR Gate"), 3, "y", "a", "b");
+    b.gate(circuits.builtin("Gates", "NOT Gate"), 3, "n", "a");
+    final var or = b.add(circuits.builtin("Gates", "OR Gate"), attrs -> {
+      attrs.setValue(StdAttr.WIDTH, BitWidth.create(3));
+      attrs.setValue(GateAttributes.ATTR_INPUTS, 3);
+    });
+    b.connect(or, 0, "m");
+    b.connect(or, 1, "a");
+    b.connect(or, 3, "b");
+    final var split = b.add(SplitterFactory.instance, attrs -> {
+      attrs.setValue(SplitterAttributes.ATTR_FANOUT, 2);
+      attrs.setValue(SplitterAttributes.ATTR_WIDTH, BitWidth.create(2));
+    });
+    b.connect(split, 0, "k");
+    b.connect(split, 1, "k0");
+    b.gate(circuits.builtin("Gates", "NAND Gate"), 1, "k0", "a0", "b0");
+    final var inSplit = b.add(SplitterFactory.instance, attrs -> {
+      attrs.setValue(SplitterAttributes.ATTR_FANOUT, 3);
+      attrs.setValue(SplitterAttributes.ATTR_WIDTH, BitWidth.create(3));
+    });
+    b.connect(inSplit, 0, "a");
+    b.connect(inSplit, 1, "a0");
+    final var bSplit = b.add(SplitterFactory.instance, attrs -> {
+      attrs.setValue(SplitterAttributes.ATTR_FANOUT, 3);
+      attrs.setValue(SplitterAttributes.ATTR_WIDTH, BitWidth.create(3));
+    });
+    b.connect(bSplit, 0, "b");
+    b.connect(bSplit, 1, "b0");
+    return b.finish();
+  }
+
+  private static List<Instance> pins(Circuit circuit, String... labels) {
+    final var ret = new ArrayList<Instance>();
+    for (final var label : labels) ret.add(TestCircuits.findPin(circuit, label));
+    return ret;
+  }
+
+  @Test
+  public void testSameAsPropagator() {
+    final var circuits = new TestCircuits();
+    final var circuit = gateCircuit(circuits);
+    final var proj = circuits.getProject();
+    final var evaluator =
+        BatchEvaluator.create(proj, circuit, pins(circuit, INPUTS), pins(circuit, OUTPUTS));
+    assertNotNull(evaluator);
+
+    // all 64 combinations of a and b in one batch, row r having a = r & 7 and b = r >> 3
+    final var inputs = evaluator.createInputs();
+    final var outputs = evaluator.createOutputs();
+    for (var r = 0; r < BatchEvaluator.BATCH_SIZE; r++) {
+      for (var bit = 0; bit < 3; bit++) {
+        if ((r >> bit & 1) != 0) inputs[0][bit] |= 1L << r;
+        if ((r >> (3 + bit) & 1) != 0) inputs[1][bit] |= 1L << r;
+      }
+    }
+    evaluator.evaluate(inputs, outputs);
+
+    final var state = new CircuitState(proj, circuit);
+    for (var r = 0; r < BatchEvaluator.BATCH_SIZE; r++) {
+      TestCircuits.setPin(state, "a", 3, r & 7);
+      TestCircuits.setPin(state, "b", 3, r >> 3);
+      state.getPropagator().propagate();
+      for (var pin = 0; pin < OUTPUTS.length; pin++) {
+        final var expected = TestCircuits.getPin(state, OUTPUTS[pin]);
+        assertEquals(expected.getWidth(), outputs[pin].length);
+        for (var bit = 0; bit < outputs[pin].length; bit++) {
+          final var actual = !evaluator.isDefined(pin, bit)
+              ? Value.UNKNOWN
+              : Value.createKnown(1, outputs[pin][bit] >>> r & 1);
+          assertEquals(expected.get(bit), actual, OUTPUTS[pin] + "[" + bit + "], row " + r);
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testNotForUndrivenInputs() {
+    // the simulation sees an unknown value on a connected input that nothing drives
+    final var circuits = new TestCircuits();
+    final var b = circuits.build("floating").wired();
+    b.pin("a", 1, false);
+    b.pin("m", 1, true);
+    b.gate(circuits.builtin("Gates", "OR Gate"), 1, "m", "a", "floating");
+    final var circuit = b.finish();
+    assertNull(BatchEvaluator.create(
+        circuits.getProject(), circuit, pins(circuit, "a"), pins(circuit, "m")));
+  }
+
+  @Test
+  public void testNotForSequentialCircuits() {
+    final var circuits = new TestCircuits();
+    final var b = circuits.build("register").wired();
+    b.pin("d", 4, false);
+    b.pin("clk", 1, false);
+    b.pin("q", 4, true);
+    final var reg = b.add(circuits.builtin("Memory", "Register"), null);
+    b.connect(reg, 0, "q");
+    b.connect(reg, 1, "d");
+    b.connect(reg, 2, "clk");
+    final var circuit = b.finish();
+    assertNull(BatchEvaluator.create(
+        circuits.getProject(), circuit, pins(circuit, "d", "clk"), pins(circuit, "q")));
+  }
+}
@@ -0,0 +1,164 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.circuit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.cburch.logisim.TestBase;
+import com.cburch.logisim.TestCircuits;
+import com.cburch.logisim.comp.Component;
+import com.cburch.logisim.data.BitWidth;
+import com.cburch.logisim.data.Location;
+import com.cburch.logisim.data.Value;
+import com.cburch.logisim.prefs.AppPreferences;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/** Checks that the compiled netlist computes the same values as the map based propagation. */
+public class CircuitNetlistTest extends TestBase {
+  private boolean compiled;
+
+  @BeforeEach
+  public void setup() {
+    compiled = AppPreferences.SIM_COMPILED_NETLIST.getBoolean();
+  }
+
+  @AfterEach
+  public void restore() {
+    useNetlist(compiled);
+  }
+
+  /** Sets the preference, waiting for the change event that updates its cached value. */
+  private static void useNetlist(boolean value) {
+    AppPreferences.SIM_COMPILED_NETLIST.setBoolean(value);
+    final var timeout = System.currentTimeMillis() + 5000;
+    while (AppPreferences.SIM_COMPILED_NETLIST.getBoolean() != value) {
+      assertTrue(System.currentTimeMillis() < timeout, "preference not updated");
+      Thread.onSpinWait();
+    }
+  }
+
+  private static Component splitter(TestCircuits.Builder b, int fanOut, int width) {
+    return b.add(SplitterFactory.instance, attrs -> {
+      attrs.setValue(SplitterAttributes.ATTR_FANOUT, fanOut);
+      attrs.setValue(SplitterAttributes.ATTR_WIDTH, BitWidth.create(width));
+    });
+  }
+
+  /**
+   * Builds a circuit that splits the bus a into its bits, combines neighbouring bits in gates and
+   * gathers the results on the bus x again. The output y gets two driven bits from a and two bits
+   * that nothing drives, w gets the low half of a through another splitter and z is driven by
+   * buffers from both b and c.
+   */
+  private static Circuit busCircuit(TestCircuits circuits) {
+    final var xor = circuits.builtin("Gates", "XOR Gate");
+    final var not = circuits.builtin("Gates", "NOT Gate");
+    final var b = circuits.build("bus");
+    b.pin("a", 8, false);
+    b.pin("b", 4, false);
+    b.pin("c", 4, false);
+    b.pin("x", 8, true);
+    b.pin("y", 4, true);
+    b.pin("z", 4, true);
+    b.pin("w", 4, true);
+    final var split = splitter(b, 8, 8);
+    b.connect(split, 0, -20, 0, "a");
+    for (var i = 0; i < 8; i++) b.connect(split, i + 1, 20, 0, "a" + i);
+    for (var i = 0; i < 7; i++) b.gate(xor, 1, "x" + i, "a" + i, "a" + (i + 1));
+    b.gate(not, 1, "x7", "a7");
+    final var join = splitter(b, 8, 8);
+    b.connect(join, 0, -20, 0, "x");
+    for (var i = 0; i < 8; i++) b.connect(join, i + 1, 20, 0, "x" + i);
+    final var partial = splitter(b, 4, 4);
+    b.connect(partial, 0, -20, 0, "y");
+    b.connect(partial, 1, 20, 0, "a0");
+    b.connect(partial, 3, 20, 0, "a5");
+    b.connect(partial, 4, 20, 0, "floating");
+    final var low = splitter(b, 2, 8);
+    b.connect(low, 0, -20, 0, "a");
+    b.connect(low, 1, 20, 0, "w");
+    b.connect(low, 2, 20, 0, "high");
+    b.gate(circuits.builtin("Gates", "Buffer"), 4, "z", "b");
+    b.gate(circuits.builtin("Gates", "Buffer"), 4, "z", "c");
+    return b.finish();
+  }
+
+  private static TreeSet<Location> points(Circuit circuit) {
+    final var ret = new TreeSet<Location>();
+    for (final var comp : circuit.getNonWires()) {
+      for (final var end : comp.getEnds()) ret.add(end.getLocation());
+    }
+    for (final var wire : circuit.getWires()) {
+      ret.add(wire.getEnd0());
+      ret.add(wire.getEnd1());
+    }
+    return ret;
+  }
+
+  /** Drives the circuit with the given inputs and returns the values at all points per step. */
+  private static List<List<Value>> run(TestCircuits circuits, Circuit circuit, long[][] inputs) {
+    final var state = new CircuitState(circuits.getProject(), circuit);
+    final var points = points(circuit);
+    final var ret = new ArrayList<List<Value>>();
+    for (final var in : inputs) {
+      TestCircuits.setPin(state, "a", 8, in[0]);
+      TestCircuits.setPin(state, "b", 4, in[1]);
+      TestCircuits.setPin(state, "c", 4, in[2]);
+      state.getPropagator().propagate();
+      final var values = new ArrayList<Value>();
+      for (final var loc : points) values.add(state.getValue(loc));
+      ret.add(values);
+      checkOutputs(state, in[0], in[1], in[2]);
+    }
+    assertEquals(AppPreferences.SIM_COMPILED_NETLIST.getBoolean(), state.getWireData().netValues != null);
+    return ret;
+  }
+
+  private static void checkOutputs(CircuitState state, long a, long b, long c) {
+    final var x = (a ^ (a >> 1)) & 0x7F | (~a & 0x80);
+    assertEquals(Value.createKnown(8, x), TestCircuits.getPin(state, "x"));
+    final var y = TestCircuits.getPin(state, "y");
+    assertEquals(Value.createKnown(1, a & 1), y.get(0));
+    assertEquals(Value.UNKNOWN, y.get(1));
+    assertEquals(Value.createKnown(1, (a >> 5) & 1), y.get(2));
+    assertEquals(Value.UNKNOWN, y.get(3));
+    assertEquals(Value.createKnown(4, a & 0xF), TestCircuits.getPin(state, "w"));
+    final var z = TestCircuits.getPin(state, "z");
+    for (var bit = 0; bit < 4; bit++) {
+      final var same = ((b ^ c) >> bit & 1) == 0;
+      assertEquals(same ? Value.createKnown(1, b >> bit & 1) : Value.ERROR, z.get(bit));
+    }
+  }
+
+  @Test
+  public void testSameValues() {
+    final var circuits = new TestCircuits();
+    final var circuit = busCircuit(circuits);
+    final var random = new Random(11);
+    final var inputs = new long[40][];
+    for (var i = 0; i < inputs.length; i++) {
+      inputs[i] = new long[] {random.nextInt(256), random.nextInt(16), random.nextInt(16)};
+    }
+    useNetlist(false);
+    final var expected = run(circuits, circuit, inputs);
+    useNetlist(true);
+    final var actual = run(circuits, circuit, inputs);
+    for (var step = 0; step < inputs.length; step++) {
+      assertEquals(expected.get(step), actual.get(step), "step " + step);
+    }
+  }
+}
@@ -0,0 +1,121 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.circuit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.cburch.logisim.TestBase;
+import com.cburch.logisim.TestCircuits;
+import com.cburch.logisim.comp.Component;
+import com.cburch.logisim.data.BitWidth;
+import com.cburch.logisim.data.Location;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.TreeSet;
+import org.junit.jupiter.api.Test;
+
+/** Checks that the bundle map derived after an edit matches one computed from scratch. */
+public class CircuitWiresTest extends TestBase {
+
+  private static Splitter splitter(Location loc, int fanOut, int width) {
+    final var attrs = SplitterFactory.instance.createAttributeSet();
+    attrs.setValue(SplitterAttributes.ATTR_FANOUT, fanOut);
+    attrs.setValue(SplitterAttributes.ATTR_WIDTH, BitWidth.create(width));
+    return (Splitter) SplitterFactory.instance.createComponent(loc, attrs);
+  }
+
+  /**
+   * Describes a map independently of its objects: every bundle by its points, width and
+   * validity, and every thread by the bits of the bundle points it connects.
+   */
+  private static Set<String> describe(CircuitWires.BundleMap map) {
+    final var ret = new HashSet<String>();
+    final var threads = new HashMap<WireThread, TreeSet<String>>();
+    for (final var bundle : map.getBundles()) {
+      final var points = new TreeSet<>(bundle.points);
+      ret.add(points + " " + bundle.getWidth() + " " + bundle.isValid());
+      if (!bundle.isValid() || bundle.threads == null) continue;
+      for (final var loc : points) {
+        assertEquals(bundle, map.getBundleAt(loc));
+        for (var i = 0; i < bundle.threads.length; i++) {
+          threads.computeIfAbsent(bundle.threads[i], t -> new TreeSet<>()).add(loc + ":" + i);
+        }
+      }
+    }
+    for (final var bits : threads.values()) ret.add(bits.toString());
+    assertEquals(ret.size(), new HashSet<>(ret).size());
+    return ret;
+  }
+
+  private static CircuitWires.BundleMap update(
+      Circuit circuit, CircuitWires.BundleMap old, Component add, Component remove) {
+    final var mutation = new CircuitMutation(circuit);
+    if (add != null) mutation.add(add);
+    if (remove != null) mutation.remove(remove);
+    mutation.execute();
+    final var ret = circuit.wires.getBundleMap();
+    // the derived map shares the bundles the edit did not reach with the old one
+    final var shared = new HashSet<>(ret.getBundles());
+    shared.retainAll(old.getBundles());
+    assertTrue(!shared.isEmpty(), "map was rebuilt");
+    assertTrue(ret.isValid());
+    final var full = new CircuitWires.BundleMap();
+    circuit.wires.computeBundleMap(full);
+    assertEquals(describe(full), describe(ret));
+    return ret;
+  }
+
+  @Test
+  public void testUpdateMatchesFullMap() {
+    final var circuits = new TestCircuits();
+    final var b = circuits.build("edits");
+    b.pin("a", 4, false);
+    final var split = b.add(SplitterFactory.instance, attrs -> {
+      attrs.setValue(SplitterAttributes.ATTR_FANOUT, 4);
+      attrs.setValue(SplitterAttributes.ATTR_WIDTH, BitWidth.create(4));
+    });
+    final var in = b.connect(split, 0, -20, 0, "a");
+    final var outs = new Wire[4];
+    for (var i = 0; i < 4; i++) outs[i] = b.connect(split, i + 1, 20, 0, "a" + i);
+    b.gate(circuits.builtin("Gates", "AND Gate"), 1, "x", "a0", "a1");
+    b.pin("x", 1, true);
+    // a part of the circuit that none of the edits reach
+    for (var i = 0; i < 4; i++) {
+      b.gate(circuits.builtin("Gates", "NOT Gate"), 2, "q" + i, i == 0 ? "p" : "q" + (i - 1));
+    }
+    b.pin("p", 2, false);
+    final var circuit = b.finish();
+    // removing components needs the project
+    circuit.setProject(circuits.getProject());
+    var map = circuit.wires.getBundleMap();
+
+    // lengthen a wire of a bit
+    final var end = outs[1].getEnd1();
+    final var longer = Wire.create(end, end.translate(0, 30));
+    map = update(circuit, map, longer, null);
+    // hang a second splitter off the bus
+    final var busEnd = in.getEnd0();
+    final var drop = Wire.create(busEnd, busEnd.translate(0, 40));
+    map = update(circuit, map, drop, null);
+    final var second = splitter(busEnd.translate(0, 40), 2, 4);
+    map = update(circuit, map, second, null);
+    // disconnect bits, then the bus from the splitters
+    map = update(circuit, map, null, longer);
+    map = update(circuit, map, null, outs[2]);
+    // a tunnel connects its net to points that are not reachable from where it was
+    final var tunnel = circuit.getNonWires(outs[0].getEnd1()).iterator().next();
+    map = update(circuit, map, null, tunnel);
+    map = update(circuit, map, null, in);
+    map = update(circuit, map, null, second);
+    update(circuit, map, null, drop);
+  }
+}
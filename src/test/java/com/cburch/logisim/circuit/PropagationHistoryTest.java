@@ -0,0 +1,97 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.circuit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.cburch.logisim.TestBase;
+import com.cburch.logisim.TestCircuits;
+import com.cburch.logisim.comp.ComponentState;
+import com.cburch.logisim.std.memory.MemContents;
+import org.junit.jupiter.api.Test;
+
+/** Checks that stepping back continues the simulation as a fresh run does from that tick on. */
+public class PropagationHistoryTest extends TestBase {
+  private static final long LIMIT = 1 << 24;
+
+  @Test
+  public void testStepBack() {
+    final var circuits = new TestCircuits();
+    final var circuit = SimulationCheckpointTest.ramMachine(circuits);
+    final var fresh = new CircuitState(circuits.getProject(), circuit);
+    fresh.getPropagator().propagate();
+    SimulationCheckpointTest.run(fresh, 20);
+    final var expected = SimulationCheckpointTest.run(fresh, 50);
+
+    final var state = new CircuitState(circuits.getProject(), circuit);
+    final var prop = state.getPropagator();
+    prop.setHistoryLimit(LIMIT);
+    prop.propagate();
+    SimulationCheckpointTest.run(state, 33);
+    assertEquals(13, prop.stepBack(13));
+    assertEquals(20, prop.getTickCount());
+    assertEquals(expected, SimulationCheckpointTest.run(state, 50));
+  }
+
+  @Test
+  public void testStepBackTwice() {
+    final var circuits = new TestCircuits();
+    final var circuit = SimulationCheckpointTest.ramMachine(circuits);
+    final var fresh = new CircuitState(circuits.getProject(), circuit);
+    fresh.getPropagator().propagate();
+    SimulationCheckpointTest.run(fresh, 9);
+    final var expected = SimulationCheckpointTest.run(fresh, 50);
+
+    final var state = new CircuitState(circuits.getProject(), circuit);
+    final var prop = state.getPropagator();
+    prop.setHistoryLimit(LIMIT);
+    prop.propagate();
+    SimulationCheckpointTest.run(state, 25);
+    assertEquals(6, prop.stepBack(6));
+    SimulationCheckpointTest.run(state, 3);
+    assertEquals(13, prop.stepBack(13));
+    assertEquals(9, prop.getTickCount());
+    assertEquals(expected, SimulationCheckpointTest.run(state, 50));
+  }
+
+  // the data of a memory, which shares its pages with its clones
+  private static final class Memory implements ComponentState {
+    MemContents contents = MemContents.create(16, 32);
+
+    @Override
+    public Memory clone() {
+      final var ret = new Memory();
+      ret.contents = contents.clone();
+      return ret;
+    }
+
+    @Override
+    public long getCopiedBytes() {
+      return contents.getCopiedBytes();
+    }
+  }
+
+  @Test
+  public void testChargesCopiedPages() {
+    final var limit = 1 << 20;
+    final var history = new PropagationHistory(limit, 0);
+    final var memory = new Memory();
+    for (var i = 0; i < 16; i++) memory.contents.set(i * 4096L, 1);
+    for (var tick = 1; tick <= 200; tick++) {
+      history.beginTick(tick);
+      history.dataChanging(null, null, memory);
+      memory.contents.set((tick % 16) * 4096L, tick);
+    }
+    // each tick copies a page of 4096 words of 4 bytes
+    assertTrue(history.size() <= limit / (4 * 4096), "history of " + history.size() + " ticks");
+    assertTrue(history.size() > 0);
+  }
+}
@@ -0,0 +1,121 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.circuit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import com.cburch.logisim.TestBase;
+import com.cburch.logisim.circuit.Propagator.SetData;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+/** Checks that the timing wheel hands out events in the same order as the binary heap. */
+public class PropagatorQueueTest extends TestBase {
+
+  private static class Run {
+    final PropagatorQueue wheel = new PropagatorTimingWheel();
+    final PropagatorQueue heap = new PropagatorHeapQueue();
+    int serial = 0;
+    int now;
+
+    Run(int start) {
+      now = start;
+    }
+
+    void add(int delay) {
+      final var data = new SetData(now + delay, serial++, null, null, null, null);
+      wheel.add(data);
+      heap.add(data);
+      assertEquals(heap.size(), wheel.size());
+    }
+
+    void poll() {
+      final var expected = heap.poll();
+      assertSame(expected, wheel.poll());
+      if (expected != null) now = expected.time;
+      check();
+    }
+
+    void check() {
+      assertSame(heap.peek(), wheel.peek());
+      assertEquals(heap.size(), wheel.size());
+      assertEquals(heap.isEmpty(), wheel.isEmpty());
+    }
+
+    void drain() {
+      while (!heap.isEmpty()) poll();
+      assertNull(wheel.poll());
+      assertNull(wheel.peek());
+    }
+  }
+
+  private static void randomRun(long seed, int start) {
+    final var random = new Random(seed);
+    final var run = new Run(start);
+    for (var step = 0; step < 20000; step++) {
+      final var choice = random.nextInt(100);
+      if (choice < 45) {
+        // the propagator mostly schedules a few units ahead, often at the same time
+        run.add(random.nextInt(4) == 0 ? 0 : 1 + random.nextInt(30));
+      } else if (choice < 50) {
+        // beyond the window of the wheel
+        run.add(1024 + random.nextInt(5000));
+      } else if (choice < 51) {
+        // before the last event taken out, which makes the wheel rebuild its window
+        run.add(-1 - random.nextInt(50));
+      } else if (choice < 52) {
+        run.wheel.clear();
+        run.heap.clear();
+        run.check();
+      } else {
+        run.poll();
+      }
+    }
+    run.drain();
+  }
+
+  @Test
+  public void testRandomized() {
+    for (var seed = 0; seed < 10; seed++) randomRun(seed, 0);
+  }
+
+  /** Checks the order of events whose time wraps around the largest integer. */
+  @Test
+  public void testTimeWrapAround() {
+    for (var seed = 0; seed < 10; seed++) randomRun(seed, Integer.MAX_VALUE - 20000);
+  }
+
+  /** Checks that events of the same time come out in the order they were scheduled. */
+  @Test
+  public void testSameTimeOrder() {
+    final var run = new Run(Integer.MAX_VALUE - 1);
+    for (var i = 0; i < 100; i++) run.add(i % 3);
+    run.add(5000);
+    run.add(5000);
+    run.drain();
+  }
+
+  /** Checks events that only enter the window of the wheel after a rebuild. */
+  @Test
+  public void testOverflowRebase() {
+    final var run = new Run(100);
+    run.add(3000);
+    run.add(2000);
+    run.add(1);
+    run.poll();
+    run.add(-50);
+    run.add(2000);
+    run.add(1023);
+    run.add(1024);
+    run.drain();
+  }
+}
@@ -0,0 +1,77 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.circuit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+import com.cburch.logisim.TestBase;
+import com.cburch.logisim.comp.Component;
+import com.cburch.logisim.data.Location;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+public class PropagatorTickSetTest extends TestBase {
+  private final CircuitState[] states = {mock(CircuitState.class), mock(CircuitState.class)};
+  private final Component[] causes = {
+    mock(Component.class), mock(Component.class), mock(Component.class)
+  };
+
+  private boolean add(PropagatorTickSet set, int state, int cause, int x) {
+    return set.add(states[state], causes[cause], Location.create(10 * x, 0));
+  }
+
+  /** Checks the set against a hash set over many ticks, growing it on the way. */
+  @Test
+  public void testRandomized() {
+    final var random = new Random(5);
+    final var set = new PropagatorTickSet();
+    final var model = new HashSet<List<Integer>>();
+    for (var tick = 0; tick < 200; tick++) {
+      final var points = tick % 10 == 9 ? 2000 : 50;
+      for (var i = 0; i < points; i++) {
+        final var state = random.nextInt(states.length);
+        final var cause = random.nextInt(causes.length);
+        final var x = random.nextInt(points);
+        assertEquals(model.add(List.of(state, cause, x)), add(set, state, cause, x));
+      }
+      set.nextTick();
+      model.clear();
+    }
+  }
+
+  /** Checks that a new tick keeps nothing of the entries before it reachable. */
+  @Test
+  public void testDropsReferences() {
+    final var set = new PropagatorTickSet();
+    for (var x = 0; x < 1000; x++) assertTrue(add(set, x % 2, x % 3, x));
+    assertEquals(1000, set.referenced());
+    set.nextTick();
+    assertEquals(0, set.referenced());
+    assertTrue(add(set, 0, 0, 1));
+    assertFalse(add(set, 0, 0, 1));
+    assertEquals(1, set.referenced());
+  }
+
+  @Test
+  public void testClear() {
+    final var set = new PropagatorTickSet();
+    assertTrue(add(set, 0, 1, 1));
+    set.clear();
+    assertTrue(add(set, 0, 1, 1));
+    assertFalse(add(set, 0, 1, 1));
+    set.clear();
+    assertEquals(0, set.referenced());
+  }
+}
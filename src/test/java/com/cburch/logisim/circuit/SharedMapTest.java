@@ -0,0 +1,168 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.circuit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.cburch.logisim.TestBase;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+public class SharedMapTest extends TestBase {
+
+  private static Map<Integer, String> contents(SharedMap<Integer, String> map) {
+    final var ret = new HashMap<Integer, String>();
+    map.forEach(ret::put);
+    return ret;
+  }
+
+  /** Checks that entries put and removed on top of frozen layers hide those below. */
+  @Test
+  public void testPutRemoveAcrossLayers() {
+    final var src = new SharedMap<Integer, String>();
+    final var copy = new SharedMap<Integer, String>();
+    final var base = new HashMap<Integer, String>();
+    base.put(1, "one");
+    base.put(2, "two");
+    for (var i = 4; i < 14; i++) base.put(i, "v" + i);
+    base.forEach(src::put);
+    copy.shareFrom(src);
+    assertEquals(1, src.depth());
+
+    assertEquals("one", src.remove(1));
+    assertNull(src.remove(1));
+    assertFalse(src.containsKey(1));
+    assertNull(src.get(1));
+    assertEquals("two", src.put(2, "deux"));
+    assertEquals("deux", src.get(2));
+    assertNull(src.put(3, "three"));
+    assertTrue(src.containsKey(3));
+
+    // a second freeze keeps the removal on top of the larger layer with the entry it hides
+    final var copy2 = new SharedMap<Integer, String>();
+    copy2.shareFrom(src);
+    assertEquals(2, src.depth());
+    assertFalse(copy2.containsKey(1));
+    assertNull(copy2.put(1, "uno"));
+    assertEquals("uno", copy2.get(1));
+    final var expected2 = new HashMap<>(base);
+    expected2.put(1, "uno");
+    expected2.put(2, "deux");
+    expected2.put(3, "three");
+    assertEquals(expected2, contents(copy2));
+    expected2.remove(1);
+    assertEquals(expected2, contents(src));
+    assertEquals(base, contents(copy));
+  }
+
+  /**
+   * Checks that small layers are merged with each other but not into a large layer below them,
+   * so that sharing after few changes neither copies the whole map nor piles up layers.
+   */
+  @Test
+  public void testMergeSmallLayers() {
+    final var src = new SharedMap<Integer, String>();
+    final var copy = new SharedMap<Integer, String>();
+    final var expected = new HashMap<Integer, String>();
+    for (var i = 0; i < 1000; i++) expected.put(i, "v" + i);
+    expected.put(-1, "gone");
+    expected.forEach(src::put);
+    copy.shareFrom(src);
+    assertEquals(1, src.depth());
+    for (var i = 0; i < 200; i++) {
+      if (i == 50) {
+        src.remove(-1);
+        expected.remove(-1);
+      }
+      src.put(i, "w" + i);
+      expected.put(i, "w" + i);
+      copy.shareFrom(src);
+      // the large layer stays at the bottom, with about log2(i) small layers above it
+      assertTrue(src.depth() >= 2, "depth " + src.depth());
+      assertTrue(src.depth() <= 2 + 32 - Integer.numberOfLeadingZeros(i + 1), "depth " + src.depth());
+      assertEquals(src.depth(), copy.depth());
+    }
+    assertEquals(expected, contents(src));
+    assertEquals(expected, contents(copy));
+    assertFalse(copy.containsKey(-1));
+    // sharing without changes adds no layer
+    final var depth = copy.depth();
+    copy.shareFrom(src);
+    assertEquals(depth, copy.depth());
+  }
+
+  /** Checks that maps sharing their contents change independently of each other. */
+  @Test
+  public void testIndependentCopies() {
+    final var random = new Random(17);
+    final var maps = new ArrayList<SharedMap<Integer, String>>();
+    final var models = new ArrayList<Map<Integer, String>>();
+    for (var i = 0; i < 4; i++) {
+      maps.add(new SharedMap<>());
+      models.add(new HashMap<>());
+    }
+    for (var step = 0; step < 5000; step++) {
+      final var i = random.nextInt(maps.size());
+      final var map = maps.get(i);
+      final var model = models.get(i);
+      final var key = random.nextInt(32);
+      switch (random.nextInt(10)) {
+        case 0 -> {
+          final var j = random.nextInt(maps.size());
+          maps.get(j).shareFrom(map);
+          models.set(j, new HashMap<>(model));
+        }
+        case 1, 2, 3 -> assertEquals(model.remove(key), map.remove(key));
+        default -> {
+          final var value = "s" + step;
+          assertEquals(model.put(key, value), map.put(key, value));
+        }
+      }
+      for (var k = 0; k < maps.size(); k++) {
+        assertEquals(models.get(k).containsKey(key), maps.get(k).containsKey(key));
+        assertEquals(models.get(k).get(key), maps.get(k).get(key));
+      }
+    }
+    for (var k = 0; k < maps.size(); k++) assertEquals(models.get(k), contents(maps.get(k)));
+  }
+
+  /**
+   * Checks that a map with a copier takes its own copy of a shared value on the first lookup for
+   * an update, and that plain lookups copy nothing.
+   */
+  @Test
+  public void testCopyOnLookup() {
+    final var src = new SharedMap<String, StringBuilder>(StringBuilder::new);
+    final var copy = new SharedMap<String, StringBuilder>(StringBuilder::new);
+    src.put("a", new StringBuilder("x"));
+    copy.shareFrom(src);
+    assertSame(src.get("a"), copy.get("a"));
+    final var mine = copy.getForUpdate("a");
+    assertSame(mine, copy.getForUpdate("a"));
+    assertSame(mine, copy.get("a"));
+    mine.append("y");
+    final var theirs = src.get("a");
+    assertNotSame(mine, theirs);
+    assertEquals("x", theirs.toString());
+    assertEquals("xy", copy.get("a").toString());
+    copy.clear();
+    assertEquals(0, copy.depth());
+    assertFalse(copy.containsKey("a"));
+    assertTrue(src.containsKey("a"));
+  }
+}
@@ -0,0 +1,164 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.circuit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.cburch.logisim.TestBase;
+import com.cburch.logisim.TestCircuits;
+import com.cburch.logisim.data.BitWidth;
+import com.cburch.logisim.data.Location;
+import com.cburch.logisim.data.Value;
+import com.cburch.logisim.instance.StdAttr;
+import com.cburch.logisim.std.arith.Adder;
+import com.cburch.logisim.std.memory.Counter;
+import com.cburch.logisim.std.memory.Mem;
+import com.cburch.logisim.std.memory.RamAppearance;
+import com.cburch.logisim.std.memory.Register;
+import com.cburch.logisim.std.wiring.Clock;
+import com.cburch.logisim.std.wiring.Constant;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/** Checks that a restored checkpoint continues the simulation as it went on after saving. */
+public class SimulationCheckpointTest extends TestBase {
+  @TempDir Path dir;
+
+  /**
+   * Builds a clocked circuit in which a counter addresses a RAM that writes back its output plus
+   * the address, and a register that latches the output of the RAM. All is three bits wide, so
+   * that the RAM is read again soon after it was written.
+   */
+  static Circuit ramMachine(TestCircuits circuits) {
+    final var b = circuits.build("machine");
+    final var clock = b.add(Clock.FACTORY, null);
+    b.connect(clock, 0, "clk");
+    final var one = b.add(Constant.FACTORY, null);
+    b.connect(one, 0, "one");
+    final var counter =
+        b.add(circuits.builtin("Memory", "Counter"), a -> a.setValue(StdAttr.WIDTH, BitWidth.create(3)));
+    b.connect(counter, Counter.OUT, "pc");
+    b.connect(counter, Counter.CK, "clk");
+    final var ram =
+        b.add(circuits.builtin("Memory", "RAM"), a -> {
+          a.setValue(Mem.ADDR_ATTR, BitWidth.create(3));
+          a.setValue(Mem.DATA_ATTR, BitWidth.create(3));
+        });
+    final var attrs = ram.getAttributeSet();
+    b.connect(ram, RamAppearance.getAddrIndex(0, attrs), "pc");
+    b.connect(ram, RamAppearance.getDataOutIndex(0, attrs), "q");
+    final var dataIn = RamAppearance.getDataInIndex(0, attrs);
+    if (dataIn != RamAppearance.getDataOutIndex(0, attrs)) b.connect(ram, dataIn, "d");
+    for (final var port : new int[] {RamAppearance.getWEIndex(0, attrs), RamAppearance.getOEIndex(0, attrs)}) {
+      if (port >= 0) b.connect(ram, port, "one");
+    }
+    if (RamAppearance.getClkIndex(0, attrs) >= 0) b.connect(ram, RamAppearance.getClkIndex(0, attrs), "clk");
+    final var adder =
+        b.add(circuits.builtin("Arithmetic", "Adder"), a -> a.setValue(StdAttr.WIDTH, BitWidth.create(3)));
+    b.connect(adder, Adder.IN0, "q");
+    b.connect(adder, Adder.IN1, "pc");
+    b.connect(adder, Adder.OUT, "d");
+    final var register =
+        b.add(circuits.builtin("Memory", "Register"), a -> a.setValue(StdAttr.WIDTH, BitWidth.create(3)));
+    b.connect(register, Register.IN, "q");
+    b.connect(register, Register.CK, "clk");
+    b.connect(register, Register.OUT, "r");
+    b.pin("r", 3, true);
+    b.pin("pc", 3, true);
+    return b.finish();
+  }
+
+  private static TreeSet<Location> points(Circuit circuit) {
+    final var ret = new TreeSet<Location>();
+    for (final var comp : circuit.getNonWires()) {
+      for (final var end : comp.getEnds()) ret.add(end.getLocation());
+    }
+    return ret;
+  }
+
+  /**
+   * Runs the given number of ticks and returns, per tick, the tick count, the output of the
+   * register and the values at all points.
+   */
+  static List<List<Object>> run(CircuitState state, int ticks) {
+    final var prop = state.getPropagator();
+    final var points = points(state.getCircuit());
+    final var ret = new ArrayList<List<Object>>();
+    for (var i = 0; i < ticks; i++) {
+      prop.toggleClocks();
+      prop.propagate();
+      final var values = new ArrayList<Object>();
+      values.add(prop.getTickCount());
+      values.add(TestCircuits.getPin(state, "r"));
+      for (final var loc : points) values.add(state.getValue(loc));
+      ret.add(values);
+    }
+    return ret;
+  }
+
+  @Test
+  public void testRoundTrip() throws IOException {
+    final var circuits = new TestCircuits();
+    final var circuit = ramMachine(circuits);
+    final var state = new CircuitState(circuits.getProject(), circuit);
+    state.getPropagator().propagate();
+    run(state, 37);
+    final var file = new File(dir.toFile(), "machine.lsc");
+    SimulationCheckpoint.save(state, file);
+    final var expected = run(state, 50);
+    // the contents of the RAM have to matter, so the register sees several of them
+    final var latched = new TreeSet<Long>();
+    for (final var values : expected) latched.add(((Value) values.get(1)).toLongValue());
+    assertTrue(latched.size() > 2, "register latched " + latched);
+    SimulationCheckpoint.restore(state, file);
+    assertEquals(37, state.getPropagator().getTickCount());
+    final var actual = run(state, 50);
+    for (var i = 0; i < expected.size(); i++) assertEquals(expected.get(i), actual.get(i), "tick " + i);
+  }
+
+  @Test
+  public void testRestoreIntoNewState() throws IOException {
+    final var circuits = new TestCircuits();
+    final var circuit = ramMachine(circuits);
+    final var state = new CircuitState(circuits.getProject(), circuit);
+    state.getPropagator().propagate();
+    run(state, 21);
+    final var file = new File(dir.toFile(), "machine.lsc");
+    SimulationCheckpoint.save(state, file);
+    final var expected = run(state, 40);
+    final var other = new CircuitState(circuits.getProject(), circuit);
+    SimulationCheckpoint.restore(other, file);
+    assertEquals(expected, run(other, 40));
+  }
+
+  @Test
+  public void testRefusesUnsettled() {
+    final var circuits = new TestCircuits();
+    final var circuit = ramMachine(circuits);
+    final var state = new CircuitState(circuits.getProject(), circuit);
+    final var prop = state.getPropagator();
+    prop.propagate();
+    prop.toggleClocks();
+    assertTrue(prop.step(null));
+    assertTrue(prop.isPending());
+    final var file = new File(dir.toFile(), "pending.lsc");
+    assertThrows(IOException.class, () -> SimulationCheckpoint.save(state, file));
+    assertFalse(file.exists());
+  }
+}
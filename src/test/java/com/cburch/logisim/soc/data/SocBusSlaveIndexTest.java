@@ -0,0 +1,138 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.soc.data;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.cburch.logisim.TestBase;
+import com.cburch.logisim.instance.InstanceComponent;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+public class SocBusSlaveIndexTest extends TestBase {
+
+  private static class Slave implements SocBusSlaveInterface {
+    private final int start;
+    private final int size;
+
+    Slave(int start, int size) {
+      this.start = start;
+      this.size = size;
+    }
+
+    boolean covers(int address) {
+      final var addr = SocSupport.convUnsignedInt(address);
+      final var begin = SocSupport.convUnsignedInt(start);
+      return addr >= begin && addr < begin + SocSupport.convUnsignedInt(size);
+    }
+
+    @Override
+    public boolean canHandleTransaction(SocBusTransaction trans) {
+      return covers(trans.getAddress());
+    }
+
+    @Override
+    public void handleTransaction(SocBusTransaction trans) {}
+
+    @Override
+    public Integer getStartAddress() {
+      return start;
+    }
+
+    @Override
+    public Integer getMemorySize() {
+      return size;
+    }
+
+    @Override
+    public String getName() {
+      return String.format("0x%08X+0x%X", start, size);
+    }
+
+    @Override
+    public void registerListener(SocBusSlaveListener l) {}
+
+    @Override
+    public void removeListener(SocBusSlaveListener l) {}
+
+    @Override
+    public InstanceComponent getComponent() {
+      return null;
+    }
+
+    @Override
+    public String toString() {
+      return getName();
+    }
+  }
+
+  private static void check(SocBusSlaveIndex index, List<Slave> slaves, int address) {
+    final var expected = new ArrayList<Slave>();
+    for (final var slave : slaves) if (slave.covers(address)) expected.add(slave);
+    assertEquals(Set.copyOf(expected), Set.copyOf(Arrays.asList(index.getSlaves(address))),
+        String.format("address 0x%08X", address));
+  }
+
+  /** Checks the first and last address of every slave and the addresses right around them. */
+  @Test
+  public void testBoundaries() {
+    final var slaves = List.of(
+        new Slave(0, 0x100),
+        new Slave(0x100, 0x10),
+        new Slave(0x80, 0x100), // overlaps both slaves above
+        new Slave(0x1000, 0), // covers nothing
+        new Slave(0x7FFFFFF0, 0x20), // crosses into the upper half
+        new Slave(0x80000000, 0x1000),
+        new Slave(0xFFFFFF00, 0x100)); // ends at the top of the address space
+    final var index = new SocBusSlaveIndex(new ArrayList<>(slaves));
+    for (final var slave : slaves) {
+      final var end = slave.start + slave.size;
+      for (final var address : new int[] {slave.start - 1, slave.start, slave.start + 1,
+          end - 1, end, end + 1}) {
+        check(index, slaves, address);
+      }
+    }
+    for (final var address : new int[] {0, 0x7FFFFFFF, 0x80000000, 0xC0000000, 0xFFFFFFFF}) {
+      check(index, slaves, address);
+    }
+  }
+
+  @Test
+  public void testEmpty() {
+    final var index = new SocBusSlaveIndex(new ArrayList<>());
+    assertEquals(0, index.getSlaves(0).length);
+    assertEquals(0, index.getSlaves(0xFFFFFFFF).length);
+  }
+
+  /** Checks random maps against asking every slave, with the addresses in random order. */
+  @Test
+  public void testRandomized() {
+    final var random = new Random(3);
+    for (var map = 0; map < 50; map++) {
+      final var slaves = new ArrayList<Slave>();
+      final var bounds = new ArrayList<Integer>();
+      for (var i = 0; i < 1 + random.nextInt(8); i++) {
+        final var slave = new Slave(random.nextInt() & ~0xF, 1 + random.nextInt(0x10000));
+        slaves.add(slave);
+        bounds.add(slave.start);
+        bounds.add(slave.start + slave.size);
+      }
+      final var index = new SocBusSlaveIndex(new ArrayList<>(slaves));
+      for (var i = 0; i < 500; i++) {
+        final var near = bounds.get(random.nextInt(bounds.size()));
+        check(index, slaves, random.nextBoolean() ? near + random.nextInt(9) - 4 : random.nextInt());
+      }
+    }
+  }
+}
@@ -0,0 +1,124 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.std.memory;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.cburch.logisim.TestBase;
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.Arrays;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class MemContentsTest extends TestBase {
+  // 2**24 words: four leaves of 1024 pages of 4096 words
+  private static final int ADDR_BITS = 24;
+  private static final long PAGE = 1 << 12;
+  private static final long LEAF = PAGE << 10;
+
+  @TempDir File tempDir;
+
+  /** Lists the addresses nextUsedAddress visits, one per page holding data. */
+  private static long[] usedPages(MemContents contents) {
+    final var ret = new long[16];
+    var n = 0;
+    for (var addr = contents.nextUsedAddress(0); addr >= 0; addr = contents.nextUsedAddress(addr + PAGE)) {
+      ret[n++] = addr;
+    }
+    return Arrays.copyOf(ret, n);
+  }
+
+  @Test
+  public void testCloneCopiesOnWrite() {
+    final var original = MemContents.create(ADDR_BITS, 16);
+    original.set(5, 0x1234);
+    original.set(LEAF + 7, 0x5678);
+    final var copy = original.clone();
+
+    // writes to a shared page, to a new page of a shared leaf and to a leaf of its own
+    original.write(5, 0x1111);
+    original.write(2 * PAGE, 0x2222);
+    original.write(2 * LEAF, 0x3333);
+    copy.write(LEAF + 7, 0x4444);
+    copy.write(LEAF + 3 * PAGE + 1, 0x5555);
+    copy.write(3 * LEAF + 9, 0x6666);
+
+    assertEquals(0x1111, original.get(5));
+    assertEquals(0x2222, original.get(2 * PAGE));
+    assertEquals(0x3333, original.get(2 * LEAF));
+    assertEquals(0x5678, original.get(LEAF + 7));
+    assertEquals(0, original.get(LEAF + 3 * PAGE + 1));
+    assertEquals(0, original.get(3 * LEAF + 9));
+
+    assertEquals(0x1234, copy.get(5));
+    assertEquals(0, copy.get(2 * PAGE));
+    assertEquals(0, copy.get(2 * LEAF));
+    assertEquals(0x4444, copy.get(LEAF + 7));
+    assertEquals(0x5555, copy.get(LEAF + 3 * PAGE + 1));
+    assertEquals(0x6666, copy.get(3 * LEAF + 9));
+
+    assertArrayEquals(new long[] {0, 2 * PAGE, LEAF, 2 * LEAF}, usedPages(original));
+    assertArrayEquals(new long[] {0, LEAF, LEAF + 3 * PAGE, 3 * LEAF}, usedPages(copy));
+    assertEquals(LEAF + 7, copy.nextUsedAddress(LEAF + 7));
+    assertEquals(-1, original.nextUsedAddress(2 * LEAF + PAGE));
+  }
+
+  @Test
+  public void testCloneOfClone() {
+    final var first = MemContents.create(ADDR_BITS, 8);
+    first.write(10, 1);
+    final var second = first.clone();
+    final var third = second.clone();
+    second.write(10, 2);
+    third.write(11, 3);
+    assertEquals(1, first.get(10));
+    assertEquals(0, first.get(11));
+    assertEquals(2, second.get(10));
+    assertEquals(0, second.get(11));
+    assertEquals(1, third.get(10));
+    assertEquals(3, third.get(11));
+  }
+
+  private File image(String name, long length, byte[] head) throws Exception {
+    final var ret = new File(tempDir, name);
+    try (final var file = new RandomAccessFile(ret, "rw")) {
+      file.setLength(length);
+      file.write(head);
+    }
+    return ret;
+  }
+
+  private void checkImage(File file) throws Exception {
+    final var before = Files.readAllBytes(file.toPath());
+    final var contents = MemContents.readImage(file, ADDR_BITS, 16, false);
+    final var copy = contents.clone();
+    assertEquals(0x0201, contents.get(0));
+    assertEquals(0x0403, contents.get(1));
+    assertEquals(0, contents.get(2));
+    contents.write(1, 0xbeef);
+    assertEquals(0xbeef, contents.get(1));
+    assertEquals(0x0403, copy.get(1));
+    assertEquals(0x0201, contents.get(0));
+    assertArrayEquals(before, Files.readAllBytes(file.toPath()));
+  }
+
+  @Test
+  public void testSmallImage() throws Exception {
+    checkImage(image("small.bin", 100, new byte[] {1, 2, 3, 4}));
+  }
+
+  @Test
+  public void testMappedImage() throws Exception {
+    checkImage(image("large.bin", MemContents.MAP_THRESHOLD, new byte[] {1, 2, 3, 4}));
+  }
+}